@@ -26,6 +26,7 @@ module org.eclipse.jetty.client
 
     exports org.eclipse.jetty.client;
     exports org.eclipse.jetty.client.api;
+    exports org.eclipse.jetty.client.cache;
     exports org.eclipse.jetty.client.dynamic;
     exports org.eclipse.jetty.client.http;
     exports org.eclipse.jetty.client.util;
@@ -0,0 +1,136 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.client;
+
+import java.nio.ByteBuffer;
+import java.util.ListIterator;
+
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.encoding.ContentEncoding;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.util.component.Destroyable;
+
+/**
+ * {@link ContentDecoder} for any {@link ContentEncoding}, such as those
+ * discovered by the {@link java.util.ServiceLoader}.
+ */
+public class ContentEncodingDecoder implements ContentDecoder, Destroyable
+{
+    private final ContentEncoding.Decoder decoder;
+    private long decodedLength;
+
+    public ContentEncodingDecoder(ContentEncoding.Decoder decoder)
+    {
+        this.decoder = decoder;
+    }
+
+    @Override
+    public void beforeDecoding(HttpExchange exchange)
+    {
+        exchange.getResponse().headers(headers ->
+        {
+            ListIterator<HttpField> iterator = headers.listIterator();
+            while (iterator.hasNext())
+            {
+                HttpField field = iterator.next();
+                HttpHeader header = field.getHeader();
+                if (header == HttpHeader.CONTENT_LENGTH)
+                {
+                    // Content-Length is not valid anymore while we are decoding.
+                    iterator.remove();
+                }
+                else if (header == HttpHeader.CONTENT_ENCODING)
+                {
+                    // Content-Encoding should be removed/modified as the content will be decoded.
+                    String value = field.getValue();
+                    int comma = value.lastIndexOf(",");
+                    if (comma < 0)
+                        iterator.remove();
+                    else
+                        iterator.set(new HttpField(HttpHeader.CONTENT_ENCODING, value.substring(0, comma)));
+                }
+            }
+        });
+    }
+
+    @Override
+    public ByteBuffer decode(ByteBuffer buffer)
+    {
+        ByteBuffer decoded = decoder.decode(buffer);
+        decodedLength += decoded.remaining();
+        return decoded;
+    }
+
+    @Override
+    public void release(ByteBuffer decoded)
+    {
+        decoder.release(decoded);
+    }
+
+    @Override
+    public void afterDecoding(HttpExchange exchange)
+    {
+        exchange.getResponse().headers(headers ->
+        {
+            headers.remove(HttpHeader.TRANSFER_ENCODING);
+            headers.putLongField(HttpHeader.CONTENT_LENGTH, decodedLength);
+        });
+    }
+
+    @Override
+    public void destroy()
+    {
+        decoder.destroy();
+    }
+
+    /**
+     * Specialized {@link ContentDecoder.Factory} for the encoding of a {@link ContentEncoding}.
+     */
+    public static class Factory extends ContentDecoder.Factory
+    {
+        private final ContentEncoding contentEncoding;
+        private final ByteBufferPool byteBufferPool;
+        private final int bufferSize;
+
+        public Factory(ContentEncoding contentEncoding)
+        {
+            this(contentEncoding, null);
+        }
+
+        public Factory(ContentEncoding contentEncoding, ByteBufferPool byteBufferPool)
+        {
+            this(contentEncoding, byteBufferPool, GZIPContentDecoder.DEFAULT_BUFFER_SIZE);
+        }
+
+        public Factory(ContentEncoding contentEncoding, ByteBufferPool byteBufferPool, int bufferSize)
+        {
+            super(contentEncoding.getName());
+            this.contentEncoding = contentEncoding;
+            this.byteBufferPool = byteBufferPool;
+            this.bufferSize = bufferSize;
+        }
+
+        public ContentEncoding getContentEncoding()
+        {
+            return contentEncoding;
+        }
+
+        @Override
+        public ContentDecoder newContentDecoder()
+        {
+            return new ContentEncodingDecoder(contentEncoding.newDecoder(byteBufferPool, bufferSize, false));
+        }
+    }
+}
@@ -45,6 +45,7 @@ import org.eclipse.jetty.client.api.ContentResponse;
 import org.eclipse.jetty.client.api.Destination;
 import org.eclipse.jetty.client.api.Request;
 import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.cache.HttpCache;
 import org.eclipse.jetty.client.http.HttpClientTransportOverHTTP;
 import org.eclipse.jetty.client.util.FormRequestContent;
 import org.eclipse.jetty.http.HttpCompliance;
@@ -53,6 +54,8 @@ import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.HttpParser;
 import org.eclipse.jetty.http.HttpScheme;
+import org.eclipse.jetty.http.encoding.ContentEncoding;
+import org.eclipse.jetty.http.encoding.ContentEncodings;
 import org.eclipse.jetty.io.ArrayRetainableByteBufferPool;
 import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.io.ClientConnectionFactory;
@@ -124,6 +127,7 @@ public class HttpClient extends ContainerLifeCycle
     private final ProtocolHandlers handlers = new ProtocolHandlers();
     private final List<Request.Listener> requestListeners = new ArrayList<>();
     private final Set<ContentDecoder.Factory> decoderFactories = new ContentDecoderFactorySet();
+    private final List<ContentEncoding> contentEncodings = new ArrayList<>();
     private final ProxyConfiguration proxyConfig = new ProxyConfiguration();
     private final HttpClientTransport transport;
     private final ClientConnector connector;
@@ -150,6 +154,7 @@ public class HttpClient extends ContainerLifeCycle
     private boolean useOutputDirectByteBuffers = true;
     private int maxResponseHeadersSize = -1;
     private Sweeper destinationSweeper;
+    private HttpCache httpCache;
 
     /**
      * Creates a HttpClient instance that can perform HTTP/1.1 requests to non-TLS and TLS destinations.
@@ -221,8 +226,18 @@ public class HttpClient extends ContainerLifeCycle
         handlers.put(new WWWAuthenticationProtocolHandler(this));
         handlers.put(new ProxyAuthenticationProtocolHandler(this));
         handlers.put(new UpgradeProtocolHandler());
+        if (httpCache != null)
+            handlers.put(httpCache.getProtocolHandler());
 
         decoderFactories.add(new GZIPContentDecoder.Factory(byteBufferPool));
+        for (ContentEncoding contentEncoding : ContentEncodings.discover())
+        {
+            if (decoderFactories.add(new ContentEncodingDecoder.Factory(contentEncoding, getByteBufferPool())))
+            {
+                contentEncodings.add(contentEncoding);
+                addBean(contentEncoding);
+            }
+        }
 
         cookieManager = newCookieManager();
         cookieStore = cookieManager.getCookieStore();
@@ -263,6 +278,9 @@ public class HttpClient extends ContainerLifeCycle
         authenticationStore.clearAuthenticationResults();
 
         super.doStop();
+
+        contentEncodings.forEach(this::removeBean);
+        contentEncodings.clear();
     }
 
     /**
@@ -329,9 +347,32 @@ public class HttpClient extends ContainerLifeCycle
         this.authenticationStore = authenticationStore;
     }
 
+    /**
+     * @return the response cache, or null if responses are not cached
+     */
+    public HttpCache getHttpCache()
+    {
+        return httpCache;
+    }
+
+    /**
+     * @param httpCache the response cache, or null to not cache responses
+     */
+    public void setHttpCache(HttpCache httpCache)
+    {
+        if (isStarted())
+            throw new IllegalStateException();
+        updateBean(this.httpCache, httpCache);
+        this.httpCache = httpCache;
+    }
+
     /**
      * Returns a <em>non</em> thread-safe set of {@link ContentDecoder.Factory}s that can be modified before
      * performing requests.
+     * <p>
+     * When started, the set contains the factory for the {@code gzip} encoding and a
+     * {@link ContentEncodingDecoder.Factory} for each {@link ContentEncoding} discovered
+     * by the {@link java.util.ServiceLoader}.
      *
      * @return a set of {@link ContentDecoder.Factory} that can be used to add and remove content decoder factories
      */
@@ -536,6 +577,15 @@ public class HttpClient extends ContainerLifeCycle
     }
 
     protected void send(HttpRequest request, List<Response.ResponseListener> listeners)
+    {
+        HttpCache httpCache = this.httpCache;
+        if (httpCache != null)
+            httpCache.send(request, listeners, this::sendToDestination);
+        else
+            sendToDestination(request, listeners);
+    }
+
+    private void sendToDestination(HttpRequest request, List<Response.ResponseListener> listeners)
     {
         HttpDestination destination = (HttpDestination)resolveDestination(request);
         destination.send(request, listeners);
@@ -0,0 +1,278 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.client.api.Connection;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.NanoTime;
+import org.eclipse.jetty.util.Pool;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.thread.AutoLock;
+
+/**
+ * <p>A {@link ConnectionPool} that provides the least loaded connection among two chosen at random
+ * ("power of two choices"), where the load of a connection is the product of its number of in-flight
+ * requests and of its exponentially weighted moving average (EWMA) response latency.</p>
+ * <p>Compared to {@link RandomConnectionPool} and {@link RoundRobinConnectionPool}, this pool steers requests
+ * away from connections that are slow to respond, for example multiplexed connections with a congested
+ * network path, while comparing only two connections keeps the selection cheap and avoids all the
+ * requests herding onto the single fastest connection.</p>
+ * <p>The latency of a connection is measured from when it is acquired to when it is released; when
+ * multiplexed requests complete out of order, the latency of each request is approximated from the
+ * average start time of the requests in flight, which preserves the mean latency.</p>
+ * <p>If the preferred connection cannot be acquired, for example because its max multiplex is reached,
+ * the other connections are tried in order, as for the {@link Pool.StrategyType#FIRST} strategy.</p>
+ */
+@ManagedObject
+public class LatencyAwareConnectionPool extends MultiplexConnectionPool
+{
+    private final LatencyAwarePool pool;
+    private volatile double latencyWeight = 0.2;
+
+    public LatencyAwareConnectionPool(HttpDestination destination, int maxConnections, Callback requester)
+    {
+        this(destination, maxConnections, requester, 1);
+    }
+
+    public LatencyAwareConnectionPool(HttpDestination destination, int maxConnections, Callback requester, int maxMultiplex)
+    {
+        this(destination, new LatencyAwarePool(maxConnections), requester, maxMultiplex);
+    }
+
+    private LatencyAwareConnectionPool(HttpDestination destination, LatencyAwarePool pool, Callback requester, int maxMultiplex)
+    {
+        super(destination, pool, requester, maxMultiplex);
+        this.pool = pool;
+    }
+
+    /**
+     * @return the weight of the last response in the latency EWMA of a connection
+     */
+    @ManagedAttribute("The weight of the last response in the latency EWMA of a connection")
+    public double getLatencyWeight()
+    {
+        return latencyWeight;
+    }
+
+    /**
+     * <p>Sets the weight of the last response in the latency EWMA of a connection,
+     * where higher values react faster to changes and lower values smooth out spikes.</p>
+     *
+     * @param latencyWeight the weight between 0 (excluded) and 1 (included)
+     */
+    public void setLatencyWeight(double latencyWeight)
+    {
+        if (latencyWeight <= 0 || latencyWeight > 1)
+            throw new IllegalArgumentException("Invalid latency weight: " + latencyWeight);
+        this.latencyWeight = latencyWeight;
+    }
+
+    @ManagedAttribute(value = "The number of requests in flight on the connections", readonly = true)
+    public int getInFlightRequestCount()
+    {
+        int result = 0;
+        for (Latency latency : pool.latencies.values())
+        {
+            result += latency.inFlight;
+        }
+        return result;
+    }
+
+    @ManagedAttribute(value = "The average of the latency EWMA of the connections in microseconds", readonly = true)
+    public long getAverageLatency()
+    {
+        long total = 0;
+        int count = 0;
+        for (Latency latency : pool.latencies.values())
+        {
+            if (latency.samples > 0)
+            {
+                total += latency.ewma;
+                ++count;
+            }
+        }
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(total / count);
+    }
+
+    @ManagedAttribute(value = "The max of the latency EWMA of the connections in microseconds", readonly = true)
+    public long getMaxLatency()
+    {
+        long result = 0;
+        for (Latency latency : pool.latencies.values())
+        {
+            result = Math.max(result, latency.ewma);
+        }
+        return TimeUnit.NANOSECONDS.toMicros(result);
+    }
+
+    @ManagedAttribute(value = "The number of times the less loaded of two connections was preferred", readonly = true)
+    public long getLoadedSkipCount()
+    {
+        return pool.loadedSkips.sum();
+    }
+
+    @ManagedAttribute(value = "The in-flight requests and the latency EWMA of each connection", readonly = true)
+    public List<String> getConnectionStatistics()
+    {
+        List<String> result = new ArrayList<>();
+        for (Map.Entry<Connection, Latency> entry : pool.latencies.entrySet())
+        {
+            result.add(entry.getKey() + " " + entry.getValue());
+        }
+        return result;
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void resetStatistics()
+    {
+        pool.loadedSkips.reset();
+    }
+
+    @Override
+    protected void onCreated(Connection connection)
+    {
+        super.onCreated(connection);
+        pool.latencies.put(connection, new Latency());
+    }
+
+    @Override
+    protected void acquired(Connection connection)
+    {
+        super.acquired(connection);
+        Latency latency = pool.latencies.get(connection);
+        if (latency != null)
+            latency.start(NanoTime.now());
+    }
+
+    @Override
+    protected void released(Connection connection)
+    {
+        Latency latency = pool.latencies.get(connection);
+        if (latency != null)
+            latency.end(NanoTime.now(), latencyWeight);
+        super.released(connection);
+    }
+
+    @Override
+    protected void removed(Connection connection)
+    {
+        pool.latencies.remove(connection);
+        super.removed(connection);
+    }
+
+    private static class LatencyAwarePool extends MultiplexPool
+    {
+        private final Map<Connection, Latency> latencies = new ConcurrentHashMap<>();
+        private final LongAdder loadedSkips = new LongAdder();
+
+        private LatencyAwarePool(int maxEntries)
+        {
+            super(StrategyType.FIRST, maxEntries, false);
+        }
+
+        @Override
+        protected int startIndex(int size)
+        {
+            if (size <= 1)
+                return 0;
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(size);
+            int second = random.nextInt(size - 1);
+            if (second >= first)
+                ++second;
+            long now = NanoTime.now();
+            double firstLoad = load(first, now);
+            double secondLoad = load(second, now);
+            if (secondLoad < firstLoad)
+            {
+                loadedSkips.increment();
+                return second;
+            }
+            return first;
+        }
+
+        private double load(int index, long now)
+        {
+            Entry entry = getEntry(index);
+            if (entry == null || !entry.isIdle() && !entry.isInUse())
+                return Double.MAX_VALUE;
+            Connection connection = entry.getPooled();
+            Latency latency = connection == null ? null : latencies.get(connection);
+            if (latency == null)
+                return Double.MAX_VALUE;
+            return latency.load(now);
+        }
+    }
+
+    private static class Latency
+    {
+        private final AutoLock lock = new AutoLock();
+        private final long baseNanoTime = NanoTime.now();
+        private volatile int inFlight;
+        private volatile long ewma;
+        private volatile long samples;
+        // The sum of the start times, relative to the base time, of the requests in flight.
+        private volatile long startSum;
+
+        private void start(long now)
+        {
+            try (AutoLock l = lock.lock())
+            {
+                startSum += NanoTime.elapsed(baseNanoTime, now);
+                inFlight = inFlight + 1;
+            }
+        }
+
+        private void end(long now, double weight)
+        {
+            try (AutoLock l = lock.lock())
+            {
+                int count = inFlight;
+                if (count == 0)
+                    return;
+                long averageStart = startSum / count;
+                startSum -= averageStart;
+                inFlight = count - 1;
+                long sample = Math.max(0, NanoTime.elapsed(baseNanoTime, now) - averageStart);
+                ewma = samples == 0 ? sample : ewma + (long)((sample - ewma) * weight);
+                samples = samples + 1;
+            }
+        }
+
+        private double load(long now)
+        {
+            // The requests in flight have been waiting for at least their average
+            // age, which accounts for connections that stopped responding, or that
+            // have not responded yet, which would otherwise attract all requests.
+            int count = inFlight;
+            long age = count == 0 ? 0 : NanoTime.elapsed(baseNanoTime, now) - startSum / count;
+            return (count + 1) * (double)Math.max(1, Math.max(ewma, age));
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("inFlight=%d,latency=%dus,samples=%d", inFlight, TimeUnit.NANOSECONDS.toMicros(ewma), samples);
+        }
+    }
+}
@@ -34,26 +34,18 @@ public class MultiplexConnectionPool extends AbstractConnectionPool
 
     public MultiplexConnectionPool(HttpDestination destination, Pool.StrategyType strategy, int maxConnections, boolean cache, Callback requester, int maxMultiplex)
     {
-        super(destination, new Pool<>(strategy, maxConnections, cache)
-        {
-            @Override
-            protected int getMaxUsageCount(Connection connection)
-            {
-                int maxUsage = (connection instanceof MaxUsable)
-                    ? ((MaxUsable)connection).getMaxUsageCount()
-                    : super.getMaxUsageCount(connection);
-                return maxUsage > 0 ? maxUsage : -1;
-            }
+        this(destination, new MultiplexPool(strategy, maxConnections, cache), requester, maxMultiplex);
+    }
 
-            @Override
-            protected int getMaxMultiplex(Connection connection)
-            {
-                int multiplex = (connection instanceof Multiplexable)
-                    ? ((Multiplexable)connection).getMaxMultiplex()
-                    : super.getMaxMultiplex(connection);
-                return multiplex > 0 ? multiplex : 1;
-            }
-        }, requester);
+    /**
+     * @param destination the destination of the connections
+     * @param pool the pool of connections, which may override the lookup of the entries to acquire
+     * @param requester the callback notified when a connection is created
+     * @param maxMultiplex the default multiplexing factor of connections
+     */
+    protected MultiplexConnectionPool(HttpDestination destination, MultiplexPool pool, Callback requester, int maxMultiplex)
+    {
+        super(destination, pool, requester);
         setMaxMultiplex(maxMultiplex);
     }
 
@@ -89,4 +81,34 @@ public class MultiplexConnectionPool extends AbstractConnectionPool
     {
         super.setMaxUsageCount(maxUsageCount);
     }
+
+    /**
+     * <p>A {@link Pool} of connections that honors the max usage count
+     * and the max multiplex of {@link MaxUsable} and {@link Multiplexable} connections.</p>
+     */
+    protected static class MultiplexPool extends Pool<Connection>
+    {
+        public MultiplexPool(StrategyType strategyType, int maxEntries, boolean cache)
+        {
+            super(strategyType, maxEntries, cache);
+        }
+
+        @Override
+        protected int getMaxUsageCount(Connection connection)
+        {
+            int maxUsage = (connection instanceof MaxUsable)
+                ? ((MaxUsable)connection).getMaxUsageCount()
+                : super.getMaxUsageCount(connection);
+            return maxUsage > 0 ? maxUsage : -1;
+        }
+
+        @Override
+        protected int getMaxMultiplex(Connection connection)
+        {
+            int multiplex = (connection instanceof Multiplexable)
+                ? ((Multiplexable)connection).getMaxMultiplex()
+                : super.getMaxMultiplex(connection);
+            return multiplex > 0 ? multiplex : 1;
+        }
+    }
 }
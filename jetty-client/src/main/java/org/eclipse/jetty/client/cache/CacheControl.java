@@ -0,0 +1,131 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.client.cache;
+
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.QuotedCSV;
+import org.eclipse.jetty.util.StringUtil;
+
+/**
+ * <p>The {@code Cache-Control} directives of a request or of a response, see RFC 9111, section 5.2.</p>
+ */
+class CacheControl
+{
+    private long maxAge = -1;
+    private long staleWhileRevalidate = -1;
+    private boolean noStore;
+    private boolean noCache;
+    private boolean mustRevalidate;
+    private boolean onlyIfCached;
+
+    CacheControl(HttpFields fields)
+    {
+        if (!fields.contains(HttpHeader.CACHE_CONTROL))
+        {
+            // RFC 9111, section 5.4, Pragma: no-cache is only honored without Cache-Control.
+            String pragma = fields.get(HttpHeader.PRAGMA);
+            noCache = pragma != null && pragma.toLowerCase().contains("no-cache");
+            return;
+        }
+
+        QuotedCSV directives = new QuotedCSV(false);
+        for (String value : fields.getValuesList(HttpHeader.CACHE_CONTROL))
+        {
+            directives.addValue(value);
+        }
+        for (String directive : directives.getValues())
+        {
+            int equals = directive.indexOf('=');
+            String name = StringUtil.asciiToLowerCase((equals < 0 ? directive : directive.substring(0, equals)).trim());
+            String argument = equals < 0 ? null : directive.substring(equals + 1).trim();
+            switch (name)
+            {
+                case "max-age":
+                    maxAge = seconds(argument, maxAge);
+                    break;
+                case "stale-while-revalidate":
+                    staleWhileRevalidate = seconds(argument, staleWhileRevalidate);
+                    break;
+                case "no-store":
+                    noStore = true;
+                    break;
+                case "no-cache":
+                    // The qualified form is not supported, so it is as strict as the unqualified one.
+                    noCache = true;
+                    break;
+                case "must-revalidate":
+                case "proxy-revalidate":
+                    mustRevalidate = true;
+                    break;
+                case "only-if-cached":
+                    onlyIfCached = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private static long seconds(String argument, long defaultValue)
+    {
+        if (argument == null)
+            return defaultValue;
+        try
+        {
+            // RFC 9111, section 1.2.2, delta-seconds greater than 2^31 are treated as 2^31.
+            return Math.min(Long.parseLong(argument), Integer.MAX_VALUE);
+        }
+        catch (NumberFormatException x)
+        {
+            // RFC 9111, section 4.2.1, an invalid max-age makes the response stale.
+            return 0;
+        }
+    }
+
+    /**
+     * @return the {@code max-age} in seconds, or -1 if absent
+     */
+    long getMaxAge()
+    {
+        return maxAge;
+    }
+
+    /**
+     * @return the {@code stale-while-revalidate} in seconds, or -1 if absent (RFC 5861)
+     */
+    long getStaleWhileRevalidate()
+    {
+        return staleWhileRevalidate;
+    }
+
+    boolean isNoStore()
+    {
+        return noStore;
+    }
+
+    boolean isNoCache()
+    {
+        return noCache;
+    }
+
+    boolean isMustRevalidate()
+    {
+        return mustRevalidate;
+    }
+
+    boolean isOnlyIfCached()
+    {
+        return onlyIfCached;
+    }
+}
@@ -0,0 +1,727 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.client.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+import org.eclipse.jetty.client.ContentDecoder;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.HttpContentResponse;
+import org.eclipse.jetty.client.HttpConversation;
+import org.eclipse.jetty.client.HttpRequest;
+import org.eclipse.jetty.client.HttpResponse;
+import org.eclipse.jetty.client.ProtocolHandler;
+import org.eclipse.jetty.client.ResponseNotifier;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MimeTypes;
+import org.eclipse.jetty.http.QuotedCSV;
+import org.eclipse.jetty.util.StringUtil;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.util.thread.AutoLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>A private HTTP response cache for {@link HttpClient}, as specified by RFC 9111.</p>
+ * <p>A {@code GET} request is served from the {@link HttpCacheStore} if it has a fresh response
+ * for the request URI whose {@code Vary} request fields match; a stale response is revalidated
+ * with a conditional request using its {@code ETag} and {@code Last-Modified} validators,
+ * and is served again if the server replies {@code 304 Not Modified}.
+ * A stale response with a {@code stale-while-revalidate} directive (RFC 5861) is served
+ * immediately while it is revalidated in the background.</p>
+ * <p>Concurrent requests that miss the cache for the same URI are coalesced: only the first is
+ * sent, and the others are served from the stored response, or are sent if it cannot be stored.</p>
+ * <p>Successful responses to unsafe methods, such as {@code POST}, invalidate the stored response
+ * for the request URI.</p>
+ * <p>Requests with a {@code Range} or conditional headers of their own, or with
+ * {@code Cache-Control: no-store}, bypass the cache.
+ * Responses served from the cache notify only the response listeners of the request,
+ * since no request is actually sent.</p>
+ * <p>Typical usage:</p>
+ * <pre>
+ * HttpClient httpClient = new HttpClient();
+ * HttpCacheStore store = new MemoryHttpCacheStore(64 * 1024 * 1024, new PathHttpCacheStore(directory, 1024 * 1024 * 1024));
+ * httpClient.setHttpCache(new HttpCache(httpClient, store));
+ * httpClient.start();
+ * </pre>
+ */
+@ManagedObject("HTTP response cache")
+public class HttpCache extends ContainerLifeCycle
+{
+    public static final String NAME = "cache";
+
+    private static final Logger LOG = LoggerFactory.getLogger(HttpCache.class);
+    private static final String REVALIDATION_ATTRIBUTE = HttpCache.class.getName() + ".revalidation";
+    private static final EnumSet<HttpHeader> CONDITIONAL_HEADERS = EnumSet.of(
+        HttpHeader.IF_MATCH,
+        HttpHeader.IF_NONE_MATCH,
+        HttpHeader.IF_MODIFIED_SINCE,
+        HttpHeader.IF_UNMODIFIED_SINCE,
+        HttpHeader.IF_RANGE,
+        HttpHeader.RANGE);
+
+    private final ConcurrentMap<String, Fetch> fetches = new ConcurrentHashMap<>();
+    private final ResponseNotifier notifier = new ResponseNotifier();
+    private final ProtocolHandler protocolHandler = new NotModifiedProtocolHandler();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder revalidations = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder bypasses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final HttpClient client;
+    private final HttpCacheStore store;
+    private int maxEntrySize = 1024 * 1024;
+
+    public HttpCache(HttpClient client)
+    {
+        this(client, new MemoryHttpCacheStore(32 * 1024 * 1024));
+    }
+
+    public HttpCache(HttpClient client, HttpCacheStore store)
+    {
+        this.client = client;
+        this.store = store;
+        addBean(store);
+    }
+
+    public HttpCacheStore getStore()
+    {
+        return store;
+    }
+
+    /**
+     * @return the protocol handler that serves the stored response when a revalidation
+     * replies {@code 304 Not Modified}, registered by {@link HttpClient#setHttpCache(HttpCache)}
+     */
+    public ProtocolHandler getProtocolHandler()
+    {
+        return protocolHandler;
+    }
+
+    @ManagedAttribute("The max size in bytes of a response content to be stored")
+    public int getMaxEntrySize()
+    {
+        return maxEntrySize;
+    }
+
+    public void setMaxEntrySize(int maxEntrySize)
+    {
+        this.maxEntrySize = maxEntrySize;
+    }
+
+    @ManagedAttribute("The number of requests served with a fresh stored response")
+    public long getHits()
+    {
+        return hits.sum();
+    }
+
+    @ManagedAttribute("The number of requests served with a stale stored response while revalidating it")
+    public long getStaleHits()
+    {
+        return staleHits.sum();
+    }
+
+    @ManagedAttribute("The number of requests sent because no usable stored response was available")
+    public long getMisses()
+    {
+        return misses.sum();
+    }
+
+    @ManagedAttribute("The number of conditional requests sent to revalidate a stored response")
+    public long getRevalidations()
+    {
+        return revalidations.sum();
+    }
+
+    @ManagedAttribute("The number of revalidations that replied 304 Not Modified")
+    public long getNotModified()
+    {
+        return notModified.sum();
+    }
+
+    @ManagedAttribute("The number of requests served with the response of a concurrent request to the same URI")
+    public long getCoalesced()
+    {
+        return coalesced.sum();
+    }
+
+    @ManagedAttribute("The number of responses stored")
+    public long getStores()
+    {
+        return stores.sum();
+    }
+
+    @ManagedAttribute("The number of requests that bypassed the cache")
+    public long getBypasses()
+    {
+        return bypasses.sum();
+    }
+
+    @ManagedAttribute("The number of stored responses invalidated by unsafe methods")
+    public long getInvalidations()
+    {
+        return invalidations.sum();
+    }
+
+    @ManagedAttribute("The ratio of requests served from the cache, including revalidated and coalesced ones")
+    public double getHitRatio()
+    {
+        long served = getHits() + getStaleHits() + getNotModified() + getCoalesced();
+        long total = served + getMisses() - getNotModified();
+        return total == 0 ? 0 : (double)served / total;
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void resetStatistics()
+    {
+        hits.reset();
+        staleHits.reset();
+        misses.reset();
+        revalidations.reset();
+        notModified.reset();
+        coalesced.reset();
+        stores.reset();
+        bypasses.reset();
+        invalidations.reset();
+    }
+
+    /**
+     * <p>Serves the given request from the cache, or sends it with the given sender.</p>
+     *
+     * @param request the request
+     * @param listeners the response listeners of the request
+     * @param sender the function that sends the request to the server
+     */
+    public void send(HttpRequest request, List<Response.ResponseListener> listeners, BiConsumer<HttpRequest, List<Response.ResponseListener>> sender)
+    {
+        if (request.getAttributes().containsKey(REVALIDATION_ATTRIBUTE))
+        {
+            // A background revalidation, already prepared.
+            sender.accept(request, listeners);
+            return;
+        }
+
+        String key = key(request);
+        String method = request.getMethod();
+        if (key == null || !HttpMethod.GET.is(method))
+        {
+            if (key != null && !isSafe(method))
+                listeners = with(listeners, new InvalidatingListener(key));
+            sender.accept(request, listeners);
+            return;
+        }
+
+        CacheControl cacheControl = new CacheControl(request.getHeaders());
+        if (cacheControl.isNoStore() || hasConditionalHeaders(request))
+        {
+            bypasses.increment();
+            sender.accept(request, listeners);
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        HttpCacheEntry entry = lookup(key, request);
+        if (entry != null && !cacheControl.isNoCache())
+        {
+            long maxAge = cacheControl.getMaxAge();
+            if (maxAge < 0 || entry.getAge(now) <= TimeUnit.SECONDS.toMillis(maxAge))
+            {
+                if (entry.isFresh(now))
+                {
+                    hits.increment();
+                    replay(entry, request, listeners, now);
+                    return;
+                }
+                if (entry.isStaleWhileRevalidate(now))
+                {
+                    staleHits.increment();
+                    replay(entry, request, listeners, now);
+                    revalidate(entry, request);
+                    return;
+                }
+            }
+        }
+
+        if (cacheControl.isOnlyIfCached())
+        {
+            // RFC 9111, section 5.2.1.7.
+            misses.increment();
+            HttpResponse response = new HttpResponse(request, listeners)
+                .version(HttpVersion.HTTP_1_1)
+                .status(HttpStatus.GATEWAY_TIMEOUT_504);
+            notifier.forwardSuccessComplete(listeners, request, response);
+            return;
+        }
+
+        fetch(key, entry, request, listeners, sender);
+    }
+
+    private void fetch(String key, HttpCacheEntry entry, HttpRequest request, List<Response.ResponseListener> listeners, BiConsumer<HttpRequest, List<Response.ResponseListener>> sender)
+    {
+        Fetch fetch = new Fetch(key);
+        while (true)
+        {
+            Fetch existing = fetches.putIfAbsent(key, fetch);
+            if (existing == null)
+                break;
+            if (existing.join(new Follower(request, listeners, sender)))
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Coalesced {} with {}", request, existing);
+                return;
+            }
+            // The existing fetch completed concurrently.
+            fetches.remove(key, existing);
+        }
+
+        misses.increment();
+        StoringListener storingListener = new StoringListener(fetch, request);
+        if (entry != null && entry.hasValidators())
+            prepareRevalidation(request, entry);
+        if (LOG.isDebugEnabled())
+            LOG.debug("Fetching {} for {}", request, entry);
+        sender.accept(request, with(listeners, storingListener));
+    }
+
+    private void revalidate(HttpCacheEntry entry, HttpRequest request)
+    {
+        if (!entry.hasValidators())
+            return;
+        String key = entry.getKey();
+        Fetch fetch = new Fetch(key);
+        if (fetches.putIfAbsent(key, fetch) != null)
+            return;
+
+        HttpRequest revalidation = (HttpRequest)client.newRequest(request.getURI())
+            .method(HttpMethod.GET)
+            .headers(headers ->
+            {
+                headers.clear();
+                headers.add(request.getHeaders());
+            });
+        StoringListener storingListener = new StoringListener(fetch, revalidation);
+        prepareRevalidation(revalidation, entry);
+        if (LOG.isDebugEnabled())
+            LOG.debug("Revalidating {} in the background", entry);
+        revalidation.send(storingListener);
+    }
+
+    private void prepareRevalidation(HttpRequest request, HttpCacheEntry entry)
+    {
+        revalidations.increment();
+        String etag = entry.getETag();
+        String lastModified = entry.getLastModified();
+        request.headers(headers ->
+        {
+            if (etag != null)
+                headers.put(HttpHeader.IF_NONE_MATCH, etag);
+            if (lastModified != null)
+                headers.put(HttpHeader.IF_MODIFIED_SINCE, lastModified);
+        });
+        request.attribute(REVALIDATION_ATTRIBUTE, entry);
+    }
+
+    private HttpCacheEntry lookup(String key, Request request)
+    {
+        HttpCacheEntry entry = store.get(key);
+        if (entry == null || !entry.matches(request))
+            return null;
+        return entry;
+    }
+
+    private void replay(HttpCacheEntry entry, HttpRequest request, List<Response.ResponseListener> listeners, long now)
+    {
+        if (LOG.isDebugEnabled())
+            LOG.debug("Serving {} from {}", request, entry);
+        HttpResponse response = new HttpResponse(request, listeners)
+            .version(entry.getVersion())
+            .status(entry.getStatus())
+            .reason(entry.getReason())
+            .headers(headers ->
+            {
+                headers.add(entry.getHeaders());
+                // RFC 9111, section 5.1, the Age of a response served from the cache.
+                headers.put(HttpHeader.AGE, String.valueOf(TimeUnit.MILLISECONDS.toSeconds(entry.getAge(now))));
+            });
+        String contentType = entry.getHeaders().get(HttpHeader.CONTENT_TYPE);
+        String mediaType = contentType == null ? null : MimeTypes.getContentTypeWithoutCharset(contentType);
+        String encoding = contentType == null ? null : MimeTypes.getCharsetFromContentType(contentType);
+        notifier.forwardSuccessComplete(listeners, request, new HttpContentResponse(response, entry.getContent(), mediaType, encoding));
+    }
+
+    private boolean isStorable(HttpRequest request, Response response)
+    {
+        // The final response of a redirect is for another URI.
+        if (response.getRequest() != request)
+            return false;
+        if (!HttpCacheEntry.isCacheableStatus(response.getStatus()))
+            return false;
+        HttpFields headers = response.getHeaders();
+        if (new CacheControl(headers).isNoStore())
+            return false;
+        if (headers.contains(HttpHeader.VARY, "*"))
+            return false;
+        // Store only responses that can be fresh or that can be revalidated.
+        return headers.contains(HttpHeader.CACHE_CONTROL) ||
+            headers.contains(HttpHeader.EXPIRES) ||
+            headers.contains(HttpHeader.ETAG) ||
+            headers.contains(HttpHeader.LAST_MODIFIED);
+    }
+
+    private boolean isDecoded(HttpFields headers)
+    {
+        String contentEncoding = headers.get(HttpHeader.CONTENT_ENCODING);
+        if (contentEncoding == null)
+            return false;
+        for (ContentDecoder.Factory factory : client.getContentDecoderFactories())
+        {
+            if (StringUtil.asciiToLowerCase(contentEncoding.trim()).endsWith(factory.getEncoding()))
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean hasConditionalHeaders(Request request)
+    {
+        HttpFields headers = request.getHeaders();
+        for (HttpHeader header : CONDITIONAL_HEADERS)
+        {
+            if (headers.contains(header))
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean isSafe(String method)
+    {
+        return HttpMethod.HEAD.is(method) || HttpMethod.OPTIONS.is(method) || HttpMethod.TRACE.is(method);
+    }
+
+    private static String key(Request request)
+    {
+        URI uri = request.getURI();
+        if (uri == null)
+            return null;
+        return uri.toString();
+    }
+
+    private static List<Response.ResponseListener> with(List<Response.ResponseListener> listeners, Response.ResponseListener listener)
+    {
+        // The cache listener is notified first, so that the response
+        // is stored when the application is notified of its completion.
+        List<Response.ResponseListener> result = new ArrayList<>(listeners.size() + 1);
+        result.add(listener);
+        result.addAll(listeners);
+        return result;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[hits=%d,stale=%d,misses=%d,notModified=%d,coalesced=%d]", getClass().getSimpleName(), hashCode(),
+            getHits(), getStaleHits(), getMisses(), getNotModified(), getCoalesced());
+    }
+
+    private static class Follower
+    {
+        private final HttpRequest request;
+        private final List<Response.ResponseListener> listeners;
+        private final BiConsumer<HttpRequest, List<Response.ResponseListener>> sender;
+
+        private Follower(HttpRequest request, List<Response.ResponseListener> listeners, BiConsumer<HttpRequest, List<Response.ResponseListener>> sender)
+        {
+            this.request = request;
+            this.listeners = listeners;
+            this.sender = sender;
+        }
+    }
+
+    /**
+     * The request in flight for a key, that concurrent misses wait for.
+     */
+    private class Fetch
+    {
+        private final AutoLock lock = new AutoLock();
+        private final List<Follower> followers = new ArrayList<>();
+        private final String key;
+        private boolean complete;
+
+        private Fetch(String key)
+        {
+            this.key = key;
+        }
+
+        private boolean join(Follower follower)
+        {
+            try (AutoLock l = lock.lock())
+            {
+                if (complete)
+                    return false;
+                followers.add(follower);
+                return true;
+            }
+        }
+
+        private void complete()
+        {
+            List<Follower> waiting;
+            try (AutoLock l = lock.lock())
+            {
+                if (complete)
+                    return;
+                complete = true;
+                waiting = new ArrayList<>(followers);
+                followers.clear();
+            }
+            fetches.remove(key, this);
+
+            for (Follower follower : waiting)
+            {
+                long now = System.currentTimeMillis();
+                HttpCacheEntry entry = lookup(key, follower.request);
+                if (entry != null && entry.isFresh(now))
+                {
+                    coalesced.increment();
+                    replay(entry, follower.request, follower.listeners, now);
+                }
+                else
+                {
+                    // Not storable, or Vary mismatch: send without coalescing again.
+                    misses.increment();
+                    follower.sender.accept(follower.request, with(follower.listeners, new StoringListener(null, follower.request)));
+                }
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x[%s]", getClass().getSimpleName(), hashCode(), key);
+        }
+    }
+
+    /**
+     * Buffers the response content and stores it when the response completes.
+     */
+    private class StoringListener extends Response.Listener.Adapter
+    {
+        private final long requestTime = System.currentTimeMillis();
+        private final Fetch fetch;
+        private final HttpRequest request;
+        // The request fields before HttpClient adds its own, as they are when the cache is looked up.
+        private final HttpFields requestHeaders;
+        private long responseTime;
+        private ByteArrayOutputStream content;
+
+        private StoringListener(Fetch fetch, HttpRequest request)
+        {
+            this.fetch = fetch;
+            this.request = request;
+            this.requestHeaders = request.getHeaders().asImmutable();
+        }
+
+        @Override
+        public void onHeaders(Response response)
+        {
+            responseTime = System.currentTimeMillis();
+            if (!isStorable(request, response))
+                return;
+            long contentLength = response.getHeaders().getLongField(HttpHeader.CONTENT_LENGTH);
+            if (contentLength > maxEntrySize)
+                return;
+            content = new ByteArrayOutputStream(contentLength > 0 ? (int)contentLength : 1024);
+        }
+
+        @Override
+        public void onContent(Response response, ByteBuffer buffer)
+        {
+            if (content == null)
+                return;
+            int length = buffer.remaining();
+            if (content.size() + length > maxEntrySize)
+            {
+                content = null;
+                return;
+            }
+            if (buffer.hasArray())
+            {
+                content.write(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+            }
+            else
+            {
+                byte[] bytes = new byte[length];
+                buffer.slice().get(bytes);
+                content.write(bytes, 0, length);
+            }
+        }
+
+        @Override
+        public void onComplete(Result result)
+        {
+            try
+            {
+                if (result.isSucceeded() && content != null)
+                    store(result.getResponse());
+            }
+            catch (Throwable x)
+            {
+                LOG.warn("Could not store {}", result.getResponse(), x);
+            }
+            finally
+            {
+                if (fetch != null)
+                    fetch.complete();
+            }
+        }
+
+        private void store(Response response)
+        {
+            HttpFields.Mutable headers = HttpFields.build(response.getHeaders());
+            if (isDecoded(headers))
+            {
+                headers.remove(HttpHeader.CONTENT_ENCODING);
+                headers.put(HttpHeader.CONTENT_LENGTH, String.valueOf(content.size()));
+            }
+            Map<String, String> varyFields = new HashMap<>();
+            QuotedCSV vary = new QuotedCSV(false);
+            for (String value : headers.getValuesList(HttpHeader.VARY))
+            {
+                vary.addValue(value);
+            }
+            for (String name : vary.getValues())
+            {
+                varyFields.put(name, requestHeaders.get(name));
+            }
+            HttpCacheEntry entry = new HttpCacheEntry(key(request), response.getStatus(), response.getReason(), response.getVersion(),
+                headers, content.toByteArray(), varyFields, requestTime, responseTime);
+            store.put(entry);
+            stores.increment();
+            if (LOG.isDebugEnabled())
+                LOG.debug("Stored {}", entry);
+        }
+    }
+
+    /**
+     * Removes the stored response when an unsafe method succeeds, see RFC 9111, section 4.4.
+     */
+    private class InvalidatingListener implements Response.CompleteListener
+    {
+        private final String key;
+
+        private InvalidatingListener(String key)
+        {
+            this.key = key;
+        }
+
+        @Override
+        public void onComplete(Result result)
+        {
+            Response response = result.getResponse();
+            if (response == null)
+                return;
+            int status = response.getStatus();
+            if (status >= 200 && status < 400)
+            {
+                store.remove(key);
+                invalidations.increment();
+            }
+        }
+    }
+
+    /**
+     * Serves the stored response, updated by a {@code 304 Not Modified} to a revalidation.
+     */
+    private class NotModifiedProtocolHandler extends Response.Listener.Adapter implements ProtocolHandler
+    {
+        @Override
+        public String getName()
+        {
+            return NAME;
+        }
+
+        @Override
+        public boolean accept(Request request, Response response)
+        {
+            return response.getStatus() == HttpStatus.NOT_MODIFIED_304 &&
+                request.getAttributes().get(REVALIDATION_ATTRIBUTE) instanceof HttpCacheEntry;
+        }
+
+        @Override
+        public Response.Listener getResponseListener()
+        {
+            return this;
+        }
+
+        @Override
+        public void onComplete(Result result)
+        {
+            HttpRequest request = (HttpRequest)result.getRequest();
+            Response response = result.getResponse();
+            HttpConversation conversation = request.getConversation();
+            conversation.updateResponseListeners(null);
+            List<Response.ResponseListener> listeners = conversation.getResponseListeners();
+            if (result.isFailed())
+            {
+                notifier.forwardFailureComplete(listeners, request, result.getRequestFailure(), response, result.getResponseFailure());
+                return;
+            }
+
+            HttpCacheEntry entry = (HttpCacheEntry)request.getAttributes().get(REVALIDATION_ATTRIBUTE);
+            StoringListener storingListener = null;
+            List<Response.ResponseListener> applicationListeners = new ArrayList<>(listeners.size());
+            for (Response.ResponseListener listener : listeners)
+            {
+                if (listener instanceof StoringListener)
+                    storingListener = (StoringListener)listener;
+                else
+                    applicationListeners.add(listener);
+            }
+            long now = System.currentTimeMillis();
+            long requestTime = storingListener == null ? now : storingListener.requestTime;
+            HttpCacheEntry updated = entry.revalidated(response.getHeaders(), requestTime, now);
+            store.put(updated);
+            notModified.increment();
+            if (LOG.isDebugEnabled())
+                LOG.debug("Revalidated {}", updated);
+            replay(updated, request, applicationListeners, now);
+            if (storingListener != null && storingListener.fetch != null)
+                storingListener.fetch.complete();
+        }
+    }
+}
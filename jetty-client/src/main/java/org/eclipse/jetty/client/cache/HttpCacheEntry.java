@@ -0,0 +1,323 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.client.cache;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.http.DateParser;
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http.HttpVersion;
+
+/**
+ * <p>A response stored by a {@link HttpCache}, with the times of its request and of its response,
+ * used to compute its age and freshness as specified by RFC 9111, section 4.2.</p>
+ * <p>The content is stored decoded, so the {@code Content-Encoding} header is removed when
+ * the response content was decoded by a {@link org.eclipse.jetty.client.ContentDecoder}.</p>
+ */
+public class HttpCacheEntry
+{
+    // RFC 9111, section 4.2.2, status codes that are heuristically cacheable.
+    private static final Set<Integer> HEURISTIC_STATUSES = Set.of(
+        HttpStatus.OK_200,
+        HttpStatus.NON_AUTHORITATIVE_INFORMATION_203,
+        HttpStatus.NO_CONTENT_204,
+        HttpStatus.MULTIPLE_CHOICES_300,
+        HttpStatus.MOVED_PERMANENTLY_301,
+        HttpStatus.PERMANENT_REDIRECT_308,
+        HttpStatus.NOT_FOUND_404,
+        HttpStatus.METHOD_NOT_ALLOWED_405,
+        HttpStatus.GONE_410,
+        HttpStatus.URI_TOO_LONG_414,
+        HttpStatus.NOT_IMPLEMENTED_501);
+    private static final long MAX_HEURISTIC_LIFETIME = TimeUnit.DAYS.toMillis(1);
+
+    private final String key;
+    private final int status;
+    private final String reason;
+    private final HttpVersion version;
+    private final HttpFields headers;
+    private final byte[] content;
+    private final Map<String, String> varyFields;
+    private final long requestTime;
+    private final long responseTime;
+    private final CacheControl cacheControl;
+    private final long freshnessLifetime;
+    private final long initialAge;
+
+    /**
+     * @param key the cache key of the entry
+     * @param status the response status
+     * @param reason the response reason, or null
+     * @param version the response version
+     * @param headers the response headers
+     * @param content the response content
+     * @param varyFields the values of the request fields nominated by the {@code Vary} response header
+     * @param requestTime the time in ms since the epoch when the request was sent
+     * @param responseTime the time in ms since the epoch when the response was received
+     */
+    public HttpCacheEntry(String key, int status, String reason, HttpVersion version, HttpFields headers, byte[] content, Map<String, String> varyFields, long requestTime, long responseTime)
+    {
+        this.key = Objects.requireNonNull(key);
+        this.status = status;
+        this.reason = reason;
+        this.version = version;
+        this.headers = headers.asImmutable();
+        this.content = Objects.requireNonNull(content);
+        this.varyFields = Collections.unmodifiableMap(new HashMap<>(varyFields));
+        this.requestTime = requestTime;
+        this.responseTime = responseTime;
+        this.cacheControl = new CacheControl(this.headers);
+
+        long date = parseDate(this.headers.get(HttpHeader.DATE));
+        this.freshnessLifetime = freshnessLifetime(date);
+
+        // RFC 9111, section 4.2.3.
+        long apparentAge = date < 0 ? 0 : Math.max(0, responseTime - date);
+        long ageValue = TimeUnit.SECONDS.toMillis(parseSeconds(this.headers.get(HttpHeader.AGE)));
+        long responseDelay = Math.max(0, responseTime - requestTime);
+        this.initialAge = Math.max(apparentAge, ageValue + responseDelay);
+    }
+
+    /**
+     * @param status the response status
+     * @return whether responses with the given status can be stored
+     */
+    public static boolean isCacheableStatus(int status)
+    {
+        return HEURISTIC_STATUSES.contains(status);
+    }
+
+    private static long parseDate(String value)
+    {
+        return value == null ? -1 : DateParser.parseDate(value);
+    }
+
+    private static long parseSeconds(String value)
+    {
+        if (value == null)
+            return 0;
+        try
+        {
+            return Math.max(0, Math.min(Long.parseLong(value.trim()), Integer.MAX_VALUE));
+        }
+        catch (NumberFormatException x)
+        {
+            return 0;
+        }
+    }
+
+    private long freshnessLifetime(long date)
+    {
+        // RFC 9111, section 4.2.1, a private cache ignores s-maxage.
+        long maxAge = cacheControl.getMaxAge();
+        if (maxAge >= 0)
+            return TimeUnit.SECONDS.toMillis(maxAge);
+
+        String expiresValue = headers.get(HttpHeader.EXPIRES);
+        if (expiresValue != null)
+        {
+            long expires = parseDate(expiresValue);
+            // An invalid Expires, such as "0", means already expired.
+            if (expires < 0)
+                return 0;
+            return Math.max(0, expires - (date < 0 ? responseTime : date));
+        }
+
+        // RFC 9111, section 4.2.2, heuristic freshness of 10% of the time since the last modification.
+        long lastModified = parseDate(headers.get(HttpHeader.LAST_MODIFIED));
+        if (lastModified >= 0 && HEURISTIC_STATUSES.contains(status))
+        {
+            long since = (date < 0 ? responseTime : date) - lastModified;
+            return Math.max(0, Math.min(since / 10, MAX_HEURISTIC_LIFETIME));
+        }
+        return 0;
+    }
+
+    public String getKey()
+    {
+        return key;
+    }
+
+    public int getStatus()
+    {
+        return status;
+    }
+
+    public String getReason()
+    {
+        return reason;
+    }
+
+    public HttpVersion getVersion()
+    {
+        return version;
+    }
+
+    public HttpFields getHeaders()
+    {
+        return headers;
+    }
+
+    public byte[] getContent()
+    {
+        return content;
+    }
+
+    public Map<String, String> getVaryFields()
+    {
+        return varyFields;
+    }
+
+    public long getRequestTime()
+    {
+        return requestTime;
+    }
+
+    public long getResponseTime()
+    {
+        return responseTime;
+    }
+
+    /**
+     * @return the approximate memory size in bytes of this entry
+     */
+    public long getSize()
+    {
+        long size = content.length + key.length();
+        for (HttpField field : headers)
+        {
+            size += field.getName().length() + field.getValue().length() + 4;
+        }
+        return size;
+    }
+
+    public String getETag()
+    {
+        return headers.get(HttpHeader.ETAG);
+    }
+
+    public String getLastModified()
+    {
+        return headers.get(HttpHeader.LAST_MODIFIED);
+    }
+
+    /**
+     * @return whether the entry can be revalidated with a conditional request
+     */
+    public boolean hasValidators()
+    {
+        return getETag() != null || getLastModified() != null;
+    }
+
+    /**
+     * @param now the current time in ms since the epoch
+     * @return the current age in ms of this entry
+     */
+    public long getAge(long now)
+    {
+        return initialAge + Math.max(0, now - responseTime);
+    }
+
+    /**
+     * @return the freshness lifetime in ms of this entry
+     */
+    public long getFreshnessLifetime()
+    {
+        return freshnessLifetime;
+    }
+
+    /**
+     * @param now the current time in ms since the epoch
+     * @return whether this entry can be used without revalidation
+     */
+    public boolean isFresh(long now)
+    {
+        return !cacheControl.isNoCache() && getAge(now) < freshnessLifetime;
+    }
+
+    /**
+     * @param now the current time in ms since the epoch
+     * @return whether this stale entry can be used while it is revalidated in the background
+     */
+    public boolean isStaleWhileRevalidate(long now)
+    {
+        long staleWhileRevalidate = cacheControl.getStaleWhileRevalidate();
+        if (staleWhileRevalidate <= 0 || cacheControl.isNoCache() || cacheControl.isMustRevalidate())
+            return false;
+        return getAge(now) < freshnessLifetime + TimeUnit.SECONDS.toMillis(staleWhileRevalidate);
+    }
+
+    /**
+     * @param request the request to match
+     * @return whether the request has the same values of the fields nominated by {@code Vary} (RFC 9111, section 4.1)
+     */
+    public boolean matches(Request request)
+    {
+        HttpFields requestHeaders = request.getHeaders();
+        for (Map.Entry<String, String> entry : varyFields.entrySet())
+        {
+            if (!Objects.equals(entry.getValue(), requestHeaders.get(entry.getKey())))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * <p>Returns a new entry updated by a {@code 304 Not Modified} response, see RFC 9111, section 4.3.4.</p>
+     *
+     * @param notModified the headers of the 304 response
+     * @param requestTime the time in ms since the epoch when the conditional request was sent
+     * @param responseTime the time in ms since the epoch when the 304 response was received
+     * @return the updated entry
+     */
+    public HttpCacheEntry revalidated(HttpFields notModified, long requestTime, long responseTime)
+    {
+        HttpFields.Mutable updated = HttpFields.build(headers);
+        for (HttpField field : notModified)
+        {
+            HttpHeader header = field.getHeader();
+            // RFC 9111, section 3.2, these fields describe the 304 response, not the stored content.
+            if (header == HttpHeader.CONTENT_LENGTH || header == HttpHeader.CONTENT_ENCODING || header == HttpHeader.TRANSFER_ENCODING)
+                continue;
+            updated.remove(field.getName());
+        }
+        for (HttpField field : notModified)
+        {
+            HttpHeader header = field.getHeader();
+            if (header == HttpHeader.CONTENT_LENGTH || header == HttpHeader.CONTENT_ENCODING || header == HttpHeader.TRANSFER_ENCODING)
+                continue;
+            updated.add(field);
+        }
+        return new HttpCacheEntry(key, status, reason, version, updated, content, varyFields, requestTime, responseTime);
+    }
+
+    CacheControl getCacheControl()
+    {
+        return cacheControl;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[%s,%d,%d bytes,lifetime=%dms]", getClass().getSimpleName(), hashCode(), key, status, content.length, freshnessLifetime);
+    }
+}
@@ -0,0 +1,47 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.client.cache;
+
+/**
+ * <p>The storage of the entries of a {@link HttpCache}.</p>
+ * <p>Implementations must be thread-safe.</p>
+ *
+ * @see MemoryHttpCacheStore
+ * @see PathHttpCacheStore
+ */
+public interface HttpCacheStore
+{
+    /**
+     * @param key the cache key
+     * @return the entry stored with the given key, or null if there is no such entry
+     */
+    HttpCacheEntry get(String key);
+
+    /**
+     * <p>Stores the given entry, replacing the entry with the same key, if any.</p>
+     * <p>The store may evict other entries, or may not store the entry at all.</p>
+     *
+     * @param entry the entry to store
+     */
+    void put(HttpCacheEntry entry);
+
+    /**
+     * @param key the key of the entry to remove
+     */
+    void remove(String key);
+
+    /**
+     * <p>Removes all the entries.</p>
+     */
+    void clear();
+}
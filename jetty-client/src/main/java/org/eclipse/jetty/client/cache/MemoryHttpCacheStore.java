@@ -0,0 +1,169 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.client.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.thread.AutoLock;
+
+/**
+ * <p>A {@link HttpCacheStore} that keeps the entries in memory, up to a max total size,
+ * evicting the least recently used entries.</p>
+ * <p>A next store, typically a {@link PathHttpCacheStore}, may be configured: entries are
+ * written through to it, and entries not found in memory are looked up in it and then
+ * kept in memory.</p>
+ */
+@ManagedObject("A memory HTTP cache store")
+public class MemoryHttpCacheStore implements HttpCacheStore
+{
+    private final AutoLock lock = new AutoLock();
+    private final Map<String, HttpCacheEntry> entries = new LinkedHashMap<>(16, 0.75F, true);
+    private final LongAdder evictions = new LongAdder();
+    private final long maxSize;
+    private final HttpCacheStore nextStore;
+    private long size;
+
+    public MemoryHttpCacheStore(long maxSize)
+    {
+        this(maxSize, null);
+    }
+
+    /**
+     * @param maxSize the max total size in bytes of the entries kept in memory
+     * @param nextStore the store to write entries through to and to look up entries not in memory, or null
+     */
+    public MemoryHttpCacheStore(long maxSize, HttpCacheStore nextStore)
+    {
+        this.maxSize = maxSize;
+        this.nextStore = nextStore;
+    }
+
+    @ManagedAttribute("The max total size in bytes of the entries kept in memory")
+    public long getMaxSize()
+    {
+        return maxSize;
+    }
+
+    @ManagedAttribute("The total size in bytes of the entries kept in memory")
+    public long getSize()
+    {
+        try (AutoLock l = lock.lock())
+        {
+            return size;
+        }
+    }
+
+    @ManagedAttribute("The number of entries kept in memory")
+    public int getEntryCount()
+    {
+        try (AutoLock l = lock.lock())
+        {
+            return entries.size();
+        }
+    }
+
+    @ManagedAttribute("The number of entries evicted from memory")
+    public long getEvictions()
+    {
+        return evictions.sum();
+    }
+
+    public HttpCacheStore getNextStore()
+    {
+        return nextStore;
+    }
+
+    @Override
+    public HttpCacheEntry get(String key)
+    {
+        try (AutoLock l = lock.lock())
+        {
+            HttpCacheEntry entry = entries.get(key);
+            if (entry != null || nextStore == null)
+                return entry;
+        }
+        HttpCacheEntry entry = nextStore.get(key);
+        if (entry != null)
+            putInMemory(entry);
+        return entry;
+    }
+
+    @Override
+    public void put(HttpCacheEntry entry)
+    {
+        putInMemory(entry);
+        if (nextStore != null)
+            nextStore.put(entry);
+    }
+
+    private void putInMemory(HttpCacheEntry entry)
+    {
+        long entrySize = entry.getSize();
+        try (AutoLock l = lock.lock())
+        {
+            HttpCacheEntry previous = entries.remove(entry.getKey());
+            if (previous != null)
+                size -= previous.getSize();
+            if (entrySize > maxSize)
+                return;
+            entries.put(entry.getKey(), entry);
+            size += entrySize;
+            Iterator<HttpCacheEntry> iterator = entries.values().iterator();
+            while (size > maxSize && iterator.hasNext())
+            {
+                HttpCacheEntry eldest = iterator.next();
+                iterator.remove();
+                size -= eldest.getSize();
+                evictions.increment();
+            }
+        }
+    }
+
+    @Override
+    public void remove(String key)
+    {
+        try (AutoLock l = lock.lock())
+        {
+            HttpCacheEntry entry = entries.remove(key);
+            if (entry != null)
+                size -= entry.getSize();
+        }
+        if (nextStore != null)
+            nextStore.remove(key);
+    }
+
+    @Override
+    @ManagedOperation(value = "Removes all the entries", impact = "ACTION")
+    public void clear()
+    {
+        try (AutoLock l = lock.lock())
+        {
+            entries.clear();
+            size = 0;
+        }
+        if (nextStore != null)
+            nextStore.clear();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[entries=%d,size=%d/%d]", getClass().getSimpleName(), hashCode(), getEntryCount(), getSize(), getMaxSize());
+    }
+}
@@ -0,0 +1,331 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.client.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.util.StringUtil;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.thread.AutoLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>A {@link HttpCacheStore} that keeps one file per entry in a directory, up to a max total size,
+ * evicting the least recently used entries.</p>
+ * <p>The entries already in the directory are indexed when this store is created, so that they
+ * survive restarts; the files that cannot be read are deleted.</p>
+ * <p>Entries are written to a temporary file that is then atomically moved in place, so that
+ * concurrent readers never see a partially written entry.</p>
+ */
+@ManagedObject("A file system HTTP cache store")
+public class PathHttpCacheStore implements HttpCacheStore
+{
+    private static final Logger LOG = LoggerFactory.getLogger(PathHttpCacheStore.class);
+    private static final int MAGIC = 0x4A484301;
+    private static final String SUFFIX = ".entry";
+
+    private final AutoLock lock = new AutoLock();
+    private final Map<String, Long> files = new LinkedHashMap<>(16, 0.75F, true);
+    private final LongAdder evictions = new LongAdder();
+    private final Path directory;
+    private final long maxSize;
+    private long size;
+
+    /**
+     * @param directory the directory of the entry files, created if it does not exist
+     * @param maxSize the max total size in bytes of the entry files
+     * @throws IOException if the directory cannot be created or listed
+     */
+    public PathHttpCacheStore(Path directory, long maxSize) throws IOException
+    {
+        this.directory = Files.createDirectories(directory);
+        this.maxSize = maxSize;
+        try (Stream<Path> stream = Files.list(directory))
+        {
+            List<Path> paths = stream
+                .filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+                .sorted(Comparator.comparing(this::lastModified))
+                .collect(Collectors.toList());
+            for (Path path : paths)
+            {
+                long fileSize = Files.size(path);
+                files.put(path.getFileName().toString(), fileSize);
+                size += fileSize;
+            }
+        }
+    }
+
+    private Long lastModified(Path path)
+    {
+        try
+        {
+            return Files.getLastModifiedTime(path).toMillis();
+        }
+        catch (IOException x)
+        {
+            return 0L;
+        }
+    }
+
+    public Path getDirectory()
+    {
+        return directory;
+    }
+
+    @ManagedAttribute("The max total size in bytes of the entry files")
+    public long getMaxSize()
+    {
+        return maxSize;
+    }
+
+    @ManagedAttribute("The total size in bytes of the entry files")
+    public long getSize()
+    {
+        try (AutoLock l = lock.lock())
+        {
+            return size;
+        }
+    }
+
+    @ManagedAttribute("The number of entry files")
+    public int getEntryCount()
+    {
+        try (AutoLock l = lock.lock())
+        {
+            return files.size();
+        }
+    }
+
+    @ManagedAttribute("The number of entry files evicted")
+    public long getEvictions()
+    {
+        return evictions.sum();
+    }
+
+    @Override
+    public HttpCacheEntry get(String key)
+    {
+        String fileName = fileName(key);
+        try (AutoLock l = lock.lock())
+        {
+            // Also updates the access order.
+            if (files.get(fileName) == null)
+                return null;
+        }
+
+        Path path = directory.resolve(fileName);
+        try (InputStream input = Files.newInputStream(path))
+        {
+            HttpCacheEntry entry = read(new DataInputStream(new BufferedInputStream(input)));
+            // Guard against hash collisions.
+            return key.equals(entry.getKey()) ? entry : null;
+        }
+        catch (Throwable x)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Could not read {}", path, x);
+            delete(fileName);
+            return null;
+        }
+    }
+
+    @Override
+    public void put(HttpCacheEntry entry)
+    {
+        String fileName = fileName(entry.getKey());
+        Path path = directory.resolve(fileName);
+        Path temp = null;
+        try
+        {
+            temp = Files.createTempFile(directory, null, ".tmp");
+            try (OutputStream output = Files.newOutputStream(temp))
+            {
+                DataOutputStream data = new DataOutputStream(new BufferedOutputStream(output));
+                write(entry, data);
+                data.flush();
+            }
+            long fileSize = Files.size(temp);
+            if (fileSize > maxSize)
+            {
+                Files.delete(temp);
+                delete(fileName);
+                return;
+            }
+            try (AutoLock l = lock.lock())
+            {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Long previous = files.put(fileName, fileSize);
+                size += fileSize - (previous == null ? 0 : previous);
+                Iterator<Map.Entry<String, Long>> iterator = files.entrySet().iterator();
+                while (size > maxSize && iterator.hasNext())
+                {
+                    Map.Entry<String, Long> eldest = iterator.next();
+                    Files.deleteIfExists(directory.resolve(eldest.getKey()));
+                    iterator.remove();
+                    size -= eldest.getValue();
+                    evictions.increment();
+                }
+            }
+        }
+        catch (Throwable x)
+        {
+            LOG.warn("Could not store {} in {}", entry, path, x);
+            try
+            {
+                if (temp != null)
+                    Files.deleteIfExists(temp);
+            }
+            catch (IOException ignored)
+            {
+                // Best effort.
+            }
+        }
+    }
+
+    @Override
+    public void remove(String key)
+    {
+        delete(fileName(key));
+    }
+
+    private void delete(String fileName)
+    {
+        try (AutoLock l = lock.lock())
+        {
+            Long fileSize = files.remove(fileName);
+            if (fileSize != null)
+                size -= fileSize;
+            Files.deleteIfExists(directory.resolve(fileName));
+        }
+        catch (IOException x)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Could not delete {}", fileName, x);
+        }
+    }
+
+    @Override
+    @ManagedOperation(value = "Removes all the entries", impact = "ACTION")
+    public void clear()
+    {
+        List<String> fileNames;
+        try (AutoLock l = lock.lock())
+        {
+            fileNames = List.copyOf(files.keySet());
+        }
+        fileNames.forEach(this::delete);
+    }
+
+    private static String fileName(String key)
+    {
+        try
+        {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return StringUtil.toHexString(digest.digest(key.getBytes(StandardCharsets.UTF_8))) + SUFFIX;
+        }
+        catch (NoSuchAlgorithmException x)
+        {
+            throw new IllegalStateException(x);
+        }
+    }
+
+    private static void write(HttpCacheEntry entry, DataOutputStream output) throws IOException
+    {
+        output.writeInt(MAGIC);
+        output.writeUTF(entry.getKey());
+        output.writeInt(entry.getStatus());
+        output.writeUTF(entry.getReason() == null ? "" : entry.getReason());
+        output.writeUTF(entry.getVersion().asString());
+        output.writeLong(entry.getRequestTime());
+        output.writeLong(entry.getResponseTime());
+        HttpFields headers = entry.getHeaders();
+        output.writeInt(headers.size());
+        for (int i = 0; i < headers.size(); ++i)
+        {
+            output.writeUTF(headers.getField(i).getName());
+            output.writeUTF(headers.getField(i).getValue());
+        }
+        Map<String, String> varyFields = entry.getVaryFields();
+        output.writeInt(varyFields.size());
+        for (Map.Entry<String, String> field : varyFields.entrySet())
+        {
+            output.writeUTF(field.getKey());
+            output.writeBoolean(field.getValue() != null);
+            if (field.getValue() != null)
+                output.writeUTF(field.getValue());
+        }
+        byte[] content = entry.getContent();
+        output.writeInt(content.length);
+        output.write(content);
+    }
+
+    private static HttpCacheEntry read(DataInputStream input) throws IOException
+    {
+        if (input.readInt() != MAGIC)
+            throw new IOException("Invalid cache entry");
+        String key = input.readUTF();
+        int status = input.readInt();
+        String reason = input.readUTF();
+        HttpVersion version = HttpVersion.fromString(input.readUTF());
+        long requestTime = input.readLong();
+        long responseTime = input.readLong();
+        int count = input.readInt();
+        HttpFields.Mutable headers = HttpFields.build(count);
+        for (int i = 0; i < count; ++i)
+        {
+            headers.add(input.readUTF(), input.readUTF());
+        }
+        count = input.readInt();
+        Map<String, String> varyFields = new HashMap<>(count);
+        for (int i = 0; i < count; ++i)
+        {
+            String name = input.readUTF();
+            varyFields.put(name, input.readBoolean() ? input.readUTF() : null);
+        }
+        byte[] content = new byte[input.readInt()];
+        input.readFully(content);
+        return new HttpCacheEntry(key, status, reason.isEmpty() ? null : reason, version, headers, content, varyFields, requestTime, responseTime);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[%s,entries=%d,size=%d/%d]", getClass().getSimpleName(), hashCode(), directory, getEntryCount(), getSize(), getMaxSize());
+    }
+}
@@ -72,15 +72,16 @@ public class ConnectionPoolTest
         return pool;
     });
     private static final ConnectionPoolFactory ROUND_ROBIN = new ConnectionPoolFactory("round-robin", destination -> new RoundRobinConnectionPool(destination, destination.getHttpClient().getMaxConnectionsPerDestination(), destination));
+    private static final ConnectionPoolFactory LATENCY_AWARE = new ConnectionPoolFactory("latency-aware", destination -> new LatencyAwareConnectionPool(destination, destination.getHttpClient().getMaxConnectionsPerDestination(), destination, 1));
 
     public static Stream<ConnectionPoolFactory> pools()
     {
-        return Stream.of(DUPLEX, MULTIPLEX, RANDOM, DUPLEX_MAX_DURATION, ROUND_ROBIN);
+        return Stream.of(DUPLEX, MULTIPLEX, RANDOM, DUPLEX_MAX_DURATION, ROUND_ROBIN, LATENCY_AWARE);
     }
 
     public static Stream<ConnectionPoolFactory> poolsNoRoundRobin()
     {
-        return Stream.of(DUPLEX, MULTIPLEX, RANDOM, DUPLEX_MAX_DURATION);
+        return Stream.of(DUPLEX, MULTIPLEX, RANDOM, DUPLEX_MAX_DURATION, LATENCY_AWARE);
     }
 
     private Server server;
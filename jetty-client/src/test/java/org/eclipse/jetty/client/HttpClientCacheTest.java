@@ -0,0 +1,222 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.client;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.client.cache.HttpCache;
+import org.eclipse.jetty.client.cache.PathHttpCacheStore;
+import org.eclipse.jetty.client.util.BufferingResponseListener;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ArgumentsSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpClientCacheTest extends AbstractHttpClientServerTest
+{
+    private static final String CONTENT = "cached content";
+
+    private final AtomicInteger serverRequests = new AtomicInteger();
+
+    private void start(Scenario scenario, String cacheControl) throws Exception
+    {
+        start(scenario, cacheControl, null);
+    }
+
+    private void start(Scenario scenario, String cacheControl, PathHttpCacheStore store) throws Exception
+    {
+        startServer(scenario, new EmptyServerHandler()
+        {
+            @Override
+            protected void service(String target, org.eclipse.jetty.server.Request jettyRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException
+            {
+                serverRequests.incrementAndGet();
+                if (!HttpMethod.GET.is(request.getMethod()))
+                    return;
+                response.setHeader(HttpHeader.CACHE_CONTROL.asString(), cacheControl);
+                response.setHeader(HttpHeader.ETAG.asString(), "\"v1\"");
+                if ("\"v1\"".equals(request.getHeader(HttpHeader.IF_NONE_MATCH.asString())))
+                {
+                    response.setStatus(HttpStatus.NOT_MODIFIED_304);
+                    return;
+                }
+                if (request.getParameter("delay") != null)
+                    sleep(Long.parseLong(request.getParameter("delay")));
+                response.getOutputStream().write(CONTENT.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        startClient(scenario, client -> client.setHttpCache(store == null ? new HttpCache(client) : new HttpCache(client, store)));
+    }
+
+    private ContentResponse get(Scenario scenario, String path) throws Exception
+    {
+        return client.newRequest("localhost", connector.getLocalPort())
+            .scheme(scenario.getScheme())
+            .path(path)
+            .timeout(5, TimeUnit.SECONDS)
+            .send();
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(ScenarioProvider.class)
+    public void testFreshResponseServedFromCache(Scenario scenario) throws Exception
+    {
+        start(scenario, "max-age=60");
+
+        for (int i = 0; i < 3; ++i)
+        {
+            ContentResponse response = get(scenario, "/fresh");
+            assertEquals(HttpStatus.OK_200, response.getStatus());
+            assertEquals(CONTENT, response.getContentAsString());
+        }
+
+        assertEquals(1, serverRequests.get());
+        assertEquals(2, client.getHttpCache().getHits());
+        assertEquals(1, client.getHttpCache().getStores());
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(ScenarioProvider.class)
+    public void testStaleResponseRevalidated(Scenario scenario) throws Exception
+    {
+        start(scenario, "max-age=0");
+
+        ContentResponse response1 = get(scenario, "/stale");
+        assertEquals(HttpStatus.OK_200, response1.getStatus());
+
+        // The server replies 304 but the application sees the cached 200.
+        ContentResponse response2 = get(scenario, "/stale");
+        assertEquals(HttpStatus.OK_200, response2.getStatus());
+        assertEquals(CONTENT, response2.getContentAsString());
+
+        assertEquals(2, serverRequests.get());
+        assertEquals(1, client.getHttpCache().getNotModified());
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(ScenarioProvider.class)
+    public void testConcurrentMissesCoalesced(Scenario scenario) throws Exception
+    {
+        start(scenario, "max-age=60");
+
+        int count = 8;
+        CountDownLatch latch = new CountDownLatch(count);
+        for (int i = 0; i < count; ++i)
+        {
+            client.newRequest("localhost", connector.getLocalPort())
+                .scheme(scenario.getScheme())
+                .path("/coalesce")
+                .param("delay", "500")
+                .send(new BufferingResponseListener()
+                {
+                    @Override
+                    public void onComplete(Result result)
+                    {
+                        if (result.isSucceeded() && CONTENT.equals(getContentAsString()))
+                            latch.countDown();
+                    }
+                });
+        }
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(1, serverRequests.get());
+        assertEquals(count - 1, client.getHttpCache().getCoalesced());
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(ScenarioProvider.class)
+    public void testUnsafeMethodInvalidates(Scenario scenario) throws Exception
+    {
+        start(scenario, "max-age=60");
+
+        get(scenario, "/invalidate");
+        get(scenario, "/invalidate");
+        assertEquals(1, serverRequests.get());
+
+        ContentResponse response = client.newRequest("localhost", connector.getLocalPort())
+            .scheme(scenario.getScheme())
+            .method(HttpMethod.POST)
+            .path("/invalidate")
+            .timeout(5, TimeUnit.SECONDS)
+            .send();
+        assertEquals(HttpStatus.OK_200, response.getStatus());
+
+        get(scenario, "/invalidate");
+        assertEquals(3, serverRequests.get());
+        assertEquals(1, client.getHttpCache().getInvalidations());
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(ScenarioProvider.class)
+    public void testNoStoreNotCached(Scenario scenario) throws Exception
+    {
+        start(scenario, "no-store");
+
+        get(scenario, "/nostore");
+        get(scenario, "/nostore");
+
+        assertEquals(2, serverRequests.get());
+        assertEquals(0, client.getHttpCache().getStores());
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(ScenarioProvider.class)
+    public void testPathStoreSurvivesRestart(Scenario scenario) throws Exception
+    {
+        Path directory = MavenTestingUtils.getTargetTestingPath(HttpClientCacheTest.class.getSimpleName());
+        FS.ensureEmpty(directory);
+
+        start(scenario, "max-age=60", new PathHttpCacheStore(directory, 1024 * 1024));
+        get(scenario, "/persistent");
+        assertEquals(1, serverRequests.get());
+
+        // A new client over the same directory finds the stored entry.
+        client.stop();
+        PathHttpCacheStore store = new PathHttpCacheStore(directory, 1024 * 1024);
+        assertEquals(1, store.getEntryCount());
+        startClient(scenario, client -> client.setHttpCache(new HttpCache(client, store)));
+
+        ContentResponse response = get(scenario, "/persistent");
+        assertEquals(CONTENT, response.getContentAsString());
+        assertEquals(1, serverRequests.get());
+        assertEquals(1, client.getHttpCache().getHits());
+    }
+
+    private static void sleep(long millis) throws IOException
+    {
+        try
+        {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException x)
+        {
+            throw new IOException(x);
+        }
+    }
+}
@@ -574,7 +574,7 @@ public class GCloudSessionDataStore extends AbstractSessionDataStore
     }
 
     @Override
-    public boolean delete(String id) throws Exception
+    public boolean doDelete(String id) throws Exception
     {
         if (LOG.isDebugEnabled())
             LOG.debug("Removing session {} from DataStore", id);
@@ -98,7 +98,7 @@ public class HazelcastSessionDataStore extends AbstractSessionDataStore
     }
 
     @Override
-    public boolean delete(String id)
+    public boolean doDelete(String id)
         throws Exception
     {
         if (sessionDataMap == null)
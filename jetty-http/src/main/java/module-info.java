@@ -19,9 +19,11 @@ module org.eclipse.jetty.http
 
     exports org.eclipse.jetty.http;
     exports org.eclipse.jetty.http.compression;
+    exports org.eclipse.jetty.http.encoding;
     exports org.eclipse.jetty.http.pathmap;
 
     uses org.eclipse.jetty.http.HttpFieldPreEncoder;
+    uses org.eclipse.jetty.http.encoding.ContentEncoding;
 
     provides org.eclipse.jetty.http.HttpFieldPreEncoder with
         org.eclipse.jetty.http.Http1FieldPreEncoder;
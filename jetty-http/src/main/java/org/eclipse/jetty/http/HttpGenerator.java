@@ -604,6 +604,21 @@ public class HttpGenerator
             for (int f = 0; f < n; f++)
             {
                 HttpField field = fields.getField(f);
+                if (field instanceof PreEncodedHttpField)
+                {
+                    // Write all the fields of a template with a single copy.
+                    PreEncodedHttpFields template = PreEncodedHttpFields.getTemplateAt(fields, f);
+                    if (template != null)
+                    {
+                        template.putTo(header);
+                        if (template.contains(HttpHeader.SERVER))
+                            send = send & ~SEND_SERVER;
+                        if (template.contains(HttpHeader.CONTENT_TYPE))
+                            contentType = true;
+                        f += template.size() - 1;
+                        continue;
+                    }
+                }
                 HttpHeader h = field.getHeader();
                 if (h == null)
                     putTo(field, header);
@@ -0,0 +1,177 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.EnumSet;
+
+/**
+ * <p>A template of pre-encoded fields, typically the fields that are the same on every response
+ * of an application, such as {@code Server}, {@code Cache-Control}, {@code Vary} or CORS fields.</p>
+ * <p>A template is created once, and its fields are added to each response with
+ * {@link #addTo(HttpFields.Mutable)}. Each field is a {@link PreEncodedHttpField}, so the fields can
+ * be read, replaced or removed like any other field; while all the fields of the template are still
+ * present in order, the HTTP/1 generator writes them with a single copy of the pre-encoded block
+ * of fields, and the HPACK encoder reuses the block of dynamic table references it encoded for the
+ * previous response, as long as its dynamic table has not changed. Only the other fields of the
+ * response are encoded for each response.</p>
+ * <p>Fields that determine the framing of the message or that are connection specific,
+ * such as {@code Content-Length} or {@code Connection}, cannot be part of a template.</p>
+ */
+public class PreEncodedHttpFields
+{
+    private static final EnumSet<HttpHeader> NOT_ALLOWED = EnumSet.of(
+        HttpHeader.CONTENT_LENGTH,
+        HttpHeader.TRANSFER_ENCODING,
+        HttpHeader.CONNECTION,
+        HttpHeader.KEEP_ALIVE,
+        HttpHeader.PROXY_CONNECTION,
+        HttpHeader.UPGRADE,
+        HttpHeader.TE);
+
+    private final TemplateField[] _fields;
+    private final EnumSet<HttpHeader> _headers = EnumSet.noneOf(HttpHeader.class);
+    private final byte[] _encodedFields;
+
+    /**
+     * @param fields the fields of the template
+     * @throws IllegalArgumentException if a field cannot be part of a template
+     */
+    public PreEncodedHttpFields(HttpField... fields)
+    {
+        _fields = new TemplateField[fields.length];
+        int length = 0;
+        for (int i = 0; i < fields.length; i++)
+        {
+            HttpField field = fields[i];
+            HttpHeader header = field.getHeader();
+            if (field.getName().startsWith(":") || header != null && NOT_ALLOWED.contains(header))
+                throw new IllegalArgumentException("Field not allowed in template: " + field);
+            if (header != null)
+                _headers.add(header);
+            _fields[i] = new TemplateField(this, i, header, field.getName(), field.getValue() == null ? "" : field.getValue());
+            length += _fields[i].getEncodedLength(HttpVersion.HTTP_1_1);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        for (TemplateField field : _fields)
+        {
+            field.putTo(buffer, HttpVersion.HTTP_1_1);
+        }
+        _encodedFields = buffer.array();
+    }
+
+    /**
+     * @return the number of fields of the template
+     */
+    public int size()
+    {
+        return _fields.length;
+    }
+
+    /**
+     * @param index the index of the field
+     * @return the field of the template at the given index
+     */
+    public PreEncodedHttpField getField(int index)
+    {
+        return _fields[index];
+    }
+
+    /**
+     * @param header the header to look for
+     * @return whether the template has a field for the given header
+     */
+    public boolean contains(HttpHeader header)
+    {
+        return _headers.contains(header);
+    }
+
+    /**
+     * <p>Adds the fields of this template to the given fields.</p>
+     *
+     * @param fields the fields to add the template fields to
+     */
+    public void addTo(HttpFields.Mutable fields)
+    {
+        for (TemplateField field : _fields)
+        {
+            fields.add(field);
+        }
+    }
+
+    /**
+     * <p>Puts the HTTP/1 encoding of all the fields of this template.</p>
+     *
+     * @param bufferInFillMode the buffer to put the encoded fields into
+     */
+    public void putTo(ByteBuffer bufferInFillMode)
+    {
+        bufferInFillMode.put(_encodedFields);
+    }
+
+    /**
+     * @return the length of the HTTP/1 encoding of all the fields of this template
+     */
+    public int getEncodedLength()
+    {
+        return _encodedFields.length;
+    }
+
+    /**
+     * @param fields the fields to look into
+     * @param index the index of a field
+     * @return the template whose fields are all in the given fields, in order, starting at the given index,
+     * or null if there is no such template
+     */
+    public static PreEncodedHttpFields getTemplateAt(HttpFields fields, int index)
+    {
+        HttpField field = fields.getField(index);
+        if (!(field instanceof TemplateField))
+            return null;
+        TemplateField templateField = (TemplateField)field;
+        if (templateField._index != 0)
+            return null;
+        PreEncodedHttpFields template = templateField._template;
+        int size = template.size();
+        if (index + size > fields.size())
+            return null;
+        for (int i = 1; i < size; i++)
+        {
+            if (fields.getField(index + i) != template._fields[i])
+                return null;
+        }
+        return template;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x%s", getClass().getSimpleName(), hashCode(), Arrays.toString(_fields));
+    }
+
+    private static class TemplateField extends PreEncodedHttpField
+    {
+        private final PreEncodedHttpFields _template;
+        private final int _index;
+
+        private TemplateField(PreEncodedHttpFields template, int index, HttpHeader header, String name, String value)
+        {
+            super(header, name, value);
+            _template = template;
+            _index = index;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.http;
+
+import java.util.List;
+
+/**
+ * <p>The priority parameters of a response, as defined by the
+ * <a href="https://www.rfc-editor.org/rfc/rfc9218">RFC 9218</a>
+ * extensible prioritization scheme.</p>
+ * <p>The urgency goes from 0, the most urgent, to 7, the least urgent;
+ * an incremental response can be interleaved with the other incremental
+ * responses of the same urgency, while a non incremental response is
+ * better sent in full before the other responses of the same urgency.</p>
+ * <p>Priorities are carried by the {@code Priority} header and by the
+ * {@code PRIORITY_UPDATE} frames of HTTP/2 and HTTP/3, in the form of
+ * a structured field dictionary such as {@code u=1, i}.</p>
+ */
+public final class Priority
+{
+    public static final int MIN_URGENCY = 0;
+    public static final int MAX_URGENCY = 7;
+    public static final int DEFAULT_URGENCY = 3;
+    public static final Priority DEFAULT = new Priority(DEFAULT_URGENCY, false);
+
+    private static final Priority[] CACHE = new Priority[2 * (MAX_URGENCY + 1)];
+
+    static
+    {
+        for (int u = MIN_URGENCY; u <= MAX_URGENCY; ++u)
+        {
+            CACHE[2 * u] = u == DEFAULT_URGENCY ? DEFAULT : new Priority(u, false);
+            CACHE[2 * u + 1] = new Priority(u, true);
+        }
+    }
+
+    /**
+     * @param urgency the urgency, between {@link #MIN_URGENCY} and {@link #MAX_URGENCY}
+     * @param incremental whether the response is incremental
+     * @return the priority with the given parameters
+     */
+    public static Priority of(int urgency, boolean incremental)
+    {
+        if (urgency < MIN_URGENCY || urgency > MAX_URGENCY)
+            throw new IllegalArgumentException("Invalid urgency " + urgency);
+        return CACHE[2 * urgency + (incremental ? 1 : 0)];
+    }
+
+    /**
+     * <p>Parses the value of a {@code Priority} header, or of a {@code PRIORITY_UPDATE} frame.</p>
+     * <p>As required by RFC 9218, unknown or invalid parameters are ignored,
+     * and missing parameters take their default value.</p>
+     *
+     * @param value the priority field value, may be null
+     * @return the priority, never null
+     */
+    public static Priority from(String value)
+    {
+        if (value == null)
+            return DEFAULT;
+        int urgency = DEFAULT_URGENCY;
+        boolean incremental = false;
+        int length = value.length();
+        int start = 0;
+        while (start < length)
+        {
+            int end = value.indexOf(',', start);
+            if (end < 0)
+                end = length;
+            // Parameters of the dictionary members are ignored.
+            int params = value.indexOf(';', start);
+            int limit = params >= 0 && params < end ? params : end;
+            int equals = value.indexOf('=', start);
+            String key = (equals >= 0 && equals < limit ? value.substring(start, equals) : value.substring(start, limit)).trim();
+            String item = equals >= 0 && equals < limit ? value.substring(equals + 1, limit).trim() : null;
+            if ("u".equals(key))
+            {
+                if (item != null && item.length() == 1)
+                {
+                    int u = item.charAt(0) - '0';
+                    if (u >= MIN_URGENCY && u <= MAX_URGENCY)
+                        urgency = u;
+                }
+            }
+            else if ("i".equals(key))
+            {
+                if (item == null || "?1".equals(item))
+                    incremental = true;
+                else if ("?0".equals(item))
+                    incremental = false;
+            }
+            start = end + 1;
+        }
+        return of(urgency, incremental);
+    }
+
+    /**
+     * @param fields the fields to read the {@code Priority} header from
+     * @return the priority of the fields, or {@link #DEFAULT} if there is no {@code Priority} header
+     */
+    public static Priority from(HttpFields fields)
+    {
+        if (fields == null)
+            return DEFAULT;
+        List<String> values = fields.getValuesList(HttpHeader.PRIORITY);
+        if (values.isEmpty())
+            return DEFAULT;
+        return from(values.size() == 1 ? values.get(0) : String.join(",", values));
+    }
+
+    private final int urgency;
+    private final boolean incremental;
+
+    private Priority(int urgency, boolean incremental)
+    {
+        this.urgency = urgency;
+        this.incremental = incremental;
+    }
+
+    /**
+     * @return the urgency, between {@link #MIN_URGENCY} (most urgent) and {@link #MAX_URGENCY} (least urgent)
+     */
+    public int getUrgency()
+    {
+        return urgency;
+    }
+
+    /**
+     * @return whether the response can be interleaved with other incremental responses of the same urgency
+     */
+    public boolean isIncremental()
+    {
+        return incremental;
+    }
+
+    @Override
+    public String toString()
+    {
+        return incremental ? "u=" + urgency + ", i" : "u=" + urgency;
+    }
+}
@@ -0,0 +1,267 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http.compression;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+import org.eclipse.jetty.http.HttpField;
+
+/**
+ * <p>An index of the entries of an HPACK or QPACK table, either by {@link HttpField} or by
+ * case insensitive field name.</p>
+ * <p>The index is an open addressed hash table with linear probing, holding the entries
+ * and their hashes in two arrays, so that adding, removing and looking up entries does not
+ * allocate. When several entries have the same key, the most recently added one is indexed,
+ * and removing an entry that is no longer indexed has no effect, as needed when the oldest
+ * entries of a table are evicted.</p>
+ *
+ * @param <E> the type of the table entries
+ */
+public class FieldIndex<E>
+{
+    private final Function<E, HttpField> _fieldOf;
+    private final boolean _byName;
+    private Object[] _entries;
+    private int[] _hashes;
+    private int _size;
+
+    private FieldIndex(Function<E, HttpField> fieldOf, boolean byName, int capacity)
+    {
+        _fieldOf = fieldOf;
+        _byName = byName;
+        int length = Integer.highestOneBit(Math.max(8, capacity) * 2 - 1);
+        _entries = new Object[length];
+        _hashes = new int[length];
+    }
+
+    /**
+     * @param fieldOf the function returning the field of an entry
+     * @param capacity the expected number of entries
+     * @param <E> the type of the table entries
+     * @return an index of entries by field
+     */
+    public static <E> FieldIndex<E> byField(Function<E, HttpField> fieldOf, int capacity)
+    {
+        return new FieldIndex<>(fieldOf, false, capacity);
+    }
+
+    /**
+     * @param fieldOf the function returning the field of an entry
+     * @param capacity the expected number of entries
+     * @param <E> the type of the table entries
+     * @return an index of entries by case insensitive field name
+     */
+    public static <E> FieldIndex<E> byName(Function<E, HttpField> fieldOf, int capacity)
+    {
+        return new FieldIndex<>(fieldOf, true, capacity);
+    }
+
+    /**
+     * @return the number of indexed entries
+     */
+    public int size()
+    {
+        return _size;
+    }
+
+    /**
+     * @param field the field to look up
+     * @return the most recently added entry equal to the given field, or null
+     */
+    public E get(HttpField field)
+    {
+        if (_byName)
+            return get(field.getName());
+        int hash = spread(field.hashCode());
+        int mask = _entries.length - 1;
+        for (int i = hash & mask; _entries[i] != null; i = (i + 1) & mask)
+        {
+            if (_hashes[i] == hash)
+            {
+                E entry = entry(i);
+                if (field.equals(_fieldOf.apply(entry)))
+                    return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param name the field name to look up, in any case
+     * @return the most recently added entry with the given field name, or null
+     */
+    public E get(String name)
+    {
+        if (!_byName)
+            throw new UnsupportedOperationException();
+        int hash = spread(nameHash(name));
+        int mask = _entries.length - 1;
+        for (int i = hash & mask; _entries[i] != null; i = (i + 1) & mask)
+        {
+            if (_hashes[i] == hash)
+            {
+                E entry = entry(i);
+                if (name.equalsIgnoreCase(_fieldOf.apply(entry).getName()))
+                    return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * <p>Indexes an entry, replacing any entry with the same key.</p>
+     *
+     * @param entry the entry to index
+     */
+    public void put(E entry)
+    {
+        if ((_size + 1) * 2 > _entries.length)
+            grow();
+        HttpField field = _fieldOf.apply(entry);
+        int hash = hash(field);
+        int mask = _entries.length - 1;
+        int i = hash & mask;
+        while (_entries[i] != null)
+        {
+            if (_hashes[i] == hash && sameKey(field, _fieldOf.apply(entry(i))))
+            {
+                _entries[i] = entry;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        _entries[i] = entry;
+        _hashes[i] = hash;
+        _size++;
+    }
+
+    /**
+     * <p>Removes an entry, if it is the indexed entry for its key.</p>
+     *
+     * @param entry the entry to remove
+     * @return whether the entry was removed
+     */
+    public boolean remove(E entry)
+    {
+        int hash = hash(_fieldOf.apply(entry));
+        int mask = _entries.length - 1;
+        int i = hash & mask;
+        while (_entries[i] != null)
+        {
+            if (_entries[i] == entry)
+            {
+                delete(i);
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Removes all the entries.
+     */
+    public void clear()
+    {
+        Arrays.fill(_entries, null);
+        _size = 0;
+    }
+
+    private void delete(int slot)
+    {
+        // Backward shift deletion, so that no tombstones are needed.
+        int mask = _entries.length - 1;
+        int hole = slot;
+        int i = slot;
+        while (true)
+        {
+            i = (i + 1) & mask;
+            if (_entries[i] == null)
+                break;
+            int home = _hashes[i] & mask;
+            // Move the entry to the hole if its home slot is not between the hole and its slot.
+            if (((i - home) & mask) >= ((i - hole) & mask))
+            {
+                _entries[hole] = _entries[i];
+                _hashes[hole] = _hashes[i];
+                hole = i;
+            }
+        }
+        _entries[hole] = null;
+        _size--;
+    }
+
+    private void grow()
+    {
+        Object[] entries = _entries;
+        int[] hashes = _hashes;
+        _entries = new Object[entries.length * 2];
+        _hashes = new int[entries.length * 2];
+        int mask = _entries.length - 1;
+        for (int j = 0; j < entries.length; ++j)
+        {
+            if (entries[j] == null)
+                continue;
+            int i = hashes[j] & mask;
+            while (_entries[i] != null)
+            {
+                i = (i + 1) & mask;
+            }
+            _entries[i] = entries[j];
+            _hashes[i] = hashes[j];
+        }
+    }
+
+    private boolean sameKey(HttpField field1, HttpField field2)
+    {
+        return _byName ? field1.getName().equalsIgnoreCase(field2.getName()) : field1.equals(field2);
+    }
+
+    private int hash(HttpField field)
+    {
+        return spread(_byName ? nameHash(field.getName()) : field.hashCode());
+    }
+
+    @SuppressWarnings("unchecked")
+    private E entry(int slot)
+    {
+        return (E)_entries[slot];
+    }
+
+    private static int nameHash(String name)
+    {
+        int hash = 0;
+        for (int i = 0; i < name.length(); ++i)
+        {
+            char c = name.charAt(i);
+            if (c >= 'A' && c <= 'Z')
+                c += 0x20;
+            hash = 31 * hash + c;
+        }
+        return hash;
+    }
+
+    private static int spread(int hash)
+    {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{%s,size=%d,capacity=%d}", getClass().getSimpleName(), hashCode(), _byName ? "name" : "field", _size, _entries.length);
+    }
+}
@@ -13,6 +13,10 @@
 
 package org.eclipse.jetty.http.compression;
 
+import java.util.Arrays;
+
+import org.eclipse.jetty.http.HttpTokens;
+
 /**
  * This class contains the Huffman Codes defined in RFC7541.
  */
@@ -287,14 +291,27 @@ public class Huffman
 
     static final int[][] LCCODES = new int[CODES.length][];
     static final char EOS = 256;
+    static final int MAX_BITS = 30;
+
+    // The code of each octet in the high bits and its length in bits in the low 8 bits,
+    // so that encoding an octet needs a single array lookup.
+    static final long[] ENCODE = new long[256];
+    static final long[] LC_ENCODE = new long[256];
 
-    // Huffman decode tree stored in a flattened char array for good
-    // locality of reference.
-    static final char[] tree;
-    static final char[] rowsym;
-    static final byte[] rowbits;
+    // The codes are canonical: the codes of a given length are consecutive and follow the
+    // shorter codes, so that a symbol is decoded from its first code and index by length.
+    static final int[] FIRST_CODE = new int[MAX_BITS + 1];
+    static final int[] FIRST_INDEX = new int[MAX_BITS + 1];
+    static final int[] COUNT = new int[MAX_BITS + 1];
+    static final char[] SYMBOLS = new char[CODES.length];
 
-    // Build the Huffman lookup tree and LC TABLE
+    // For each 16 bits window, the up to 3 sanitized symbols whose codes fit in the window,
+    // in bits 0-23, their number in bits 24-25 and their total length in bits 26-30.
+    // A zero entry means that the first code is longer than 16 bits.
+    static final int DECODE_BITS = 16;
+    static final int[] DECODE = new int[1 << DECODE_BITS];
+
+    // Build the canonical and the multi-symbol decode tables, and the LC TABLE
     static
     {
         System.arraycopy(CODES, 0, LCCODES, 0, CODES.length);
@@ -303,50 +320,69 @@ public class Huffman
             LCCODES[i] = LCCODES['a' + i - 'A'];
         }
 
-        int r = 0;
-        for (int[] ints : CODES)
+        for (int i = 0; i < 256; i++)
         {
-            r += (ints[1] + 7) / 8;
+            ENCODE[i] = (long)CODES[i][0] << 8 | CODES[i][1];
+            LC_ENCODE[i] = (long)LCCODES[i][0] << 8 | LCCODES[i][1];
         }
-        tree = new char[r * 256];
-        rowsym = new char[r];
-        rowbits = new byte[r];
 
-        r = 0;
+        for (int[] code : CODES)
+        {
+            COUNT[code[1]]++;
+        }
+        for (int len = 1, index = 0; len <= MAX_BITS; len++)
+        {
+            FIRST_INDEX[len] = index;
+            index += COUNT[len];
+        }
+        int[] next = FIRST_INDEX.clone();
+        Arrays.fill(FIRST_CODE, -1);
         for (int sym = 0; sym < CODES.length; sym++)
         {
             int code = CODES[sym][0];
             int len = CODES[sym][1];
+            if (FIRST_CODE[len] < 0)
+                FIRST_CODE[len] = code;
+            else if (code != FIRST_CODE[len] + next[len] - FIRST_INDEX[len])
+                throw new IllegalStateException("Huffman codes not canonical");
+            SYMBOLS[next[len]++] = (char)sym;
+        }
 
-            int current = 0;
-
-            while (len > 8)
+        for (int window = 0; window < DECODE.length; window++)
+        {
+            int entry = 0;
+            int count = 0;
+            int bits = 0;
+            while (count < 3)
             {
-                len -= 8;
-                int i = ((code >>> len) & 0xFF);
-
-                int t = current * 256 + i;
-                current = tree[t];
-                if (current == 0)
-                {
-                    tree[t] = (char)++r;
-                    current = r;
-                }
+                int decoded = decodeSymbol(window << bits & (DECODE.length - 1), DECODE_BITS);
+                int len = decoded >>> 16;
+                if (len == 0 || bits + len > DECODE_BITS)
+                    break;
+                char c = HttpTokens.sanitizeFieldVchar((char)(decoded & 0xFFFF));
+                entry |= c << (8 * count);
+                count++;
+                bits += len;
             }
+            if (count > 0)
+                DECODE[window] = entry | count << 24 | bits << 26;
+        }
+    }
 
-            int terminal = ++r;
-            rowsym[r] = (char)sym;
-            int b = len & 0x07;
-            int terminalBits = b == 0 ? 8 : b;
-
-            rowbits[r] = (byte)terminalBits;
-            int shift = 8 - len;
-            int start = current * 256 + ((code << shift) & 0xFF);
-            int end = start + (1 << shift);
-            for (int i = start; i < end; i++)
-            {
-                tree[i] = (char)terminal;
-            }
+    /**
+     * @param window the bits to decode, aligned to the high bit of the window
+     * @param windowBits the number of bits in the window
+     * @return the symbol whose code starts the window in the low 16 bits and the code length in the high 16 bits,
+     * or zero if the window is shorter than the code
+     */
+    static int decodeSymbol(int window, int windowBits)
+    {
+        for (int len = 1; len <= windowBits; len++)
+        {
+            int offset = (window >>> (windowBits - len)) - FIRST_CODE[len];
+            if (COUNT[len] > 0 && offset >= 0 && offset < COUNT[len])
+                return len << 16 | SYMBOLS[FIRST_INDEX[len] + offset];
         }
+        return 0;
     }
 }
@@ -14,26 +14,32 @@
 package org.eclipse.jetty.http.compression;
 
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 import org.eclipse.jetty.http.HttpTokens;
-import org.eclipse.jetty.util.CharsetStringBuilder;
 
-import static org.eclipse.jetty.http.compression.Huffman.rowbits;
-import static org.eclipse.jetty.http.compression.Huffman.rowsym;
+import static org.eclipse.jetty.http.compression.Huffman.DECODE;
+import static org.eclipse.jetty.http.compression.Huffman.DECODE_BITS;
+import static org.eclipse.jetty.http.compression.Huffman.MAX_BITS;
 
 /**
  * <p>Used to decoded Huffman encoded strings.</p>
  *
  * <p>Characters which are illegal field-vchar values are replaced with
  * either ' ' or '?' as described in RFC9110</p>
+ *
+ * <p>The encoded bits are accumulated in a {@code long}, and decoded with one lookup
+ * of a 16 bits window in a table that yields up to 3 symbols at once, directly into
+ * an array of ISO-8859-1 octets; only codes longer than 16 bits, which are rare in
+ * HTTP fields, are decoded by length.</p>
  */
 public class HuffmanDecoder
 {
-    private final CharsetStringBuilder.Iso88591StringBuilder _builder = new CharsetStringBuilder.Iso88591StringBuilder();
+    private byte[] _octets = new byte[64];
+    private int _size = 0;
     private int _length = 0;
     private int _count = 0;
-    private int _node = 0;
-    private int _current = 0;
+    private long _current = 0;
     private int _bits = 0;
 
     /**
@@ -44,6 +50,10 @@ public class HuffmanDecoder
         if (_count != 0)
             throw new IllegalStateException();
         _length = length;
+        // The shortest code is 5 bits, plus room for the 3 octets written by each lookup.
+        int capacity = length * 8 / 5 + 3;
+        if (_octets.length < capacity)
+            _octets = new byte[capacity];
     }
 
     /**
@@ -53,86 +63,105 @@ public class HuffmanDecoder
      */
     public String decode(ByteBuffer buffer) throws EncodingException
     {
-        for (; _count < _length; _count++)
+        byte[] octets = _octets;
+        long current = _current;
+        int bits = _bits;
+        int size = _size;
+        while (true)
         {
-            if (!buffer.hasRemaining())
-                return null;
+            while (bits <= 56 && _count < _length && buffer.hasRemaining())
+            {
+                current = (current << 8) | (buffer.get() & 0xFF);
+                bits += 8;
+                _count++;
+            }
 
-            int b = buffer.get() & 0xFF;
-            _current = (_current << 8) | b;
-            _bits += 8;
-            while (_bits >= 8)
+            while (bits >= DECODE_BITS)
             {
-                int i = (_current >>> (_bits - 8)) & 0xFF;
-                _node = Huffman.tree[_node * 256 + i];
-                if (rowbits[_node] != 0)
+                int entry = DECODE[(int)(current >>> (bits - DECODE_BITS)) & 0xFFFF];
+                if (entry != 0)
                 {
-                    if (rowsym[_node] == Huffman.EOS)
-                    {
-                        reset();
-                        throw new EncodingException("eos_in_content");
-                    }
-
-                    // terminal node
-                    char c = rowsym[_node];
-                    c = HttpTokens.sanitizeFieldVchar(c);
-                    _builder.append((byte)c);
-                    _bits -= rowbits[_node];
-                    _node = 0;
+                    octets[size] = (byte)entry;
+                    octets[size + 1] = (byte)(entry >>> 8);
+                    octets[size + 2] = (byte)(entry >>> 16);
+                    size += (entry >>> 24) & 0x3;
+                    bits -= entry >>> 26;
+                }
+                else if (bits >= MAX_BITS)
+                {
+                    int decoded = Huffman.decodeSymbol((int)(current >>> (bits - MAX_BITS)) & 0x3FFFFFFF, MAX_BITS);
+                    _size = size;
+                    append(decoded);
+                    size = _size;
+                    bits -= decoded >>> 16;
                 }
                 else
                 {
-                    // non-terminal node
-                    _bits -= 8;
+                    break;
                 }
             }
+
+            if (_count == _length)
+                break;
+            if (!buffer.hasRemaining())
+            {
+                _current = current;
+                _bits = bits;
+                _size = size;
+                return null;
+            }
         }
+        _current = current;
+        _bits = bits;
+        _size = size;
 
+        // Decode the last codes, less than 30 bits, padded with ones.
         while (_bits > 0)
         {
-            int i = (_current << (8 - _bits)) & 0xFF;
-            int lastNode = _node;
-            _node = Huffman.tree[_node * 256 + i];
-
-            if (rowbits[_node] == 0 || rowbits[_node] > _bits)
+            int padding = MAX_BITS - _bits;
+            int window = (int)(_current << padding) & 0x3FFFFFFF | ((1 << padding) - 1);
+            int decoded = Huffman.decodeSymbol(window, MAX_BITS);
+            int len = decoded >>> 16;
+            if (len > _bits)
             {
-                int requiredPadding = 0;
-                for (int j = 0; j < _bits; j++)
+                int paddingBits = _bits & 7;
+                if ((_current & ((1 << paddingBits) - 1)) != (1 << paddingBits) - 1)
                 {
-                    requiredPadding = (requiredPadding << 1) | 1;
-                }
-
-                if ((i >> (8 - _bits)) != requiredPadding)
+                    reset();
                     throw new EncodingException("incorrect_padding");
-
-                _node = lastNode;
+                }
+                if (_bits > 7)
+                {
+                    reset();
+                    throw new EncodingException("bad_termination");
+                }
                 break;
             }
-
-            char c = rowsym[_node];
-            c = HttpTokens.sanitizeFieldVchar(c);
-            _builder.append((byte)c);
-            _bits -= rowbits[_node];
-            _node = 0;
+            append(decoded);
+            _bits -= len;
         }
 
-        if (_node != 0)
+        String value = new String(_octets, 0, _size, StandardCharsets.ISO_8859_1);
+        reset();
+        return value;
+    }
+
+    private void append(int decoded) throws EncodingException
+    {
+        char c = (char)(decoded & 0xFFFF);
+        if (c == Huffman.EOS)
         {
             reset();
-            throw new EncodingException("bad_termination");
+            throw new EncodingException("eos_in_content");
         }
-
-        String value = _builder.build();
-        reset();
-        return value;
+        _octets[_size++] = (byte)HttpTokens.sanitizeFieldVchar(c);
     }
 
     public void reset()
     {
-        _builder.reset();
+        _size = 0;
         _count = 0;
         _current = 0;
-        _node = 0;
         _bits = 0;
     }
 }
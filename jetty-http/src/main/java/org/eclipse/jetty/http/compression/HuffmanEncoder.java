@@ -13,18 +13,22 @@
 
 package org.eclipse.jetty.http.compression;
 
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 
 import org.eclipse.jetty.http.HttpTokens;
 
-import static org.eclipse.jetty.http.compression.Huffman.CODES;
-import static org.eclipse.jetty.http.compression.Huffman.LCCODES;
+import static org.eclipse.jetty.http.compression.Huffman.ENCODE;
+import static org.eclipse.jetty.http.compression.Huffman.LC_ENCODE;
 
 /**
  * <p>Used to encode strings Huffman encoding.</p>
  *
  * <p>Characters are encoded with ISO-8859-1, if any multi-byte characters or
  * control characters are present the encoder will throw {@link EncodingException}.</p>
+ *
+ * <p>Codes are accumulated in a {@code long} and written 32 bits at a time,
+ * directly into the array of heap buffers.</p>
  */
 public class HuffmanEncoder
 {
@@ -38,7 +42,7 @@ public class HuffmanEncoder
      */
     public static int octetsNeeded(String s)
     {
-        return octetsNeeded(CODES, s);
+        return octetsNeeded(ENCODE, s);
     }
 
     /**
@@ -50,8 +54,7 @@ public class HuffmanEncoder
         int needed = 0;
         for (byte value : b)
         {
-            int c = 0xFF & value;
-            needed += CODES[c][1];
+            needed += (int)ENCODE[0xFF & value] & 0xFF;
         }
         return (needed + 7) / 8;
     }
@@ -62,7 +65,7 @@ public class HuffmanEncoder
      */
     public static void encode(ByteBuffer buffer, String s)
     {
-        encode(CODES, buffer, s);
+        encode(ENCODE, buffer, s);
     }
 
     /**
@@ -71,7 +74,7 @@ public class HuffmanEncoder
      */
     public static int octetsNeededLowerCase(String s)
     {
-        return octetsNeeded(LCCODES, s);
+        return octetsNeeded(LC_ENCODE, s);
     }
 
     /**
@@ -80,10 +83,10 @@ public class HuffmanEncoder
      */
     public static void encodeLowerCase(ByteBuffer buffer, String s)
     {
-        encode(LCCODES, buffer, s);
+        encode(LC_ENCODE, buffer, s);
     }
 
-    private static int octetsNeeded(final int[][] table, String s)
+    private static int octetsNeeded(final long[] table, String s)
     {
         int needed = 0;
         int len = s.length();
@@ -92,7 +95,7 @@ public class HuffmanEncoder
             char c = s.charAt(i);
             if (HttpTokens.isIllegalFieldVchar(c))
                 return -1;
-            needed += table[c][1];
+            needed += (int)table[c] & 0xFF;
         }
 
         return (needed + 7) / 8;
@@ -103,7 +106,61 @@ public class HuffmanEncoder
      * @param buffer The buffer to encode to
      * @param s The string to encode
      */
-    private static void encode(final int[][] table, ByteBuffer buffer, String s)
+    private static void encode(final long[] table, ByteBuffer buffer, String s)
+    {
+        if (!buffer.hasArray())
+        {
+            encodeSlow(table, buffer, s);
+            return;
+        }
+
+        byte[] array = buffer.array();
+        int offset = buffer.arrayOffset();
+        int position = offset + buffer.position();
+        int limit = offset + buffer.limit();
+        long current = 0;
+        int n = 0;
+        int len = s.length();
+        for (int i = 0; i < len; i++)
+        {
+            char c = s.charAt(i);
+            if (HttpTokens.isIllegalFieldVchar(c))
+                throw new IllegalArgumentException();
+            long code = table[c];
+            int bits = (int)code & 0xFF;
+
+            current = (current << bits) | (code >>> 8);
+            n += bits;
+
+            // At most 31 bits are left over, and codes are at most 30 bits.
+            if (n >= 32)
+            {
+                if (position + 4 > limit)
+                    throw new BufferOverflowException();
+                n -= 32;
+                int word = (int)(current >>> n);
+                array[position++] = (byte)(word >>> 24);
+                array[position++] = (byte)(word >>> 16);
+                array[position++] = (byte)(word >>> 8);
+                array[position++] = (byte)word;
+            }
+        }
+
+        // Flush the remaining bits, padded with ones.
+        int padding = (8 - (n & 7)) & 7;
+        current = (current << padding) | ((1L << padding) - 1);
+        n += padding;
+        if (position + n / 8 > limit)
+            throw new BufferOverflowException();
+        while (n > 0)
+        {
+            n -= 8;
+            array[position++] = (byte)(current >>> n);
+        }
+        buffer.position(position - offset);
+    }
+
+    private static void encodeSlow(final long[] table, ByteBuffer buffer, String s)
     {
         long current = 0;
         int n = 0;
@@ -112,12 +169,11 @@ public class HuffmanEncoder
         {
             char c = s.charAt(i);
             if (HttpTokens.isIllegalFieldVchar(c))
-                 throw new IllegalArgumentException();
-            int code = table[c][0];
-            int bits = table[c][1];
+                throw new IllegalArgumentException();
+            long code = table[c];
+            int bits = (int)code & 0xFF;
 
-            current <<= bits;
-            current |= code;
+            current = (current << bits) | (code >>> 8);
             n += bits;
 
             while (n >= 8)
@@ -0,0 +1,192 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http.encoding;
+
+import java.nio.ByteBuffer;
+import java.util.ServiceLoader;
+
+import org.eclipse.jetty.http.CompressedContentFormat;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.util.StringUtil;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.util.component.Destroyable;
+
+/**
+ * <p>A HTTP content-coding, such as {@code gzip} or {@code deflate}, that
+ * creates {@link Encoder}s to compress content and {@link Decoder}s to
+ * decompress it.</p>
+ * <p>Implementations are typically backed by a {@link org.eclipse.jetty.util.compression.CompressionPool}
+ * managed as a bean, so that encoders and decoders can be cheaply obtained per exchange.</p>
+ * <p>Besides the built-in {@link GzipContentEncoding} and {@link DeflateContentEncoding},
+ * implementations may be discovered via {@link ServiceLoader}, in which case they must
+ * have a public no-argument constructor.</p>
+ *
+ * @see ContentEncodings
+ */
+public abstract class ContentEncoding extends ContainerLifeCycle
+{
+    private final CompressedContentFormat _format;
+
+    /**
+     * @param name the content-coding name, as used in the {@code Accept-Encoding}
+     * and {@code Content-Encoding} headers
+     */
+    protected ContentEncoding(String name)
+    {
+        this(new CompressedContentFormat(name, "." + StringUtil.asciiToLowerCase(name)));
+    }
+
+    /**
+     * @param format the format of the content compressed by this encoding
+     */
+    protected ContentEncoding(CompressedContentFormat format)
+    {
+        _format = format;
+    }
+
+    /**
+     * @return the content-coding name, in lower case
+     */
+    public String getName()
+    {
+        return _format.getEncoding();
+    }
+
+    /**
+     * @return the format of the content compressed by this encoding
+     */
+    public CompressedContentFormat getContentFormat()
+    {
+        return _format;
+    }
+
+    /**
+     * @param level the compression level, or -1 for the default level of this encoding
+     * @return a new encoder, that must be {@link Encoder#release() released} after use
+     */
+    public abstract Encoder newEncoder(int level);
+
+    /**
+     * @param pool the pool to acquire the buffers of decoded content from, or null
+     * @param bufferSize the size of the buffers of decoded content
+     * @param useDirectBuffers whether to use direct buffers for decoded content
+     * @return a new decoder, that must be {@link Decoder#destroy() destroyed} after use
+     */
+    public abstract Decoder newDecoder(ByteBufferPool pool, int bufferSize, boolean useDirectBuffers);
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{%s,%s}", getClass().getSimpleName(), hashCode(), getState(), getName());
+    }
+
+    /**
+     * <p>Compresses content in a streaming fashion.</p>
+     * <p>Content is passed with {@link #setInput(ByteBuffer)} and {@link #finish()}
+     * and compressed bytes, including any framing required by the format, are
+     * produced by {@link #encode(ByteBuffer, boolean)} until {@link #needsInput()}
+     * or, after {@link #finish()}, until {@link #isFinished()}.</p>
+     */
+    public interface Encoder
+    {
+        /**
+         * @return the format of the content produced by this encoder
+         */
+        CompressedContentFormat getContentFormat();
+
+        /**
+         * <p>Sets the content to compress, which is consumed by subsequent calls
+         * to {@link #encode(ByteBuffer, boolean)}.</p>
+         *
+         * @param input the content to compress
+         */
+        void setInput(ByteBuffer input);
+
+        /**
+         * <p>Indicates that the compression should end with the current input.</p>
+         */
+        void finish();
+
+        /**
+         * @return whether the input has been consumed and more is needed to produce more output
+         */
+        boolean needsInput();
+
+        /**
+         * @return whether all the compressed bytes have been produced
+         */
+        boolean isFinished();
+
+        /**
+         * <p>Compresses input and appends the compressed bytes to the given buffer.</p>
+         *
+         * @param output the buffer, in flush mode, to append compressed bytes to
+         * @param flush whether all the pending compressed bytes should be flushed
+         * @return the number of bytes appended
+         */
+        int encode(ByteBuffer output, boolean flush);
+
+        /**
+         * @return the compression level of this encoder, or -1 for the default level
+         */
+        default int getLevel()
+        {
+            return -1;
+        }
+
+        /**
+         * @return the total number of uncompressed bytes consumed
+         */
+        long getBytesRead();
+
+        /**
+         * @return the total number of compressed bytes produced
+         */
+        long getBytesWritten();
+
+        /**
+         * <p>Releases the resources used by this encoder, that cannot be used afterwards.</p>
+         */
+        void release();
+    }
+
+    /**
+     * <p>Decompresses content in a streaming fashion.</p>
+     * <p>{@link #decode(ByteBuffer)} may consume the input buffer and return
+     * only a chunk of the decoded bytes, so that the chunk can be consumed
+     * before decoding further and backpressure applied. In this case, it must
+     * be invoked again with the same input buffer (even if it is already fully
+     * consumed) to produce the next chunk. The input is fully decoded when it
+     * is fully consumed and the returned buffer is empty.</p>
+     */
+    public interface Decoder extends Destroyable
+    {
+        /**
+         * @param compressed the buffer containing compressed bytes
+         * @return a buffer containing decoded bytes, possibly empty, that should be
+         * {@link #release(ByteBuffer) released} once consumed
+         */
+        ByteBuffer decode(ByteBuffer compressed);
+
+        /**
+         * @param decoded a buffer returned by {@link #decode(ByteBuffer)}
+         */
+        void release(ByteBuffer decoded);
+
+        /**
+         * @return whether the end of the compressed content has been reached
+         */
+        boolean isFinished();
+    }
+}
@@ -0,0 +1,202 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http.encoding;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.QuotedQualityCSV;
+import org.eclipse.jetty.util.StringUtil;
+import org.eclipse.jetty.util.TypeUtil;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>An ordered set of {@link ContentEncoding}s, keyed by name.</p>
+ * <p>The order of registration is the order of preference of the server
+ * when {@link #negotiate(HttpFields) negotiating} among encodings that
+ * the client accepts with the same quality.</p>
+ */
+public class ContentEncodings extends ContainerLifeCycle implements Iterable<ContentEncoding>
+{
+    private static final Logger LOG = LoggerFactory.getLogger(ContentEncodings.class);
+
+    private final List<ContentEncoding> _encodings = new CopyOnWriteArrayList<>();
+
+    /**
+     * @return the {@link ContentEncoding}s discovered by the {@link ServiceLoader}
+     */
+    public static List<ContentEncoding> discover()
+    {
+        List<ContentEncoding> encodings = new ArrayList<>();
+        TypeUtil.serviceProviderStream(ServiceLoader.load(ContentEncoding.class)).forEach(provider ->
+        {
+            try
+            {
+                encodings.add(provider.get());
+            }
+            catch (Error | RuntimeException e)
+            {
+                LOG.debug("Unable to add ContentEncoding", e);
+            }
+        });
+        if (LOG.isDebugEnabled())
+            LOG.debug("ContentEncodings discovered: {}", encodings);
+        return encodings;
+    }
+
+    /**
+     * <p>Adds an encoding, replacing any previous encoding with the same name.</p>
+     *
+     * @param encoding the encoding to add
+     */
+    public void add(ContentEncoding encoding)
+    {
+        ContentEncoding existing = get(encoding.getName());
+        if (existing != null)
+        {
+            _encodings.set(_encodings.indexOf(existing), encoding);
+            updateBean(existing, encoding);
+        }
+        else
+        {
+            _encodings.add(encoding);
+            addBean(encoding);
+        }
+    }
+
+    /**
+     * @param name the encoding name
+     * @return the removed encoding, or null if there was no encoding with the given name
+     */
+    public ContentEncoding remove(String name)
+    {
+        ContentEncoding encoding = get(name);
+        if (encoding != null)
+        {
+            _encodings.remove(encoding);
+            removeBean(encoding);
+        }
+        return encoding;
+    }
+
+    /**
+     * @param name the encoding name, case insensitive
+     * @return the encoding with the given name, or null if there is none
+     */
+    public ContentEncoding get(String name)
+    {
+        if (name == null)
+            return null;
+        for (ContentEncoding encoding : _encodings)
+        {
+            if (encoding.getName().equalsIgnoreCase(name))
+                return encoding;
+        }
+        return null;
+    }
+
+    /**
+     * @return the names of the encodings, in order of preference
+     */
+    public List<String> getNames()
+    {
+        List<String> names = new ArrayList<>(_encodings.size());
+        for (ContentEncoding encoding : _encodings)
+        {
+            names.add(encoding.getName());
+        }
+        return names;
+    }
+
+    public boolean isEmpty()
+    {
+        return _encodings.isEmpty();
+    }
+
+    @Override
+    public Iterator<ContentEncoding> iterator()
+    {
+        return _encodings.iterator();
+    }
+
+    /**
+     * <p>Selects the encoding to use for a response, from the {@code Accept-Encoding}
+     * headers of the request and their quality values, as a {@link QuotedQualityCSV}.</p>
+     * <p>Encodings with the same quality are selected in the order of preference of this
+     * set, and the {@code *} value selects the preferred encoding not otherwise listed.</p>
+     *
+     * @param fields the request headers
+     * @return the selected encoding, or null if none of the encodings is acceptable
+     */
+    public ContentEncoding negotiate(HttpFields fields)
+    {
+        if (_encodings.isEmpty())
+            return null;
+
+        List<String> accepted = fields.getQualityCSV(HttpHeader.ACCEPT_ENCODING, this::preference);
+        if (accepted.isEmpty())
+            return null;
+
+        for (String value : accepted)
+        {
+            if ("*".equals(value))
+                return wildcard(fields);
+            ContentEncoding encoding = get(value);
+            if (encoding != null)
+                return encoding;
+        }
+        return null;
+    }
+
+    private int preference(String value)
+    {
+        // Higher values are preferred, the wildcard last.
+        for (int i = 0; i < _encodings.size(); i++)
+        {
+            if (_encodings.get(i).getName().equalsIgnoreCase(value))
+                return _encodings.size() - i;
+        }
+        return 0;
+    }
+
+    private ContentEncoding wildcard(HttpFields fields)
+    {
+        // Names listed explicitly, including with q=0, are not matched by the wildcard.
+        List<String> listed = new ArrayList<>();
+        for (String value : fields.getCSV(HttpHeader.ACCEPT_ENCODING, false))
+        {
+            int semicolon = value.indexOf(';');
+            listed.add(StringUtil.asciiToLowerCase((semicolon < 0 ? value : value.substring(0, semicolon)).trim()));
+        }
+        for (ContentEncoding encoding : _encodings)
+        {
+            if (!listed.contains(encoding.getName()))
+                return encoding;
+        }
+        return null;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x%s", getClass().getSimpleName(), hashCode(), getNames());
+    }
+}
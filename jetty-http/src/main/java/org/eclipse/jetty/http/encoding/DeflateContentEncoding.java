@@ -0,0 +1,280 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http.encoding;
+
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import org.eclipse.jetty.http.CompressedContentFormat;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.compression.CompressionPool;
+import org.eclipse.jetty.util.compression.DeflaterPool;
+import org.eclipse.jetty.util.compression.InflaterPool;
+
+/**
+ * <p>The {@code deflate} content-coding, that is the zlib format of RFC 1950.</p>
+ */
+public class DeflateContentEncoding extends ContentEncoding
+{
+    public static final String NAME = "deflate";
+
+    private final DeflaterPool _deflaterPool;
+    private final InflaterPool _inflaterPool;
+
+    public DeflateContentEncoding()
+    {
+        this(new DeflaterPool(CompressionPool.DEFAULT_CAPACITY, Deflater.DEFAULT_COMPRESSION, false), new InflaterPool(CompressionPool.DEFAULT_CAPACITY, false), true);
+    }
+
+    /**
+     * @param deflaterPool the pool of zlib (not {@code nowrap}) deflaters
+     * @param inflaterPool the pool of zlib (not {@code nowrap}) inflaters
+     */
+    public DeflateContentEncoding(DeflaterPool deflaterPool, InflaterPool inflaterPool)
+    {
+        this(deflaterPool, inflaterPool, false);
+    }
+
+    private DeflateContentEncoding(DeflaterPool deflaterPool, InflaterPool inflaterPool, boolean managed)
+    {
+        super(NAME);
+        _deflaterPool = deflaterPool;
+        _inflaterPool = inflaterPool;
+        addBean(_deflaterPool, managed);
+        addBean(_inflaterPool, managed);
+    }
+
+    public DeflaterPool getDeflaterPool()
+    {
+        return _deflaterPool;
+    }
+
+    public InflaterPool getInflaterPool()
+    {
+        return _inflaterPool;
+    }
+
+    @Override
+    public Encoder newEncoder(int level)
+    {
+        DeflaterPool.Entry entry = _deflaterPool.acquire();
+        int compressionLevel = level < 0 ? _deflaterPool.getCompressionLevel() : level;
+        entry.get().setLevel(compressionLevel);
+        return new DeflateEncoder(getContentFormat(), entry, compressionLevel);
+    }
+
+    @Override
+    public Decoder newDecoder(ByteBufferPool pool, int bufferSize, boolean useDirectBuffers)
+    {
+        return new DeflateDecoder(_inflaterPool.acquire(), pool, bufferSize, useDirectBuffers);
+    }
+
+    /**
+     * <p>An {@link Encoder} that compresses content with a pooled {@link Deflater}.</p>
+     */
+    public static class DeflateEncoder implements Encoder
+    {
+        private final CompressedContentFormat _format;
+        private final Deflater _deflater;
+        private final int _level;
+        private DeflaterPool.Entry _entry;
+
+        public DeflateEncoder(CompressedContentFormat format, DeflaterPool.Entry entry)
+        {
+            this(format, entry, -1);
+        }
+
+        /**
+         * @param format the format of the compressed content
+         * @param entry the pooled deflater
+         * @param level the compression level set on the deflater, or -1 for the default level
+         */
+        public DeflateEncoder(CompressedContentFormat format, DeflaterPool.Entry entry, int level)
+        {
+            _format = format;
+            _entry = entry;
+            _deflater = entry.get();
+            _level = level;
+        }
+
+        @Override
+        public CompressedContentFormat getContentFormat()
+        {
+            return _format;
+        }
+
+        @Override
+        public int getLevel()
+        {
+            return _level;
+        }
+
+        @Override
+        public void setInput(ByteBuffer input)
+        {
+            _deflater.setInput(input);
+        }
+
+        @Override
+        public void finish()
+        {
+            _deflater.finish();
+        }
+
+        @Override
+        public boolean needsInput()
+        {
+            return _deflater.needsInput();
+        }
+
+        @Override
+        public boolean isFinished()
+        {
+            return _deflater.finished();
+        }
+
+        @Override
+        public int encode(ByteBuffer output, boolean flush)
+        {
+            int pos = BufferUtil.flipToFill(output);
+            int length = _deflater.deflate(output, flush ? Deflater.SYNC_FLUSH : Deflater.NO_FLUSH);
+            BufferUtil.flipToFlush(output, pos);
+            return length;
+        }
+
+        @Override
+        public long getBytesRead()
+        {
+            return _deflater.getBytesRead();
+        }
+
+        @Override
+        public long getBytesWritten()
+        {
+            return _deflater.getBytesWritten();
+        }
+
+        @Override
+        public void release()
+        {
+            if (_entry != null)
+            {
+                _entry.release();
+                _entry = null;
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x[%s,%s]", getClass().getSimpleName(), hashCode(), _format, _entry);
+        }
+    }
+
+    /**
+     * <p>A {@link Decoder} that decompresses zlib content with a pooled {@link Inflater}.</p>
+     * <p>Each call to {@link #decode(ByteBuffer)} returns at most one buffer of decoded bytes.</p>
+     */
+    public static class DeflateDecoder implements Decoder
+    {
+        private final ByteBufferPool _pool;
+        private final int _bufferSize;
+        private final boolean _useDirectBuffers;
+        private final Inflater _inflater;
+        private InflaterPool.Entry _entry;
+
+        public DeflateDecoder(InflaterPool.Entry entry, ByteBufferPool pool, int bufferSize, boolean useDirectBuffers)
+        {
+            _entry = entry;
+            _inflater = entry.get();
+            _pool = pool;
+            _bufferSize = bufferSize;
+            _useDirectBuffers = useDirectBuffers;
+        }
+
+        @Override
+        public ByteBuffer decode(ByteBuffer compressed)
+        {
+            if (_inflater.finished())
+            {
+                // Ignore any content after the end of the compressed stream.
+                compressed.position(compressed.limit());
+                return BufferUtil.EMPTY_BUFFER;
+            }
+
+            if (_inflater.needsInput())
+            {
+                if (!compressed.hasRemaining())
+                    return BufferUtil.EMPTY_BUFFER;
+                _inflater.setInput(compressed);
+            }
+
+            ByteBuffer buffer = _pool == null ? BufferUtil.allocate(_bufferSize) : _pool.acquire(_bufferSize, _useDirectBuffers);
+            try
+            {
+                int pos = BufferUtil.flipToFill(buffer);
+                _inflater.inflate(buffer);
+                BufferUtil.flipToFlush(buffer, pos);
+            }
+            catch (DataFormatException x)
+            {
+                release(buffer);
+                throw new RuntimeException(new ZipException(x.getMessage()));
+            }
+
+            if (buffer.hasRemaining())
+                return buffer;
+
+            release(buffer);
+            if (_inflater.needsDictionary())
+                throw new RuntimeException(new ZipException("Unsupported preset dictionary"));
+            if (_inflater.finished())
+                compressed.position(compressed.limit());
+            return BufferUtil.EMPTY_BUFFER;
+        }
+
+        @Override
+        public void release(ByteBuffer decoded)
+        {
+            if (_pool != null && !BufferUtil.isTheEmptyBuffer(decoded))
+                _pool.release(decoded);
+        }
+
+        @Override
+        public boolean isFinished()
+        {
+            return _inflater.finished();
+        }
+
+        @Override
+        public void destroy()
+        {
+            if (_entry != null)
+            {
+                _entry.release();
+                _entry = null;
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x[%s]", getClass().getSimpleName(), hashCode(), _entry);
+        }
+    }
+}
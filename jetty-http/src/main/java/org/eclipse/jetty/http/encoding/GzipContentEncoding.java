@@ -0,0 +1,192 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http.encoding;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.eclipse.jetty.http.CompressedContentFormat;
+import org.eclipse.jetty.http.GZIPContentDecoder;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.compression.CompressionPool;
+import org.eclipse.jetty.util.compression.DeflaterPool;
+import org.eclipse.jetty.util.compression.InflaterPool;
+
+/**
+ * <p>The {@code gzip} content-coding of RFC 1952.</p>
+ */
+public class GzipContentEncoding extends ContentEncoding
+{
+    public static final String NAME = "gzip";
+
+    private final DeflaterPool _deflaterPool;
+    private final InflaterPool _inflaterPool;
+
+    public GzipContentEncoding()
+    {
+        this(new DeflaterPool(CompressionPool.DEFAULT_CAPACITY, Deflater.DEFAULT_COMPRESSION, true), new InflaterPool(CompressionPool.DEFAULT_CAPACITY, true), true);
+    }
+
+    /**
+     * @param deflaterPool the pool of {@code nowrap} deflaters
+     * @param inflaterPool the pool of {@code nowrap} inflaters
+     */
+    public GzipContentEncoding(DeflaterPool deflaterPool, InflaterPool inflaterPool)
+    {
+        this(deflaterPool, inflaterPool, false);
+    }
+
+    private GzipContentEncoding(DeflaterPool deflaterPool, InflaterPool inflaterPool, boolean managed)
+    {
+        super(CompressedContentFormat.GZIP);
+        _deflaterPool = deflaterPool;
+        _inflaterPool = inflaterPool;
+        addBean(_deflaterPool, managed);
+        addBean(_inflaterPool, managed);
+    }
+
+    public DeflaterPool getDeflaterPool()
+    {
+        return _deflaterPool;
+    }
+
+    public InflaterPool getInflaterPool()
+    {
+        return _inflaterPool;
+    }
+
+    @Override
+    public Encoder newEncoder(int level)
+    {
+        DeflaterPool.Entry entry = _deflaterPool.acquire();
+        int compressionLevel = level < 0 ? _deflaterPool.getCompressionLevel() : level;
+        entry.get().setLevel(compressionLevel);
+        return new GzipEncoder(entry, compressionLevel);
+    }
+
+    @Override
+    public Decoder newDecoder(ByteBufferPool pool, int bufferSize, boolean useDirectBuffers)
+    {
+        return new GzipDecoder(_inflaterPool, pool, bufferSize, useDirectBuffers);
+    }
+
+    /**
+     * <p>An {@link Encoder} that frames the content compressed by
+     * a pooled {@code nowrap} {@link Deflater} with the gzip header and trailer.</p>
+     */
+    public static class GzipEncoder extends DeflateContentEncoding.DeflateEncoder
+    {
+        private static final byte[] GZIP_HEADER = new byte[]{(byte)0x1f, (byte)0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+        private static final int GZIP_TRAILER_LENGTH = 8;
+
+        private final CRC32 _crc = new CRC32();
+        private boolean _header;
+        private boolean _trailer;
+
+        /**
+         * @param entry the pooled {@code nowrap} deflater
+         */
+        public GzipEncoder(DeflaterPool.Entry entry)
+        {
+            this(entry, -1);
+        }
+
+        /**
+         * @param entry the pooled {@code nowrap} deflater
+         * @param level the compression level set on the deflater, or -1 for the default level
+         */
+        public GzipEncoder(DeflaterPool.Entry entry, int level)
+        {
+            super(CompressedContentFormat.GZIP, entry, level);
+        }
+
+        @Override
+        public void setInput(ByteBuffer input)
+        {
+            _crc.update(input.slice());
+            super.setInput(input);
+        }
+
+        @Override
+        public boolean isFinished()
+        {
+            return _trailer;
+        }
+
+        @Override
+        public int encode(ByteBuffer output, boolean flush)
+        {
+            int length = 0;
+            if (!_header)
+            {
+                if (BufferUtil.space(output) < GZIP_HEADER.length)
+                    return 0;
+                BufferUtil.append(output, GZIP_HEADER, 0, GZIP_HEADER.length);
+                length += GZIP_HEADER.length;
+                _header = true;
+            }
+
+            if (!super.isFinished())
+                length += super.encode(output, flush);
+
+            if (super.isFinished() && !_trailer && BufferUtil.space(output) >= GZIP_TRAILER_LENGTH)
+            {
+                BufferUtil.putIntLittleEndian(output, (int)_crc.getValue());
+                BufferUtil.putIntLittleEndian(output, (int)getBytesRead());
+                length += GZIP_TRAILER_LENGTH;
+                _trailer = true;
+            }
+            return length;
+        }
+
+        @Override
+        public long getBytesWritten()
+        {
+            return super.getBytesWritten() + (_header ? GZIP_HEADER.length : 0) + (_trailer ? GZIP_TRAILER_LENGTH : 0);
+        }
+    }
+
+    /**
+     * <p>A {@link Decoder} for gzip content, that returns at most one
+     * buffer of inflated bytes per call to {@link #decode(ByteBuffer)}.</p>
+     */
+    public static class GzipDecoder extends GZIPContentDecoder implements Decoder
+    {
+        private ByteBuffer _chunk;
+
+        public GzipDecoder(InflaterPool inflaterPool, ByteBufferPool pool, int bufferSize, boolean useDirectBuffers)
+        {
+            super(inflaterPool, pool, bufferSize, useDirectBuffers);
+        }
+
+        @Override
+        public ByteBuffer decode(ByteBuffer compressed)
+        {
+            _chunk = null;
+            decodeChunks(compressed);
+            ByteBuffer chunk = _chunk;
+            _chunk = null;
+            return chunk == null ? BufferUtil.EMPTY_BUFFER : chunk;
+        }
+
+        @Override
+        protected boolean decodedChunk(ByteBuffer chunk)
+        {
+            _chunk = chunk;
+            return true;
+        }
+    }
+}
@@ -67,6 +67,7 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
 
     private MappedResource<E> _servletRoot;
     private MappedResource<E> _servletDefault;
+    private volatile PathSpecIndex<E> _index;
 
     @Override
     public String dump()
@@ -102,11 +103,13 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
         _orderIsSignificant = false;
         _servletRoot = null;
         _servletDefault = null;
+        _index = null;
     }
 
     public void removeIf(Predicate<MappedResource<E>> predicate)
     {
         _mappings.removeIf(predicate);
+        _index = null;
     }
 
     /**
@@ -246,19 +249,37 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
 
     /**
      * <p>Iterate over all mappings, returning the first that matches.</p>
+     * <p>The {@link UriTemplatePathSpec} and {@link RegexPathSpec} mappings are not iterated over,
+     * but looked up in a {@link PathSpecIndex} for the few candidates that may match the path,
+     * which are tried in turn at their position in the iteration order.</p>
      * @param path The path to match.
      * @return A {@link MatchedResource} instance or null if no mappings matched.
      * @see #getMatched(String)
      */
     private MatchedResource<E> getMatchedIteratively(String path)
     {
+        PathSpecIndex<E> index = _index;
+        if (index == null)
+            _index = index = new PathSpecIndex<>(_mappings);
+
+        int[] candidates = index.getCandidates(path);
+        int candidate = 0;
         MatchedPath matchedPath;
         PathSpecGroup lastGroup = null;
 
         boolean skipRestOfGroup = false;
-        // Search all the mappings
-        for (MappedResource<E> mr : _mappings)
+        // Search all the mappings that are not indexed
+        for (int rank : index.getIterated())
         {
+            // Try the indexed candidates that come first
+            while (candidate < candidates.length && candidates[candidate] < rank)
+            {
+                MatchedResource<E> matched = getMatched(index.get(candidates[candidate++]), path);
+                if (matched != null)
+                    return matched;
+            }
+
+            MappedResource<E> mr = index.get(rank);
             PathSpecGroup group = mr.getPathSpec().getGroup();
             if (group == lastGroup && skipRestOfGroup)
             {
@@ -345,9 +366,22 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
             lastGroup = group;
         }
 
+        while (candidate < candidates.length)
+        {
+            MatchedResource<E> matched = getMatched(index.get(candidates[candidate++]), path);
+            if (matched != null)
+                return matched;
+        }
+
         return null;
     }
 
+    private static <E> MatchedResource<E> getMatched(MappedResource<E> mr, String path)
+    {
+        MatchedPath matchedPath = mr.getPathSpec().matched(path);
+        return matchedPath == null ? null : new MatchedResource<>(mr.getResource(), mr.getPathSpec(), matchedPath);
+    }
+
     /**
      * @deprecated use {@link #getMatched(String)} instead
      */
@@ -391,6 +425,8 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
     {
         MappedResource<E> entry = new MappedResource<>(pathSpec, resource);
         boolean added = _mappings.add(entry);
+        if (added)
+            _index = null;
         if (LOG.isDebugEnabled())
             LOG.debug("{} {} to {}", added ? "Added" : "Ignored", entry, this);
 
@@ -489,6 +525,7 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
             {
                 removed = true;
                 iter.remove();
+                _index = null;
                 break;
             }
         }
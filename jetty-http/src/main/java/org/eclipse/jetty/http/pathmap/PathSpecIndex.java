@@ -0,0 +1,297 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.http.pathmap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>An index of the {@link UriTemplatePathSpec} and {@link RegexPathSpec} mappings of a
+ * {@link PathMappings}, used to find the few of them that may match a path, rather
+ * than trying the patterns of all of them in turn.</p>
+ * <p>Each mapping is identified by its rank, that is its position in the iteration order of
+ * the {@link PathMappings}, so that the precedence of the mappings is preserved.</p>
+ * <p>URI templates are indexed in a trie of path segments, where each node has a child per
+ * literal segment and a child for variable segments; the candidates for a path are the
+ * templates ending at the nodes reached by all its segments.
+ * Regexes are indexed in a trie of the literal characters they start with, if any;
+ * the candidates for a path are the regexes whose literal prefix is a prefix of the path.
+ * The index is conservative: the candidates still have to be matched against the path,
+ * and the mappings that cannot be indexed, including those of any other
+ * {@link PathSpec} type, are iterated over as before.</p>
+ *
+ * @param <E> the type of mapping endpoint
+ */
+final class PathSpecIndex<E>
+{
+    private static final int[] NO_RANKS = new int[0];
+    // The regex characters that are not literal, or that are literal only in template literals.
+    private static final String REGEX_SPECIAL = "\\^$.|?*+()[]{}";
+    private static final String TEMPLATE_SPECIAL = "^$|?+()";
+
+    private final List<MappedResource<E>> _mappings;
+    private final int[] _iterated;
+    private final Segment _templates = new Segment();
+    private final Literal _regexes = new Literal();
+    private final int _indexed;
+
+    PathSpecIndex(Collection<MappedResource<E>> mappings)
+    {
+        _mappings = new ArrayList<>(mappings);
+        int[] iterated = new int[_mappings.size()];
+        int size = 0;
+        for (int rank = 0; rank < _mappings.size(); ++rank)
+        {
+            PathSpec pathSpec = _mappings.get(rank).getPathSpec();
+            // Subclasses may override the matching, so only index the exact types.
+            if (pathSpec.getClass() == UriTemplatePathSpec.class)
+            {
+                if (!addTemplate(pathSpec.getDeclaration(), rank))
+                    iterated[size++] = rank;
+            }
+            else if (pathSpec.getClass() == RegexPathSpec.class)
+            {
+                addRegex(pathSpec.getDeclaration(), rank);
+            }
+            else
+            {
+                iterated[size++] = rank;
+            }
+        }
+        _iterated = Arrays.copyOf(iterated, size);
+        _indexed = _mappings.size() - size;
+    }
+
+    /**
+     * @param rank the rank of a mapping
+     * @return the mapping with the given rank
+     */
+    MappedResource<E> get(int rank)
+    {
+        return _mappings.get(rank);
+    }
+
+    /**
+     * @return the ranks, in increasing order, of the mappings that are not indexed
+     */
+    int[] getIterated()
+    {
+        return _iterated;
+    }
+
+    /**
+     * @return the number of indexed mappings
+     */
+    int getIndexedCount()
+    {
+        return _indexed;
+    }
+
+    /**
+     * @param path the path to match
+     * @return the ranks, in increasing order, of the indexed mappings that may match the path
+     */
+    int[] getCandidates(String path)
+    {
+        int query = path.indexOf('?');
+        int end = query < 0 ? path.length() : query;
+        Ranks ranks = new Ranks();
+        if (end > 0 && path.charAt(0) == '/')
+            _templates.collect(path, 1, end, ranks);
+        _regexes.collect(path, end, ranks);
+        return ranks.sorted();
+    }
+
+    private boolean addTemplate(String declaration, int rank)
+    {
+        // Same segments as the UriTemplatePathSpec regex: "/" is a single empty segment,
+        // and a trailing slash is a trailing empty segment.
+        Segment node = _templates;
+        if ("/".equals(declaration))
+        {
+            node = node.literal("");
+        }
+        else
+        {
+            String[] segments = declaration.substring(1).split("/");
+            for (String segment : segments)
+            {
+                if (segment.startsWith("{") && segment.endsWith("}"))
+                {
+                    node = node.variable();
+                }
+                else
+                {
+                    // Template literals are regex escaped only for some characters.
+                    for (int i = 0; i < segment.length(); ++i)
+                    {
+                        if (TEMPLATE_SPECIAL.indexOf(segment.charAt(i)) >= 0)
+                            return false;
+                    }
+                    node = node.literal(segment);
+                }
+            }
+            if (declaration.endsWith("/"))
+                node = node.literal("");
+        }
+        node._ranks = append(node._ranks, rank);
+        return true;
+    }
+
+    private void addRegex(String regex, int rank)
+    {
+        Literal node = _regexes;
+        String prefix = literalPrefix(regex);
+        for (int i = 0; i < prefix.length(); ++i)
+        {
+            node = node._children.computeIfAbsent(prefix.charAt(i), c -> new Literal());
+        }
+        node._ranks = append(node._ranks, rank);
+    }
+
+    /**
+     * <p>Returns the literal characters that any path matched by the given regex starts with.</p>
+     * <p>Regexes with an alternation have no literal prefix, as the alternation may
+     * apply to the whole regex; the last literal character is excluded if it is
+     * followed by an optional quantifier.</p>
+     *
+     * @param regex the regex
+     * @return the literal prefix of the regex, possibly empty
+     */
+    static String literalPrefix(String regex)
+    {
+        if (regex.indexOf('|') >= 0)
+            return "";
+        int start = 0;
+        while (start < regex.length() && regex.charAt(start) == '^')
+        {
+            ++start;
+        }
+        int end = start;
+        while (end < regex.length() && REGEX_SPECIAL.indexOf(regex.charAt(end)) < 0)
+        {
+            ++end;
+        }
+        if (end > start && end < regex.length())
+        {
+            char quantifier = regex.charAt(end);
+            if (quantifier == '?' || quantifier == '*' || quantifier == '{')
+                --end;
+        }
+        return regex.substring(start, end);
+    }
+
+    private static int[] append(int[] ranks, int rank)
+    {
+        int[] result = Arrays.copyOf(ranks, ranks.length + 1);
+        result[ranks.length] = rank;
+        return result;
+    }
+
+    private static class Segment
+    {
+        private final Map<String, Segment> _literals = new HashMap<>();
+        private Segment _variable;
+        private int[] _ranks = NO_RANKS;
+
+        private Segment literal(String segment)
+        {
+            return _literals.computeIfAbsent(segment, s -> new Segment());
+        }
+
+        private Segment variable()
+        {
+            if (_variable == null)
+                _variable = new Segment();
+            return _variable;
+        }
+
+        /**
+         * Collects the ranks of the templates matching the path segments from {@code start}.
+         */
+        private void collect(String path, int start, int end, Ranks ranks)
+        {
+            int slash = path.indexOf('/', start);
+            if (slash < 0 || slash > end)
+                slash = end;
+            if (!_literals.isEmpty())
+            {
+                Segment literal = _literals.get(path.substring(start, slash));
+                if (literal != null)
+                    literal.next(path, slash, end, ranks);
+            }
+            // A variable matches a non empty segment.
+            if (_variable != null && slash > start)
+                _variable.next(path, slash, end, ranks);
+        }
+
+        private void next(String path, int slash, int end, Ranks ranks)
+        {
+            if (slash == end)
+                ranks.add(_ranks);
+            else
+                collect(path, slash + 1, end, ranks);
+        }
+    }
+
+    private static class Literal
+    {
+        private final Map<Character, Literal> _children = new HashMap<>();
+        private int[] _ranks = NO_RANKS;
+
+        /**
+         * Collects the ranks of the regexes with a literal prefix of the path.
+         */
+        private void collect(String path, int end, Ranks ranks)
+        {
+            Literal node = this;
+            int i = 0;
+            while (node != null)
+            {
+                ranks.add(node._ranks);
+                if (i == end || node._children.isEmpty())
+                    break;
+                node = node._children.get(path.charAt(i++));
+            }
+        }
+    }
+
+    private static class Ranks
+    {
+        private int[] _ranks = NO_RANKS;
+        private int _size;
+
+        private void add(int[] ranks)
+        {
+            if (ranks.length == 0)
+                return;
+            if (_size + ranks.length > _ranks.length)
+                _ranks = Arrays.copyOf(_ranks, Math.max(8, 2 * (_size + ranks.length)));
+            System.arraycopy(ranks, 0, _ranks, _size, ranks.length);
+            _size += ranks.length;
+        }
+
+        private int[] sorted()
+        {
+            if (_size == 0)
+                return NO_RANKS;
+            int[] ranks = Arrays.copyOf(_ranks, _size);
+            Arrays.sort(ranks);
+            return ranks;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jetty.http.compression.FieldIndex;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FieldIndexTest
+{
+    @Test
+    public void testGetByField()
+    {
+        FieldIndex<HttpField> index = FieldIndex.byField(f -> f, 4);
+        HttpField accept = new HttpField(HttpHeader.ACCEPT, "text/html");
+        HttpField custom = new HttpField("X-Custom", "value");
+        index.put(accept);
+        index.put(custom);
+
+        assertThat(index.size(), is(2));
+        assertThat(index.get(new HttpField(HttpHeader.ACCEPT, "text/html")), sameInstance(accept));
+        assertThat(index.get(new HttpField("x-custom", "value")), sameInstance(custom));
+        assertThat(index.get(new HttpField("X-Custom", "other")), nullValue());
+    }
+
+    @Test
+    public void testGetByName()
+    {
+        FieldIndex<HttpField> index = FieldIndex.byName(f -> f, 4);
+        HttpField custom = new HttpField("X-Custom", "value");
+        index.put(custom);
+
+        assertThat(index.get("x-custom"), sameInstance(custom));
+        assertThat(index.get("X-CUSTOM"), sameInstance(custom));
+        assertThat(index.get(new HttpField("x-custom", "other")), sameInstance(custom));
+        assertThat(index.get("X-Other"), nullValue());
+    }
+
+    @Test
+    public void testNewestEntryIndexed()
+    {
+        FieldIndex<HttpField> index = FieldIndex.byName(f -> f, 4);
+        HttpField oldest = new HttpField("X-Custom", "1");
+        HttpField newest = new HttpField("x-custom", "2");
+        index.put(oldest);
+        index.put(newest);
+        assertThat(index.size(), is(1));
+        assertThat(index.get("X-Custom"), sameInstance(newest));
+
+        // Evicting the oldest entry does not remove the newest one.
+        assertFalse(index.remove(oldest));
+        assertThat(index.get("X-Custom"), sameInstance(newest));
+        assertTrue(index.remove(newest));
+        assertThat(index.get("X-Custom"), nullValue());
+        assertThat(index.size(), is(0));
+    }
+
+    @Test
+    public void testGrowAndRemove()
+    {
+        FieldIndex<HttpField> index = FieldIndex.byField(f -> f, 4);
+        List<HttpField> fields = new ArrayList<>();
+        for (int i = 0; i < 1000; ++i)
+        {
+            HttpField field = new HttpField("X-Field-" + (i % 100), "value-" + i);
+            fields.add(field);
+            index.put(field);
+        }
+        assertThat(index.size(), is(1000));
+
+        // Remove every other entry, the others must still be found.
+        for (int i = 0; i < fields.size(); i += 2)
+        {
+            assertTrue(index.remove(fields.get(i)));
+        }
+        assertThat(index.size(), is(500));
+        for (int i = 0; i < fields.size(); ++i)
+        {
+            HttpField field = fields.get(i);
+            HttpField found = index.get(new HttpField(field.getName(), field.getValue()));
+            if (i % 2 == 0)
+                assertThat(found, nullValue());
+            else
+                assertThat(found, sameInstance(field));
+        }
+
+        index.clear();
+        assertThat(index.size(), is(0));
+        assertThat(index.get(fields.get(1)), nullValue());
+    }
+}
@@ -2239,6 +2239,81 @@ public class HttpParserTest
         assertEquals("431", _bad);
     }
 
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    public void testFastScan(boolean fastScan)
+    {
+        ByteBuffer buffer = BufferUtil.toBuffer(
+            "GET /café/some/long/path/index.html?query=value&other=%20x HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "User-Agent: Mozilla/5.0 (X11; Linux x86_64; rv:109.0) Gecko/20100101 Firefox/118.0\r\n" +
+                "X-Custom-Header-With-A-Long-Name: a\tb  c   \r\n" +
+                "X-Empty:    \r\n" +
+                "Cookie: session=0123456789abcdef; prefs=\"dark\"\r\n" +
+                "\r\n", StandardCharsets.UTF_8);
+
+        HttpParser.RequestHandler handler = new Handler();
+        HttpParser parser = new HttpParser(handler);
+        parser.setFastScan(fastScan);
+        parseAll(parser, buffer);
+
+        assertNull(_bad);
+        assertTrue(_messageCompleted);
+        assertEquals("/café/some/long/path/index.html?query=value&other=%20x", _uriOrStatus);
+        assertEquals("HTTP/1.1", _versionOrReason);
+        assertEquals("User-Agent", _hdr[1]);
+        assertEquals("Mozilla/5.0 (X11; Linux x86_64; rv:109.0) Gecko/20100101 Firefox/118.0", _val[1]);
+        assertEquals("X-Custom-Header-With-A-Long-Name", _hdr[2]);
+        assertEquals("a\tb  c", _val[2]);
+        assertEquals("X-Empty", _hdr[3]);
+        assertEquals("", _val[3]);
+        assertEquals("session=0123456789abcdef; prefs=\"dark\"", _val[4]);
+        assertEquals(4, _headers);
+    }
+
+    @Test
+    public void testFastScanIllegalCharacter()
+    {
+        ByteBuffer buffer = BufferUtil.toBuffer(
+            "GET / HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "X-Value: 0123456789\u007f0123456789\r\n" +
+                "\r\n");
+
+        HttpParser.RequestHandler handler = new Handler();
+        HttpParser parser = new HttpParser(handler);
+        parseAll(parser, buffer);
+
+        assertThat(_bad, containsString("Illegal character"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {20, 23, 24, 60, 61})
+    public void testFastScanMaxHeaderBytes(int maxHeaderBytes)
+    {
+        // The request line is counted from the URI, the CRs are not counted,
+        // so the URI ends at 24 bytes and the headers at 61 bytes.
+        String request = "GET /0123456789/0123456789 HTTP/1.1\r\n" +
+            "Host: localhost\r\n" +
+            "X-Value: 0123456789\r\n" +
+            "\r\n";
+
+        for (boolean fastScan : new boolean[]{true, false})
+        {
+            _bad = null;
+            HttpParser.RequestHandler handler = new Handler();
+            HttpParser parser = new HttpParser(handler, maxHeaderBytes);
+            parser.setFastScan(fastScan);
+            parseAll(parser, BufferUtil.toBuffer(request));
+            if (maxHeaderBytes < 24)
+                assertEquals("414", _bad);
+            else if (maxHeaderBytes < 61)
+                assertEquals("431", _bad);
+            else
+                assertNull(_bad);
+        }
+    }
+
     @Test
     @SuppressWarnings("ReferenceEquality")
     public void testCachedField()
@@ -13,6 +13,7 @@
 
 package org.eclipse.jetty.http;
 
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.util.Locale;
 import java.util.stream.Stream;
@@ -22,7 +23,7 @@ import org.eclipse.jetty.http.compression.HuffmanDecoder;
 import org.eclipse.jetty.http.compression.HuffmanEncoder;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.StringUtil;
-import org.eclipse.jetty.util.TypeUtil;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -31,6 +32,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class HuffmanTest
@@ -65,7 +67,7 @@ public class HuffmanTest
     @MethodSource("data")
     public void testDecode(String specSection, String hex, String expected) throws Exception
     {
-        byte[] encoded = TypeUtil.fromHexString(hex);
+        byte[] encoded = StringUtil.fromHexString(hex);
         HuffmanDecoder huffmanDecoder = new HuffmanDecoder();
         huffmanDecoder.setLength(encoded.length);
         String decoded = huffmanDecoder.decode(ByteBuffer.wrap(encoded));
@@ -80,7 +82,7 @@ public class HuffmanTest
         int pos = BufferUtil.flipToFill(buf);
         HuffmanEncoder.encode(buf, expected);
         BufferUtil.flipToFlush(buf, pos);
-        String encoded = TypeUtil.toHexString(BufferUtil.toArray(buf)).toLowerCase(Locale.ENGLISH);
+        String encoded = StringUtil.toHexString(BufferUtil.toArray(buf)).toLowerCase(Locale.ENGLISH);
         assertEquals(hex, encoded, specSection);
         assertEquals(hex.length() / 2, HuffmanEncoder.octetsNeeded(expected));
     }
@@ -148,6 +150,68 @@ public class HuffmanTest
         assertThat(decode, equalTo(expected));
     }
 
+    @ParameterizedTest(name = "[{index}] spec={0}")
+    @MethodSource("data")
+    public void testDecodeByteByByte(String specSection, String hex, String expected) throws Exception
+    {
+        byte[] encoded = StringUtil.fromHexString(hex);
+        HuffmanDecoder huffmanDecoder = new HuffmanDecoder();
+        huffmanDecoder.setLength(encoded.length);
+        String decoded = null;
+        for (int i = 0; i < encoded.length; i++)
+        {
+            assertNull(decoded, specSection);
+            decoded = huffmanDecoder.decode(ByteBuffer.wrap(encoded, i, 1));
+        }
+        assertEquals(expected, decoded, specSection);
+    }
+
+    @ParameterizedTest(name = "[{index}] spec={0}")
+    @MethodSource("data")
+    public void testEncodeDirect(String specSection, String hex, String expected)
+    {
+        ByteBuffer buf = BufferUtil.allocateDirect(1024);
+        int pos = BufferUtil.flipToFill(buf);
+        HuffmanEncoder.encode(buf, expected);
+        BufferUtil.flipToFlush(buf, pos);
+        String encoded = StringUtil.toHexString(BufferUtil.toArray(buf)).toLowerCase(Locale.ENGLISH);
+        assertEquals(hex, encoded, specSection);
+    }
+
+    @Test
+    public void testLongValue() throws Exception
+    {
+        StringBuilder builder = new StringBuilder();
+        for (char c = ' '; c < 256; c++)
+        {
+            builder.append(c);
+        }
+        String value = builder.toString();
+        ByteBuffer buffer = BufferUtil.allocate(1024);
+        BufferUtil.clearToFill(buffer);
+        HuffmanEncoder.encode(buffer, value);
+        BufferUtil.flipToFlush(buffer, 0);
+        assertEquals(HuffmanEncoder.octetsNeeded(value), buffer.remaining());
+        assertEquals(value, decode(buffer));
+    }
+
+    @Test
+    public void testEncodeOverflow()
+    {
+        ByteBuffer buffer = BufferUtil.allocate(8);
+        BufferUtil.clearToFill(buffer);
+        assertThrows(BufferOverflowException.class, () -> HuffmanEncoder.encode(buffer, "https://www.example.com"));
+    }
+
+    @Test
+    public void testDecodeEOS()
+    {
+        // 'a' followed by the 30 bits EOS code and 5 bits of padding.
+        ByteBuffer buffer = ByteBuffer.wrap(StringUtil.fromHexString("1FfFfFfFfF"));
+        EncodingException failure = assertThrows(EncodingException.class, () -> decode(buffer));
+        assertThat(failure.getMessage(), equalTo("eos_in_content"));
+    }
+
     private ByteBuffer encode(String s)
     {
         ByteBuffer buffer = BufferUtil.allocate(32);
@@ -0,0 +1,94 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http;
+
+import java.nio.ByteBuffer;
+
+import org.eclipse.jetty.util.BufferUtil;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PreEncodedHttpFieldsTest
+{
+    private static final PreEncodedHttpFields TEMPLATE = new PreEncodedHttpFields(
+        new HttpField(HttpHeader.SERVER, "api"),
+        new HttpField(HttpHeader.CONTENT_TYPE, "application/json"),
+        new HttpField(HttpHeader.CACHE_CONTROL, "no-store"),
+        new HttpField(HttpHeader.VARY, "Origin"),
+        new HttpField("Access-Control-Allow-Origin", "*"));
+
+    @Test
+    public void testTemplateFields()
+    {
+        HttpFields.Mutable fields = HttpFields.build().add("X-Request-Id", "1");
+        TEMPLATE.addTo(fields);
+
+        assertThat(fields.size(), is(6));
+        assertThat(fields.get(HttpHeader.CACHE_CONTROL), is("no-store"));
+        assertThat(fields.get("access-control-allow-origin"), is("*"));
+        assertThat(PreEncodedHttpFields.getTemplateAt(fields, 0), nullValue());
+        assertThat(PreEncodedHttpFields.getTemplateAt(fields, 1), sameInstance(TEMPLATE));
+
+        // Replacing a field of the template breaks the template.
+        fields.put(HttpHeader.VARY, "Accept-Encoding");
+        assertThat(PreEncodedHttpFields.getTemplateAt(fields, 1), nullValue());
+    }
+
+    @Test
+    public void testGenerateTemplate() throws Exception
+    {
+        HttpFields.Mutable templated = HttpFields.build().add("X-Request-Id", "1");
+        TEMPLATE.addTo(templated);
+        templated.add(HttpHeader.DATE, "Wed, 15 Nov 2023 10:00:00 GMT");
+
+        HttpFields.Mutable plain = HttpFields.build().add("X-Request-Id", "1")
+            .add(HttpHeader.SERVER, "api")
+            .add(HttpHeader.CONTENT_TYPE, "application/json")
+            .add(HttpHeader.CACHE_CONTROL, "no-store")
+            .add(HttpHeader.VARY, "Origin")
+            .add("Access-Control-Allow-Origin", "*")
+            .add(HttpHeader.DATE, "Wed, 15 Nov 2023 10:00:00 GMT");
+
+        String response = generate(templated);
+        assertThat(response, is(generate(plain)));
+        assertThat(response, containsString("\r\nServer: api\r\nContent-Type: application/json\r\n"));
+        // The Server field of the template replaces the generator one.
+        assertThat(response, not(containsString("Jetty")));
+    }
+
+    @Test
+    public void testFieldsNotAllowed()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new PreEncodedHttpFields(new HttpField(HttpHeader.CONTENT_LENGTH, "0")));
+        assertThrows(IllegalArgumentException.class, () -> new PreEncodedHttpFields(new HttpField(HttpHeader.CONNECTION, "close")));
+        assertThrows(IllegalArgumentException.class, () -> new PreEncodedHttpFields(new HttpField(":status", "200")));
+    }
+
+    private String generate(HttpFields fields) throws Exception
+    {
+        HttpGenerator generator = new HttpGenerator(true, false);
+        ByteBuffer header = BufferUtil.allocate(4096);
+        MetaData.Response response = new MetaData.Response(HttpVersion.HTTP_1_1, 200, fields, 0);
+        HttpGenerator.Result result = generator.generateResponse(response, false, header, null, null, true);
+        assertThat(result, is(HttpGenerator.Result.FLUSH));
+        return BufferUtil.toString(header);
+    }
+}
@@ -0,0 +1,94 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.http;
+
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PriorityTest
+{
+    public static Stream<Arguments> priorities()
+    {
+        return Stream.of(
+            Arguments.of(null, 3, false),
+            Arguments.of("", 3, false),
+            Arguments.of("u=0", 0, false),
+            Arguments.of("u=7", 7, false),
+            Arguments.of("i", 3, true),
+            Arguments.of("u=1, i", 1, true),
+            Arguments.of("i, u=5", 5, true),
+            Arguments.of("u=2,i=?1", 2, true),
+            Arguments.of("u=2, i=?0", 2, false),
+            Arguments.of("  u=6 ;a=b ,  i ;x  ", 6, true),
+            Arguments.of("u=1, u=4", 4, false),
+            Arguments.of("i, i=?0", 3, false),
+            // Invalid or unknown parameters are ignored.
+            Arguments.of("u=8", 3, false),
+            Arguments.of("u=-1, i", 3, true),
+            Arguments.of("u=12", 3, false),
+            Arguments.of("u=a", 3, false),
+            Arguments.of("i=1", 3, false),
+            Arguments.of("x=1, u=2, y", 2, false)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("priorities")
+    public void testFrom(String value, int urgency, boolean incremental)
+    {
+        Priority priority = Priority.from(value);
+        assertEquals(urgency, priority.getUrgency());
+        assertEquals(incremental, priority.isIncremental());
+        assertSame(Priority.of(urgency, incremental), priority);
+    }
+
+    @Test
+    public void testFromFields()
+    {
+        assertSame(Priority.DEFAULT, Priority.from(HttpFields.EMPTY));
+
+        HttpFields fields = HttpFields.build()
+            .add(HttpHeader.PRIORITY, "u=1")
+            .add(HttpHeader.PRIORITY, "i");
+        Priority priority = Priority.from(fields);
+        assertEquals(1, priority.getUrgency());
+        assertEquals(true, priority.isIncremental());
+    }
+
+    @Test
+    public void testToString()
+    {
+        assertEquals("u=3", Priority.DEFAULT.toString());
+        assertEquals("u=0, i", Priority.of(0, true).toString());
+        for (int u = Priority.MIN_URGENCY; u <= Priority.MAX_URGENCY; ++u)
+        {
+            assertSame(Priority.of(u, false), Priority.from(Priority.of(u, false).toString()));
+            assertSame(Priority.of(u, true), Priority.from(Priority.of(u, true).toString()));
+        }
+    }
+
+    @Test
+    public void testInvalidUrgency()
+    {
+        assertThrows(IllegalArgumentException.class, () -> Priority.of(-1, false));
+        assertThrows(IllegalArgumentException.class, () -> Priority.of(8, false));
+    }
+}
@@ -0,0 +1,161 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http.encoding;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.IO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ContentEncodingsTest
+{
+    private static final String CONTENT = "The quick brown fox jumped over the lazy dog. ".repeat(1000);
+
+    private ContentEncodings encodings;
+
+    @BeforeEach
+    public void before() throws Exception
+    {
+        encodings = new ContentEncodings();
+        encodings.add(new GzipContentEncoding());
+        encodings.add(new DeflateContentEncoding());
+        encodings.start();
+    }
+
+    @AfterEach
+    public void after() throws Exception
+    {
+        encodings.stop();
+    }
+
+    public static Stream<Arguments> acceptEncodings()
+    {
+        return Stream.of(
+            Arguments.of(null, null),
+            Arguments.of("identity", null),
+            Arguments.of("gzip", "gzip"),
+            Arguments.of("GZIP", "gzip"),
+            Arguments.of("deflate", "deflate"),
+            Arguments.of("deflate, gzip", "gzip"),
+            Arguments.of("br, deflate", "deflate"),
+            Arguments.of("gzip;q=0.5, deflate", "deflate"),
+            Arguments.of("gzip;q=0, deflate;q=0.1", "deflate"),
+            Arguments.of("gzip;q=0, deflate;q=0", null),
+            Arguments.of("*", "gzip"),
+            Arguments.of("gzip;q=0, *", "deflate"),
+            Arguments.of("br, *;q=0.1", "gzip")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("acceptEncodings")
+    public void testNegotiate(String acceptEncoding, String expected)
+    {
+        HttpFields.Mutable fields = HttpFields.build();
+        if (acceptEncoding != null)
+            fields.put(HttpHeader.ACCEPT_ENCODING, acceptEncoding);
+
+        ContentEncoding encoding = encodings.negotiate(fields);
+        if (expected == null)
+            assertThat(encoding, nullValue());
+        else
+            assertThat(encoding.getName(), is(expected));
+    }
+
+    public static Stream<Arguments> roundTrips()
+    {
+        return Stream.of(GzipContentEncoding.NAME, DeflateContentEncoding.NAME)
+            .flatMap(name -> Stream.of(64, 1024, 8192).map(size -> Arguments.of(name, size)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("roundTrips")
+    public void testEncode(String name, int bufferSize) throws Exception
+    {
+        ContentEncoding.Encoder encoder = encodings.get(name).newEncoder(1);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        byte[] bytes = CONTENT.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer output = BufferUtil.allocate(bufferSize);
+        int chunk = bytes.length / 3;
+        for (int offset = 0; offset < bytes.length; offset += chunk)
+        {
+            encoder.setInput(ByteBuffer.wrap(bytes, offset, Math.min(chunk, bytes.length - offset)));
+            if (offset + chunk >= bytes.length)
+                encoder.finish();
+            while (!encoder.isFinished() && !(encoder.needsInput() && offset + chunk < bytes.length))
+            {
+                BufferUtil.clear(output);
+                encoder.encode(output, false);
+                BufferUtil.writeTo(output, compressed);
+            }
+        }
+        assertThat(encoder.getBytesRead(), is((long)bytes.length));
+        assertThat(encoder.getBytesWritten(), is((long)compressed.size()));
+        encoder.release();
+
+        InputStream input = new ByteArrayInputStream(compressed.toByteArray());
+        input = GzipContentEncoding.NAME.equals(name) ? new GZIPInputStream(input) : new InflaterInputStream(input);
+        assertThat(IO.toString(input, StandardCharsets.UTF_8), is(CONTENT));
+    }
+
+    @ParameterizedTest
+    @MethodSource("roundTrips")
+    public void testDecode(String name, int bufferSize) throws Exception
+    {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream output = GzipContentEncoding.NAME.equals(name) ? new GZIPOutputStream(compressed) : new DeflaterOutputStream(compressed))
+        {
+            output.write(CONTENT.getBytes(StandardCharsets.UTF_8));
+        }
+
+        ContentEncoding.Decoder decoder = encodings.get(name).newDecoder(null, bufferSize, false);
+        ByteBuffer input = ByteBuffer.wrap(compressed.toByteArray());
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+        while (true)
+        {
+            ByteBuffer buffer = decoder.decode(input);
+            if (!buffer.hasRemaining() && !input.hasRemaining())
+                break;
+            assertThat(buffer.remaining() <= bufferSize, is(true));
+            BufferUtil.writeTo(buffer, decoded);
+            decoder.release(buffer);
+        }
+        assertTrue(decoder.isFinished());
+        decoder.destroy();
+
+        assertThat(decoded.toString(StandardCharsets.UTF_8), is(CONTENT));
+    }
+}
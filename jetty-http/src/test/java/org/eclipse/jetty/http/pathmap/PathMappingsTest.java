@@ -561,4 +561,90 @@ public class PathMappingsTest
         assertThat(p.getMatched("/b/foo.do").getResource(), equalTo("resourceS"));
 
     }
+
+    @Test
+    public void testManyUriTemplates()
+    {
+        PathMappings<String> p = new PathMappings<>();
+        for (int i = 0; i < 100; ++i)
+        {
+            p.put(new UriTemplatePathSpec("/api/svc" + i + "/{id}"), "id" + i);
+            p.put(new UriTemplatePathSpec("/api/svc" + i + "/{id}/items/{item}"), "item" + i);
+            p.put(new UriTemplatePathSpec("/api/svc" + i + "/"), "list" + i);
+        }
+        p.put(new UriTemplatePathSpec("/api/{svc}/{id}"), "any");
+        p.put(new UriTemplatePathSpec("/"), "root");
+        p.put(new ServletPathSpec("/static/*"), "static");
+
+        assertMatch(p, "/api/svc42/7", "id42");
+        assertMatch(p, "/api/svc42/7?q=/x", "id42");
+        assertMatch(p, "/api/svc42/7/items/9", "item42");
+        assertMatch(p, "/api/svc42/", "list42");
+        assertMatch(p, "/api/svc100/7", "any");
+        assertMatch(p, "/", "root");
+        assertMatch(p, "/static/x.js", "static");
+        assertThat(p.getMatched("/api/svc42//items/9"), nullValue());
+        assertThat(p.getMatched("/api/svc42/7/items/9/x"), nullValue());
+
+        // Changes to the mappings are seen by the next match.
+        p.put(new UriTemplatePathSpec("/api/svc42/{id}/items/last"), "last");
+        assertMatch(p, "/api/svc42/7/items/last", "last");
+        p.remove(new UriTemplatePathSpec("/api/svc42/{id}"));
+        assertMatch(p, "/api/svc42/7", "any");
+    }
+
+    @Test
+    public void testUriTemplateWithRegexCharacters()
+    {
+        PathMappings<String> p = new PathMappings<>();
+        // The template literals are not fully escaped in the pattern.
+        p.put(new UriTemplatePathSpec("/a+b/{var}"), "plus");
+        p.put(new UriTemplatePathSpec("/{var}/c"), "var");
+
+        assertMatch(p, "/aab/x", "plus");
+        assertMatch(p, "/b/c", "var");
+        assertThat(p.getMatched("/a+b/x"), nullValue());
+    }
+
+    public static Stream<Arguments> regexLiteralPrefixes()
+    {
+        return Stream.of(
+            Arguments.of("^/rest/.*$", "/rest/"),
+            Arguments.of("/rest/[^/]+", "/rest/"),
+            Arguments.of("^/a/b$", "/a/b"),
+            Arguments.of("^/ab?c$", "/a"),
+            Arguments.of("^/ab*c$", "/a"),
+            Arguments.of("^/ab{0,1}c$", "/a"),
+            Arguments.of("^/ab+c$", "/ab"),
+            Arguments.of("^/a\\.b$", "/a"),
+            Arguments.of("^.*\\.zip$", ""),
+            Arguments.of("/a|/b", ""),
+            Arguments.of("(?i)^/a$", "")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("regexLiteralPrefixes")
+    public void testRegexLiteralPrefix(String regex, String prefix)
+    {
+        assertThat(PathSpecIndex.literalPrefix(regex), is(prefix));
+    }
+
+    @Test
+    public void testRegexMatchOrder()
+    {
+        PathMappings<String> p = new PathMappings<>();
+        p.put(new RegexPathSpec("^/rest/api/(.*)$"), "api");
+        p.put(new RegexPathSpec("^/rest/.*$"), "rest");
+        p.put(new RegexPathSpec("^/(images|resources)/.*$"), "alternation");
+        p.put(new RegexPathSpec("^.*\\.zip$"), "zip");
+        p.put(new ServletPathSpec("/"), "default");
+
+        assertMatch(p, "/rest/api/x", "api");
+        assertMatch(p, "/rest/x", "rest");
+        assertMatch(p, "/resources/x", "alternation");
+        assertMatch(p, "/rest/x.zip", "rest");
+        assertMatch(p, "/x.zip", "zip");
+        assertMatch(p, "/x", "default");
+    }
 }
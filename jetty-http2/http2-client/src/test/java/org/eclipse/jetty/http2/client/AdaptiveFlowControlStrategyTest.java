@@ -0,0 +1,184 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.http2.client;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.jetty.http.HostPortHttpField;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpScheme;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http2.AdaptiveFlowControlStrategy;
+import org.eclipse.jetty.http2.FlowControlStrategy;
+import org.eclipse.jetty.http2.api.Session;
+import org.eclipse.jetty.http2.api.Stream;
+import org.eclipse.jetty.http2.api.server.ServerSessionListener;
+import org.eclipse.jetty.http2.frames.DataFrame;
+import org.eclipse.jetty.http2.frames.HeadersFrame;
+import org.eclipse.jetty.http2.frames.PingFrame;
+import org.eclipse.jetty.http2.server.RawHTTP2ServerConnectionFactory;
+import org.eclipse.jetty.io.ManagedSelector;
+import org.eclipse.jetty.io.SocketChannelEndPoint;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.FuturePromise;
+import org.eclipse.jetty.util.NanoTime;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptiveFlowControlStrategyTest
+{
+    // The one-way latency of the simulated link, in milliseconds.
+    private static final long LATENCY = 50;
+
+    private final AtomicReference<AdaptiveFlowControlStrategy> serverStrategy = new AtomicReference<>();
+    private ServerConnector connector;
+    private HTTP2Client client;
+    private Server server;
+
+    private void start(ServerSessionListener listener) throws Exception
+    {
+        QueuedThreadPool serverExecutor = new QueuedThreadPool();
+        serverExecutor.setName("server");
+        server = new Server(serverExecutor);
+        RawHTTP2ServerConnectionFactory connectionFactory = new RawHTTP2ServerConnectionFactory(new HttpConfiguration(), listener);
+        connectionFactory.setInitialSessionRecvWindow(FlowControlStrategy.DEFAULT_WINDOW_SIZE);
+        connectionFactory.setInitialStreamRecvWindow(FlowControlStrategy.DEFAULT_WINDOW_SIZE);
+        connectionFactory.setFlowControlStrategyFactory(() ->
+        {
+            AdaptiveFlowControlStrategy strategy = new AdaptiveFlowControlStrategy();
+            serverStrategy.set(strategy);
+            return strategy;
+        });
+        // Delay the server writes to simulate a high latency link.
+        connector = new ServerConnector(server, connectionFactory)
+        {
+            @Override
+            protected SocketChannelEndPoint newEndPoint(SocketChannel channel, ManagedSelector selectSet, SelectionKey key)
+            {
+                return new SocketChannelEndPoint(channel, selectSet, key, getScheduler())
+                {
+                    @Override
+                    public void write(Callback callback, ByteBuffer... buffers)
+                    {
+                        getScheduler().schedule(() -> super.write(callback, buffers), LATENCY, TimeUnit.MILLISECONDS);
+                    }
+                };
+            }
+        };
+        server.addConnector(connector);
+        server.start();
+
+        client = new HTTP2Client();
+        QueuedThreadPool clientExecutor = new QueuedThreadPool();
+        clientExecutor.setName("client");
+        client.setExecutor(clientExecutor);
+        client.start();
+    }
+
+    @AfterEach
+    public void dispose() throws Exception
+    {
+        if (client != null)
+            client.stop();
+        if (server != null)
+            server.stop();
+    }
+
+    @Test
+    public void testUploadThroughputOverHighLatencyLink() throws Exception
+    {
+        int length = 16 * 1024 * 1024;
+        AtomicBoolean pingNotified = new AtomicBoolean();
+        start(new ServerSessionListener.Adapter()
+        {
+            @Override
+            public void onPing(Session session, PingFrame frame)
+            {
+                pingNotified.set(true);
+            }
+
+            @Override
+            public Stream.Listener onNewStream(Stream stream, HeadersFrame frame)
+            {
+                return new Stream.Listener.Adapter()
+                {
+                    @Override
+                    public void onData(Stream stream, DataFrame frame, Callback callback)
+                    {
+                        callback.succeeded();
+                        if (frame.isEndStream())
+                        {
+                            MetaData.Response response = new MetaData.Response(HttpVersion.HTTP_2, HttpStatus.OK_200, HttpFields.EMPTY);
+                            stream.headers(new HeadersFrame(stream.getId(), response, null, true), Callback.NOOP);
+                        }
+                    }
+                };
+            }
+        });
+
+        FuturePromise<Session> sessionPromise = new FuturePromise<>();
+        client.connect(new InetSocketAddress("localhost", connector.getLocalPort()), new Session.Listener.Adapter(), sessionPromise);
+        Session session = sessionPromise.get(5, TimeUnit.SECONDS);
+
+        CountDownLatch responseLatch = new CountDownLatch(1);
+        String authority = "localhost:" + connector.getLocalPort();
+        MetaData.Request request = new MetaData.Request("POST", HttpScheme.HTTP.asString(), new HostPortHttpField(authority), "/", HttpVersion.HTTP_2, HttpFields.EMPTY, length);
+        FuturePromise<Stream> streamPromise = new FuturePromise<>();
+        session.newStream(new HeadersFrame(request, null, false), streamPromise, new Stream.Listener.Adapter()
+        {
+            @Override
+            public void onHeaders(Stream stream, HeadersFrame frame)
+            {
+                responseLatch.countDown();
+            }
+        });
+        Stream stream = streamPromise.get(5, TimeUnit.SECONDS);
+
+        long begin = NanoTime.now();
+        stream.data(new DataFrame(stream.getId(), ByteBuffer.allocate(length), true), Callback.NOOP);
+        assertTrue(responseLatch.await(30, TimeUnit.SECONDS));
+        long elapsed = NanoTime.millisSince(begin);
+
+        // With static windows, at least one round trip is needed for each window.
+        long staticWindowElapsed = length / FlowControlStrategy.DEFAULT_WINDOW_SIZE * LATENCY;
+        assertThat(elapsed, lessThan(staticWindowElapsed / 2));
+
+        AdaptiveFlowControlStrategy strategy = serverStrategy.get();
+        assertNotNull(strategy);
+        assertThat(strategy.getSessionRecvWindow(), greaterThan(FlowControlStrategy.DEFAULT_WINDOW_SIZE));
+        assertThat(strategy.getInitialStreamRecvWindow(), greaterThan(FlowControlStrategy.DEFAULT_WINDOW_SIZE));
+        assertThat(strategy.getRoundTripTime(), greaterThan(TimeUnit.MILLISECONDS.toMicros(LATENCY)));
+        // The PING frames sent by the strategy are not notified to the application.
+        assertFalse(pingNotified.get());
+    }
+}
@@ -0,0 +1,362 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.http2;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.http2.frames.PingFrame;
+import org.eclipse.jetty.http2.frames.SettingsFrame;
+import org.eclipse.jetty.http2.frames.WindowUpdateFrame;
+import org.eclipse.jetty.util.Atomics;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.NanoTime;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+
+/**
+ * <p>A flow control strategy that sizes the receive windows from the measured
+ * bandwidth-delay product of the connection.</p>
+ * <p>Window updates are accumulated as in {@link BufferingFlowControlStrategy}.
+ * In addition, while data is being received, a PING frame is sent at most every
+ * {@link #getSampleInterval() sample interval}; when its reply arrives, the
+ * bytes that have been both received and consumed by the application during
+ * the round trip, scaled up by the part of the window withheld by the
+ * {@link #getBufferRatio() buffer ratio}, are an estimate of the
+ * bandwidth-delay product.</p>
+ * <p>When the estimate reaches 2/3 of a receive window, the sender is limited by
+ * that window, which is enlarged to twice the estimate:</p>
+ * <ul>
+ * <li>the session window is enlarged with a {@code WINDOW_UPDATE} frame, up to
+ * {@link #getMaxSessionRecvWindow()};</li>
+ * <li>the stream windows are enlarged with a {@code SETTINGS_INITIAL_WINDOW_SIZE}
+ * setting, which applies to existing streams too, up to
+ * {@link #getMaxStreamRecvWindow()}.</li>
+ * </ul>
+ * <p>When the estimate stays below 1/4 of the session window for several samples,
+ * for example because the application consumes data slowly, the session window
+ * is halved, but not below its initial size, by withholding the corresponding
+ * window updates.
+ * The stream windows are never reduced, because a smaller
+ * {@code SETTINGS_INITIAL_WINDOW_SIZE} would race with the data in flight; the
+ * data buffered by the streams is bounded by the session window anyway.</p>
+ */
+@ManagedObject
+public class AdaptiveFlowControlStrategy extends AbstractFlowControlStrategy
+{
+    private static final int SHRINK_SAMPLES = 4;
+
+    private final AtomicInteger sessionLevel = new AtomicInteger();
+    private final AtomicInteger sessionRecvWindow = new AtomicInteger(DEFAULT_WINDOW_SIZE);
+    private final AtomicInteger sessionRecvWindowDebt = new AtomicInteger();
+    private final LongAdder consumedBytes = new LongAdder();
+    private volatile int minSessionRecvWindow;
+    private volatile long roundTripTime;
+    private int maxSessionRecvWindow = 16 * 1024 * 1024;
+    private int maxStreamRecvWindow = 8 * 1024 * 1024;
+    private float bufferRatio = 0.5F;
+    private long sampleInterval = 100;
+    // The sampling state is only accessed by the parsing thread.
+    private boolean sampling;
+    private long samplePayload;
+    private long sampleBeginNanoTime;
+    private long sampleEndNanoTime;
+    private long sampleReceivedBytes;
+    private long sampleConsumedBytes;
+    private long samples;
+    private int shrinkSamples;
+
+    public AdaptiveFlowControlStrategy()
+    {
+        this(DEFAULT_WINDOW_SIZE);
+    }
+
+    public AdaptiveFlowControlStrategy(int initialStreamSendWindow)
+    {
+        super(initialStreamSendWindow);
+    }
+
+    @ManagedAttribute("The max size of the session flow control receive window")
+    public int getMaxSessionRecvWindow()
+    {
+        return maxSessionRecvWindow;
+    }
+
+    public void setMaxSessionRecvWindow(int maxSessionRecvWindow)
+    {
+        this.maxSessionRecvWindow = maxSessionRecvWindow;
+    }
+
+    @ManagedAttribute("The max size of the stream flow control receive window")
+    public int getMaxStreamRecvWindow()
+    {
+        return maxStreamRecvWindow;
+    }
+
+    public void setMaxStreamRecvWindow(int maxStreamRecvWindow)
+    {
+        this.maxStreamRecvWindow = maxStreamRecvWindow;
+    }
+
+    @ManagedAttribute("The ratio between the receive buffer and the consume buffer")
+    public float getBufferRatio()
+    {
+        return bufferRatio;
+    }
+
+    public void setBufferRatio(float bufferRatio)
+    {
+        this.bufferRatio = bufferRatio;
+    }
+
+    @ManagedAttribute("The min interval, in milliseconds, between round trip time samples")
+    public long getSampleInterval()
+    {
+        return sampleInterval;
+    }
+
+    /**
+     * <p>Sets the min interval between two round trip time samples, which should be
+     * large enough to not trigger the PING rate control of the other peer.</p>
+     *
+     * @param sampleInterval the min interval, in milliseconds, between round trip time samples
+     */
+    public void setSampleInterval(long sampleInterval)
+    {
+        this.sampleInterval = sampleInterval;
+    }
+
+    @ManagedAttribute(value = "The current size of the session flow control receive window", readonly = true)
+    public int getSessionRecvWindow()
+    {
+        return sessionRecvWindow.get();
+    }
+
+    @ManagedAttribute(value = "The last round trip time, in microseconds", readonly = true)
+    public long getRoundTripTime()
+    {
+        return TimeUnit.NANOSECONDS.toMicros(roundTripTime);
+    }
+
+    @Override
+    public void onDataReceived(ISession session, IStream stream, int length)
+    {
+        super.onDataReceived(session, stream, length);
+
+        if (sampling)
+        {
+            sampleReceivedBytes += length;
+        }
+        else if (samples == 0 || NanoTime.millisSince(sampleEndNanoTime) >= getSampleInterval())
+        {
+            sampling = true;
+            samplePayload = ThreadLocalRandom.current().nextLong();
+            sampleReceivedBytes = 0;
+            sampleConsumedBytes = consumedBytes.sum();
+            sampleBeginNanoTime = NanoTime.now();
+            session.ping(new PingFrame(samplePayload, false), Callback.NOOP);
+        }
+    }
+
+    @Override
+    public boolean onPingReply(ISession session, PingFrame frame)
+    {
+        if (!sampling || frame.getPayloadAsLong() != samplePayload)
+            return false;
+
+        sampling = false;
+        ++samples;
+        sampleEndNanoTime = NanoTime.now();
+        roundTripTime = NanoTime.elapsed(sampleBeginNanoTime, sampleEndNanoTime);
+        // The application consumption rate caps the useful window size.
+        long bdp = Math.min(sampleReceivedBytes, consumedBytes.sum() - sampleConsumedBytes);
+        if (LOG.isDebugEnabled())
+            LOG.debug("Sampled rtt={}us bdp={} for {}", getRoundTripTime(), bdp, session);
+        tune(session, bdp);
+        return true;
+    }
+
+    private void tune(ISession session, long bdp)
+    {
+        if (minSessionRecvWindow == 0)
+            minSessionRecvWindow = sessionRecvWindow.get();
+
+        // Up to bufferRatio of a window is withheld in accumulated window
+        // updates, so a sender limited by a window only uses the rest of it.
+        bdp = (long)(bdp / Math.max(0.25F, 1 - getBufferRatio()));
+
+        int streamWindow = getInitialStreamRecvWindow();
+        if (3 * bdp >= 2L * streamWindow)
+        {
+            int newStreamWindow = (int)Math.min(getMaxStreamRecvWindow(), 2 * bdp);
+            if (newStreamWindow > streamWindow)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Enlarging stream recv window {} -> {} for {}", streamWindow, newStreamWindow, session);
+                session.settings(new SettingsFrame(Map.of(SettingsFrame.INITIAL_WINDOW_SIZE, newStreamWindow), false), Callback.NOOP);
+            }
+        }
+
+        int sessionWindow = sessionRecvWindow.get();
+        if (3 * bdp >= 2L * sessionWindow)
+        {
+            shrinkSamples = 0;
+            int newSessionWindow = (int)Math.min(getMaxSessionRecvWindow(), 2 * bdp);
+            if (newSessionWindow > sessionWindow)
+                resizeSessionRecvWindow(session, sessionWindow, newSessionWindow);
+        }
+        else if (4 * bdp < sessionWindow && ++shrinkSamples >= SHRINK_SAMPLES)
+        {
+            shrinkSamples = 0;
+            int newSessionWindow = (int)Math.max(minSessionRecvWindow, Math.max(sessionWindow / 2, 2 * bdp));
+            if (newSessionWindow < sessionWindow)
+                resizeSessionRecvWindow(session, sessionWindow, newSessionWindow);
+        }
+    }
+
+    private void resizeSessionRecvWindow(ISession session, int oldSize, int newSize)
+    {
+        sessionRecvWindow.set(newSize);
+        if (LOG.isDebugEnabled())
+            LOG.debug("Resizing session recv window {} -> {} for {}", oldSize, newSize, session);
+        int delta = newSize - oldSize;
+        if (delta > 0)
+        {
+            // Window updates withheld to shrink the window are not sent, but cancelled.
+            int credit = delta - payDebt(delta);
+            if (credit > 0)
+            {
+                session.updateRecvWindow(credit);
+                sendWindowUpdate(null, session, new WindowUpdateFrame(0, credit));
+            }
+        }
+        else
+        {
+            // A window cannot be reduced, so the next window updates are withheld.
+            sessionRecvWindowDebt.addAndGet(-delta);
+        }
+    }
+
+    private int payDebt(int amount)
+    {
+        while (true)
+        {
+            int debt = sessionRecvWindowDebt.get();
+            if (debt == 0)
+                return 0;
+            int paid = Math.min(debt, amount);
+            if (sessionRecvWindowDebt.compareAndSet(debt, debt - paid))
+                return paid;
+        }
+    }
+
+    @Override
+    public void onDataConsumed(ISession session, IStream stream, int length)
+    {
+        if (length <= 0)
+            return;
+
+        consumedBytes.add(length);
+        float ratio = bufferRatio;
+
+        int level = sessionLevel.addAndGet(length);
+        int maxLevel = (int)(sessionRecvWindow.get() * ratio);
+        if (level > maxLevel)
+        {
+            if (sessionLevel.compareAndSet(level, 0))
+            {
+                int credit = level - payDebt(level);
+                if (credit > 0)
+                {
+                    session.updateRecvWindow(credit);
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("Data consumed, {} bytes, updated session recv window by {}/{} for {}", length, credit, maxLevel, session);
+                    sendWindowUpdate(null, session, new WindowUpdateFrame(0, credit));
+                }
+                else
+                {
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("Data consumed, {} bytes, withheld session recv window update by {}/{} for {}", length, level, maxLevel, session);
+                }
+            }
+        }
+        else
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Data consumed, {} bytes, session recv window level {}/{} for {}", length, level, maxLevel, session);
+        }
+
+        if (stream != null)
+        {
+            if (stream.isRemotelyClosed())
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Data consumed, {} bytes, ignoring update stream recv window for remotely closed {}", length, stream);
+            }
+            else
+            {
+                level = stream.updateRecvLevel(length) + length;
+                maxLevel = (int)(getInitialStreamRecvWindow() * ratio);
+                if (level > maxLevel)
+                {
+                    level = stream.resetRecvLevel();
+                    if (level > 0)
+                    {
+                        stream.updateRecvWindow(level);
+                        if (LOG.isDebugEnabled())
+                            LOG.debug("Data consumed, {} bytes, updated stream recv window by {}/{} for {}", length, level, maxLevel, stream);
+                        sendWindowUpdate(stream, session, new WindowUpdateFrame(stream.getId(), level));
+                    }
+                }
+                else
+                {
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("Data consumed, {} bytes, stream recv window level {}/{} for {}", length, level, maxLevel, stream);
+                }
+            }
+        }
+    }
+
+    protected void sendWindowUpdate(IStream stream, ISession session, WindowUpdateFrame frame)
+    {
+        session.frames(stream, List.of(frame), Callback.NOOP);
+    }
+
+    @Override
+    public void windowUpdate(ISession session, IStream stream, WindowUpdateFrame frame)
+    {
+        super.windowUpdate(session, stream, frame);
+
+        // Before the first sample, track the session window
+        // enlarged by the session itself, see BufferingFlowControlStrategy.
+        if (frame.getStreamId() == 0 && minSessionRecvWindow == 0)
+            Atomics.updateMax(sessionRecvWindow, session.updateRecvWindow(0));
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[sessionRecvWindow=%d,streamRecvWindow=%d,rtt=%dus,sessionStallTime=%dms,streamsStallTime=%dms]",
+            getClass().getSimpleName(),
+            hashCode(),
+            getSessionRecvWindow(),
+            getInitialStreamRecvWindow(),
+            getRoundTripTime(),
+            getSessionStallTime(),
+            getStreamsStallTime());
+    }
+}
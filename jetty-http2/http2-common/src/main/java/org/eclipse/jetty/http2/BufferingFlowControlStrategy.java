@@ -14,8 +14,6 @@
 package org.eclipse.jetty.http2;
 
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.jetty.http2.frames.WindowUpdateFrame;
@@ -62,7 +60,6 @@ public class BufferingFlowControlStrategy extends AbstractFlowControlStrategy
 {
     private final AtomicInteger maxSessionRecvWindow = new AtomicInteger(DEFAULT_WINDOW_SIZE);
     private final AtomicInteger sessionLevel = new AtomicInteger();
-    private final Map<IStream, AtomicInteger> streamLevels = new ConcurrentHashMap<>();
     private float bufferRatio;
 
     public BufferingFlowControlStrategy(float bufferRatio)
@@ -87,20 +84,6 @@ public class BufferingFlowControlStrategy extends AbstractFlowControlStrategy
         this.bufferRatio = bufferRatio;
     }
 
-    @Override
-    public void onStreamCreated(IStream stream)
-    {
-        super.onStreamCreated(stream);
-        streamLevels.put(stream, new AtomicInteger());
-    }
-
-    @Override
-    public void onStreamDestroyed(IStream stream)
-    {
-        streamLevels.remove(stream);
-        super.onStreamDestroyed(stream);
-    }
-
     @Override
     public void onDataConsumed(ISession session, IStream stream, int length)
     {
@@ -141,24 +124,23 @@ public class BufferingFlowControlStrategy extends AbstractFlowControlStrategy
             }
             else
             {
-                AtomicInteger streamLevel = streamLevels.get(stream);
-                if (streamLevel != null)
+                level = stream.updateRecvLevel(length) + length;
+                maxLevel = (int)(getInitialStreamRecvWindow() * ratio);
+                if (level > maxLevel)
                 {
-                    level = streamLevel.addAndGet(length);
-                    maxLevel = (int)(getInitialStreamRecvWindow() * ratio);
-                    if (level > maxLevel)
+                    level = stream.resetRecvLevel();
+                    if (level > 0)
                     {
-                        level = streamLevel.getAndSet(0);
                         stream.updateRecvWindow(level);
                         if (LOG.isDebugEnabled())
                             LOG.debug("Data consumed, {} bytes, updated stream recv window by {}/{} for {}", length, level, maxLevel, stream);
                         sendWindowUpdate(stream, session, new WindowUpdateFrame(stream.getId(), level));
                     }
-                    else
-                    {
-                        if (LOG.isDebugEnabled())
-                            LOG.debug("Data consumed, {} bytes, stream recv window level {}/{} for {}", length, level, maxLevel, stream);
-                    }
+                }
+                else
+                {
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("Data consumed, {} bytes, stream recv window level {}/{} for {}", length, level, maxLevel, stream);
                 }
             }
         }
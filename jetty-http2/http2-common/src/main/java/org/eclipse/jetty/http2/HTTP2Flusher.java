@@ -49,6 +49,9 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
     private final Deque<Entry> entries = new ArrayDeque<>();
     private final Queue<Entry> pendingEntries = new ArrayDeque<>();
     private final Collection<Entry> processedEntries = new ArrayList<>();
+    private final List<IStream> readyStreams = new ArrayList<>();
+    private final Collection<IStream> scheduledStreams = new ArrayList<>();
+    private final Collection<IStream> skippedStreams = new ArrayList<>();
     private final HTTP2Session session;
     private final ByteBufferPool.Lease lease;
     private InvocationType invocationType = InvocationType.NON_BLOCKING;
@@ -192,6 +195,8 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
             if (pendingEntries.isEmpty())
                 break;
 
+            boolean scheduled = schedule();
+
             Iterator<Entry> pending = pendingEntries.iterator();
             while (pending.hasNext())
             {
@@ -210,6 +215,13 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
                     continue;
                 }
 
+                if (scheduled && isSkipped(entry))
+                {
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("Skipped {}", entry);
+                    continue;
+                }
+
                 try
                 {
                     if (entry.generate(lease))
@@ -293,6 +305,64 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
         return Action.SCHEDULED;
     }
 
+    /**
+     * <p>Asks the {@link StreamScheduler} which streams take part in the next round,
+     * among the streams that have DATA frames that can be written.</p>
+     *
+     * @return whether some streams must be skipped in the next round
+     */
+    private boolean schedule()
+    {
+        readyStreams.clear();
+        scheduledStreams.clear();
+        skippedStreams.clear();
+
+        StreamScheduler scheduler = session.getStreamScheduler();
+        // FIFO schedules all the streams, avoid the overhead.
+        if (scheduler == StreamScheduler.FIFO)
+            return false;
+
+        int sessionSendWindow = session.getSendWindow();
+        for (Entry entry : pendingEntries)
+        {
+            IStream stream = entry.stream;
+            if (stream == null || entry.frame.getType() != FrameType.DATA)
+                continue;
+            if (readyStreams.contains(stream))
+                continue;
+            if (entry.getDataBytesRemaining() == 0 || (sessionSendWindow > 0 && stream.updateSendWindow(0) > 0))
+                readyStreams.add(stream);
+        }
+        if (readyStreams.size() <= 1)
+            return false;
+
+        scheduler.schedule(readyStreams, scheduledStreams);
+        if (LOG.isDebugEnabled())
+            LOG.debug("Scheduled {}/{} streams {}", scheduledStreams.size(), readyStreams.size(), scheduledStreams);
+        return scheduledStreams.size() < readyStreams.size();
+    }
+
+    /**
+     * <p>An entry is skipped if it is a DATA frame of a stream that has not been
+     * scheduled, or if it follows a skipped entry of the same stream, so that the
+     * frames of a stream are always written in order.</p>
+     *
+     * @param entry the entry to test
+     * @return whether the entry must be skipped in this round
+     */
+    private boolean isSkipped(Entry entry)
+    {
+        IStream stream = entry.stream;
+        if (stream == null)
+            return false;
+        if (skippedStreams.contains(stream))
+            return true;
+        if (entry.frame.getType() != FrameType.DATA || scheduledStreams.contains(stream))
+            return false;
+        skippedStreams.add(stream);
+        return true;
+    }
+
     void onFlushed(long bytes) throws IOException
     {
         // A single EndPoint write may be flushed multiple times (for example with SSL).
@@ -322,6 +392,9 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
 
         processedEntries.forEach(Entry::succeeded);
         processedEntries.clear();
+        readyStreams.clear();
+        scheduledStreams.clear();
+        skippedStreams.clear();
         invocationType = InvocationType.NON_BLOCKING;
 
         if (stalledEntry != null)
@@ -468,6 +541,7 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
             {
                 // Frames of this type should not be dropped.
                 case PRIORITY:
+                case PRIORITY_UPDATE:
                 case SETTINGS:
                 case PING:
                 case GO_AWAY:
@@ -25,6 +25,7 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
@@ -48,6 +49,7 @@ import org.eclipse.jetty.http2.frames.HeadersFrame;
 import org.eclipse.jetty.http2.frames.PingFrame;
 import org.eclipse.jetty.http2.frames.PrefaceFrame;
 import org.eclipse.jetty.http2.frames.PriorityFrame;
+import org.eclipse.jetty.http2.frames.PriorityUpdateFrame;
 import org.eclipse.jetty.http2.frames.PushPromiseFrame;
 import org.eclipse.jetty.http2.frames.ResetFrame;
 import org.eclipse.jetty.http2.frames.SettingsFrame;
@@ -109,6 +111,7 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
     private int maxEncoderTableCapacity;
     private boolean pushEnabled;
     private boolean connectProtocolEnabled;
+    private StreamScheduler streamScheduler = StreamScheduler.FIFO;
 
     public HTTP2Session(Scheduler scheduler, EndPoint endPoint, Parser parser, Generator generator, Session.Listener listener, FlowControlStrategy flowControl, int initialStreamId)
     {
@@ -210,6 +213,17 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
         this.writeThreshold = writeThreshold;
     }
 
+    @ManagedAttribute("The scheduler of the streams DATA frames")
+    public StreamScheduler getStreamScheduler()
+    {
+        return streamScheduler;
+    }
+
+    public void setStreamScheduler(StreamScheduler streamScheduler)
+    {
+        this.streamScheduler = Objects.requireNonNull(streamScheduler);
+    }
+
     @ManagedAttribute("The HPACK encoder dynamic table maximum capacity")
     public int getMaxEncoderTableCapacity()
     {
@@ -326,6 +340,18 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
             LOG.debug("Received {} on {}", frame, this);
     }
 
+    @Override
+    public void onPriorityUpdate(PriorityUpdateFrame frame)
+    {
+        if (LOG.isDebugEnabled())
+            LOG.debug("Received {} on {}", frame, this);
+
+        // Updates for streams that are not open are ignored.
+        IStream stream = getStream(frame.getPrioritizedStreamId());
+        if (stream != null)
+            stream.setPriority(frame.getPriority());
+    }
+
     @Override
     public void onReset(ResetFrame frame)
     {
@@ -473,7 +499,8 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
 
         if (frame.isReply())
         {
-            notifyPing(this, frame);
+            if (!flowControl.onPingReply(this, frame))
+                notifyPing(this, frame);
         }
         else
         {
@@ -18,6 +18,7 @@ import java.io.IOException;
 import java.nio.channels.WritePendingException;
 import java.util.ArrayDeque;
 import java.util.Deque;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
@@ -29,6 +30,7 @@ import org.eclipse.jetty.http.HttpFields;
 import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http.Priority;
 import org.eclipse.jetty.http2.api.Stream;
 import org.eclipse.jetty.http2.frames.DataFrame;
 import org.eclipse.jetty.http2.frames.FailureFrame;
@@ -36,6 +38,7 @@ import org.eclipse.jetty.http2.frames.Frame;
 import org.eclipse.jetty.http2.frames.HeadersFrame;
 import org.eclipse.jetty.http2.frames.PushPromiseFrame;
 import org.eclipse.jetty.http2.frames.ResetFrame;
+import org.eclipse.jetty.http2.frames.StreamFrame;
 import org.eclipse.jetty.http2.frames.WindowUpdateFrame;
 import org.eclipse.jetty.io.CyclicTimeouts;
 import org.eclipse.jetty.io.EofException;
@@ -60,6 +63,7 @@ public class HTTP2Stream implements IStream, Callback, Dumpable, CyclicTimeouts.
     private final AtomicReference<CloseState> closeState = new AtomicReference<>(CloseState.NOT_CLOSED);
     private final AtomicInteger sendWindow = new AtomicInteger();
     private final AtomicInteger recvWindow = new AtomicInteger();
+    private final AtomicInteger recvLevel = new AtomicInteger();
     private final long creationNanoTime = NanoTime.now();
     private final ISession session;
     private final int streamId;
@@ -77,6 +81,7 @@ public class HTTP2Stream implements IStream, Callback, Dumpable, CyclicTimeouts.
     private boolean committed;
     private long idleTimeout;
     private long expireNanoTime = Long.MAX_VALUE;
+    private volatile Priority priority;
 
     public HTTP2Stream(ISession session, int streamId, MetaData.Request request, boolean local)
     {
@@ -86,6 +91,7 @@ public class HTTP2Stream implements IStream, Callback, Dumpable, CyclicTimeouts.
         this.local = local;
         this.dataLength = Long.MIN_VALUE;
         this.dataInitial = true;
+        this.priority = request == null ? Priority.DEFAULT : Priority.from(request.getFields());
     }
 
     @Deprecated
@@ -118,6 +124,18 @@ public class HTTP2Stream implements IStream, Callback, Dumpable, CyclicTimeouts.
         return local;
     }
 
+    @Override
+    public Priority getPriority()
+    {
+        return priority;
+    }
+
+    @Override
+    public void setPriority(Priority priority)
+    {
+        this.priority = priority;
+    }
+
     @Override
     public ISession getSession()
     {
@@ -134,7 +152,23 @@ public class HTTP2Stream implements IStream, Callback, Dumpable, CyclicTimeouts.
     public void send(FrameList frameList, Callback callback)
     {
         if (startWrite(callback))
+        {
+            updatePriority(frameList.getFrames());
             session.frames(this, frameList.getFrames(), this);
+        }
+    }
+
+    private void updatePriority(List<StreamFrame> frames)
+    {
+        // SPEC: the server may override the request priority with a response Priority header.
+        if (frames.isEmpty() || !(frames.get(0) instanceof HeadersFrame))
+            return;
+        MetaData metaData = ((HeadersFrame)frames.get(0)).getMetaData();
+        if (!metaData.isResponse())
+            return;
+        HttpFields fields = metaData.getFields();
+        if (fields != null && fields.contains(HttpHeader.PRIORITY))
+            setPriority(Priority.from(fields));
     }
 
     @Override
@@ -728,6 +762,18 @@ public class HTTP2Stream implements IStream, Callback, Dumpable, CyclicTimeouts.
         return recvWindow.getAndAdd(delta);
     }
 
+    @Override
+    public int updateRecvLevel(int delta)
+    {
+        return recvLevel.getAndAdd(delta);
+    }
+
+    @Override
+    public int resetRecvLevel()
+    {
+        return recvLevel.getAndSet(0);
+    }
+
     @Override
     public void close()
     {
@@ -19,6 +19,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
+import org.eclipse.jetty.http.Priority;
 import org.eclipse.jetty.http2.api.Stream;
 import org.eclipse.jetty.http2.frames.DataFrame;
 import org.eclipse.jetty.http2.frames.Frame;
@@ -39,6 +40,22 @@ public interface IStream extends Stream, Attachable, Closeable
      */
     public boolean isLocal();
 
+    /**
+     * <p>The priority of this stream is initialized from the request {@code Priority}
+     * header, and may be updated by {@code PRIORITY_UPDATE} frames.</p>
+     *
+     * @return the priority of this stream, used to schedule the DATA frames
+     * @see #setPriority(Priority)
+     * @see StreamScheduler
+     */
+    public Priority getPriority();
+
+    /**
+     * @param priority the priority of this stream
+     * @see #getPriority()
+     */
+    public void setPriority(Priority priority);
+
     @Override
     public ISession getSession();
 
@@ -102,6 +119,27 @@ public interface IStream extends Stream, Attachable, Closeable
      */
     public int updateRecvWindow(int delta);
 
+    /**
+     * <p>Updates the stream receive level by the given {@code delta}.</p>
+     * <p>The receive level is the amount of data consumed by the application
+     * that has not yet been returned to the sender with a {@code WINDOW_UPDATE}
+     * frame, and it is used by {@link FlowControlStrategy} implementations that
+     * accumulate window updates.</p>
+     *
+     * @param delta the delta value (positive or negative) to add to the stream receive level
+     * @return the previous value of the stream receive level
+     * @see #resetRecvLevel()
+     */
+    public int updateRecvLevel(int delta);
+
+    /**
+     * <p>Resets the stream receive level to zero.</p>
+     *
+     * @return the previous value of the stream receive level
+     * @see #updateRecvLevel(int)
+     */
+    public int resetRecvLevel();
+
     /**
      * <p>Marks this stream as not idle so that the
      * {@link #getIdleTimeout() idle timeout} is postponed.</p>
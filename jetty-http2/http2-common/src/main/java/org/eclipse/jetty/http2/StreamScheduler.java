@@ -0,0 +1,106 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.http2;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.eclipse.jetty.http.Priority;
+
+/**
+ * <p>Selects the streams whose DATA frames are written by {@link HTTP2Flusher}.</p>
+ * <p>The flusher writes DATA frames in rounds; at the beginning of each round,
+ * the scheduler is given the streams that have DATA frames that can be written
+ * and selects the streams that take part in the round.
+ * The DATA frames of the other streams are kept pending until a following round,
+ * while the control frames are always written.</p>
+ *
+ * @see IStream#getPriority()
+ */
+public interface StreamScheduler
+{
+    /**
+     * <p>Schedules all the streams, in the order their frames were queued.</p>
+     */
+    public static final StreamScheduler FIFO = new StreamScheduler()
+    {
+        @Override
+        public void schedule(List<IStream> streams, Collection<IStream> scheduled)
+        {
+            scheduled.addAll(streams);
+        }
+
+        @Override
+        public String toString()
+        {
+            return "FIFO";
+        }
+    };
+
+    /**
+     * <p>Schedules the streams according to the
+     * <a href="https://www.rfc-editor.org/rfc/rfc9218#section-10">RFC 9218</a>
+     * recommendations.</p>
+     * <p>Only the streams with the lowest urgency value are scheduled; among them,
+     * non incremental streams are served one by one, in stream id order,
+     * before the incremental streams, that are served round-robin.</p>
+     */
+    public static final StreamScheduler EXTENSIBLE_PRIORITY = new StreamScheduler()
+    {
+        @Override
+        public void schedule(List<IStream> streams, Collection<IStream> scheduled)
+        {
+            int urgency = Priority.MAX_URGENCY + 1;
+            IStream sequential = null;
+            for (IStream stream : streams)
+            {
+                Priority priority = stream.getPriority();
+                int u = priority.getUrgency();
+                if (u > urgency)
+                    continue;
+                if (u < urgency)
+                {
+                    urgency = u;
+                    sequential = null;
+                }
+                if (!priority.isIncremental() && (sequential == null || stream.getId() < sequential.getId()))
+                    sequential = stream;
+            }
+
+            if (sequential != null)
+            {
+                scheduled.add(sequential);
+                return;
+            }
+
+            for (IStream stream : streams)
+            {
+                if (stream.getPriority().getUrgency() == urgency)
+                    scheduled.add(stream);
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return "EXTENSIBLE_PRIORITY";
+        }
+    };
+
+    /**
+     * @param streams the streams that have DATA frames that can be written,
+     * in the order their frames were queued, without duplicates
+     * @param scheduled the collection where to add the streams selected for the next round
+     */
+    public void schedule(List<IStream> streams, Collection<IStream> scheduled);
+}
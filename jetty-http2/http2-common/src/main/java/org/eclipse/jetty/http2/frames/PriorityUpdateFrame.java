@@ -0,0 +1,64 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.http2.frames;
+
+import org.eclipse.jetty.http.Priority;
+
+/**
+ * <p>The {@code PRIORITY_UPDATE} frame defined by
+ * <a href="https://www.rfc-editor.org/rfc/rfc9218#section-7.1">RFC 9218</a>,
+ * sent on the connection stream to change the priority of a stream.</p>
+ */
+public class PriorityUpdateFrame extends Frame
+{
+    public static final int PRIORITY_UPDATE_LENGTH = 4;
+
+    private final int prioritizedStreamId;
+    private final String priorityFieldValue;
+
+    public PriorityUpdateFrame(int prioritizedStreamId, Priority priority)
+    {
+        this(prioritizedStreamId, priority.toString());
+    }
+
+    public PriorityUpdateFrame(int prioritizedStreamId, String priorityFieldValue)
+    {
+        super(FrameType.PRIORITY_UPDATE);
+        this.prioritizedStreamId = prioritizedStreamId;
+        this.priorityFieldValue = priorityFieldValue;
+    }
+
+    public int getPrioritizedStreamId()
+    {
+        return prioritizedStreamId;
+    }
+
+    /**
+     * @return the priority field value, in the same format as the {@code Priority} header value
+     */
+    public String getPriorityFieldValue()
+    {
+        return priorityFieldValue;
+    }
+
+    public Priority getPriority()
+    {
+        return Priority.from(priorityFieldValue);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s#%d{%s}", super.toString(), prioritizedStreamId, priorityFieldValue);
+    }
+}
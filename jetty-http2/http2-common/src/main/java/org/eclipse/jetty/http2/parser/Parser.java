@@ -24,6 +24,7 @@ import org.eclipse.jetty.http2.frames.GoAwayFrame;
 import org.eclipse.jetty.http2.frames.HeadersFrame;
 import org.eclipse.jetty.http2.frames.PingFrame;
 import org.eclipse.jetty.http2.frames.PriorityFrame;
+import org.eclipse.jetty.http2.frames.PriorityUpdateFrame;
 import org.eclipse.jetty.http2.frames.PushPromiseFrame;
 import org.eclipse.jetty.http2.frames.ResetFrame;
 import org.eclipse.jetty.http2.frames.SettingsFrame;
@@ -78,7 +79,7 @@ public class Parser
         this.byteBufferPool = byteBufferPool;
         this.headerParser = new HeaderParser(rateControl == null ? RateControl.NO_RATE_CONTROL : rateControl);
         this.hpackDecoder = new HpackDecoder(maxHeaderSize, this::getBeginNanoTime);
-        this.bodyParsers = new BodyParser[FrameType.values().length];
+        this.bodyParsers = new BodyParser[FrameType.maxType() + 1];
     }
 
     public void init(Listener listener)
@@ -99,6 +100,7 @@ public class Parser
         bodyParsers[FrameType.GO_AWAY.getType()] = new GoAwayBodyParser(headerParser, listener);
         bodyParsers[FrameType.WINDOW_UPDATE.getType()] = new WindowUpdateBodyParser(headerParser, listener);
         bodyParsers[FrameType.CONTINUATION.getType()] = new ContinuationBodyParser(headerParser, listener, headerBlockParser, headerBlockFragments);
+        bodyParsers[FrameType.PRIORITY_UPDATE.getType()] = new PriorityUpdateBodyParser(headerParser, listener);
     }
 
     protected Listener getListener()
@@ -219,7 +221,8 @@ public class Parser
     protected boolean parseBody(ByteBuffer buffer)
     {
         int type = getFrameType();
-        if (type < 0 || type >= bodyParsers.length)
+        BodyParser bodyParser = type < 0 || type >= bodyParsers.length ? null : bodyParsers[type];
+        if (bodyParser == null)
         {
             // Unknown frame types must be ignored.
             if (LOG.isDebugEnabled())
@@ -230,7 +233,6 @@ public class Parser
             return true;
         }
 
-        BodyParser bodyParser = bodyParsers[type];
         if (headerParser.getLength() == 0)
         {
             bodyParser.emptyBody(buffer);
@@ -313,6 +315,10 @@ public class Parser
 
         public void onPriority(PriorityFrame frame);
 
+        public default void onPriorityUpdate(PriorityUpdateFrame frame)
+        {
+        }
+
         public void onReset(ResetFrame frame);
 
         public void onSettings(SettingsFrame frame);
@@ -420,6 +426,12 @@ public class Parser
                 listener.onPriority(frame);
             }
 
+            @Override
+            public void onPriorityUpdate(PriorityUpdateFrame frame)
+            {
+                listener.onPriorityUpdate(frame);
+            }
+
             @Override
             public void onReset(ResetFrame frame)
             {
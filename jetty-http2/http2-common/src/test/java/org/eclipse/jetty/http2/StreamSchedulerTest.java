@@ -0,0 +1,103 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.http2;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpURI;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http.Priority;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class StreamSchedulerTest
+{
+    private static IStream newStream(int streamId, String priority)
+    {
+        HttpFields.Mutable fields = HttpFields.build();
+        if (priority != null)
+            fields.put(HttpHeader.PRIORITY, priority);
+        MetaData.Request request = new MetaData.Request("GET", HttpURI.from("/" + streamId), HttpVersion.HTTP_2, fields);
+        return new HTTP2Stream(null, streamId, request, false);
+    }
+
+    private static List<Integer> schedule(StreamScheduler scheduler, IStream... streams)
+    {
+        List<IStream> scheduled = new ArrayList<>();
+        scheduler.schedule(List.of(streams), scheduled);
+        List<Integer> result = new ArrayList<>();
+        scheduled.forEach(stream -> result.add(stream.getId()));
+        return result;
+    }
+
+    @Test
+    public void testPriorityFromRequest()
+    {
+        assertEquals(Priority.DEFAULT, newStream(1, null).getPriority());
+        assertEquals(Priority.of(1, true), newStream(1, "u=1, i").getPriority());
+    }
+
+    @Test
+    public void testFIFO()
+    {
+        IStream stream1 = newStream(1, "u=7");
+        IStream stream3 = newStream(3, "u=0");
+        IStream stream5 = newStream(5, null);
+        assertThat(schedule(StreamScheduler.FIFO, stream5, stream1, stream3), contains(5, 1, 3));
+    }
+
+    @Test
+    public void testLowestUrgencyFirst()
+    {
+        IStream stream1 = newStream(1, "u=5, i");
+        IStream stream3 = newStream(3, null);
+        IStream stream5 = newStream(5, "u=1");
+        assertThat(schedule(StreamScheduler.EXTENSIBLE_PRIORITY, stream1, stream3, stream5), contains(5));
+    }
+
+    @Test
+    public void testNonIncrementalInStreamIdOrder()
+    {
+        IStream stream1 = newStream(1, "u=2, i");
+        IStream stream3 = newStream(3, "u=2");
+        IStream stream5 = newStream(5, "u=2");
+        assertThat(schedule(StreamScheduler.EXTENSIBLE_PRIORITY, stream5, stream1, stream3), contains(3));
+    }
+
+    @Test
+    public void testIncrementalRoundRobin()
+    {
+        IStream stream1 = newStream(1, "u=4, i");
+        IStream stream3 = newStream(3, "u=6");
+        IStream stream5 = newStream(5, "u=4, i");
+        assertThat(schedule(StreamScheduler.EXTENSIBLE_PRIORITY, stream5, stream3, stream1), contains(5, 1));
+    }
+
+    @Test
+    public void testPriorityUpdate()
+    {
+        IStream stream1 = newStream(1, null);
+        IStream stream3 = newStream(3, null);
+        assertThat(schedule(StreamScheduler.EXTENSIBLE_PRIORITY, stream1, stream3), contains(1));
+
+        stream3.setPriority(Priority.from("u=2"));
+        assertThat(schedule(StreamScheduler.EXTENSIBLE_PRIORITY, stream1, stream3), contains(3));
+    }
+}
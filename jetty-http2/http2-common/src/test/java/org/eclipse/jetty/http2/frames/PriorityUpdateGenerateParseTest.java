@@ -0,0 +1,160 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.http2.frames;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jetty.http.Priority;
+import org.eclipse.jetty.http2.ErrorCode;
+import org.eclipse.jetty.http2.generator.HeaderGenerator;
+import org.eclipse.jetty.http2.generator.PriorityUpdateGenerator;
+import org.eclipse.jetty.http2.parser.Parser;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.io.MappedByteBufferPool;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PriorityUpdateGenerateParseTest
+{
+    private final ByteBufferPool byteBufferPool = new MappedByteBufferPool();
+
+    @Test
+    public void testGenerateParse() throws Exception
+    {
+        PriorityUpdateGenerator generator = new PriorityUpdateGenerator(new HeaderGenerator());
+
+        List<PriorityUpdateFrame> frames = new ArrayList<>();
+        Parser parser = new Parser(byteBufferPool, 8192);
+        parser.init(new Parser.Listener.Adapter()
+        {
+            @Override
+            public void onPriorityUpdate(PriorityUpdateFrame frame)
+            {
+                frames.add(frame);
+            }
+        });
+
+        int streamId = 13;
+        Priority priority = Priority.of(1, true);
+
+        // Iterate a few times to be sure generator and parser are properly reset.
+        for (int i = 0; i < 2; ++i)
+        {
+            ByteBufferPool.Lease lease = new ByteBufferPool.Lease(byteBufferPool);
+            generator.generate(lease, new PriorityUpdateFrame(streamId, priority));
+
+            frames.clear();
+            for (ByteBuffer buffer : lease.getByteBuffers())
+            {
+                while (buffer.hasRemaining())
+                {
+                    parser.parse(buffer);
+                }
+            }
+        }
+
+        assertEquals(1, frames.size());
+        PriorityUpdateFrame frame = frames.get(0);
+        assertEquals(streamId, frame.getPrioritizedStreamId());
+        assertEquals("u=1, i", frame.getPriorityFieldValue());
+        assertEquals(priority, frame.getPriority());
+    }
+
+    @Test
+    public void testGenerateParseOneByteAtATime() throws Exception
+    {
+        PriorityUpdateGenerator generator = new PriorityUpdateGenerator(new HeaderGenerator());
+
+        List<PriorityUpdateFrame> frames = new ArrayList<>();
+        Parser parser = new Parser(byteBufferPool, 8192);
+        parser.init(new Parser.Listener.Adapter()
+        {
+            @Override
+            public void onPriorityUpdate(PriorityUpdateFrame frame)
+            {
+                frames.add(frame);
+            }
+        });
+
+        int streamId = 1;
+        // An empty value is valid and means default priority.
+        String[] values = {"u=0", ""};
+
+        for (String value : values)
+        {
+            ByteBufferPool.Lease lease = new ByteBufferPool.Lease(byteBufferPool);
+            generator.generatePriorityUpdate(lease, streamId, value);
+
+            frames.clear();
+            for (ByteBuffer buffer : lease.getByteBuffers())
+            {
+                while (buffer.hasRemaining())
+                {
+                    parser.parse(ByteBuffer.wrap(new byte[]{buffer.get()}));
+                }
+            }
+
+            assertEquals(1, frames.size());
+            PriorityUpdateFrame frame = frames.get(0);
+            assertEquals(streamId, frame.getPrioritizedStreamId());
+            assertEquals(value, frame.getPriorityFieldValue());
+        }
+    }
+
+    @Test
+    public void testParseOnNonZeroStream() throws Exception
+    {
+        List<Integer> errors = new ArrayList<>();
+        Parser parser = new Parser(byteBufferPool, 8192);
+        parser.init(new Parser.Listener.Adapter()
+        {
+            @Override
+            public void onConnectionFailure(int error, String reason)
+            {
+                errors.add(error);
+            }
+        });
+
+        // Frame header with length 7, type PRIORITY_UPDATE, no flags, stream 3;
+        // then prioritized stream 1 and value "u=0".
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[]{0, 0, 7, 0x10, 0, 0, 0, 0, 3, 0, 0, 0, 1, 'u', '=', '0'});
+        parser.parse(buffer);
+
+        assertEquals(1, errors.size());
+        assertEquals(ErrorCode.PROTOCOL_ERROR.code, errors.get(0));
+    }
+
+    @Test
+    public void testParseZeroPrioritizedStream() throws Exception
+    {
+        List<Integer> errors = new ArrayList<>();
+        Parser parser = new Parser(byteBufferPool, 8192);
+        parser.init(new Parser.Listener.Adapter()
+        {
+            @Override
+            public void onConnectionFailure(int error, String reason)
+            {
+                errors.add(error);
+            }
+        });
+
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[]{0, 0, 4, 0x10, 0, 0, 0, 0, 0, 0, 0, 0, 0});
+        parser.parse(buffer);
+
+        assertEquals(1, errors.size());
+        assertEquals(ErrorCode.PROTOCOL_ERROR.code, errors.get(0));
+    }
+}
@@ -15,19 +15,17 @@ package org.eclipse.jetty.http2.hpack;
 
 import java.nio.ByteBuffer;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.jetty.http.HttpField;
 import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.HttpScheme;
+import org.eclipse.jetty.http.compression.FieldIndex;
 import org.eclipse.jetty.http.compression.HuffmanEncoder;
 import org.eclipse.jetty.http.compression.NBitIntegerEncoder;
 import org.eclipse.jetty.util.Index;
-import org.eclipse.jetty.util.StringUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -109,7 +107,7 @@ public class HpackContext
             /* 61 */ {"www-authenticate", EMPTY}
         };
 
-    private static final Map<HttpField, Entry> __staticFieldMap = new HashMap<>();
+    private static final FieldIndex<Entry> __staticFieldMap = FieldIndex.byField(Entry::getHttpField, STATIC_TABLE.length);
     private static final Index<StaticEntry> __staticNameMap;
     private static final StaticEntry[] __staticTableByHeader = new StaticEntry[HttpHeader.values().length];
     private static final StaticEntry[] __staticTable = new StaticEntry[STATIC_TABLE.length];
@@ -166,7 +164,7 @@ public class HpackContext
             __staticTable[i] = entry;
 
             if (entry._field.getValue() != null)
-                __staticFieldMap.put(entry._field, entry);
+                __staticFieldMap.put(entry);
 
             if (!added.contains(entry._field.getName()))
             {
@@ -185,16 +183,30 @@ public class HpackContext
     }
 
     private final DynamicTable _dynamicTable;
-    private final Map<HttpField, Entry> _fieldMap = new HashMap<>();
-    private final Map<String, Entry> _nameMap = new HashMap<>();
+    private final FieldIndex<Entry> _fieldMap;
+    private final FieldIndex<Entry> _nameMap;
     private int _maxTableSize;
     private int _tableSize;
+    private long _modifications;
 
     HpackContext(int maxTableSize)
+    {
+        this(maxTableSize, true);
+    }
+
+    /**
+     * @param maxTableSize the max dynamic table size in octets
+     * @param indexed whether the dynamic table entries are indexed by field and by name,
+     * which is only needed to look them up with {@link #get(HttpField)} and {@link #get(String)}
+     * when encoding, not to decode.
+     */
+    HpackContext(int maxTableSize, boolean indexed)
     {
         _maxTableSize = maxTableSize;
         int guesstimateEntries = 10 + maxTableSize / (32 + 10 + 10);
         _dynamicTable = new DynamicTable(guesstimateEntries);
+        _fieldMap = indexed ? FieldIndex.byField(Entry::getHttpField, guesstimateEntries) : null;
+        _nameMap = indexed ? FieldIndex.byName(Entry::getHttpField, guesstimateEntries) : null;
         if (LOG.isDebugEnabled())
             LOG.debug(String.format("HdrTbl[%x] created max=%d", hashCode(), maxTableSize));
     }
@@ -209,7 +221,7 @@ public class HpackContext
 
     public Entry get(HttpField field)
     {
-        Entry entry = _fieldMap.get(field);
+        Entry entry = _fieldMap == null ? null : _fieldMap.get(field);
         if (entry == null)
             entry = __staticFieldMap.get(field);
         return entry;
@@ -220,7 +232,7 @@ public class HpackContext
         Entry entry = __staticNameMap.get(name);
         if (entry != null)
             return entry;
-        return _nameMap.get(StringUtil.asciiToLowerCase(name));
+        return _nameMap == null ? null : _nameMap.get(name);
     }
 
     public Entry get(int index)
@@ -246,6 +258,7 @@ public class HpackContext
 
     public Entry add(HttpField field)
     {
+        _modifications++;
         Entry entry = new Entry(field);
         int size = entry.getSize();
         if (size > _maxTableSize)
@@ -257,8 +270,11 @@ public class HpackContext
         }
         _tableSize += size;
         _dynamicTable.add(entry);
-        _fieldMap.put(field, entry);
-        _nameMap.put(field.getLowerCaseName(), entry);
+        if (_fieldMap != null)
+        {
+            _fieldMap.put(entry);
+            _nameMap.put(entry);
+        }
 
         if (LOG.isDebugEnabled())
             LOG.debug(String.format("HdrTbl[%x] added %s", hashCode(), entry));
@@ -290,6 +306,14 @@ public class HpackContext
         return _maxTableSize;
     }
 
+    /**
+     * @return the number of fields added to the dynamic table
+     */
+    long getModificationCount()
+    {
+        return _modifications;
+    }
+
     public int index(Entry entry)
     {
         if (entry._slot < 0)
@@ -379,10 +403,11 @@ public class HpackContext
                     LOG.debug(String.format("HdrTbl[%x] evict %s", HpackContext.this.hashCode(), entry));
                 _tableSize -= entry.getSize();
                 entry._slot = -1;
-                _fieldMap.remove(entry.getHttpField());
-                String lc = entry.getHttpField().getLowerCaseName();
-                if (entry == _nameMap.get(lc))
-                    _nameMap.remove(lc);
+                if (_fieldMap != null)
+                {
+                    _fieldMap.remove(entry);
+                    _nameMap.remove(entry);
+                }
             }
             if (LOG.isDebugEnabled())
                 LOG.debug(String.format("HdrTbl[%x] entries=%d, size=%d, max=%d", HpackContext.this.hashCode(), _dynamicTable.size(), _tableSize, _maxTableSize));
@@ -394,8 +419,11 @@ public class HpackContext
                 LOG.debug(String.format("HdrTbl[%x] evictAll", HpackContext.this.hashCode()));
             if (size() > 0)
             {
-                _fieldMap.clear();
-                _nameMap.clear();
+                if (_fieldMap != null)
+                {
+                    _fieldMap.clear();
+                    _nameMap.clear();
+                }
                 _offset = 0;
                 _size = 0;
                 _tableSize = 0;
@@ -55,7 +55,7 @@ public class HpackDecoder
     public HpackDecoder(int maxHeaderSize, LongSupplier beginNanoTimeSupplier)
     {
         _beginNanoTimeSupplier = beginNanoTimeSupplier;
-        _context = new HpackContext(HpackContext.DEFAULT_MAX_TABLE_CAPACITY);
+        _context = new HpackContext(HpackContext.DEFAULT_MAX_TABLE_CAPACITY, false);
         _builder = new MetaDataBuilder(maxHeaderSize);
         _huffmanDecoder = new HuffmanDecoder();
         _integerDecoder = new NBitIntegerDecoder();
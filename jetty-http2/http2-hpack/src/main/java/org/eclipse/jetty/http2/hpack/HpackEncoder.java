@@ -16,7 +16,9 @@ package org.eclipse.jetty.http2.hpack;
 import java.nio.ByteBuffer;
 import java.util.EnumMap;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.jetty.http.HttpField;
@@ -28,6 +30,7 @@ import org.eclipse.jetty.http.HttpStatus;
 import org.eclipse.jetty.http.HttpVersion;
 import org.eclipse.jetty.http.MetaData;
 import org.eclipse.jetty.http.PreEncodedHttpField;
+import org.eclipse.jetty.http.PreEncodedHttpFields;
 import org.eclipse.jetty.http.compression.HuffmanEncoder;
 import org.eclipse.jetty.http.compression.NBitIntegerEncoder;
 import org.eclipse.jetty.http.compression.NBitStringEncoder;
@@ -73,6 +76,7 @@ public class HpackEncoder
             HttpHeader.AUTHORIZATION,
             HttpHeader.SET_COOKIE,
             HttpHeader.SET_COOKIE2);
+    private static final int MAX_TEMPLATE_BLOCKS = 16;
     private static final EnumSet<HttpHeader> IGNORED_HEADERS = EnumSet.of(HttpHeader.CONNECTION, HttpHeader.KEEP_ALIVE,
         HttpHeader.PROXY_CONNECTION, HttpHeader.TRANSFER_ENCODING, HttpHeader.UPGRADE);
     private static final PreEncodedHttpField TE_TRAILERS = new PreEncodedHttpField(HttpHeader.TE, "trailers");
@@ -93,6 +97,7 @@ public class HpackEncoder
     }
 
     private final HpackContext _context;
+    private final Map<PreEncodedHttpFields, TemplateBlock> _templateBlocks = new HashMap<>();
     private final boolean _debug;
     private int _maxTableCapacity;
     private int _tableCapacity;
@@ -257,8 +262,20 @@ public class HpackEncoder
                 }
 
                 boolean contentLengthEncoded = false;
-                for (HttpField field : fields)
+                int n = fields.size();
+                for (int f = 0; f < n; f++)
                 {
+                    HttpField field = fields.getField(f);
+                    if (field instanceof PreEncodedHttpField && hopHeaders == null)
+                    {
+                        PreEncodedHttpFields template = PreEncodedHttpFields.getTemplateAt(fields, f);
+                        if (template != null)
+                        {
+                            encode(buffer, template);
+                            f += template.size() - 1;
+                            continue;
+                        }
+                    }
                     HttpHeader header = field.getHeader();
                     if (header != null && IGNORED_HEADERS.contains(header))
                         continue;
@@ -303,6 +320,56 @@ public class HpackEncoder
         }
     }
 
+    private void encode(ByteBuffer buffer, PreEncodedHttpFields template)
+    {
+        int size = template.size();
+        int f = 0;
+        TemplateBlock block = _templateBlocks.get(template);
+        if (block != null)
+        {
+            // The prefix only contains static indexed fields and literals
+            // that are not indexed, so its encoding never changes.
+            buffer.put(block._encoded);
+            _headerListSize += block._headerListSize;
+            f = block._fields;
+            if (_debug)
+                LOG.debug("encode template {} prefix to '{}'", template, StringUtil.toHexString(block._encoded));
+        }
+        else
+        {
+            int position = buffer.position();
+            int headerListSize = _headerListSize;
+            int prefixPosition = position;
+            int prefixHeaderListSize = headerListSize;
+            int prefixFields = 0;
+            while (f < size)
+            {
+                HttpField field = template.getField(f++);
+                Entry entry = _context.get(field);
+                long modifications = _context.getModificationCount();
+                encode(buffer, field);
+                // Stop at the first field that references or is added to the dynamic table.
+                if (entry != null && !entry.isStatic() || modifications != _context.getModificationCount())
+                    break;
+                prefixPosition = buffer.position();
+                prefixHeaderListSize = _headerListSize;
+                prefixFields = f;
+            }
+
+            if (_templateBlocks.size() >= MAX_TEMPLATE_BLOCKS)
+                _templateBlocks.clear();
+            ByteBuffer encoded = buffer.duplicate();
+            encoded.position(position).limit(prefixPosition);
+            _templateBlocks.put(template, new TemplateBlock(BufferUtil.toArray(encoded), prefixFields, prefixHeaderListSize - headerListSize));
+        }
+
+        // The remaining fields depend on the dynamic table, so they are encoded one by one.
+        while (f < size)
+        {
+            encode(buffer, template.getField(f++));
+        }
+    }
+
     public void encodeMaxDynamicTableSize(ByteBuffer buffer, int maxTableSize)
     {
         buffer.put((byte)0x20);
@@ -472,4 +539,18 @@ public class HpackEncoder
     {
         NBitStringEncoder.encode(buffer, 8, value, huffman);
     }
+
+    private static class TemplateBlock
+    {
+        private final byte[] _encoded;
+        private final int _fields;
+        private final int _headerListSize;
+
+        private TemplateBlock(byte[] encoded, int fields, int headerListSize)
+        {
+            _encoded = encoded;
+            _fields = fields;
+            _headerListSize = headerListSize;
+        }
+    }
 }
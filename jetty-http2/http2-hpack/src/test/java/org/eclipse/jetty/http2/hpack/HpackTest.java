@@ -23,6 +23,7 @@ import org.eclipse.jetty.http.HttpVersion;
 import org.eclipse.jetty.http.MetaData;
 import org.eclipse.jetty.http.MetaData.Response;
 import org.eclipse.jetty.http.PreEncodedHttpField;
+import org.eclipse.jetty.http.PreEncodedHttpFields;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.NanoTime;
 import org.junit.jupiter.api.Test;
@@ -275,6 +276,44 @@ public class HpackTest
         assertThrows(HpackException.StreamException.class, () -> decoder.decode(buffer));
     }
 
+    @Test
+    public void encodeDecodeTemplateTest() throws Exception
+    {
+        PreEncodedHttpFields template = new PreEncodedHttpFields(
+            new HttpField(HttpHeader.ETAG, "W/\"1a2b3c\""),
+            new HttpField(HttpHeader.LAST_MODIFIED, "Tue, 10 Oct 2023 08:00:00 GMT"),
+            new HttpField(HttpHeader.SERVER, "api"),
+            new HttpField(HttpHeader.CONTENT_TYPE, "application/json"));
+        HpackEncoder encoder = new HpackEncoder();
+        HpackDecoder decoder = new HpackDecoder(8192, NanoTime::now);
+        ByteBuffer buffer = BufferUtil.allocate(16 * 1024);
+
+        // The status, then the fields that are not indexed.
+        int prefix = 2 + 2 * (template.getField(0).getEncodedLength(HttpVersion.HTTP_2) + template.getField(1).getEncodedLength(HttpVersion.HTTP_2));
+        String previous = null;
+        for (int i = 0; i < 3; i++)
+        {
+            HttpFields.Mutable fields = HttpFields.build();
+            template.addTo(fields);
+            fields.add(HttpHeader.DATE, "Tue, 10 Oct 2023 08:00:0" + i + " GMT");
+            fields.add("X-Request-Id", String.valueOf(i));
+            Response original = new MetaData.Response(HttpVersion.HTTP_2, 200, fields);
+
+            BufferUtil.clearToFill(buffer);
+            encoder.encode(buffer, original);
+            BufferUtil.flipToFlush(buffer, 0);
+            String encoded = BufferUtil.toHexString(buffer);
+            Response decoded = (Response)decoder.decode(buffer);
+            assertMetaDataResponseSame(original, decoded);
+
+            // The dynamic table changes on every response, but the encoding of the
+            // prefix of the template does not; the first response starts with a table size update.
+            if (i > 1)
+                assertThat(encoded.substring(0, prefix), is(previous.substring(0, prefix)));
+            previous = encoded;
+        }
+    }
+
     private void assertMetaDataResponseSame(MetaData.Response expected, MetaData.Response actual)
     {
         assertThat("Response.status", actual.getStatus(), is(expected.getStatus()));
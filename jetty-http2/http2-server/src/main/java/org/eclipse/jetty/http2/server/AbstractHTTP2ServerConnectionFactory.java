@@ -27,6 +27,7 @@ import org.eclipse.jetty.http2.BufferingFlowControlStrategy;
 import org.eclipse.jetty.http2.FlowControlStrategy;
 import org.eclipse.jetty.http2.HTTP2Connection;
 import org.eclipse.jetty.http2.ISession;
+import org.eclipse.jetty.http2.StreamScheduler;
 import org.eclipse.jetty.http2.api.Session;
 import org.eclipse.jetty.http2.api.server.ServerSessionListener;
 import org.eclipse.jetty.http2.frames.Frame;
@@ -65,6 +66,7 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
     private boolean connectProtocolEnabled = true;
     private RateControl.Factory rateControlFactory = new WindowRateControl.Factory(128);
     private FlowControlStrategy.Factory flowControlStrategyFactory = () -> new BufferingFlowControlStrategy(0.5F);
+    private StreamScheduler streamScheduler = StreamScheduler.EXTENSIBLE_PRIORITY;
     private long streamIdleTimeout;
     private boolean useInputDirectByteBuffers;
     private boolean useOutputDirectByteBuffers;
@@ -257,6 +259,26 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
         this.connectProtocolEnabled = connectProtocolEnabled;
     }
 
+    @ManagedAttribute("The scheduler of the response DATA frames")
+    public StreamScheduler getStreamScheduler()
+    {
+        return streamScheduler;
+    }
+
+    /**
+     * <p>Sets the scheduler of the response DATA frames.</p>
+     * <p>By default, responses are scheduled according to their RFC 9218 priority,
+     * as specified by the request {@code Priority} header and by {@code PRIORITY_UPDATE}
+     * frames; use {@link StreamScheduler#FIFO} to write the responses in the order they
+     * are produced.</p>
+     *
+     * @param streamScheduler the scheduler of the response DATA frames
+     */
+    public void setStreamScheduler(StreamScheduler streamScheduler)
+    {
+        this.streamScheduler = Objects.requireNonNull(streamScheduler);
+    }
+
     /**
      * @return the factory that creates RateControl objects
      */
@@ -346,6 +368,7 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
         session.setInitialSessionRecvWindow(getInitialSessionRecvWindow());
         session.setWriteThreshold(getHttpConfiguration().getOutputBufferSize());
         session.setConnectProtocolEnabled(isConnectProtocolEnabled());
+        session.setStreamScheduler(getStreamScheduler());
 
         RetainableByteBufferPool retainableByteBufferPool = connector.getByteBufferPool().asRetainableByteBufferPool();
         HTTP2Connection connection = new HTTP2ServerConnection(retainableByteBufferPool, connector.getExecutor(),
@@ -24,7 +24,8 @@ public enum FrameType
     SETTINGS(0x4),
     PUSH_PROMISE(0x5),
     GOAWAY(0x7),
-    MAX_PUSH_ID(0xD);
+    MAX_PUSH_ID(0xD),
+    PRIORITY_UPDATE(0xF0700);
 
     public static FrameType from(long type)
     {
@@ -36,7 +37,8 @@ public enum FrameType
         return frameType == CANCEL_PUSH.type() ||
             frameType == SETTINGS.type() ||
             frameType == GOAWAY.type() ||
-            frameType == MAX_PUSH_ID.type();
+            frameType == MAX_PUSH_ID.type() ||
+            frameType == PRIORITY_UPDATE.type();
     }
 
     public static boolean isMessage(long frameType)
@@ -46,6 +48,10 @@ public enum FrameType
             frameType == PUSH_PROMISE.type();
     }
 
+    /**
+     * @return the max type of the frames that are parsed using a lookup table,
+     * which does not include the extension frames such as {@link #PRIORITY_UPDATE}
+     */
     public static int maxType()
     {
         return MAX_PUSH_ID.type();
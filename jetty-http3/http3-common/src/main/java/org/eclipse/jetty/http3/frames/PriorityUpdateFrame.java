@@ -0,0 +1,65 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.http3.frames;
+
+import org.eclipse.jetty.http.Priority;
+
+/**
+ * <p>The {@code PRIORITY_UPDATE} frame defined by
+ * <a href="https://www.rfc-editor.org/rfc/rfc9218#section-7.2">RFC 9218</a>,
+ * sent on the control stream to change the priority of a request stream.</p>
+ */
+public class PriorityUpdateFrame extends Frame
+{
+    private final long prioritizedElementId;
+    private final String priorityFieldValue;
+
+    public PriorityUpdateFrame(long prioritizedElementId, Priority priority)
+    {
+        this(prioritizedElementId, priority.toString());
+    }
+
+    public PriorityUpdateFrame(long prioritizedElementId, String priorityFieldValue)
+    {
+        super(FrameType.PRIORITY_UPDATE);
+        this.prioritizedElementId = prioritizedElementId;
+        this.priorityFieldValue = priorityFieldValue;
+    }
+
+    /**
+     * @return the id of the request stream whose priority is updated
+     */
+    public long getPrioritizedElementId()
+    {
+        return prioritizedElementId;
+    }
+
+    /**
+     * @return the priority field value, in the same format as the {@code Priority} header value
+     */
+    public String getPriorityFieldValue()
+    {
+        return priorityFieldValue;
+    }
+
+    public Priority getPriority()
+    {
+        return Priority.from(priorityFieldValue);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[id=%d,priority=%s]", getClass().getSimpleName(), hashCode(), getPrioritizedElementId(), getPriorityFieldValue());
+    }
+}
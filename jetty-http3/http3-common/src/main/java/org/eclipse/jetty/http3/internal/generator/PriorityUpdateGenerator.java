@@ -0,0 +1,57 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.http3.internal.generator;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import org.eclipse.jetty.http3.frames.Frame;
+import org.eclipse.jetty.http3.frames.FrameType;
+import org.eclipse.jetty.http3.frames.PriorityUpdateFrame;
+import org.eclipse.jetty.http3.internal.VarLenInt;
+import org.eclipse.jetty.io.ByteBufferPool;
+
+public class PriorityUpdateGenerator extends FrameGenerator
+{
+    private final boolean useDirectByteBuffers;
+
+    public PriorityUpdateGenerator(boolean useDirectByteBuffers)
+    {
+        this.useDirectByteBuffers = useDirectByteBuffers;
+    }
+
+    @Override
+    public int generate(ByteBufferPool.Lease lease, long streamId, Frame frame, Consumer<Throwable> fail)
+    {
+        PriorityUpdateFrame priorityUpdateFrame = (PriorityUpdateFrame)frame;
+        return generatePriorityUpdateFrame(lease, priorityUpdateFrame);
+    }
+
+    private int generatePriorityUpdateFrame(ByteBufferPool.Lease lease, PriorityUpdateFrame frame)
+    {
+        long elementId = frame.getPrioritizedElementId();
+        String priorityFieldValue = frame.getPriorityFieldValue();
+        byte[] value = priorityFieldValue == null ? new byte[0] : priorityFieldValue.getBytes(StandardCharsets.US_ASCII);
+        int bodyLength = VarLenInt.length(elementId) + value.length;
+        int length = VarLenInt.length(FrameType.PRIORITY_UPDATE.type()) + VarLenInt.length(bodyLength) + bodyLength;
+        ByteBuffer buffer = lease.acquire(length, useDirectByteBuffers);
+        VarLenInt.encode(buffer, FrameType.PRIORITY_UPDATE.type());
+        VarLenInt.encode(buffer, bodyLength);
+        VarLenInt.encode(buffer, elementId);
+        buffer.put(value);
+        buffer.flip();
+        lease.append(buffer, true);
+        return length;
+    }
+}
@@ -0,0 +1,124 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.http3.internal.parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.jetty.http3.frames.PriorityUpdateFrame;
+import org.eclipse.jetty.http3.internal.HTTP3ErrorCode;
+import org.eclipse.jetty.http3.internal.VarLenInt;
+
+public class PriorityUpdateBodyParser extends BodyParser
+{
+    // Priority field values are short, and the whole value must be buffered.
+    private static final int MAX_VALUE_LENGTH = 1024;
+
+    private final VarLenInt varLenInt = new VarLenInt();
+    private State state = State.INIT;
+    private long length;
+    private long prioritizedElementId;
+    private byte[] value;
+    private int cursor;
+
+    public PriorityUpdateBodyParser(HeaderParser headerParser, ParserListener listener)
+    {
+        super(headerParser, listener);
+    }
+
+    private void reset()
+    {
+        varLenInt.reset();
+        state = State.INIT;
+        length = 0;
+        prioritizedElementId = 0;
+        value = null;
+        cursor = 0;
+    }
+
+    @Override
+    protected void emptyBody(ByteBuffer buffer)
+    {
+        sessionFailure(buffer, HTTP3ErrorCode.FRAME_ERROR.code(), "invalid_priority_update_frame", new IOException("invalid priority update frame"));
+    }
+
+    @Override
+    public Result parse(ByteBuffer buffer)
+    {
+        while (buffer.hasRemaining())
+        {
+            switch (state)
+            {
+                case INIT:
+                {
+                    length = getBodyLength();
+                    state = State.ELEMENT_ID;
+                    break;
+                }
+                case ELEMENT_ID:
+                {
+                    int position = buffer.position();
+                    boolean decoded = varLenInt.decode(buffer, id -> prioritizedElementId = id);
+                    length -= buffer.position() - position;
+                    if (length < 0 || (!decoded && length == 0))
+                    {
+                        sessionFailure(buffer, HTTP3ErrorCode.FRAME_ERROR.code(), "invalid_priority_update_frame", new IOException("invalid priority update frame"));
+                        return Result.NO_FRAME;
+                    }
+                    if (decoded)
+                    {
+                        if (length > MAX_VALUE_LENGTH)
+                        {
+                            sessionFailure(buffer, HTTP3ErrorCode.EXCESSIVE_LOAD_ERROR.code(), "invalid_priority_update_frame", new IOException("priority update frame too large"));
+                            return Result.NO_FRAME;
+                        }
+                        if (length == 0)
+                            return onPriorityUpdate();
+                        value = new byte[(int)length];
+                        state = State.VALUE;
+                    }
+                    break;
+                }
+                case VALUE:
+                {
+                    int size = Math.min(buffer.remaining(), value.length - cursor);
+                    buffer.get(value, cursor, size);
+                    cursor += size;
+                    if (cursor == value.length)
+                        return onPriorityUpdate();
+                    break;
+                }
+                default:
+                {
+                    throw new IllegalStateException();
+                }
+            }
+        }
+        return Result.NO_FRAME;
+    }
+
+    private Result onPriorityUpdate()
+    {
+        String priorityFieldValue = value == null ? "" : new String(value, StandardCharsets.US_ASCII);
+        PriorityUpdateFrame frame = new PriorityUpdateFrame(prioritizedElementId, priorityFieldValue);
+        reset();
+        notifyPriorityUpdate(frame);
+        return Result.WHOLE_FRAME;
+    }
+
+    private enum State
+    {
+        INIT, ELEMENT_ID, VALUE
+    }
+}
@@ -15,18 +15,17 @@ package org.eclipse.jetty.http3.qpack.internal.table;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 
 import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.compression.FieldIndex;
 import org.eclipse.jetty.util.component.Dumpable;
 
 public class DynamicTable implements Iterable<Entry>, Dumpable
 {
-    private final Map<HttpField, Entry> _fieldMap = new HashMap<>();
-    private final Map<String, Entry> _nameMap = new HashMap<>();
+    private final FieldIndex<Entry> _fieldMap = FieldIndex.byField(Entry::getHttpField, 16);
+    private final FieldIndex<Entry> _nameMap = FieldIndex.byName(Entry::getHttpField, 16);
     private final List<Entry> _entries = new ArrayList<>();
 
     private int _capacity;
@@ -57,13 +56,8 @@ public class DynamicTable implements Iterable<Entry>, Dumpable
             _size -= e.getSize();
             iterator.remove();
 
-            HttpField httpField = e.getHttpField();
-            if (e == _fieldMap.get(httpField))
-                _fieldMap.remove(httpField);
-
-            String name = httpField.getLowerCaseName();
-            if (e == _nameMap.get(name))
-                _nameMap.remove(name);
+            _fieldMap.remove(e);
+            _nameMap.remove(e);
         }
 
         if (entrySize + _size > _capacity)
@@ -73,8 +67,8 @@ public class DynamicTable implements Iterable<Entry>, Dumpable
         // Set the Entries absolute index which will never change.
         entry.setIndex(_absoluteIndex++);
         _entries.add(entry);
-        _fieldMap.put(entry.getHttpField(), entry);
-        _nameMap.put(entry.getHttpField().getLowerCaseName(), entry);
+        _fieldMap.put(entry);
+        _nameMap.put(entry);
 
         // Update the draining index.
         _drainingIndex = getDrainingIndex();
@@ -214,13 +208,8 @@ public class DynamicTable implements Iterable<Entry>, Dumpable
             _size -= entry.getSize();
             iterator.remove();
 
-            HttpField httpField = entry.getHttpField();
-            if (entry == _fieldMap.get(httpField))
-                _fieldMap.remove(httpField);
-
-            String name = httpField.getLowerCaseName();
-            if (entry == _nameMap.get(name))
-                _nameMap.remove(name);
+            _fieldMap.remove(entry);
+            _nameMap.remove(entry);
         }
     }
 
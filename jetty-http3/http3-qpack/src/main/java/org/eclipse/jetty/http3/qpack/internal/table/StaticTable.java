@@ -14,16 +14,15 @@
 package org.eclipse.jetty.http3.qpack.internal.table;
 
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.jetty.http.HttpField;
 import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.HttpScheme;
+import org.eclipse.jetty.http.compression.FieldIndex;
 import org.eclipse.jetty.http3.qpack.internal.metadata.StaticTableHttpField;
 import org.eclipse.jetty.util.Index;
 
@@ -134,7 +133,7 @@ public class StaticTable implements Iterable<Entry>
 
     public static final int STATIC_SIZE = STATIC_TABLE.length - 1;
 
-    private final Map<HttpField, Entry> _staticFieldMap = new HashMap<>();
+    private final FieldIndex<Entry> _staticFieldMap = FieldIndex.byField(Entry::getHttpField, STATIC_TABLE.length);
     private final Index<Entry.StaticEntry> _staticNameMap;
     private final Entry.StaticEntry[] _staticTableByHeader = new Entry.StaticEntry[HttpHeader.values().length];
     private final Entry.StaticEntry[] _staticTable = new Entry.StaticEntry[STATIC_TABLE.length];
@@ -189,7 +188,7 @@ public class StaticTable implements Iterable<Entry>
             _staticTable[i] = entry;
 
             if (entry.getHttpField().getValue() != null)
-                _staticFieldMap.put(entry.getHttpField(), entry);
+                _staticFieldMap.put(entry);
 
             if (!added.contains(entry.getHttpField().getName()))
             {
@@ -13,10 +13,12 @@
 
 package org.eclipse.jetty.http3.server.internal;
 
+import org.eclipse.jetty.http.Priority;
 import org.eclipse.jetty.http3.api.Session;
 import org.eclipse.jetty.http3.frames.Frame;
 import org.eclipse.jetty.http3.frames.GoAwayFrame;
 import org.eclipse.jetty.http3.frames.HeadersFrame;
+import org.eclipse.jetty.http3.frames.PriorityUpdateFrame;
 import org.eclipse.jetty.http3.frames.SettingsFrame;
 import org.eclipse.jetty.http3.internal.HTTP3Session;
 import org.eclipse.jetty.quic.common.QuicStreamEndPoint;
@@ -68,7 +70,10 @@ public class HTTP3SessionServer extends HTTP3Session implements Session.Server
             if (LOG.isDebugEnabled())
                 LOG.debug("received request {} on {}", frame, stream);
             if (stream != null)
+            {
+                getProtocolSession().setStreamPriority(streamId, Priority.from(frame.getMetaData().getFields()));
                 stream.onRequest(frame);
+            }
         }
         else
         {
@@ -76,6 +81,17 @@ public class HTTP3SessionServer extends HTTP3Session implements Session.Server
         }
     }
 
+    @Override
+    public void onPriorityUpdate(PriorityUpdateFrame frame)
+    {
+        if (LOG.isDebugEnabled())
+            LOG.debug("received {} on {}", frame, this);
+        // Updates for streams that are not open are ignored.
+        long streamId = frame.getPrioritizedElementId();
+        if (getStream(streamId) != null)
+            getProtocolSession().setStreamPriority(streamId, frame.getPriority());
+    }
+
     @Override
     public void onSettings(SettingsFrame frame)
     {
@@ -13,10 +13,12 @@
 
 package org.eclipse.jetty.http3.server.internal;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
+import org.eclipse.jetty.http.Priority;
 import org.eclipse.jetty.http3.HTTP3Configuration;
 import org.eclipse.jetty.http3.api.Session;
 import org.eclipse.jetty.http3.frames.Frame;
@@ -206,16 +208,41 @@ public class ServerHTTP3Session extends ServerProtocolSession
         onFailure(error, "control_stream_failure", failure);
     }
 
+    /**
+     * <p>Sets the priority used by QUIC to schedule the data of the given stream.</p>
+     *
+     * @param streamId the stream id
+     * @param priority the RFC 9218 priority of the stream
+     */
+    public void setStreamPriority(long streamId, Priority priority)
+    {
+        try
+        {
+            getQuicSession().setStreamPriority(streamId, priority.getUrgency(), priority.isIncremental());
+        }
+        catch (IOException x)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("could not set priority {} for stream #{} on {}", priority, streamId, this, x);
+        }
+    }
+
     private QuicStreamEndPoint openInstructionEndPoint(long streamId)
     {
         // This is a write-only stream, so no need to link a Connection.
-        return getOrCreateStreamEndPoint(streamId, QuicStreamEndPoint::opened);
+        QuicStreamEndPoint endPoint = getOrCreateStreamEndPoint(streamId, QuicStreamEndPoint::opened);
+        // QPACK instructions must not wait behind the responses.
+        setStreamPriority(streamId, Priority.of(Priority.MIN_URGENCY, false));
+        return endPoint;
     }
 
     private QuicStreamEndPoint openControlEndPoint(long streamId)
     {
         // This is a write-only stream, so no need to link a Connection.
-        return getOrCreateStreamEndPoint(streamId, QuicStreamEndPoint::opened);
+        QuicStreamEndPoint endPoint = getOrCreateStreamEndPoint(streamId, QuicStreamEndPoint::opened);
+        // Control frames must not wait behind the responses.
+        setStreamPriority(streamId, Priority.of(Priority.MIN_URGENCY, false));
+        return endPoint;
     }
 
     @Override
@@ -124,7 +124,7 @@ public class InfinispanSessionDataStore extends AbstractSessionDataStore
     }
 
     @Override
-    public boolean delete(String id) throws Exception
+    public boolean doDelete(String id) throws Exception
     {
         if (LOG.isDebugEnabled())
             LOG.debug("Deleting session with id {} from infinispan", id);
@@ -17,6 +17,7 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.IntUnaryOperator;
@@ -24,6 +25,7 @@ import java.util.function.IntUnaryOperator;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.NanoTime;
 import org.eclipse.jetty.util.Pool;
+import org.eclipse.jetty.util.ProcessorUtils;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.eclipse.jetty.util.annotation.ManagedOperation;
@@ -40,6 +42,12 @@ import org.slf4j.LoggerFactory;
  * 2048, and so on.</p>
  * <p>The {@code maxHeapMemory} and {@code maxDirectMemory} default heuristic is to use {@link Runtime#maxMemory()}
  * divided by 4.</p>
+ * <p>Optionally, each capacity is split into a number of shards, each with its own {@link Pool}.
+ * A thread acquires from and allocates into the shard selected by its thread id, so that in the
+ * common case acquire and release do not contend with threads using other shards; only when its
+ * own shard has no idle buffer does a thread steal an idle buffer from another shard.
+ * Threads are mapped to shards by their id only, which does not follow the core they run on.
+ * Per-shard hit, miss and steal counters are reported by {@link #dump()}.</p>
  */
 @SuppressWarnings("resource")
 @ManagedObject
@@ -56,6 +64,7 @@ public class ArrayRetainableByteBufferPool implements RetainableByteBufferPool,
     private final AtomicLong _currentHeapMemory = new AtomicLong();
     private final AtomicLong _currentDirectMemory = new AtomicLong();
     private final IntUnaryOperator _bucketIndexFor;
+    private final int _shards;
 
     /**
      * Creates a new ArrayRetainableByteBufferPool with a default configuration.
@@ -95,6 +104,22 @@ public class ArrayRetainableByteBufferPool implements RetainableByteBufferPool,
         this(minCapacity, factor, maxCapacity, maxBucketSize, null, null, maxHeapMemory, maxDirectMemory);
     }
 
+    /**
+     * Creates a new ArrayRetainableByteBufferPool with the given configuration.
+     *
+     * @param minCapacity the minimum ByteBuffer capacity
+     * @param factor the capacity factor
+     * @param maxCapacity the maximum ByteBuffer capacity
+     * @param maxBucketSize the maximum number of ByteBuffers for each bucket, shared among its shards
+     * @param maxHeapMemory the max heap memory in bytes, -1 for unlimited memory or 0 to use default heuristic
+     * @param maxDirectMemory the max direct memory in bytes, -1 for unlimited memory or 0 to use default heuristic
+     * @param shards the number of shards for each bucket, -1 for the number of available processors or 0 or 1 for no sharding
+     */
+    public ArrayRetainableByteBufferPool(int minCapacity, int factor, int maxCapacity, int maxBucketSize, long maxHeapMemory, long maxDirectMemory, int shards)
+    {
+        this(minCapacity, factor, maxCapacity, maxBucketSize, null, null, maxHeapMemory, maxDirectMemory, shards);
+    }
+
     /**
      * Creates a new ArrayRetainableByteBufferPool with the given configuration.
      *
@@ -129,6 +154,24 @@ public class ArrayRetainableByteBufferPool implements RetainableByteBufferPool,
      * @param maxDirectMemory the max direct memory in bytes, -1 for unlimited memory or 0 to use default heuristic
      */
     protected ArrayRetainableByteBufferPool(int minCapacity, int factor, int maxCapacity, int maxBucketSize, IntUnaryOperator bucketIndexFor, IntUnaryOperator bucketCapacity, long maxHeapMemory, long maxDirectMemory)
+    {
+        this(minCapacity, factor, maxCapacity, maxBucketSize, bucketIndexFor, bucketCapacity, maxHeapMemory, maxDirectMemory, 1);
+    }
+
+    /**
+     * Creates a new ArrayRetainableByteBufferPool with the given configuration.
+     *
+     * @param minCapacity the minimum ByteBuffer capacity
+     * @param factor the capacity factor
+     * @param maxCapacity the maximum ByteBuffer capacity
+     * @param maxBucketSize the maximum number of ByteBuffers for each bucket, shared among its shards
+     * @param bucketIndexFor a {@link IntUnaryOperator} that takes a capacity and returns a bucket index
+     * @param bucketCapacity a {@link IntUnaryOperator} that takes a bucket index and returns a capacity
+     * @param maxHeapMemory the max heap memory in bytes, -1 for unlimited memory or 0 to use default heuristic
+     * @param maxDirectMemory the max direct memory in bytes, -1 for unlimited memory or 0 to use default heuristic
+     * @param shards the number of shards for each bucket, -1 for the number of available processors or 0 or 1 for no sharding
+     */
+    protected ArrayRetainableByteBufferPool(int minCapacity, int factor, int maxCapacity, int maxBucketSize, IntUnaryOperator bucketIndexFor, IntUnaryOperator bucketCapacity, long maxHeapMemory, long maxDirectMemory, int shards)
     {
         if (minCapacity <= 0)
             minCapacity = 0;
@@ -144,14 +187,25 @@ public class ArrayRetainableByteBufferPool implements RetainableByteBufferPool,
         if (bucketCapacity == null)
             bucketCapacity = i -> (i + 1) * f;
 
+        if (shards < 0)
+            shards = ProcessorUtils.availableProcessors();
+        if (shards == 0)
+            shards = 1;
+        int shardSize = shards == 1 ? maxBucketSize : Math.max(1, maxBucketSize / shards + (maxBucketSize % shards == 0 ? 0 : 1));
+
+        // The shards of a bucket are adjacent in the arrays.
         int length = bucketIndexFor.applyAsInt(maxCapacity) + 1;
-        RetainedBucket[] directArray = new RetainedBucket[length];
-        RetainedBucket[] indirectArray = new RetainedBucket[length];
-        for (int i = 0; i < directArray.length; i++)
+        RetainedBucket[] directArray = new RetainedBucket[length * shards];
+        RetainedBucket[] indirectArray = new RetainedBucket[length * shards];
+        for (int i = 0; i < length; i++)
         {
             int capacity = Math.min(bucketCapacity.applyAsInt(i), maxCapacity);
-            directArray[i] = new RetainedBucket(capacity, maxBucketSize);
-            indirectArray[i] = new RetainedBucket(capacity, maxBucketSize);
+            for (int s = 0; s < shards; s++)
+            {
+                int index = i * shards + s;
+                directArray[index] = new RetainedBucket(capacity, shardSize, index, shards == 1 ? -1 : s);
+                indirectArray[index] = new RetainedBucket(capacity, shardSize, index, shards == 1 ? -1 : s);
+            }
         }
 
         _minCapacity = minCapacity;
@@ -161,6 +215,7 @@ public class ArrayRetainableByteBufferPool implements RetainableByteBufferPool,
         _maxHeapMemory = AbstractByteBufferPool.retainedSize(maxHeapMemory);
         _maxDirectMemory = AbstractByteBufferPool.retainedSize(maxDirectMemory);
         _bucketIndexFor = bucketIndexFor;
+        _shards = shards;
     }
 
     @ManagedAttribute("The minimum pooled buffer capacity")
@@ -175,13 +230,19 @@ public class ArrayRetainableByteBufferPool implements RetainableByteBufferPool,
         return _maxCapacity;
     }
 
+    @ManagedAttribute("The number of shards of each bucket")
+    public int getShards()
+    {
+        return _shards;
+    }
+
     @Override
     public RetainableByteBuffer acquire(int size, boolean direct)
     {
         RetainedBucket bucket = bucketFor(size, direct);
         if (bucket == null)
             return newRetainableByteBuffer(size, direct, this::removed);
-        RetainedBucket.Entry entry = bucket.acquire();
+        RetainedBucket.Entry entry = _shards == 1 ? bucket.acquire() : acquireSharded(bucket, direct);
 
         RetainableByteBuffer buffer;
         if (entry == null)
@@ -214,6 +275,33 @@ public class ArrayRetainableByteBufferPool implements RetainableByteBufferPool,
         return buffer;
     }
 
+    private RetainedBucket.Entry acquireSharded(RetainedBucket bucket, boolean direct)
+    {
+        RetainedBucket.Entry entry = bucket.acquire();
+        if (entry != null)
+        {
+            bucket._hits.increment();
+            return entry;
+        }
+
+        // Try to steal an idle buffer from the other shards of the same capacity.
+        RetainedBucket[] buckets = direct ? _direct : _indirect;
+        int first = bucket._index - bucket._shard;
+        for (int i = 1; i < _shards; i++)
+        {
+            RetainedBucket victim = buckets[first + (bucket._shard + i) % _shards];
+            entry = victim.acquire();
+            if (entry != null)
+            {
+                bucket._steals.increment();
+                return entry;
+            }
+        }
+
+        bucket._misses.increment();
+        return null;
+    }
+
     protected ByteBuffer allocate(int capacity)
     {
         return ByteBuffer.allocate(capacity);
@@ -248,9 +336,12 @@ public class ArrayRetainableByteBufferPool implements RetainableByteBufferPool,
             return null;
         int idx = _bucketIndexFor.applyAsInt(capacity);
         RetainedBucket[] buckets = direct ? _direct : _indirect;
-        if (idx >= buckets.length)
+        if (_shards == 1)
+            return idx < buckets.length ? buckets[idx] : null;
+        if (idx >= buckets.length / _shards)
             return null;
-        return buckets[idx];
+        int shard = (int)(Thread.currentThread().getId() % _shards);
+        return buckets[idx * _shards + shard];
     }
 
     @ManagedAttribute("The number of pooled direct ByteBuffers")
@@ -289,6 +380,38 @@ public class ArrayRetainableByteBufferPool implements RetainableByteBufferPool,
         return Arrays.stream(buckets).mapToLong(bucket -> bucket.values().stream().filter(Pool.Entry::isIdle).count()).sum();
     }
 
+    @ManagedAttribute("The number of acquires served by the shard of the acquiring thread")
+    public long getShardHitCount()
+    {
+        return getShardCount(bucket -> bucket._hits);
+    }
+
+    @ManagedAttribute("The number of acquires that found no idle buffer in any shard")
+    public long getShardMissCount()
+    {
+        return getShardCount(bucket -> bucket._misses);
+    }
+
+    @ManagedAttribute("The number of acquires served by stealing from another shard")
+    public long getShardStealCount()
+    {
+        return getShardCount(bucket -> bucket._steals);
+    }
+
+    private long getShardCount(Function<RetainedBucket, LongAdder> counter)
+    {
+        long total = 0L;
+        for (RetainedBucket bucket : _direct)
+        {
+            total += counter.apply(bucket).sum();
+        }
+        for (RetainedBucket bucket : _indirect)
+        {
+            total += counter.apply(bucket).sum();
+        }
+        return total;
+    }
+
     @ManagedAttribute("The bytes retained by direct ByteBuffers")
     public long getDirectMemory()
     {
@@ -412,10 +535,11 @@ public class ArrayRetainableByteBufferPool implements RetainableByteBufferPool,
     @Override
     public String toString()
     {
-        return String.format("%s{min=%d,max=%d,buckets=%d,heap=%d/%d,direct=%d/%d}",
+        return String.format("%s{min=%d,max=%d,buckets=%d,shards=%d,heap=%d/%d,direct=%d/%d}",
             super.toString(),
             _minCapacity, _maxCapacity,
-            _direct.length,
+            _direct.length / _shards,
+            _shards,
             _currentHeapMemory.get(), _maxHeapMemory,
             _currentDirectMemory.get(), _maxDirectMemory);
     }
@@ -459,12 +583,25 @@ public class ArrayRetainableByteBufferPool implements RetainableByteBufferPool,
 
     private static class RetainedBucket extends Pool<RetainableByteBuffer>
     {
+        private final LongAdder _hits = new LongAdder();
+        private final LongAdder _misses = new LongAdder();
+        private final LongAdder _steals = new LongAdder();
         private final int _capacity;
-
-        RetainedBucket(int capacity, int size)
+        private final int _index;
+        private final int _shard;
+
+        /**
+         * @param capacity the capacity of the buffers
+         * @param size the maximum number of buffers
+         * @param index the index of this bucket in the buckets array
+         * @param shard the shard index, or -1 if the pool is not sharded
+         */
+        RetainedBucket(int capacity, int size, int index, int shard)
         {
             super(Pool.StrategyType.THREAD_ID, size, true);
             _capacity = capacity;
+            _index = index;
+            _shard = shard;
         }
 
         @Override
@@ -479,11 +616,23 @@ public class ArrayRetainableByteBufferPool implements RetainableByteBufferPool,
                     inUse++;
             }
 
-            return String.format("%s{capacity=%d,inuse=%d(%d%%)}",
+            if (_shard < 0)
+            {
+                return String.format("%s{capacity=%d,inuse=%d(%d%%)}",
+                    super.toString(),
+                    _capacity,
+                    inUse,
+                    entries > 0 ? (inUse * 100) / entries : 0);
+            }
+            return String.format("%s{capacity=%d,shard=%d,inuse=%d(%d%%),hits=%d,misses=%d,steals=%d}",
                 super.toString(),
                 _capacity,
+                _shard,
                 inUse,
-                entries > 0 ? (inUse * 100) / entries : 0);
+                entries > 0 ? (inUse * 100) / entries : 0,
+                _hits.sum(),
+                _misses.sum(),
+                _steals.sum());
         }
     }
 }
@@ -16,10 +16,14 @@ package org.eclipse.jetty.io;
 import java.io.IOException;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
+import java.nio.channels.WritePendingException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.thread.Scheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,6 +35,8 @@ public class SocketChannelEndPoint extends SelectableChannelEndPoint
 {
     private static final Logger LOG = LoggerFactory.getLogger(SocketChannelEndPoint.class);
 
+    private final AtomicReference<FileTransfer> _transfer = new AtomicReference<>();
+
     public SocketChannelEndPoint(SocketChannel channel, ManagedSelector selector, SelectionKey key, Scheduler scheduler)
     {
         super(scheduler, channel, selector, key);
@@ -125,6 +131,121 @@ public class SocketChannelEndPoint extends SelectableChannelEndPoint
                 return false;
         }
 
-        return true;
+        FileTransfer transfer = _transfer.get();
+        return transfer == null || transfer.transfer();
+    }
+
+    /**
+     * <p>Writes the given buffers followed by {@code count} bytes of the given file,
+     * starting from {@code position}.</p>
+     * <p>The file bytes are written with {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)},
+     * so that the operating system can copy them to the socket (for example with {@code sendfile(2)})
+     * without passing them through user space buffers.</p>
+     * <p>The write is driven by the {@link WriteFlusher} exactly like {@link #write(Callback, ByteBuffer...)}:
+     * when the socket cannot accept more bytes the write becomes pending and is resumed when
+     * the socket is writable again, and the callback is notified once all the bytes have been written.
+     * The file channel is not closed by this method.</p>
+     *
+     * @param callback the callback notified when the write is complete
+     * @param file the file to read the bytes from
+     * @param position the file position of the first byte to write
+     * @param count the number of file bytes to write
+     * @param buffers the buffers to write before the file bytes, typically the response headers
+     * @throws WritePendingException if another write operation is in progress
+     */
+    public void transferFrom(Callback callback, FileChannel file, long position, long count, ByteBuffer... buffers) throws WritePendingException
+    {
+        FileTransfer transfer = new FileTransfer(file, position, count);
+        if (!_transfer.compareAndSet(null, transfer))
+            throw new WritePendingException();
+        if (LOG.isDebugEnabled())
+            LOG.debug("transferFrom {} {}", transfer, this);
+        try
+        {
+            write(new Callback.Nested(callback)
+            {
+                @Override
+                public void failed(Throwable x)
+                {
+                    _transfer.compareAndSet(transfer, null);
+                    super.failed(x);
+                }
+            }, buffers);
+        }
+        catch (Throwable x)
+        {
+            _transfer.compareAndSet(transfer, null);
+            throw x;
+        }
+    }
+
+    private class FileTransfer
+    {
+        private final FileChannel _file;
+        private long _position;
+        private long _remaining;
+
+        private FileTransfer(FileChannel file, long position, long count)
+        {
+            _file = file;
+            _position = position;
+            _remaining = count;
+        }
+
+        /**
+         * @return true if all the file bytes have been written
+         * @throws IOException if the transfer fails
+         */
+        private boolean transfer() throws IOException
+        {
+            long transferred = 0;
+            try
+            {
+                while (_remaining > 0)
+                {
+                    long n = _file.transferTo(_position, _remaining, getChannel());
+                    if (n <= 0)
+                    {
+                        // transferTo() also returns 0 when the position is past the end of the file.
+                        if (_position >= _file.size())
+                            throw new EofException("File truncated during transfer");
+                        break;
+                    }
+                    _position += n;
+                    _remaining -= n;
+                    transferred += n;
+                }
+            }
+            catch (EofException e)
+            {
+                throw e;
+            }
+            catch (IOException e)
+            {
+                throw new EofException(e);
+            }
+
+            if (LOG.isDebugEnabled())
+                LOG.debug("transferred {} {}", transferred, this);
+
+            if (transferred > 0)
+            {
+                notIdle();
+                Connection connection = getConnection();
+                if (connection instanceof WriteFlusher.Listener)
+                    ((WriteFlusher.Listener)connection).onFlushed(transferred);
+            }
+
+            if (_remaining > 0)
+                return false;
+            _transfer.compareAndSet(this, null);
+            return true;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x[pos=%d,rem=%d]", getClass().getSimpleName(), hashCode(), _position, _remaining);
+        }
     }
 }
@@ -18,6 +18,7 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
@@ -420,4 +421,67 @@ public class ArrayRetainableByteBufferPoolTest
         assertThat(retain9, not(sameInstance(retain5)));
         retain9.release();
     }
+
+    @Test
+    public void testShardedAcquireRelease()
+    {
+        ArrayRetainableByteBufferPool pool = new ArrayRetainableByteBufferPool(0, 10, 20, 4, -1, -1, 2);
+        assertThat(pool.getShards(), is(2));
+
+        RetainableByteBuffer buffer1 = pool.acquire(10, true);
+        assertThat(pool.getShardMissCount(), is(1L));
+        assertThat(buffer1.release(), is(true));
+
+        RetainableByteBuffer buffer2 = pool.acquire(10, true);
+        assertThat(buffer2, sameInstance(buffer1));
+        assertThat(pool.getShardHitCount(), is(1L));
+        assertThat(buffer2.release(), is(true));
+
+        assertThat(pool.getDirectByteBufferCount(), is(1L));
+        assertThat(pool.dump(), containsString(",hits=1,misses=1,steals=0}"));
+    }
+
+    @Test
+    public void testShardedDefaultMaxBucketSize()
+    {
+        ArrayRetainableByteBufferPool pool = new ArrayRetainableByteBufferPool(0, 10, 20, Integer.MAX_VALUE, -1, -1, 4);
+
+        List<RetainableByteBuffer> buffers = new ArrayList<>();
+        for (int i = 0; i < 8; i++)
+        {
+            buffers.add(pool.acquire(10, true));
+        }
+        buffers.forEach(RetainableByteBuffer::release);
+
+        // The shard size must not overflow and limit each shard to a single buffer.
+        assertThat(pool.getDirectByteBufferCount(), is(8L));
+    }
+
+    @Test
+    public void testShardedSteal() throws Exception
+    {
+        ArrayRetainableByteBufferPool pool = new ArrayRetainableByteBufferPool(0, 10, 20, 4, -1, -1, 2);
+
+        RetainableByteBuffer buffer = pool.acquire(10, true);
+        assertThat(buffer.release(), is(true));
+
+        // Acquire from a thread that maps to the other shard.
+        long shard = Thread.currentThread().getId() % 2;
+        AtomicReference<RetainableByteBuffer> stolen = new AtomicReference<>();
+        while (stolen.get() == null)
+        {
+            Thread thread = new Thread(() ->
+            {
+                if (Thread.currentThread().getId() % 2 != shard)
+                    stolen.set(pool.acquire(10, true));
+            });
+            thread.start();
+            thread.join();
+        }
+
+        assertThat(stolen.get(), sameInstance(buffer));
+        assertThat(pool.getShardStealCount(), is(1L));
+        assertThat(stolen.get().release(), is(true));
+        assertThat(pool.getDirectByteBufferCount(), is(1L));
+    }
 }
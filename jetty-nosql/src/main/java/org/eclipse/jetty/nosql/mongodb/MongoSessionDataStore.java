@@ -261,7 +261,7 @@ public class MongoSessionDataStore extends NoSqlSessionDataStore
     }
 
     @Override
-    public boolean delete(String id) throws Exception
+    public boolean doDelete(String id) throws Exception
     {
         if (LOG.isDebugEnabled())
             LOG.debug("Remove:session {} for context {}", id, _context);
@@ -249,6 +249,20 @@ public abstract class QuicSession extends ContainerLifeCycle
         return quicheConnection.windowCapacity(streamId);
     }
 
+    /**
+     * <p>Sets the priority used to schedule the data of the given stream,
+     * with the urgency and incremental parameters of RFC 9218.</p>
+     *
+     * @param streamId the stream id
+     * @param urgency the urgency, from 0 (most urgent) to 7
+     * @param incremental whether the stream data can be interleaved with other incremental streams
+     * @throws IOException if the priority cannot be set
+     */
+    public void setStreamPriority(long streamId, int urgency, boolean incremental) throws IOException
+    {
+        quicheConnection.setStreamPriority(streamId, urgency, incremental);
+    }
+
     public void shutdownInput(long streamId, long error) throws IOException
     {
         quicheConnection.shutdownStream(streamId, false, error);
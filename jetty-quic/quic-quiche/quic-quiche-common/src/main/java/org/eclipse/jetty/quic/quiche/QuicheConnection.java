@@ -130,6 +130,16 @@ public abstract class QuicheConnection
 
     public abstract long windowCapacity(long streamId) throws IOException;
 
+    /**
+     * <p>Sets the priority used by quiche to schedule the given stream.</p>
+     *
+     * @param streamId the stream id
+     * @param urgency the RFC 9218 urgency, from 0 (most urgent) to 7
+     * @param incremental whether the stream data can be interleaved with other incremental streams
+     * @throws IOException if the priority cannot be set
+     */
+    public abstract void setStreamPriority(long streamId, int urgency, boolean incremental) throws IOException;
+
     public abstract void shutdownStream(long streamId, boolean writeSide, long error) throws IOException;
 
     public final void feedFinForStream(long streamId) throws IOException
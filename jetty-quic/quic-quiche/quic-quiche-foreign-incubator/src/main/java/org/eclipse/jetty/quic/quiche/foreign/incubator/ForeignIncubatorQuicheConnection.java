@@ -814,6 +814,20 @@ public class ForeignIncubatorQuicheConnection extends QuicheConnection
         }
     }
 
+    @Override
+    public void setStreamPriority(long streamId, int urgency, boolean incremental) throws IOException
+    {
+        try (AutoLock ignore = lock.lock())
+        {
+            if (quicheConn == null)
+                throw new IOException("connection was released");
+            int rc = quiche_h.quiche_conn_stream_priority(quicheConn, streamId, (byte)urgency, incremental ? C_TRUE : C_FALSE);
+            if (rc == 0 || rc == quiche_error.QUICHE_ERR_DONE)
+                return;
+            throw new IOException("failed to set priority of stream " + streamId + ": " + quiche_error.errToString(rc));
+        }
+    }
+
     @Override
     public void shutdownStream(long streamId, boolean writeSide, long error) throws IOException
     {
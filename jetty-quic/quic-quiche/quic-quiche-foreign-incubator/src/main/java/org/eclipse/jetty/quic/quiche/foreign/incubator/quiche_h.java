@@ -304,6 +304,12 @@ public class quiche_h
         FunctionDescriptor.of(C_LONG, C_POINTER, C_LONG)
     );
 
+    private static final MethodHandle quiche_conn_stream_priority$MH = downcallHandle(
+        "quiche_conn_stream_priority",
+        "(Ljdk/incubator/foreign/MemoryAddress;JBB)I",
+        FunctionDescriptor.of(C_INT, C_POINTER, C_LONG, C_CHAR, C_CHAR)
+    );
+
     private static final MethodHandle quiche_conn_stream_send$MH = downcallHandle(
         "quiche_conn_stream_send",
         "(Ljdk/incubator/foreign/MemoryAddress;JLjdk/incubator/foreign/MemoryAddress;JB)J",
@@ -784,6 +790,18 @@ public class quiche_h
         }
     }
 
+    public static int quiche_conn_stream_priority(MemoryAddress conn, long stream_id, byte urgency, byte incremental)
+    {
+        try
+        {
+            return (int) quiche_conn_stream_priority$MH.invokeExact(conn, stream_id, urgency, incremental);
+        }
+        catch (Throwable ex)
+        {
+            throw new AssertionError("should not reach here", ex);
+        }
+    }
+
     public static int quiche_conn_stream_shutdown(MemoryAddress conn, long stream_id, int direction, long err)
     {
         try
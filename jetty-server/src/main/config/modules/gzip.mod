@@ -36,6 +36,18 @@ etc/jetty-gzip.xml
 ## Deflater pool use GZIP compatible compression
 # jetty.gzip.deflaterPool.noWrap=true
 
+## Whether the compression level adapts to the server load, between the min and max levels
+# jetty.gzip.adaptiveCompressionLevel=false
+
+## Compression level used when the server is saturated
+# jetty.gzip.minCompressionLevel=1
+
+## Compression level used when the server is idle
+# jetty.gzip.maxCompressionLevel=6
+
+## Number of bytes sampled to detect incompressible content (0 for no detection)
+# jetty.gzip.incompressibleSampleSize=0
+
 ## Set the {@link Deflater} flush mode to use.
 # jetty.gzip.syncFlush=false
 
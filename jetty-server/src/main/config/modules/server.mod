@@ -69,6 +69,9 @@ etc/jetty.xml
 ## Whether to use direct ByteBuffers for reading or writing
 # jetty.httpConfig.useInputDirectByteBuffers=true
 # jetty.httpConfig.useOutputDirectByteBuffers=true
+
+## Whether to write file content with FileChannel.transferTo() (sendfile) on cleartext connections
+# jetty.httpConfig.useFileTransfer=false
 # end::documentation-http-config[]
 
 # tag::documentation-server-compliance[]
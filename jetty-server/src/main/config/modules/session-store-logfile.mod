@@ -0,0 +1,26 @@
+# DO NOT EDIT THIS FILE - See: https://eclipse.dev/jetty/documentation/
+
+[description]
+Enables session persistent storage in append-only segment files.
+
+[tags]
+session
+
+[provides]
+session-store
+
+[depends]
+sessions
+
+[xml]
+etc/sessions/logfile/session-store.xml
+
+[files]
+sessions/
+
+[ini-template]
+jetty.session.logfile.storeDir=${jetty.base}/sessions
+#jetty.session.logfile.maxSegmentSize=16777216
+#jetty.session.logfile.compactionThreshold=0.5
+#jetty.session.gracePeriod.seconds=3600
+#jetty.session.savePeriod.seconds=0
@@ -0,0 +1,343 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.eclipse.jetty.io.ArrayRetainableByteBufferPool;
+import org.eclipse.jetty.io.RetainableByteBuffer;
+import org.eclipse.jetty.io.RetainableByteBufferPool;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>An asynchronous {@link RequestLogWriter} that does not allocate per log entry.</p>
+ * <p>Log entries are encoded (as UTF-8) directly from the {@link CharSequence} passed to
+ * {@link #write(CharSequence)} into buffers acquired from a {@link RetainableByteBufferPool}.
+ * The buffers are queued in a bounded, lock-free, multi-producer ring and a single
+ * writer thread drains them in batches that are written with one gathering write
+ * via {@link #write(ByteBuffer[], int, int)}, so that the rollover semantics of
+ * {@link RequestLogWriter} are retained.</p>
+ * <p>If the ring is full, or if the writer is not running, the log entry is discarded and counted.</p>
+ */
+@ManagedObject("Request Log writer which writes pooled buffers to file")
+public class ByteBufferRequestLogWriter extends RequestLogWriter
+{
+    private static final Logger LOG = LoggerFactory.getLogger(ByteBufferRequestLogWriter.class);
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    private final LongAdder _dropped = new LongAdder();
+    private final RetainableByteBufferPool _bufferPool;
+    private final Ring _ring;
+    private int _maxBatchSize = 64;
+    private boolean _useDirectBuffers = true;
+    private volatile boolean _sleeping;
+    private transient WriterThread _thread;
+
+    public ByteBufferRequestLogWriter()
+    {
+        this(null);
+    }
+
+    public ByteBufferRequestLogWriter(String filename)
+    {
+        this(filename, null, 1024);
+    }
+
+    /**
+     * @param filename the log file name, or null to log to {@code System.err}
+     * @param bufferPool the pool to acquire buffers from, or null for a default pool
+     * @param maxQueueSize the maximum number of queued log entries, rounded up to a power of 2
+     */
+    public ByteBufferRequestLogWriter(String filename, RetainableByteBufferPool bufferPool, int maxQueueSize)
+    {
+        super(filename);
+        _bufferPool = bufferPool == null ? new ArrayRetainableByteBufferPool() : bufferPool;
+        _ring = new Ring(maxQueueSize);
+    }
+
+    @ManagedAttribute("The maximum number of log entries written by a single gathering write")
+    public int getMaxBatchSize()
+    {
+        return _maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize)
+    {
+        if (isRunning())
+            throw new IllegalStateException(getState());
+        if (maxBatchSize <= 0)
+            throw new IllegalArgumentException("Invalid max batch size " + maxBatchSize);
+        _maxBatchSize = maxBatchSize;
+    }
+
+    @ManagedAttribute("Whether direct buffers are used to encode log entries")
+    public boolean isUseDirectBuffers()
+    {
+        return _useDirectBuffers;
+    }
+
+    public void setUseDirectBuffers(boolean useDirectBuffers)
+    {
+        _useDirectBuffers = useDirectBuffers;
+    }
+
+    @ManagedAttribute("The capacity of the log entry queue")
+    public int getMaxQueueSize()
+    {
+        return _ring.capacity();
+    }
+
+    @ManagedAttribute("The number of queued log entries")
+    public int getQueueSize()
+    {
+        return _ring.size();
+    }
+
+    @ManagedAttribute("The number of log entries dropped because the queue was full or the writer was not running")
+    public long getDroppedCount()
+    {
+        return _dropped.sum();
+    }
+
+    @Override
+    public void write(String requestEntry) throws IOException
+    {
+        write((CharSequence)requestEntry);
+    }
+
+    @Override
+    public void write(CharSequence requestEntry) throws IOException
+    {
+        if (!isRunning())
+        {
+            _dropped.increment();
+            if (LOG.isDebugEnabled())
+                LOG.debug("Log writer {}, dropped {}", getState(), requestEntry);
+            return;
+        }
+
+        RetainableByteBuffer buffer = encode(requestEntry);
+        if (_ring.offer(buffer))
+        {
+            if (_sleeping)
+            {
+                WriterThread thread = _thread;
+                if (thread != null)
+                    LockSupport.unpark(thread);
+            }
+        }
+        else
+        {
+            buffer.release();
+            _dropped.increment();
+            if (LOG.isDebugEnabled())
+                LOG.debug("Log queue overflow, dropped {}", requestEntry);
+        }
+    }
+
+    private RetainableByteBuffer encode(CharSequence requestEntry)
+    {
+        int length = requestEntry.length();
+        RetainableByteBuffer retainable = _bufferPool.acquire(length + LINE_SEPARATOR.length, isUseDirectBuffers());
+        ByteBuffer buffer = retainable.getBuffer();
+        int pos = BufferUtil.flipToFill(buffer);
+        for (int i = 0; i < length; i++)
+        {
+            char c = requestEntry.charAt(i);
+            if (c >= 0x80)
+            {
+                // Rare non-ASCII entry, encode the whole entry again.
+                retainable.release();
+                byte[] bytes = requestEntry.toString().getBytes(StandardCharsets.UTF_8);
+                retainable = _bufferPool.acquire(bytes.length + LINE_SEPARATOR.length, isUseDirectBuffers());
+                buffer = retainable.getBuffer();
+                pos = BufferUtil.flipToFill(buffer);
+                buffer.put(bytes);
+                break;
+            }
+            buffer.put((byte)c);
+        }
+        buffer.put(LINE_SEPARATOR);
+        BufferUtil.flipToFlush(buffer, pos);
+        return retainable;
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        super.doStart();
+        _thread = new WriterThread();
+        _thread.start();
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        WriterThread thread = _thread;
+        LockSupport.unpark(thread);
+        thread.join();
+        _thread = null;
+        // Entries queued by writers that raced with the exit of the writer thread.
+        RetainableByteBuffer buffer;
+        while ((buffer = _ring.poll()) != null)
+        {
+            buffer.release();
+            _dropped.increment();
+        }
+        super.doStop();
+    }
+
+    private class WriterThread extends Thread
+    {
+        private final ByteBuffer[] _batch = new ByteBuffer[getMaxBatchSize()];
+        private final RetainableByteBuffer[] _retained = new RetainableByteBuffer[_batch.length];
+
+        WriterThread()
+        {
+            setName("ByteBufferRequestLogWriter@" + Integer.toString(ByteBufferRequestLogWriter.this.hashCode(), 16));
+        }
+
+        @Override
+        public void run()
+        {
+            while (true)
+            {
+                int count = 0;
+                while (count < _retained.length)
+                {
+                    RetainableByteBuffer buffer = _ring.poll();
+                    if (buffer == null)
+                        break;
+                    _retained[count] = buffer;
+                    _batch[count] = buffer.getBuffer();
+                    ++count;
+                }
+
+                if (count > 0)
+                {
+                    flush(count);
+                    continue;
+                }
+
+                if (!isRunning() && _ring.isEmpty())
+                    break;
+
+                _sleeping = true;
+                if (_ring.isEmpty() && isRunning())
+                    LockSupport.parkNanos(this, TimeUnit.SECONDS.toNanos(1));
+                _sleeping = false;
+            }
+        }
+
+        private void flush(int count)
+        {
+            try
+            {
+                ByteBufferRequestLogWriter.this.write(_batch, 0, count);
+            }
+            catch (Throwable t)
+            {
+                LOG.warn("Failed to write log", t);
+            }
+            finally
+            {
+                for (int i = 0; i < count; i++)
+                {
+                    _retained[i].release();
+                    _retained[i] = null;
+                    _batch[i] = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>A bounded multi-producer, single-consumer ring of buffers.</p>
+     * <p>Producers claim a slot by incrementing the tail and then publish the buffer
+     * in the slot; the consumer clears a slot before advancing the head, so a slot
+     * is only claimed once it is empty.</p>
+     */
+    private static class Ring
+    {
+        private final AtomicReferenceArray<RetainableByteBuffer> _slots;
+        private final int _mask;
+        private final AtomicLong _tail = new AtomicLong();
+        private final AtomicLong _head = new AtomicLong();
+
+        private Ring(int capacity)
+        {
+            if (capacity <= 0)
+                throw new IllegalArgumentException("Invalid capacity " + capacity);
+            int size = Integer.highestOneBit(capacity);
+            if (size < capacity)
+                size <<= 1;
+            _slots = new AtomicReferenceArray<>(size);
+            _mask = size - 1;
+        }
+
+        private int capacity()
+        {
+            return _slots.length();
+        }
+
+        private int size()
+        {
+            return (int)(_tail.get() - _head.get());
+        }
+
+        private boolean isEmpty()
+        {
+            return _tail.get() == _head.get();
+        }
+
+        private boolean offer(RetainableByteBuffer buffer)
+        {
+            while (true)
+            {
+                long tail = _tail.get();
+                if (tail - _head.get() >= _slots.length())
+                    return false;
+                if (_tail.compareAndSet(tail, tail + 1))
+                {
+                    _slots.lazySet((int)tail & _mask, buffer);
+                    return true;
+                }
+            }
+        }
+
+        private RetainableByteBuffer poll()
+        {
+            long head = _head.get();
+            int index = (int)head & _mask;
+            // A null slot is either empty or claimed but not yet published.
+            RetainableByteBuffer buffer = _slots.get(index);
+            if (buffer == null)
+                return null;
+            _slots.lazySet(index, null);
+            _head.lazySet(head + 1);
+            return buffer;
+        }
+    }
+}
@@ -25,8 +25,13 @@ import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.eclipse.jetty.http.CompressedContentFormat;
 import org.eclipse.jetty.http.DateGenerator;
@@ -39,15 +44,48 @@ import org.eclipse.jetty.http.PreEncodedHttpField;
 import org.eclipse.jetty.http.PrecompressedHttpContent;
 import org.eclipse.jetty.http.ResourceHttpContent;
 import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.resource.Resource;
 import org.eclipse.jetty.util.resource.ResourceFactory;
+import org.eclipse.jetty.util.thread.AutoLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * <p>A {@link HttpContent.ContentFactory} that caches the content of resources.</p>
+ * <p>When the cache exceeds its maximum number of files or maximum size, entries are
+ * evicted according to the configured {@link EvictionPolicy}.</p>
+ */
+@ManagedObject("Cache of static content")
 public class CachedContentFactory implements HttpContent.ContentFactory
 {
     private static final Logger LOG = LoggerFactory.getLogger(CachedContentFactory.class);
     private static final Map<CompressedContentFormat, CachedPrecompressedHttpContent> NO_PRECOMPRESSED = Collections.unmodifiableMap(Collections.emptyMap());
+    private static final int ACCESS_BUFFER_SIZE = 128;
+    private static final int ACCESS_DRAIN_THRESHOLD = 32;
+
+    /**
+     * The policy used to evict entries from the cache.
+     */
+    public enum EvictionPolicy
+    {
+        /**
+         * Evicts the least recently used entries, found by sorting all the entries.
+         */
+        LRU,
+        /**
+         * <p>Segmented LRU with TinyLFU admission, weighted by content length.</p>
+         * <p>New entries enter a probation segment and are promoted to a protected segment
+         * when accessed again. A frequency sketch of recent requests decides whether a new
+         * entry is worth the entries it would displace: it is only admitted if it has been
+         * requested more often than each of them, otherwise it is served without being cached.</p>
+         * <p>The cache limits are applied to the content length of the entries, including the
+         * precompressed ones, rather than to the size of the buffers they have loaded.</p>
+         */
+        TINY_LFU
+    }
 
     private final ConcurrentMap<String, CachedHttpContent> _cache;
     private final AtomicInteger _cachedSize;
@@ -59,9 +97,27 @@ public class CachedContentFactory implements HttpContent.ContentFactory
     private final CompressedContentFormat[] _precompressedFormats;
     private final boolean _useFileMappedBuffer;
 
+    private final AutoLock _lock = new AutoLock();
+    private final Segment _probation = new Segment();
+    private final Segment _protected = new Segment();
+    private final AtomicReferenceArray<CachedHttpContent> _accesses = new AtomicReferenceArray<>(ACCESS_BUFFER_SIZE);
+    private final AtomicLong _accessWrites = new AtomicLong();
+    private final AtomicBoolean _draining = new AtomicBoolean();
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final LongAdder _evictions = new LongAdder();
+    private final LongAdder _rejections = new LongAdder();
+
     private int _maxCachedFileSize = 128 * 1024 * 1024;
     private int _maxCachedFiles = 2048;
     private int _maxCacheSize = 256 * 1024 * 1024;
+    private EvictionPolicy _evictionPolicy = EvictionPolicy.LRU;
+    private volatile FrequencySketch _sketch;
+    private MappedContentStore _contentStore;
+    // Guarded by _lock.
+    private long _reservedFiles;
+    private long _reservedSize;
+    private long _accessReads;
 
     /**
      * Constructor.
@@ -86,16 +142,70 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         _precompressedFormats = precompressedFormats;
     }
 
+    @ManagedAttribute("The size in bytes of the cached buffers")
     public int getCachedSize()
     {
         return _cachedSize.get();
     }
 
+    @ManagedAttribute("The number of cached files")
     public int getCachedFiles()
     {
         return _cachedFiles.get();
     }
 
+    @ManagedAttribute("The number of requests served from the cache")
+    public long getHitCount()
+    {
+        return _hits.sum();
+    }
+
+    @ManagedAttribute("The number of requests not served from the cache")
+    public long getMissCount()
+    {
+        return _misses.sum();
+    }
+
+    @ManagedAttribute("The number of entries evicted to make room in the cache")
+    public long getEvictionCount()
+    {
+        return _evictions.sum();
+    }
+
+    @ManagedAttribute("The number of cacheable resources not admitted in the cache")
+    public long getRejectionCount()
+    {
+        return _rejections.sum();
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void resetStatistics()
+    {
+        _hits.reset();
+        _misses.reset();
+        _evictions.reset();
+        _rejections.reset();
+    }
+
+    @ManagedAttribute("The eviction policy")
+    public EvictionPolicy getEvictionPolicy()
+    {
+        return _evictionPolicy;
+    }
+
+    /**
+     * <p>Sets the policy used to evict entries; it should be set before the cache is used.</p>
+     *
+     * @param evictionPolicy the eviction policy
+     */
+    public void setEvictionPolicy(EvictionPolicy evictionPolicy)
+    {
+        flushCache();
+        _evictionPolicy = evictionPolicy;
+        _sketch = evictionPolicy == EvictionPolicy.TINY_LFU ? new FrequencySketch(_maxCachedFiles) : null;
+    }
+
+    @ManagedAttribute("The max size in bytes of a cached file")
     public int getMaxCachedFileSize()
     {
         return _maxCachedFileSize;
@@ -107,6 +217,7 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         shrinkCache();
     }
 
+    @ManagedAttribute("The max size in bytes of the cache")
     public int getMaxCacheSize()
     {
         return _maxCacheSize;
@@ -121,6 +232,7 @@ public class CachedContentFactory implements HttpContent.ContentFactory
     /**
      * @return the max number of cached files.
      */
+    @ManagedAttribute("The max number of cached files")
     public int getMaxCachedFiles()
     {
         return _maxCachedFiles;
@@ -132,6 +244,8 @@ public class CachedContentFactory implements HttpContent.ContentFactory
     public void setMaxCachedFiles(int maxCachedFiles)
     {
         _maxCachedFiles = maxCachedFiles;
+        if (_evictionPolicy == EvictionPolicy.TINY_LFU)
+            _sketch = new FrequencySketch(maxCachedFiles);
         shrinkCache();
     }
 
@@ -140,6 +254,25 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         return _useFileMappedBuffer;
     }
 
+    public MappedContentStore getContentStore()
+    {
+        return _contentStore;
+    }
+
+    /**
+     * <p>Sets the off-heap store from which the direct buffers of cached contents are sliced.</p>
+     * <p>When a content is stored, {@link HttpContent#getDirectBuffer()} returns a slice of
+     * the store and neither a file mapped nor a direct buffer is allocated for it. The bytes
+     * of the store are not accounted in {@link #getCachedSize()}.</p>
+     *
+     * @param contentStore the content store, or null to use per resource buffers
+     */
+    public void setContentStore(MappedContentStore contentStore)
+    {
+        _contentStore = contentStore;
+    }
+
+    @ManagedOperation(value = "Flushes the cache", impact = "ACTION")
     public void flushCache()
     {
         while (_cache.size() > 0)
@@ -168,10 +301,18 @@ public class CachedContentFactory implements HttpContent.ContentFactory
     @Override
     public HttpContent getContent(String pathInContext, int maxBufferSize) throws IOException
     {
+        FrequencySketch sketch = _sketch;
+        if (sketch != null)
+            sketch.increment(pathInContext);
+
         // Is the content in this cache?
         CachedHttpContent content = _cache.get(pathInContext);
         if (content != null && (content).isValid())
+        {
+            _hits.increment();
             return content;
+        }
+        _misses.increment();
 
         // try loading the content from our factory.
         Resource resource = _factory.getResource(pathInContext);
@@ -214,51 +355,17 @@ public class CachedContentFactory implements HttpContent.ContentFactory
             return new ResourceHttpContent(resource, _mimeTypes.getMimeByExtension(resource.toString()), getMaxCachedFileSize());
 
         // Will it fit in the cache?
-        if (isCacheable(resource))
+        long length = resource.length();
+        if (isCacheable(resource) && admit(pathInContext, length))
         {
-            CachedHttpContent content;
-
-            // Look for precompressed resources
-            if (_precompressedFormats.length > 0)
+            try
             {
-                Map<CompressedContentFormat, CachedHttpContent> precompresssedContents = new HashMap<>(_precompressedFormats.length);
-                for (CompressedContentFormat format : _precompressedFormats)
-                {
-                    String compressedPathInContext = pathInContext + format.getExtension();
-                    CachedHttpContent compressedContent = _cache.get(compressedPathInContext);
-                    if (compressedContent == null || compressedContent.isValid())
-                    {
-                        compressedContent = null;
-                        Resource compressedResource = _factory.getResource(compressedPathInContext);
-                        if (compressedResource.exists() && compressedResource.lastModified() >= resource.lastModified() &&
-                            compressedResource.length() < resource.length())
-                        {
-                            compressedContent = new CachedHttpContent(compressedPathInContext, compressedResource, null);
-                            CachedHttpContent added = _cache.putIfAbsent(compressedPathInContext, compressedContent);
-                            if (added != null)
-                            {
-                                compressedContent.invalidate();
-                                compressedContent = added;
-                            }
-                        }
-                    }
-                    if (compressedContent != null)
-                        precompresssedContents.put(format, compressedContent);
-                }
-                content = new CachedHttpContent(pathInContext, resource, precompresssedContents);
+                return add(pathInContext, resource);
             }
-            else
-                content = new CachedHttpContent(pathInContext, resource, null);
-
-            // Add it to the cache.
-            CachedHttpContent added = _cache.putIfAbsent(pathInContext, content);
-            if (added != null)
+            finally
             {
-                content.invalidate();
-                content = added;
+                unreserve(length);
             }
-
-            return content;
         }
 
         // Look for non Cacheable precompressed resource or content
@@ -288,8 +395,271 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         return new ResourceHttpContent(resource, mt, maxBufferSize);
     }
 
+    private CachedHttpContent add(String pathInContext, Resource resource) throws IOException
+    {
+        CachedHttpContent content;
+
+        // Look for precompressed resources
+        if (_precompressedFormats.length > 0)
+        {
+            Map<CompressedContentFormat, CachedHttpContent> precompresssedContents = new HashMap<>(_precompressedFormats.length);
+            for (CompressedContentFormat format : _precompressedFormats)
+            {
+                String compressedPathInContext = pathInContext + format.getExtension();
+                CachedHttpContent compressedContent = _cache.get(compressedPathInContext);
+                if (compressedContent == null || compressedContent.isValid())
+                {
+                    compressedContent = null;
+                    Resource compressedResource = _factory.getResource(compressedPathInContext);
+                    long compressedLength = compressedResource.length();
+                    if (compressedResource.exists() && compressedResource.lastModified() >= resource.lastModified() &&
+                        compressedLength < resource.length() && admit(pathInContext, compressedLength))
+                    {
+                        try
+                        {
+                            compressedContent = new CachedHttpContent(compressedPathInContext, pathInContext, compressedResource, null);
+                            CachedHttpContent added = _cache.putIfAbsent(compressedPathInContext, compressedContent);
+                            if (added != null)
+                            {
+                                compressedContent.invalidate();
+                                compressedContent = added;
+                            }
+                            else
+                            {
+                                added(compressedContent);
+                            }
+                        }
+                        finally
+                        {
+                            unreserve(compressedLength);
+                        }
+                    }
+                }
+                if (compressedContent != null)
+                    precompresssedContents.put(format, compressedContent);
+            }
+            content = new CachedHttpContent(pathInContext, resource, precompresssedContents);
+        }
+        else
+            content = new CachedHttpContent(pathInContext, resource, null);
+
+        // Add it to the cache.
+        CachedHttpContent added = _cache.putIfAbsent(pathInContext, content);
+        if (added != null)
+        {
+            content.invalidate();
+            content = added;
+        }
+        else
+        {
+            added(content);
+        }
+
+        return content;
+    }
+
+    private boolean isOverLimits(long files, long size)
+    {
+        return files > _maxCachedFiles || size > _maxCacheSize;
+    }
+
+    /**
+     * @param files the number of files to add
+     * @param size the content length to add
+     * @return whether the entries in the segments, the reserved ones and the given ones exceed the limits
+     */
+    private boolean isOverLimitsWith(int files, long size)
+    {
+        assert _lock.isHeldByCurrentThread();
+        return isOverLimits(_probation._files + _protected._files + _reservedFiles + files,
+            _probation._size + _protected._size + _reservedSize + size);
+    }
+
+    /**
+     * <p>Decides whether a new entry should be added to the cache and, if so,
+     * evicts the entries it displaces and reserves its space until it is
+     * {@link #unreserve(long) unreserved}, so that concurrent admissions
+     * cannot exceed the limits.</p>
+     *
+     * @param pathInContext the requested path of the new entry
+     * @param length the content length of the new entry
+     * @return whether the new entry should be cached
+     */
+    private boolean admit(String pathInContext, long length)
+    {
+        FrequencySketch sketch = _sketch;
+        if (sketch == null)
+            return true;
+
+        try (AutoLock l = _lock.lock())
+        {
+            drainAccesses();
+
+            if (!isOverLimitsWith(1, length))
+            {
+                reserve(length);
+                return true;
+            }
+
+            // The candidate must be more frequent than every entry it displaces.
+            int frequency = sketch.frequency(pathInContext);
+            int victims = 0;
+            long files = _probation._files + _protected._files + _reservedFiles + 1;
+            long size = _probation._size + _protected._size + _reservedSize + length;
+            CachedHttpContent victim = _probation._tail != null ? _probation._tail : _protected._tail;
+            while (victim != null && isOverLimits(files, size))
+            {
+                if (sketch.frequency(victim._requestedPath) >= frequency)
+                {
+                    _rejections.increment();
+                    return false;
+                }
+                ++victims;
+                files--;
+                size -= victim._contentLengthValue;
+                victim = victim._prev != null ? victim._prev : victim._segment == _probation ? _protected._tail : null;
+            }
+
+            for (int i = 0; i < victims; i++)
+            {
+                evict(_probation._tail != null ? _probation._tail : _protected._tail);
+            }
+            reserve(length);
+            return true;
+        }
+    }
+
+    private void reserve(long length)
+    {
+        assert _lock.isHeldByCurrentThread();
+        _reservedFiles++;
+        _reservedSize += length;
+    }
+
+    private void unreserve(long length)
+    {
+        if (_evictionPolicy != EvictionPolicy.TINY_LFU)
+            return;
+        try (AutoLock l = _lock.lock())
+        {
+            // The added entry, if any, is already accounted for in the probation segment.
+            _reservedFiles = Math.max(0, _reservedFiles - 1);
+            _reservedSize = Math.max(0, _reservedSize - length);
+        }
+    }
+
+    private void added(CachedHttpContent content)
+    {
+        if (_evictionPolicy != EvictionPolicy.TINY_LFU)
+            return;
+        try (AutoLock l = _lock.lock())
+        {
+            // The content may have been invalidated concurrently.
+            if (_cache.get(content._key) == content)
+                _probation.addFirst(content);
+        }
+    }
+
+    private void accessed(CachedHttpContent content)
+    {
+        if (_evictionPolicy != EvictionPolicy.TINY_LFU)
+            return;
+
+        // Record the access without locking; the buffer is lossy, as an access
+        // overwritten before it is drained only makes the recency order less precise.
+        long writes = _accessWrites.getAndIncrement();
+        _accesses.lazySet((int)(writes & (ACCESS_BUFFER_SIZE - 1)), content);
+
+        // A single thread drains the buffer, the others carry on serving.
+        if ((writes & (ACCESS_DRAIN_THRESHOLD - 1)) == 0 && _draining.compareAndSet(false, true))
+        {
+            try (AutoLock l = _lock.lock())
+            {
+                drainAccesses();
+            }
+            finally
+            {
+                _draining.set(false);
+            }
+        }
+    }
+
+    private void drainAccesses()
+    {
+        assert _lock.isHeldByCurrentThread();
+        // Replay the accesses in order, from the oldest one not yet overwritten.
+        long writes = _accessWrites.get();
+        for (long reads = Math.max(_accessReads, writes - ACCESS_BUFFER_SIZE); reads < writes; reads++)
+        {
+            CachedHttpContent content = _accesses.getAndSet((int)(reads & (ACCESS_BUFFER_SIZE - 1)), null);
+            if (content != null)
+                promote(content);
+        }
+        _accessReads = writes;
+    }
+
+    private void promote(CachedHttpContent content)
+    {
+        Segment segment = content._segment;
+        if (segment == _protected)
+        {
+            _protected.remove(content);
+            _protected.addFirst(content);
+        }
+        else if (segment == _probation)
+        {
+            _probation.remove(content);
+            _protected.addFirst(content);
+            // Keep the protected segment to 80% of the cache.
+            while (_protected._tail != null && _protected._tail != content &&
+                (_protected._files > _maxCachedFiles * 4L / 5 || _protected._size > _maxCacheSize * 4L / 5))
+            {
+                CachedHttpContent demoted = _protected._tail;
+                _protected.remove(demoted);
+                _probation.addFirst(demoted);
+            }
+        }
+    }
+
+    private void evict(CachedHttpContent content)
+    {
+        _evictions.increment();
+        if (content == _cache.remove(content.getKey()))
+            content.invalidate();
+        else
+            unlink(content);
+    }
+
+    private void unlink(CachedHttpContent content)
+    {
+        if (_evictionPolicy != EvictionPolicy.TINY_LFU)
+            return;
+        try (AutoLock l = _lock.lock())
+        {
+            if (content._segment != null)
+                content._segment.remove(content);
+        }
+    }
+
     private void shrinkCache()
     {
+        if (_evictionPolicy == EvictionPolicy.TINY_LFU)
+        {
+            try (AutoLock l = _lock.lock())
+            {
+                // Evict from the tail of the probation segment, then of the protected segment,
+                // measuring the entries by content length as the admission does.
+                while (isOverLimitsWith(0, 0))
+                {
+                    CachedHttpContent victim = _probation._tail != null ? _probation._tail : _protected._tail;
+                    if (victim == null)
+                        break;
+                    evict(victim);
+                }
+            }
+            return;
+        }
+
         // While we need to shrink
         while (_cache.size() > 0 && (_cachedFiles.get() > _maxCachedFiles || _cachedSize.get() > _maxCacheSize))
         {
@@ -315,7 +685,10 @@ public class CachedContentFactory implements HttpContent.ContentFactory
                 if (_cachedFiles.get() <= _maxCachedFiles && _cachedSize.get() <= _maxCacheSize)
                     break;
                 if (content == _cache.remove(content.getKey()))
+                {
+                    _evictions.increment();
                     content.invalidate();
+                }
             }
         }
     }
@@ -377,6 +750,8 @@ public class CachedContentFactory implements HttpContent.ContentFactory
     public class CachedHttpContent implements HttpContent
     {
         private final String _key;
+        // The path requested to get this content, that differs from the key of precompressed content.
+        private final String _requestedPath;
         private final Resource _resource;
         private final long _contentLengthValue;
         private final HttpField _contentType;
@@ -390,11 +765,23 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         private final AtomicReference<ByteBuffer> _indirectBuffer = new AtomicReference<>();
         private final AtomicReference<ByteBuffer> _directBuffer = new AtomicReference<>();
         private final AtomicReference<ByteBuffer> _mappedBuffer = new AtomicReference<>();
+        private final AtomicReference<MappedContentStore.Slice> _storedSlice = new AtomicReference<>();
+        private volatile int _storeFailedGeneration = -1;
         private volatile long _lastAccessed;
+        // Guarded by _lock.
+        private Segment _segment;
+        private CachedHttpContent _prev;
+        private CachedHttpContent _next;
 
         CachedHttpContent(String pathInContext, Resource resource, Map<CompressedContentFormat, CachedHttpContent> precompressedResources)
+        {
+            this(pathInContext, pathInContext, resource, precompressedResources);
+        }
+
+        CachedHttpContent(String pathInContext, String requestedPath, Resource resource, Map<CompressedContentFormat, CachedHttpContent> precompressedResources)
         {
             _key = pathInContext;
+            _requestedPath = requestedPath;
             _resource = resource;
 
             String contentType = _mimeTypes.getMimeByExtension(_resource.toString());
@@ -464,6 +851,7 @@ public class CachedContentFactory implements HttpContent.ContentFactory
             if (_lastModifiedValue == _resource.lastModified() && _contentLengthValue == _resource.length())
             {
                 _lastAccessed = System.currentTimeMillis();
+                accessed(this);
                 return true;
             }
 
@@ -484,6 +872,11 @@ public class CachedContentFactory implements HttpContent.ContentFactory
 
             _mappedBuffer.getAndSet(null);
 
+            MappedContentStore.Slice slice = _storedSlice.getAndSet(null);
+            if (slice != null)
+                slice.release();
+
+            unlink(this);
             _cachedFiles.decrementAndGet();
             _resource.close();
         }
@@ -577,6 +970,12 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         @Override
         public ByteBuffer getDirectBuffer()
         {
+            MappedContentStore.Slice slice = _storedSlice.get();
+            if (slice == null)
+                slice = storeSlice();
+            if (slice != null)
+                return slice.getBuffer();
+
             ByteBuffer buffer = _mappedBuffer.get();
             if (buffer == null)
                 buffer = _directBuffer.get();
@@ -617,6 +1016,32 @@ public class CachedContentFactory implements HttpContent.ContentFactory
             return buffer == null ? null : buffer.asReadOnlyBuffer();
         }
 
+        private MappedContentStore.Slice storeSlice()
+        {
+            MappedContentStore store = _contentStore;
+            if (store == null || _cache.get(_key) != this)
+                return null;
+            // Do not retry a failed store until the store has freed some space.
+            int generation = store.getGeneration();
+            if (_storeFailedGeneration == generation)
+                return null;
+            MappedContentStore.Slice slice = store.acquire(_resource);
+            if (slice == null)
+            {
+                _storeFailedGeneration = generation;
+                return null;
+            }
+            if (!_storedSlice.compareAndSet(null, slice))
+            {
+                slice.release();
+                return _storedSlice.get();
+            }
+            // The content may have been invalidated concurrently.
+            if (_cache.get(_key) != this && _storedSlice.compareAndSet(slice, null))
+                slice.release();
+            return slice;
+        }
+
         @Override
         public HttpField getContentLength()
         {
@@ -712,4 +1137,133 @@ public class CachedContentFactory implements HttpContent.ContentFactory
             return "Cached" + super.toString();
         }
     }
+
+    /**
+     * An access ordered list of cache entries, most recently used first.
+     */
+    private static class Segment
+    {
+        private CachedHttpContent _head;
+        private CachedHttpContent _tail;
+        private long _files;
+        private long _size;
+
+        private void addFirst(CachedHttpContent content)
+        {
+            content._segment = this;
+            content._prev = null;
+            content._next = _head;
+            if (_head == null)
+                _tail = content;
+            else
+                _head._prev = content;
+            _head = content;
+            _files++;
+            _size += content._contentLengthValue;
+        }
+
+        private void remove(CachedHttpContent content)
+        {
+            if (content._prev == null)
+                _head = content._next;
+            else
+                content._prev._next = content._next;
+            if (content._next == null)
+                _tail = content._prev;
+            else
+                content._next._prev = content._prev;
+            content._segment = null;
+            content._prev = null;
+            content._next = null;
+            _files--;
+            _size -= content._contentLengthValue;
+        }
+    }
+
+    /**
+     * <p>A count-min sketch of 4-bit counters estimating how often keys were requested.</p>
+     * <p>Counters are halved once the number of increments reaches ten times the
+     * table width, so that the sketch favours recent popularity.</p>
+     */
+    private static class FrequencySketch
+    {
+        private static final long RESET_MASK = 0x7777_7777_7777_7777L;
+        private static final int[] SEEDS = {0x97CB3127, 0xB3A2F3C5, 0xC2B2AE35, 0x85EBCA6B};
+
+        private final AtomicLongArray _table;
+        private final AtomicInteger _additions = new AtomicInteger();
+        private final int _sampleSize;
+
+        private FrequencySketch(int maxEntries)
+        {
+            int width = Integer.highestOneBit(Math.max(16, Math.min(maxEntries, 1 << 24)) - 1) << 1;
+            _table = new AtomicLongArray(width);
+            _sampleSize = 10 * width;
+        }
+
+        private int frequency(String key)
+        {
+            int hash = spread(key.hashCode());
+            int frequency = 15;
+            for (int i = 0; i < SEEDS.length; i++)
+            {
+                int h = rehash(hash, i);
+                int shift = ((h >>> 24) & 15) << 2;
+                int count = (int)((_table.get(h & (_table.length() - 1)) >>> shift) & 15L);
+                frequency = Math.min(frequency, count);
+            }
+            return frequency;
+        }
+
+        private void increment(String key)
+        {
+            int hash = spread(key.hashCode());
+            boolean added = false;
+            for (int i = 0; i < SEEDS.length; i++)
+            {
+                int h = rehash(hash, i);
+                int index = h & (_table.length() - 1);
+                int shift = ((h >>> 24) & 15) << 2;
+                while (true)
+                {
+                    long value = _table.get(index);
+                    if (((value >>> shift) & 15L) == 15L)
+                        break;
+                    if (_table.compareAndSet(index, value, value + (1L << shift)))
+                    {
+                        added = true;
+                        break;
+                    }
+                }
+            }
+            if (added && _additions.incrementAndGet() >= _sampleSize)
+                reset();
+        }
+
+        private void reset()
+        {
+            // Concurrent increments during the reset may be lost, which only makes the sketch less precise.
+            _additions.set(0);
+            for (int i = 0; i < _table.length(); i++)
+            {
+                long value = _table.get(i);
+                _table.compareAndSet(i, value, (value >>> 1) & RESET_MASK);
+            }
+        }
+
+        private static int spread(int hash)
+        {
+            hash ^= hash >>> 17;
+            hash *= 0xED5AD4BB;
+            hash ^= hash >>> 11;
+            hash *= 0xAC4C1B51;
+            return hash ^ (hash >>> 15);
+        }
+
+        private static int rehash(int hash, int i)
+        {
+            int h = (hash + SEEDS[i]) * SEEDS[i];
+            return h ^ (h >>> 16);
+        }
+    }
 }
@@ -17,6 +17,7 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.EventListener;
 import java.util.List;
@@ -1057,6 +1058,40 @@ public abstract class HttpChannel implements Runnable, HttpOutput.Interceptor
         return committing;
     }
 
+    /**
+     * <p>Non-Blocking send of a complete response whose content is a region of a file,
+     * committing the response.</p>
+     * <p>The file bytes are written by the {@link HttpTransport}, so they are not passed
+     * to {@link Listener#onResponseContent(Request, ByteBuffer)}.</p>
+     *
+     * @param file the file to send the content from, not closed by this method
+     * @param position the file position of the first content byte
+     * @param count the number of content bytes
+     * @param callback Callback when complete or failed
+     * @see HttpTransport#isFileTransferSupported()
+     */
+    public void sendFile(FileChannel file, long position, long count, Callback callback)
+    {
+        if (!_state.commitResponse())
+        {
+            callback.failed(new IllegalStateException("committed"));
+            return;
+        }
+
+        if (LOG.isDebugEnabled())
+            LOG.debug("sendFile file={} position={} count={} callback={}", file, position, count, callback);
+
+        // Let HttpChannel.Listeners modify the response before commit
+        _combinedListener.onResponseBegin(_request);
+        if (_response.getLongContentLength() != count)
+            _response.setContentLengthLong(count);
+        MetaData.Response response = _response.newResponseMetaData();
+        commit(response);
+        _request.onResponseCommit();
+
+        _transport.sendFile(_request.getMetaData(), response, file, position, count, new SendCallback(callback, count, true, true));
+    }
+
     public boolean sendResponse(MetaData.Response info, ByteBuffer content, boolean complete) throws IOException
     {
         try (Blocker blocker = _response.getHttpOutput().acquireWriteBlockingCallback())
@@ -1410,7 +1445,7 @@ public abstract class HttpChannel implements Runnable, HttpOutput.Interceptor
     private class SendCallback extends Callback.Nested
     {
         private final ByteBuffer _content;
-        private final int _length;
+        private final long _length;
         private final boolean _commit;
         private final boolean _complete;
 
@@ -1423,13 +1458,22 @@ public abstract class HttpChannel implements Runnable, HttpOutput.Interceptor
             _complete = complete;
         }
 
+        private SendCallback(Callback callback, long length, boolean commit, boolean complete)
+        {
+            super(callback);
+            _content = BufferUtil.EMPTY_BUFFER;
+            _length = length;
+            _commit = commit;
+            _complete = complete;
+        }
+
         @Override
         public void succeeded()
         {
             _written += _length;
             if (_commit)
                 _combinedListener.onResponseCommit(_request);
-            if (_length > 0)
+            if (_content.hasRemaining())
                 _combinedListener.onResponseContent(_request, _content);
             if (_complete && _state.completeResponse())
                 _combinedListener.onResponseEnd(_request);
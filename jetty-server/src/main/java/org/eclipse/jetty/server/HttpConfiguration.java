@@ -69,6 +69,7 @@ public class HttpConfiguration implements Dumpable
     private int _maxErrorDispatches = 10;
     private boolean _useInputDirectByteBuffers = true;
     private boolean _useOutputDirectByteBuffers = true;
+    private boolean _useFileTransfer;
     private long _minRequestDataRate;
     private long _minResponseDataRate;
     private HttpCompliance _httpCompliance = HttpCompliance.RFC7230;
@@ -142,6 +143,7 @@ public class HttpConfiguration implements Dumpable
         _maxErrorDispatches = config._maxErrorDispatches;
         _useInputDirectByteBuffers = config._useInputDirectByteBuffers;
         _useOutputDirectByteBuffers = config._useOutputDirectByteBuffers;
+        _useFileTransfer = config._useFileTransfer;
         _minRequestDataRate = config._minRequestDataRate;
         _minResponseDataRate = config._minResponseDataRate;
         _httpCompliance = config._httpCompliance;
@@ -365,6 +367,29 @@ public class HttpConfiguration implements Dumpable
         return _useOutputDirectByteBuffers;
     }
 
+    /**
+     * <p>Sets whether file backed static content may be written with
+     * {@link java.nio.channels.FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)},
+     * letting the operating system copy the file bytes to the socket without passing
+     * them through user space buffers.</p>
+     * <p>The file transfer is only used when the transport supports it (cleartext HTTP/1.1),
+     * when no {@link HttpOutput.Interceptor} (for example for gzip compression) is installed,
+     * and when the content is at least as large as the output buffer;
+     * otherwise content is written normally.</p>
+     *
+     * @param useFileTransfer whether to use file transfers to write file content
+     */
+    public void setUseFileTransfer(boolean useFileTransfer)
+    {
+        _useFileTransfer = useFileTransfer;
+    }
+
+    @ManagedAttribute("Whether to use file transfers to write file content")
+    public boolean isUseFileTransfer()
+    {
+        return _useFileTransfer;
+    }
+
     /**
      * <p>Sets the {@link Customizer}s that are invoked for every
      * request received.</p>
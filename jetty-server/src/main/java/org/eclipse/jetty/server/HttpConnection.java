@@ -15,6 +15,7 @@ package org.eclipse.jetty.server;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.WritePendingException;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.LongAdder;
@@ -36,6 +37,7 @@ import org.eclipse.jetty.io.EndPoint;
 import org.eclipse.jetty.io.EofException;
 import org.eclipse.jetty.io.RetainableByteBuffer;
 import org.eclipse.jetty.io.RetainableByteBufferPool;
+import org.eclipse.jetty.io.SocketChannelEndPoint;
 import org.eclipse.jetty.io.WriteFlusher;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.Callback;
@@ -590,6 +592,40 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
         }
     }
 
+    /**
+     * <p>File transfers are supported when this connection writes directly to a
+     * {@link SocketChannelEndPoint}, that is when there is no TLS or other
+     * intermediate connection that needs to see the bytes.</p>
+     *
+     * @return whether {@link #sendFile(MetaData.Request, MetaData.Response, FileChannel, long, long, Callback)} is supported
+     */
+    @Override
+    public boolean isFileTransferSupported()
+    {
+        return getEndPoint() instanceof SocketChannelEndPoint;
+    }
+
+    @Override
+    public void sendFile(MetaData.Request request, MetaData.Response response, FileChannel file, long position, long count, Callback callback)
+    {
+        if (!isFileTransferSupported())
+        {
+            callback.failed(new UnsupportedOperationException("File transfer not supported by " + getEndPoint()));
+            return;
+        }
+
+        // If we are still expecting a 100 continues when we commit
+        if (_channel.isExpecting100Continue())
+            // then we can't be persistent
+            _generator.setPersistent(false);
+
+        if (_sendCallback.reset(request, response, null, true, callback))
+        {
+            _sendCallback.file(file, position, count);
+            _sendCallback.iterate();
+        }
+    }
+
     HttpInput.Content newContent(ByteBuffer c)
     {
         return new Content(c);
@@ -701,6 +737,9 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
         private Callback _callback;
         private ByteBuffer _header;
         private ByteBuffer _chunk;
+        private FileChannel _file;
+        private long _filePosition;
+        private long _fileCount;
         private boolean _shutdownOut;
 
         private SendCallback()
@@ -724,6 +763,7 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
                 _lastContent = last;
                 _callback = callback;
                 _header = null;
+                _file = null;
                 _shutdownOut = false;
 
                 if (getConnector().isShutdown())
@@ -739,6 +779,13 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
             return false;
         }
 
+        private void file(FileChannel file, long position, long count)
+        {
+            _file = file;
+            _filePosition = position;
+            _fileCount = count;
+        }
+
         @Override
         public Action process() throws Exception
         {
@@ -794,6 +841,7 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
                         {
                             BufferUtil.clear(_chunk);
                             BufferUtil.clear(_content);
+                            _file = null;
                         }
 
                         byte gatherWrite = 0;
@@ -813,6 +861,21 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
                             gatherWrite += 1;
                             bytes += _content.remaining();
                         }
+                        if (_file != null)
+                        {
+                            // The file bytes follow the header and are written by the
+                            // end point directly from the file, bypassing the buffers.
+                            FileChannel file = _file;
+                            _file = null;
+                            HttpConnection.this.bytesOut.add(bytes + _fileCount);
+                            SocketChannelEndPoint endPoint = (SocketChannelEndPoint)getEndPoint();
+                            if (BufferUtil.hasContent(_header))
+                                endPoint.transferFrom(this, file, _filePosition, _fileCount, _header);
+                            else
+                                endPoint.transferFrom(this, file, _filePosition, _fileCount);
+                            return Action.SCHEDULED;
+                        }
+
                         HttpConnection.this.bytesOut.add(bytes);
                         switch (gatherWrite)
                         {
@@ -876,6 +939,7 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
             _callback = null;
             _info = null;
             _content = null;
+            _file = null;
             releaseHeader();
             releaseChunk();
             return complete;
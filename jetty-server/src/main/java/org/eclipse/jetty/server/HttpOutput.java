@@ -13,10 +13,13 @@
 
 package org.eclipse.jetty.server;
 
+import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritePendingException;
 import java.nio.charset.Charset;
@@ -32,6 +35,7 @@ import javax.servlet.ServletResponse;
 import javax.servlet.WriteListener;
 
 import org.eclipse.jetty.http.HttpContent;
+import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.io.EofException;
 import org.eclipse.jetty.util.BufferUtil;
@@ -41,6 +45,7 @@ import org.eclipse.jetty.util.IteratingCallback;
 import org.eclipse.jetty.util.NanoTime;
 import org.eclipse.jetty.util.SharedBlockingCallback;
 import org.eclipse.jetty.util.SharedBlockingCallback.Blocker;
+import org.eclipse.jetty.util.resource.Resource;
 import org.eclipse.jetty.util.thread.AutoLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -173,6 +178,24 @@ public class HttpOutput extends ServletOutputStream implements Runnable
         }
     }
 
+    /**
+     * <p>A source of content for {@link #sendContent(ContentSupplier, Callback)}, that
+     * produces the content of a response one buffer at a time.</p>
+     * <p>The supplier is closed once all its content has been written or if the write fails.</p>
+     */
+    public interface ContentSupplier extends Closeable
+    {
+        /**
+         * <p>Returns the next buffer of content.</p>
+         * <p>The returned buffer is completely written before this method is called again,
+         * so its memory may be reused by the next call or released by {@link #close()}.</p>
+         *
+         * @return the next buffer of content, or null when all the content has been supplied
+         * @throws IOException if the content cannot be produced
+         */
+        ByteBuffer next() throws IOException;
+    }
+
     private static final Logger LOG = LoggerFactory.getLogger(HttpOutput.class);
     private static final ThreadLocal<CharsetEncoder> _encoder = new ThreadLocal<>();
 
@@ -257,6 +280,12 @@ public class HttpOutput extends ServletOutputStream implements Runnable
     }
 
     private void channelWrite(ByteBuffer content, boolean last, Callback callback)
+    {
+        initFirstByteTime();
+        _interceptor.write(content, last, callback);
+    }
+
+    private void initFirstByteTime()
     {
         if (_firstByteNanoTime == -1)
         {
@@ -266,8 +295,6 @@ public class HttpOutput extends ServletOutputStream implements Runnable
             else
                 _firstByteNanoTime = Long.MAX_VALUE;
         }
-
-        _interceptor.write(content, last, callback);
     }
 
     private void onWriteComplete(boolean last, Throwable failure)
@@ -1172,6 +1199,21 @@ public class HttpOutput extends ServletOutputStream implements Runnable
         }
     }
 
+    /**
+     * Blocking send of supplied content.
+     *
+     * @param supplier The supplier of the content to send
+     * @throws IOException if the send fails
+     */
+    public void sendContent(ContentSupplier supplier) throws IOException
+    {
+        try (Blocker blocker = _writeBlocker.acquire())
+        {
+            sendContent(supplier, blocker);
+            blocker.block();
+        }
+    }
+
     /**
      * Blocking send of HTTP content.
      *
@@ -1250,6 +1292,24 @@ public class HttpOutput extends ServletOutputStream implements Runnable
             new ReadableByteChannelWritingCB(in, callback).iterate();
     }
 
+    /**
+     * Asynchronous send of supplied content.
+     * The supplier will be closed after all its content has been written, or if the send fails.
+     *
+     * @param supplier The supplier of the content to send
+     * @param callback The callback to use to notify success or failure
+     */
+    public void sendContent(ContentSupplier supplier, Callback callback)
+    {
+        if (LOG.isDebugEnabled())
+            LOG.debug("sendContent(supplier={},{})", supplier, callback);
+
+        if (prepareSendContent(0, callback))
+            new ContentSupplierWritingCB(supplier, callback).iterate();
+        else
+            IO.close(supplier);
+    }
+
     private boolean prepareSendContent(int len, Callback callback)
     {
         try (AutoLock l = _channelState.lock())
@@ -1303,6 +1363,16 @@ public class HttpOutput extends ServletOutputStream implements Runnable
         if (LOG.isDebugEnabled())
             LOG.debug("sendContent(http={},{})", httpContent, callback);
 
+        FileChannel file = openFileTransfer(httpContent);
+        if (file != null)
+        {
+            if (prepareSendContent(0, callback))
+                new FileChannelWritingCB(file, httpContent.getContentLengthValue(), callback).iterate();
+            else
+                IO.close(file);
+            return;
+        }
+
         ByteBuffer buffer = _channel.isUseOutputDirectByteBuffers() ? httpContent.getDirectBuffer() : null;
         if (buffer == null)
             buffer = httpContent.getIndirectBuffer();
@@ -1351,6 +1421,51 @@ public class HttpOutput extends ServletOutputStream implements Runnable
         callback.failed(cause);
     }
 
+    /**
+     * <p>Opens the file of the given content if it can be written with a file transfer.</p>
+     * <p>A file transfer is possible when enabled by {@link HttpConfiguration#isUseFileTransfer()},
+     * when the transport supports it, when there is no {@link Interceptor} that needs to see the bytes,
+     * and when the content is a file not smaller than the output buffer, whose length can be used as
+     * the response content length.</p>
+     *
+     * @param httpContent the content to send
+     * @return the opened file, or null if the content must be written with buffers
+     */
+    private FileChannel openFileTransfer(HttpContent httpContent)
+    {
+        if (!_channel.getHttpConfiguration().isUseFileTransfer())
+            return null;
+        if (_interceptor != _channel || !_channel.getHttpTransport().isFileTransferSupported())
+            return null;
+
+        long length = httpContent.getContentLengthValue();
+        if (length <= 0 || length < getBufferSize())
+            return null;
+
+        // The file bytes must be the exact response body, without chunking.
+        Response response = _channel.getResponse();
+        long contentLength = response.getLongContentLength();
+        if (contentLength >= 0 && contentLength != length)
+            return null;
+        if (response.getHttpFields().contains(HttpHeader.TRANSFER_ENCODING) || response.getTrailers() != null)
+            return null;
+
+        try
+        {
+            Resource resource = httpContent.getResource();
+            File file = resource == null ? null : resource.getFile();
+            if (file == null)
+                return null;
+            return FileChannel.open(file.toPath());
+        }
+        catch (Throwable x)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Unable to open file for content {}", httpContent, x);
+            return null;
+        }
+    }
+
     public int getBufferSize()
     {
         return _bufferSize;
@@ -1868,6 +1983,100 @@ public class HttpOutput extends ServletOutputStream implements Runnable
         }
     }
 
+    /**
+     * An iterating callback that will take content from a
+     * {@link ContentSupplier} and write it to the {@link HttpChannel}.
+     * Each buffer is written before the next one is requested from the supplier.
+     */
+    private class ContentSupplierWritingCB extends NestedChannelWriteCB
+    {
+        private final ContentSupplier _supplier;
+        private boolean _eof;
+
+        private ContentSupplierWritingCB(ContentSupplier supplier, Callback callback)
+        {
+            super(callback, true);
+            _supplier = supplier;
+        }
+
+        @Override
+        protected Action process() throws Exception
+        {
+            if (_eof)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("EOF of {}", this);
+                IO.close(_supplier);
+                return Action.SUCCEEDED;
+            }
+
+            ByteBuffer buffer = _supplier.next();
+            if (buffer == null)
+            {
+                _eof = true;
+                channelWrite(BufferUtil.EMPTY_BUFFER, true, this);
+            }
+            else
+            {
+                _written += buffer.remaining();
+                channelWrite(buffer, false, this);
+            }
+            return Action.SCHEDULED;
+        }
+
+        @Override
+        public void onCompleteFailure(Throwable x)
+        {
+            IO.close(_supplier);
+            super.onCompleteFailure(x);
+        }
+    }
+
+    /**
+     * An iterating callback that sends a whole file as the response content
+     * with {@link HttpChannel#sendFile(FileChannel, long, long, Callback)},
+     * so that the file bytes are written without being copied into buffers.
+     * The file is closed once the content has been sent.
+     */
+    private class FileChannelWritingCB extends NestedChannelWriteCB
+    {
+        private final FileChannel _file;
+        private final long _length;
+        private boolean _sent;
+
+        private FileChannelWritingCB(FileChannel file, long length, Callback callback)
+        {
+            super(callback, true);
+            _file = file;
+            _length = length;
+        }
+
+        @Override
+        protected Action process() throws Exception
+        {
+            if (_sent)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("EOF of {}", this);
+                IO.close(_file);
+                return Action.SUCCEEDED;
+            }
+
+            _sent = true;
+            _written += _length;
+            initFirstByteTime();
+            _channel.sendFile(_file, 0, _length, this);
+            return Action.SCHEDULED;
+        }
+
+        @Override
+        public void onCompleteFailure(Throwable x)
+        {
+            IO.close(_file);
+            super.onCompleteFailure(x);
+        }
+    }
+
     private static class WriteBlocker extends SharedBlockingCallback
     {
         private final HttpChannel _channel;
@@ -14,6 +14,7 @@
 package org.eclipse.jetty.server;
 
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 import org.eclipse.jetty.http.MetaData;
 import org.eclipse.jetty.util.Callback;
@@ -37,6 +38,31 @@ public interface HttpTransport
      */
     void send(MetaData.Request request, MetaData.Response response, ByteBuffer content, boolean lastContent, Callback callback);
 
+    /**
+     * @return true if this transport can write file content with {@link #sendFile(MetaData.Request, MetaData.Response, FileChannel, long, long, Callback)}
+     */
+    default boolean isFileTransferSupported()
+    {
+        return false;
+    }
+
+    /**
+     * <p>Asynchronous call to send a complete response whose content is a region of a file.</p>
+     * <p>Transports that return true from {@link #isFileTransferSupported()} write the file bytes
+     * directly from the file to the network, without copying them through buffers.</p>
+     *
+     * @param request the request the response is for
+     * @param response the header info to send, with a content length equal to {@code count}
+     * @param file the file to send the content from, not closed by this method
+     * @param position the file position of the first content byte
+     * @param count the number of content bytes
+     * @param callback the Callback instance that success or failure of the send is notified on
+     */
+    default void sendFile(MetaData.Request request, MetaData.Response response, FileChannel file, long position, long count, Callback callback)
+    {
+        callback.failed(new UnsupportedOperationException());
+    }
+
     /**
      * @return true if responses can be pushed over this transport
      */
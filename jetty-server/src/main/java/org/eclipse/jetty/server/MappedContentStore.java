@@ -0,0 +1,594 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server;
+
+import java.io.IOException;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.component.Dumpable;
+import org.eclipse.jetty.util.component.DumpableCollection;
+import org.eclipse.jetty.util.resource.Resource;
+import org.eclipse.jetty.util.thread.AutoLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>An off-heap store of static content, packed into a few large memory mapped arena files.</p>
+ * <p>A {@link CachedContentFactory} configured with a store (see {@link CachedContentFactory#setContentStore(MappedContentStore)})
+ * copies the bytes of each cached resource, including its precompressed variants, into an arena
+ * and serves read-only slices of the arena as the content's direct buffer. Resources are keyed by
+ * URI, last modified time and length, so the same file served by several contexts is stored once.
+ * A single store is typically added as a bean of the {@link Server} and shared by all contexts.</p>
+ * <p>Arenas are filled sequentially. The space of released slices is not reused within an arena,
+ * since buffers still being written by in-flight responses must remain valid until they are garbage
+ * collected: as soon as all the slices of an arena have been released the arena is retired and its
+ * file deleted. A retired arena stays mapped until its buffers are garbage collected, so it is not
+ * counted by {@link #getMappedBytes()} but by {@link #getRetiredMappedBytes()}. Only the space of slices that were never handed out, such as the copies made by
+ * concurrent stores of the same resource, is reused. The number of active arenas is bounded by
+ * {@link #getMaxArenas()}; when it is reached, resources are no longer stored and the content
+ * factory falls back to its per-resource buffers.</p>
+ */
+@ManagedObject("Off-heap store of static content")
+public class MappedContentStore extends AbstractLifeCycle implements Dumpable
+{
+    private static final Logger LOG = LoggerFactory.getLogger(MappedContentStore.class);
+
+    private final AutoLock _lock = new AutoLock();
+    private final ConcurrentMap<Key, Slice> _slices = new ConcurrentHashMap<>();
+    private final List<Arena> _arenas = new ArrayList<>();
+    private final ReferenceQueue<MappedByteBuffer> _unmapped = new ReferenceQueue<>();
+    private final Set<RetiredMapping> _retiredMappings = new HashSet<>();
+    private Path _directory;
+    private int _arenaSize = 64 * 1024 * 1024;
+    private int _maxArenas = 16;
+    private Arena _current;
+    private int _retiredArenas;
+    private long _retiredMappedBytes;
+    private volatile int _generation;
+
+    @ManagedAttribute("The directory of the arena files")
+    public Path getDirectory()
+    {
+        return _directory;
+    }
+
+    /**
+     * @param directory the directory of the arena files, or null for the default temporary directory
+     */
+    public void setDirectory(Path directory)
+    {
+        _directory = directory;
+    }
+
+    @ManagedAttribute("The size in bytes of an arena")
+    public int getArenaSize()
+    {
+        return _arenaSize;
+    }
+
+    /**
+     * @param arenaSize the size in bytes of an arena, which is also the max size of a stored resource
+     */
+    public void setArenaSize(int arenaSize)
+    {
+        if (arenaSize <= 0)
+            throw new IllegalArgumentException("Invalid arena size " + arenaSize);
+        _arenaSize = arenaSize;
+    }
+
+    @ManagedAttribute("The max number of active arenas")
+    public int getMaxArenas()
+    {
+        return _maxArenas;
+    }
+
+    public void setMaxArenas(int maxArenas)
+    {
+        _maxArenas = maxArenas;
+    }
+
+    @ManagedAttribute("The number of active arenas")
+    public int getArenaCount()
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            return _arenas.size();
+        }
+    }
+
+    @ManagedAttribute("The number of arenas retired since start")
+    public int getRetiredArenaCount()
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            return _retiredArenas;
+        }
+    }
+
+    @ManagedAttribute("The bytes mapped by the active arenas")
+    public long getMappedBytes()
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            return (long)_arenas.size() * _arenaSize;
+        }
+    }
+
+    @ManagedAttribute("The bytes mapped by the retired arenas that are not yet garbage collected")
+    public long getRetiredMappedBytes()
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            pollUnmapped();
+            return _retiredMappedBytes;
+        }
+    }
+
+    @ManagedAttribute("The bytes of the stored resources")
+    public long getStoredBytes()
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            long stored = 0;
+            for (Arena arena : _arenas)
+            {
+                stored += arena._liveBytes;
+            }
+            return stored;
+        }
+    }
+
+    @ManagedAttribute("The number of stored resources")
+    public int getStoredCount()
+    {
+        return _slices.size();
+    }
+
+    /**
+     * @return a number that changes when arena space is freed, so that a failed
+     * {@link #acquire(Resource)} is only worth retrying once it has changed
+     */
+    int getGeneration()
+    {
+        return _generation;
+    }
+
+    /**
+     * <p>Acquires a slice holding the bytes of the given resource, storing them if necessary.</p>
+     * <p>The returned slice must be released with {@link Slice#release()} when no longer needed.</p>
+     *
+     * @param resource the resource to store
+     * @return the slice holding the resource bytes, or null if the resource cannot be stored
+     */
+    public Slice acquire(Resource resource)
+    {
+        if (!isRunning())
+            return null;
+
+        long length = resource.length();
+        if (length <= 0 || length > _arenaSize)
+            return null;
+
+        Key key = new Key(resource.getURI().toString(), resource.lastModified(), length);
+        while (true)
+        {
+            Slice slice = _slices.get(key);
+            if (slice != null)
+            {
+                if (slice.retain())
+                    return slice;
+                // Being released, wait for it to be removed.
+                _slices.remove(key, slice);
+                continue;
+            }
+
+            slice = allocate(key, (int)length);
+            if (slice == null)
+                return null;
+
+            if (!slice.fill(resource))
+            {
+                discard(slice);
+                return null;
+            }
+
+            Slice existing = _slices.putIfAbsent(key, slice);
+            if (existing == null)
+                return slice;
+            // Another thread stored the resource concurrently.
+            discard(slice);
+        }
+    }
+
+    private Slice allocate(Key key, int length)
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            Arena arena = _current;
+            if (arena != null)
+            {
+                int offset = arena.takeGap(length);
+                if (offset >= 0)
+                    return newSlice(key, arena, offset, length);
+            }
+
+            if (arena == null || (long)arena._position + length > _arenaSize)
+            {
+                if (arena != null)
+                {
+                    // The current arena is full, retire it if it is no longer used.
+                    _current = null;
+                    if (arena._live == 0)
+                        retire(arena);
+                }
+                if (_arenas.size() >= _maxArenas)
+                {
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("No space to store {} bytes in {}", length, this);
+                    return null;
+                }
+                arena = newArena();
+                if (arena == null)
+                    return null;
+                _current = arena;
+            }
+
+            int offset = arena._position;
+            arena._position += length;
+            return newSlice(key, arena, offset, length);
+        }
+    }
+
+    private Slice newSlice(Key key, Arena arena, int offset, int length)
+    {
+        ByteBuffer buffer = arena._buffer.duplicate();
+        buffer.limit(offset + length);
+        buffer.position(offset);
+        arena._live++;
+        arena._liveBytes += length;
+        return new Slice(key, arena, offset, buffer.slice());
+    }
+
+    private Arena newArena()
+    {
+        Path file = null;
+        try
+        {
+            Path directory = _directory == null ? Path.of(System.getProperty("java.io.tmpdir")) : _directory;
+            file = Files.createTempFile(directory, "jetty-content-", ".arena");
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE))
+            {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, _arenaSize);
+                Arena arena = new Arena(file, buffer);
+                _arenas.add(arena);
+                return arena;
+            }
+        }
+        catch (IOException x)
+        {
+            LOG.warn("Could not create arena {}", file, x);
+            delete(file);
+            return null;
+        }
+    }
+
+    private void released(Slice slice)
+    {
+        _slices.remove(slice._key, slice);
+        try (AutoLock l = _lock.lock())
+        {
+            Arena arena = slice._arena;
+            arena._live--;
+            arena._liveBytes -= slice._buffer.capacity();
+            // Retire the arena as soon as it is unused, even if it is the current one.
+            if (arena._live == 0 && _arenas.contains(arena))
+            {
+                if (arena == _current)
+                    _current = null;
+                retire(arena);
+            }
+        }
+    }
+
+    /**
+     * <p>Frees a slice that was never handed out, so its space can be reused immediately.</p>
+     */
+    private void discard(Slice slice)
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            Arena arena = slice._arena;
+            int length = slice._buffer.capacity();
+            arena._live--;
+            arena._liveBytes -= length;
+            if (arena._live == 0 && arena != _current && _arenas.contains(arena))
+                retire(arena);
+            else
+                arena.addGap(slice._offset, length);
+        }
+    }
+
+    private void retire(Arena arena)
+    {
+        // The mapping stays valid for the slices still referenced by in-flight responses.
+        _arenas.remove(arena);
+        _retiredArenas++;
+        _generation++;
+        unmapped(arena);
+    }
+
+    private void unmapped(Arena arena)
+    {
+        // Track the mapping until its buffers are garbage collected.
+        pollUnmapped();
+        RetiredMapping mapping = new RetiredMapping(arena._buffer, _unmapped);
+        _retiredMappings.add(mapping);
+        _retiredMappedBytes += mapping._size;
+        delete(arena._file);
+    }
+
+    private void pollUnmapped()
+    {
+        assert _lock.isHeldByCurrentThread();
+        Reference<? extends MappedByteBuffer> reference;
+        while ((reference = _unmapped.poll()) != null)
+        {
+            if (_retiredMappings.remove(reference))
+                _retiredMappedBytes -= ((RetiredMapping)reference)._size;
+        }
+    }
+
+    private void delete(Path file)
+    {
+        if (file == null)
+            return;
+        try
+        {
+            Files.deleteIfExists(file);
+        }
+        catch (IOException x)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Could not delete {}", file, x);
+        }
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        _slices.clear();
+        try (AutoLock l = _lock.lock())
+        {
+            for (Arena arena : _arenas)
+            {
+                unmapped(arena);
+            }
+            _arenas.clear();
+            _current = null;
+            _generation++;
+        }
+        super.doStop();
+    }
+
+    @Override
+    public void dump(Appendable out, String indent) throws IOException
+    {
+        List<Arena> arenas;
+        try (AutoLock l = _lock.lock())
+        {
+            arenas = new ArrayList<>(_arenas);
+        }
+        Dumpable.dumpObjects(out, indent, this, new DumpableCollection("arenas", arenas));
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{arenas=%d/%d,size=%d,stored=%d}", getClass().getSimpleName(), hashCode(), getArenaCount(), getMaxArenas(), getArenaSize(), getStoredCount());
+    }
+
+    /**
+     * <p>A reference counted slice of an arena holding the bytes of a resource.</p>
+     */
+    public class Slice
+    {
+        private final AtomicInteger _references = new AtomicInteger(1);
+        private final Key _key;
+        private final Arena _arena;
+        private final int _offset;
+        private final ByteBuffer _buffer;
+
+        private Slice(Key key, Arena arena, int offset, ByteBuffer buffer)
+        {
+            _key = key;
+            _arena = arena;
+            _offset = offset;
+            _buffer = buffer;
+        }
+
+        /**
+         * @return a read-only view of the resource bytes
+         */
+        public ByteBuffer getBuffer()
+        {
+            return _buffer.asReadOnlyBuffer();
+        }
+
+        private boolean fill(Resource resource)
+        {
+            ByteBuffer buffer = _buffer.duplicate();
+            try (ReadableByteChannel channel = resource.getReadableByteChannel())
+            {
+                if (channel == null)
+                    return false;
+                while (buffer.hasRemaining())
+                {
+                    if (channel.read(buffer) < 0)
+                        return false;
+                }
+                return true;
+            }
+            catch (IOException x)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Could not store {}", resource, x);
+                return false;
+            }
+        }
+
+        private boolean retain()
+        {
+            while (true)
+            {
+                int references = _references.get();
+                if (references == 0)
+                    return false;
+                if (_references.compareAndSet(references, references + 1))
+                    return true;
+            }
+        }
+
+        /**
+         * Releases this slice; the arena space is reclaimed when all its slices are released.
+         */
+        public void release()
+        {
+            if (_references.decrementAndGet() == 0)
+                released(this);
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x{%s,r=%d}", getClass().getSimpleName(), hashCode(), _key._uri, _references.get());
+        }
+    }
+
+    private static class RetiredMapping extends PhantomReference<MappedByteBuffer>
+    {
+        private final int _size;
+
+        private RetiredMapping(MappedByteBuffer buffer, ReferenceQueue<MappedByteBuffer> queue)
+        {
+            super(buffer, queue);
+            _size = buffer.capacity();
+        }
+    }
+
+    private static class Arena
+    {
+        private final Path _file;
+        private final MappedByteBuffer _buffer;
+        // Guarded by _lock.
+        private final List<int[]> _gaps = new ArrayList<>();
+        private int _position;
+        private int _live;
+        private long _liveBytes;
+
+        private Arena(Path file, MappedByteBuffer buffer)
+        {
+            _file = file;
+            _buffer = buffer;
+        }
+
+        private void addGap(int offset, int length)
+        {
+            if (offset + length == _position)
+                _position = offset;
+            else
+                _gaps.add(new int[]{offset, length});
+        }
+
+        /**
+         * @param length the length of the space to take
+         * @return the offset of the space taken from a gap, or -1 if no gap is large enough
+         */
+        private int takeGap(int length)
+        {
+            for (int i = 0; i < _gaps.size(); i++)
+            {
+                int[] gap = _gaps.get(i);
+                if (gap[1] < length)
+                    continue;
+                int offset = gap[0];
+                if (gap[1] == length)
+                    _gaps.remove(i);
+                else
+                {
+                    gap[0] += length;
+                    gap[1] -= length;
+                }
+                return offset;
+            }
+            return -1;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s{file=%s,position=%d,live=%d,liveBytes=%d}", getClass().getSimpleName(), _file, _position, _live, _liveBytes);
+        }
+    }
+
+    private static class Key
+    {
+        private final String _uri;
+        private final long _lastModified;
+        private final long _length;
+
+        private Key(String uri, long lastModified, long length)
+        {
+            _uri = uri;
+            _lastModified = lastModified;
+            _length = length;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Key))
+                return false;
+            Key that = (Key)obj;
+            return _lastModified == that._lastModified && _length == that._length && _uri.equals(that._uri);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(_uri, _lastModified, _length);
+        }
+    }
+}
@@ -23,17 +23,21 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import javax.servlet.MultipartConfigElement;
+import javax.servlet.ReadListener;
 import javax.servlet.ServletInputStream;
 import javax.servlet.http.Part;
 
@@ -41,6 +45,7 @@ import org.eclipse.jetty.server.MultiParts.NonCompliance;
 import org.eclipse.jetty.server.handler.ContextHandler;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.ByteArrayOutputStream2;
+import org.eclipse.jetty.util.IO;
 import org.eclipse.jetty.util.MultiException;
 import org.eclipse.jetty.util.MultiMap;
 import org.eclipse.jetty.util.QuotedStringTokenizer;
@@ -77,6 +82,11 @@ import org.slf4j.LoggerFactory;
  *                      +---------------> DELETING -------------------+
  *                        deleteParts()               parsing thread
  * }</pre>
+ * <p>
+ * The content may be parsed either by blocking reads with {@link #getParts()}, or asynchronously
+ * with {@link #parseAsync(PartListener)}, in which case the parts are produced as the request content
+ * arrives and each completed part is passed to a {@link PartListener}.
+ * </p>
  * @see <a href="https://tools.ietf.org/html/rfc7578">https://tools.ietf.org/html/rfc7578</a>
  */
 public class MultiPartFormInputStream
@@ -95,6 +105,7 @@ public class MultiPartFormInputStream
     private final AutoLock _lock = new AutoLock();
     private final MultiMap<Part> _parts = new MultiMap<>();
     private final EnumSet<NonCompliance> _nonComplianceWarnings = EnumSet.noneOf(NonCompliance.class);
+    private final InputStream _input;
     private final InputStream _in;
     private final MultipartConfigElement _config;
     private final File _contextTmpDir;
@@ -106,6 +117,8 @@ public class MultiPartFormInputStream
     private volatile boolean _deleteOnExit;
     private volatile boolean _writeFilesWithFilenames;
     private volatile int _bufferSize = 16 * 1024;
+    private volatile PartListener _partListener;
+    private boolean _async;
     private State state = State.UNPARSED;
 
     /**
@@ -121,6 +134,7 @@ public class MultiPartFormInputStream
         protected String _name;
         protected String _filename;
         protected File _file;
+        protected FileChannel _channel;
         protected OutputStream _out;
         protected ByteArrayOutputStream2 _bout;
         protected String _contentType;
@@ -164,35 +178,85 @@ public class MultiPartFormInputStream
 
         protected void close() throws IOException
         {
-            _out.close();
+            if (_channel != null)
+                _channel.close();
+            else if (_out != null)
+                _out.close();
         }
 
         protected void write(int b) throws IOException
         {
-            if (MultiPartFormInputStream.this._config.getMaxFileSize() > 0 && _size + 1 > MultiPartFormInputStream.this._config.getMaxFileSize())
-                throw new IllegalStateException("Multipart Mime part " + _name + " exceeds max filesize");
-
-            if (MultiPartFormInputStream.this._config.getFileSizeThreshold() > 0 &&
-                _size + 1 > MultiPartFormInputStream.this._config.getFileSizeThreshold() && _file == null)
-                createFile();
-
-            _out.write(b);
-            _size++;
+            write(new byte[]{(byte)b}, 0, 1);
         }
 
         protected void write(byte[] bytes, int offset, int length) throws IOException
         {
+            write(ByteBuffer.wrap(bytes, offset, length));
+        }
+
+        /**
+         * <p>Write content to the part.</p>
+         * <p>Content is kept in memory until the part exceeds the
+         * {@link MultipartConfigElement#getFileSizeThreshold() file size threshold}, at which
+         * point the content in memory and the passed buffers are spilled to a file with a
+         * single gathering write.</p>
+         *
+         * @param buffers the content, which is consumed by this call
+         * @throws IOException if the content cannot be written
+         */
+        protected void write(ByteBuffer... buffers) throws IOException
+        {
+            long length = 0;
+            for (ByteBuffer buffer : buffers)
+            {
+                length += buffer.remaining();
+            }
+
             if (MultiPartFormInputStream.this._config.getMaxFileSize() > 0 && _size + length > MultiPartFormInputStream.this._config.getMaxFileSize())
                 throw new IllegalStateException("Multipart Mime part " + _name + " exceeds max filesize");
 
             if (MultiPartFormInputStream.this._config.getFileSizeThreshold() > 0 &&
                 _size + length > MultiPartFormInputStream.this._config.getFileSizeThreshold() && _file == null)
-                createFile();
-
-            _out.write(bytes, offset, length);
+            {
+                // Spill what is in memory together with the new content.
+                ByteBuffer memory = _bout == null || _bout.size() == 0 ? null : ByteBuffer.wrap(_bout.getBuf(), 0, _bout.size());
+                openFile();
+                if (memory == null)
+                {
+                    writeFully(buffers, length);
+                }
+                else
+                {
+                    ByteBuffer[] gathered = new ByteBuffer[buffers.length + 1];
+                    gathered[0] = memory;
+                    System.arraycopy(buffers, 0, gathered, 1, buffers.length);
+                    writeFully(gathered, memory.remaining() + length);
+                }
+                _bout = null;
+                _out = null;
+            }
+            else if (_channel != null)
+            {
+                writeFully(buffers, length);
+            }
+            else
+            {
+                for (ByteBuffer buffer : buffers)
+                {
+                    BufferUtil.writeTo(buffer, _out);
+                }
+            }
             _size += length;
         }
 
+        private void writeFully(ByteBuffer[] buffers, long length) throws IOException
+        {
+            while (length > 0)
+            {
+                length -= _channel.write(buffers);
+            }
+        }
+
         @Override
         public void write(String fileName) throws IOException
         {
@@ -229,23 +293,21 @@ public class MultiPartFormInputStream
         }
 
         protected void createFile() throws IOException
+        {
+            ByteBuffer memory = _bout == null || _bout.size() == 0 ? null : ByteBuffer.wrap(_bout.getBuf(), 0, _bout.size());
+            openFile();
+            if (memory != null)
+                writeFully(new ByteBuffer[]{memory}, memory.remaining());
+            _bout = null;
+            _out = null;
+        }
+
+        private void openFile() throws IOException
         {
             Path parent = MultiPartFormInputStream.this._tmpDir;
             Path tempFile = Files.createTempFile(parent, "MultiPart", "");
             _file = tempFile.toFile();
-
-            OutputStream fos = Files.newOutputStream(tempFile, StandardOpenOption.WRITE);
-            BufferedOutputStream bos = new BufferedOutputStream(fos);
-
-            if (_size > 0 && _out != null)
-            {
-                // already written some bytes, so need to copy them into the file
-                _out.flush();
-                _bout.writeTo(bos);
-                _out.close();
-            }
-            _bout = null;
-            _out = bos;
+            _channel = FileChannel.open(tempFile, StandardOpenOption.WRITE);
         }
 
         protected void setHeaders(MultiMap<String> headers)
@@ -326,6 +388,7 @@ public class MultiPartFormInputStream
         @Override
         public void delete() throws IOException
         {
+            IO.close(_channel);
             if (_file != null && _file.exists())
                 if (!_file.delete())
                     throw new IOException("Could Not Delete File");
@@ -396,12 +459,14 @@ public class MultiPartFormInputStream
         {
             if (((ServletInputStream)in).isFinished())
             {
+                _input = null;
                 _in = null;
                 state = State.PARSED;
                 return;
             }
         }
 
+        _input = in;
         _in = new BufferedInputStream(in);
     }
 
@@ -489,7 +554,7 @@ public class MultiPartFormInputStream
     {
         parse();
         throwIfError();
-        return _parts.values().stream().flatMap(List::stream).collect(Collectors.toList());
+        return getAllParts();
     }
 
     /**
@@ -506,6 +571,57 @@ public class MultiPartFormInputStream
         return _parts.getValue(name, 0);
     }
 
+    /**
+     * <p>Parse the multipart content asynchronously.</p>
+     * <p>The content is read with a {@link ReadListener}, so the request must have been put in
+     * asynchronous mode with {@link javax.servlet.ServletRequest#startAsync()}. When the input stream
+     * is a {@link HttpInput}, the parser is installed as an {@link HttpInput.Interceptor} so that it
+     * is fed directly from the buffers read from the network, rather than from copies of them.</p>
+     * <p>Each part is passed to the listener as soon as its content is complete, from the thread
+     * that reads the content. Parts must not be deleted before the returned future is completed.</p>
+     *
+     * @param listener the listener notified of each part, or null
+     * @return a future completed with the parts once the whole content is parsed
+     */
+    public CompletableFuture<Collection<Part>> parseAsync(PartListener listener)
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            switch (state)
+            {
+                case UNPARSED:
+                    state = State.PARSING;
+                    _async = true;
+                    break;
+
+                case PARSED:
+                    if (_err != null)
+                        return CompletableFuture.failedFuture(_err);
+                    return CompletableFuture.completedFuture(getAllParts());
+
+                default:
+                    return CompletableFuture.failedFuture(new IllegalStateException(state.name()));
+            }
+        }
+
+        _partListener = listener;
+        AsyncParser asyncParser = new AsyncParser();
+        try
+        {
+            asyncParser.start();
+        }
+        catch (Throwable x)
+        {
+            asyncParser.onError(x);
+        }
+        return asyncParser._future;
+    }
+
+    private List<Part> getAllParts()
+    {
+        return _parts.values().stream().flatMap(List::stream).collect(Collectors.toList());
+    }
+
     /**
      * Throws an exception if one has been latched.
      *
@@ -543,6 +659,12 @@ public class MultiPartFormInputStream
                 case PARSED:
                     return;
 
+                case PARSING:
+                    if (_async)
+                        throw new IllegalStateException("Asynchronous parsing in progress");
+                    _err = new IOException(state.name());
+                    return;
+
                 default:
                     _err = new IOException(state.name());
                     return;
@@ -552,32 +674,8 @@ public class MultiPartFormInputStream
         MultiPartParser parser = null;
         try
         {
-            // Sort out the location to which to write files:
-            // If there is a MultiPartConfigElement.location, use it
-            // otherwise default to the context tmp dir
-            if (StringUtil.isBlank(_config.getLocation()))
-                _tmpDir = _contextTmpDir.toPath();
-            else
-            {
-                // If the MultiPartConfigElement.location is
-                // relative, make it relative to the context tmp dir
-                Path location = FileSystems.getDefault().getPath(_config.getLocation());
-                _tmpDir = (location.isAbsolute() ? location : _contextTmpDir.toPath().resolve(location));
-            }
-
-            if (!Files.exists(_tmpDir))
-                Files.createDirectories(_tmpDir);
-
-            String contentTypeBoundary = "";
-            int bstart = _contentType.indexOf("boundary=");
-            if (bstart >= 0)
-            {
-                int bend = _contentType.indexOf(";", bstart);
-                bend = (bend < 0 ? _contentType.length() : bend);
-                contentTypeBoundary = QuotedStringTokenizer.unquote(value(_contentType.substring(bstart, bend)).trim());
-            }
-
-            parser = new MultiPartParser(new Handler(), contentTypeBoundary);
+            Handler handler = new Handler();
+            parser = newMultiPartParser(handler);
             byte[] data = new byte[_bufferSize];
             int len;
             long total = 0;
@@ -606,7 +704,10 @@ public class MultiPartFormInputStream
 
                     ByteBuffer buffer = BufferUtil.toBuffer(data);
                     buffer.limit(len);
-                    if (parser.parse(buffer, false))
+                    boolean handle = parser.parse(buffer, false);
+                    // The data array is reused by the next read, so the parsed content must be written out now.
+                    handler.flush();
+                    if (handle || _err != null)
                         break;
 
                     if (buffer.hasRemaining())
@@ -615,6 +716,7 @@ public class MultiPartFormInputStream
                 else if (len == -1)
                 {
                     parser.parse(BufferUtil.EMPTY_BUFFER, true);
+                    handler.flush();
                     break;
                 }
             }
@@ -626,13 +728,7 @@ public class MultiPartFormInputStream
             }
 
             // check we read to the end of the message
-            if (parser.getState() != MultiPartParser.State.END)
-            {
-                if (parser.getState() == MultiPartParser.State.PREAMBLE)
-                    _err = new IOException("Missing initial multi part boundary");
-                else
-                    _err = new IOException("Incomplete Multipart");
-            }
+            checkParserEnd(parser);
 
             if (LOG.isDebugEnabled())
             {
@@ -649,32 +745,79 @@ public class MultiPartFormInputStream
         }
         finally
         {
-            boolean cleanup = false;
-            try (AutoLock l = _lock.lock())
+            parsed();
+        }
+    }
+
+    private MultiPartParser newMultiPartParser(Handler handler) throws IOException
+    {
+        // Sort out the location to which to write files:
+        // If there is a MultiPartConfigElement.location, use it
+        // otherwise default to the context tmp dir
+        if (StringUtil.isBlank(_config.getLocation()))
+            _tmpDir = _contextTmpDir.toPath();
+        else
+        {
+            // If the MultiPartConfigElement.location is
+            // relative, make it relative to the context tmp dir
+            Path location = FileSystems.getDefault().getPath(_config.getLocation());
+            _tmpDir = (location.isAbsolute() ? location : _contextTmpDir.toPath().resolve(location));
+        }
+
+        if (!Files.exists(_tmpDir))
+            Files.createDirectories(_tmpDir);
+
+        String contentTypeBoundary = "";
+        int bstart = _contentType.indexOf("boundary=");
+        if (bstart >= 0)
+        {
+            int bend = _contentType.indexOf(";", bstart);
+            bend = (bend < 0 ? _contentType.length() : bend);
+            contentTypeBoundary = QuotedStringTokenizer.unquote(value(_contentType.substring(bstart, bend)).trim());
+        }
+
+        return new MultiPartParser(handler, contentTypeBoundary);
+    }
+
+    private void checkParserEnd(MultiPartParser parser)
+    {
+        if (parser.getState() != MultiPartParser.State.END)
+        {
+            if (parser.getState() == MultiPartParser.State.PREAMBLE)
+                _err = new IOException("Missing initial multi part boundary");
+            else
+                _err = new IOException("Incomplete Multipart");
+        }
+    }
+
+    private void parsed()
+    {
+        boolean cleanup = false;
+        try (AutoLock l = _lock.lock())
+        {
+            switch (state)
             {
-                switch (state)
-                {
-                    case PARSING:
-                        state = State.PARSED;
-                        break;
+                case PARSING:
+                    state = State.PARSED;
+                    break;
 
-                    case DELETING:
-                        state = State.DELETED;
-                        cleanup = true;
-                        break;
+                case DELETING:
+                    state = State.DELETED;
+                    cleanup = true;
+                    break;
 
-                    default:
-                        _err = new IllegalStateException(state.name());
-                }
+                default:
+                    _err = new IllegalStateException(state.name());
             }
-
-            if (cleanup)
-                delete();
         }
+
+        if (cleanup)
+            delete();
     }
 
     class Handler implements MultiPartParser.Handler
     {
+        private final List<ByteBuffer> _pending = new ArrayList<>();
         private MultiPart _part = null;
         private String contentDisposition = null;
         private String contentType = null;
@@ -780,21 +923,17 @@ public class MultiPartFormInputStream
             if (_part == null)
                 return false;
 
+            // The content is a slice of the buffer being parsed, so it is only
+            // gathered here and written out by flush() before that buffer is reused.
             if (BufferUtil.hasContent(buffer))
-            {
-                try
-                {
-                    _part.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
-                }
-                catch (IOException e)
-                {
-                    _err = e;
-                    return true;
-                }
-            }
+                _pending.add(buffer);
 
             if (last)
             {
+                flush();
+                if (_err != null)
+                    return true;
+
                 try
                 {
                     _part.close();
@@ -804,11 +943,37 @@ public class MultiPartFormInputStream
                     _err = e;
                     return true;
                 }
+
+                PartListener listener = _partListener;
+                if (listener != null)
+                    listener.onPart(_part);
             }
 
             return false;
         }
 
+        /**
+         * Write the content gathered since the last flush to the current part.
+         */
+        public void flush()
+        {
+            if (_pending.isEmpty())
+                return;
+
+            try
+            {
+                _part.write(_pending.toArray(new ByteBuffer[0]));
+            }
+            catch (IOException e)
+            {
+                _err = e;
+            }
+            finally
+            {
+                _pending.clear();
+            }
+        }
+
         @Override
         public void startPart()
         {
@@ -826,6 +991,7 @@ public class MultiPartFormInputStream
 
             try
             {
+                _pending.clear();
                 if (_part != null)
                     _part.close();
             }
@@ -837,6 +1003,7 @@ public class MultiPartFormInputStream
 
         public void reset()
         {
+            _pending.clear();
             _part = null;
             contentDisposition = null;
             contentType = null;
@@ -844,6 +1011,169 @@ public class MultiPartFormInputStream
         }
     }
 
+    /**
+     * Parses the content read by a {@link ReadListener}. When reading from a {@link HttpInput}
+     * it also intercepts the content, so that all the data is parsed from the network buffers
+     * and only the EOF or a failure reach the {@link ReadListener}.
+     */
+    private class AsyncParser implements ReadListener, HttpInput.Interceptor
+    {
+        private final CompletableFuture<Collection<Part>> _future = new CompletableFuture<>();
+        private final Handler _handler = new Handler();
+        private MultiPartParser _parser;
+        private ByteBuffer _heapBuffer;
+        private long _total;
+
+        private void start() throws IOException
+        {
+            if (!(_input instanceof ServletInputStream))
+                throw new IllegalStateException("Asynchronous parsing requires a ServletInputStream");
+            _parser = newMultiPartParser(_handler);
+
+            ServletInputStream input = (ServletInputStream)_input;
+            if (input instanceof HttpInput)
+                ((HttpInput)input).addInterceptor(this);
+            input.setReadListener(this);
+        }
+
+        @Override
+        public HttpInput.Content readFrom(HttpInput.Content content)
+        {
+            if (content.isSpecial())
+                return content;
+
+            try
+            {
+                parse(content.getByteBuffer());
+            }
+            catch (Throwable x)
+            {
+                if (_err == null)
+                    _err = x;
+            }
+
+            if (_err != null)
+                return new HttpInput.ErrorContent(_err);
+            return content.isEof() ? new HttpInput.EofContent() : null;
+        }
+
+        @Override
+        public void onDataAvailable() throws IOException
+        {
+            // Only reached with content that was not intercepted.
+            ServletInputStream input = (ServletInputStream)_input;
+            byte[] data = new byte[_bufferSize];
+            while (input.isReady())
+            {
+                int len = input.read(data);
+                if (len < 0)
+                    return;
+                parse(ByteBuffer.wrap(data, 0, len));
+                if (_err != null)
+                    throw new IOException(_err);
+            }
+        }
+
+        private void parse(ByteBuffer buffer)
+        {
+            try (AutoLock l = _lock.lock())
+            {
+                if (state != State.PARSING)
+                    throw new IllegalStateException(state.name());
+            }
+
+            // keep running total of size of bytes read from input and throw an exception if exceeds MultipartConfigElement._maxRequestSize
+            _total += buffer.remaining();
+            if (_config.getMaxRequestSize() > 0 && _total > _config.getMaxRequestSize())
+                throw new IllegalStateException("Request exceeds maxRequestSize (" + _config.getMaxRequestSize() + ")");
+
+            if (buffer.hasArray())
+            {
+                parseChunk(buffer);
+            }
+            else
+            {
+                // The parser searches for the boundary in a byte array, so copy direct buffers in chunks.
+                if (_heapBuffer == null)
+                    _heapBuffer = BufferUtil.allocate(_bufferSize);
+                while (buffer.hasRemaining() && _err == null)
+                {
+                    BufferUtil.clearToFill(_heapBuffer);
+                    BufferUtil.put(buffer, _heapBuffer);
+                    BufferUtil.flipToFlush(_heapBuffer, 0);
+                    parseChunk(_heapBuffer);
+                }
+            }
+            // Any remaining content is after the close delimiter.
+            BufferUtil.clear(buffer);
+        }
+
+        private void parseChunk(ByteBuffer chunk)
+        {
+            _parser.parse(chunk, false);
+            // The chunk is recycled once parsed, so its content must be written out now.
+            _handler.flush();
+        }
+
+        @Override
+        public void onAllDataRead()
+        {
+            try
+            {
+                _parser.parse(BufferUtil.EMPTY_BUFFER, true);
+                _handler.flush();
+                if (_err == null)
+                    checkParserEnd(_parser);
+            }
+            catch (Throwable x)
+            {
+                if (_err == null)
+                    _err = x;
+            }
+            complete();
+        }
+
+        @Override
+        public void onError(Throwable failure)
+        {
+            if (_err == null)
+                _err = failure;
+            // Notify parser of the failure so that the current part is closed.
+            if (_parser != null)
+                _parser.parse(BufferUtil.EMPTY_BUFFER, true);
+            complete();
+        }
+
+        private void complete()
+        {
+            if (_future.isDone())
+                return;
+
+            parsed();
+
+            if (LOG.isDebugEnabled())
+                LOG.debug("Asynchronous parsing complete {} err={}", _parser, _err);
+
+            if (_err != null)
+                _future.completeExceptionally(_err);
+            else
+                _future.complete(getAllParts());
+        }
+    }
+
+    /**
+     * <p>Listener of the parts produced by {@link #parseAsync(PartListener)}.</p>
+     */
+    public interface PartListener
+    {
+        /**
+         * <p>Callback method invoked when the content of a part is complete.</p>
+         *
+         * @param part the part
+         */
+        void onPart(Part part);
+    }
+
     /**
      * @deprecated no replacement provided.
      */
@@ -42,6 +42,20 @@ public interface RequestLog
     interface Writer
     {
         void write(String requestEntry) throws IOException;
+
+        /**
+         * <p>Writes a log entry held in a possibly reused character sequence.</p>
+         * <p>The sequence is only valid for the duration of the call, so implementations
+         * must copy or encode its content before returning. The default implementation
+         * converts it to a {@link String} and calls {@link #write(String)}.</p>
+         *
+         * @param requestEntry the log entry
+         * @throws IOException if the entry cannot be written
+         */
+        default void write(CharSequence requestEntry) throws IOException
+        {
+            write(requestEntry.toString());
+        }
     }
 
     class Collection implements RequestLog
@@ -17,8 +17,10 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.util.TimeZone;
 
+import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.RolloverFileOutputStream;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
@@ -182,6 +184,38 @@ public class RequestLogWriter extends AbstractLifeCycle implements RequestLog.Wr
         }
     }
 
+    /**
+     * <p>Writes already encoded log entries, each including its line separator.</p>
+     * <p>When the log is a {@link RolloverFileOutputStream} the buffers are written
+     * with a single gathering write, so rollover semantics are preserved.</p>
+     *
+     * @param buffers the encoded log entries
+     * @param offset the index of the first buffer to write
+     * @param length the number of buffers to write
+     * @throws IOException if the entries cannot be written
+     */
+    protected void write(ByteBuffer[] buffers, int offset, int length) throws IOException
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            if (_writer == null)
+                return;
+            _writer.flush();
+            if (_fileOut instanceof RolloverFileOutputStream)
+            {
+                ((RolloverFileOutputStream)_fileOut).write(buffers, offset, length);
+            }
+            else
+            {
+                for (int i = offset; i < offset + length; i++)
+                {
+                    BufferUtil.writeTo(buffers[i], _fileOut);
+                }
+            }
+            _fileOut.flush();
+        }
+    }
+
     @Override
     protected void doStart() throws Exception
     {
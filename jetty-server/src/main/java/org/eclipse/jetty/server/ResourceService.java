@@ -46,6 +46,8 @@ import org.eclipse.jetty.io.WriterOutputStream;
 import org.eclipse.jetty.server.resource.HttpContentRangeWriter;
 import org.eclipse.jetty.server.resource.InputStreamRangeWriter;
 import org.eclipse.jetty.server.resource.RangeWriter;
+import org.eclipse.jetty.server.resource.RangesContentSupplier;
+import org.eclipse.jetty.server.resource.SharedFileChannels;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.IO;
@@ -76,6 +78,7 @@ public class ResourceService
     private CompressedContentFormat[] _precompressedFormats = new CompressedContentFormat[0];
     private String[] _preferredEncodingOrder = new String[0];
     private final Map<String, List<String>> _preferredEncodingOrderCache = new ConcurrentHashMap<>();
+    private final SharedFileChannels _fileChannels = new SharedFileChannels();
     private int _encodingCacheSize = 100;
     private boolean _pathInfoOnly = false;
     private boolean _etags = false;
@@ -783,6 +786,9 @@ public class ResourceService
                     response.addDateHeader(HttpHeader.DATE.asString(), System.currentTimeMillis());
                 response.setHeader(HttpHeader.CONTENT_RANGE.asString(),
                     singleSatisfiableRange.toHeaderRangeString(content_length));
+                RangesContentSupplier supplier = written ? null : newRangesContentSupplier((HttpOutput)out, content, ranges, null);
+                if (supplier != null)
+                    return sendRanges(request, (HttpOutput)out, content, supplier);
                 writeContent(content, out, singleSatisfiableRange.getFirst(), singleLength);
                 return true;
             }
@@ -807,7 +813,18 @@ public class ResourceService
                 ctp = "multipart/x-byteranges; boundary=";
             else
                 ctp = "multipart/byteranges; boundary=";
-            MultiPartOutputStream multi = new MultiPartOutputStream(out);
+
+            // send the parts without blocking if possible
+            String boundary = "jetty" + System.identityHashCode(ranges) + Long.toString(System.currentTimeMillis(), 36);
+            RangesContentSupplier supplier = written ? null : newRangesContentSupplier((HttpOutput)out, content, ranges, boundary);
+            if (supplier != null)
+            {
+                response.setContentType(ctp + supplier.getBoundary());
+                response.setContentLengthLong(supplier.getLength());
+                return sendRanges(request, (HttpOutput)out, content, supplier);
+            }
+
+            MultiPartOutputStream multi = new MultiPartOutputStream(out, boundary);
             response.setContentType(ctp + multi.getBoundary());
 
             // calculate the content-length
@@ -850,6 +867,74 @@ public class ResourceService
         return true;
     }
 
+    private RangesContentSupplier newRangesContentSupplier(HttpOutput out, HttpContent content, List<InclusiveByteRange> ranges, String boundary)
+    {
+        HttpChannel channel = out.getHttpChannel();
+        try
+        {
+            return RangesContentSupplier.newRangesContentSupplier(content, ranges, boundary, _fileChannels,
+                channel.getByteBufferPool(), out.getBufferSize(), channel.isUseOutputDirectByteBuffers());
+        }
+        catch (IOException x)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Unable to supply ranges of {}", content, x);
+            return null;
+        }
+    }
+
+    /**
+     * Sends ranges asynchronously if supported by the request, otherwise blocking.
+     *
+     * @return true if the ranges have been sent, false if they are being sent asynchronously
+     */
+    private boolean sendRanges(HttpServletRequest request, HttpOutput out, HttpContent content, RangesContentSupplier supplier) throws IOException
+    {
+        if (!request.isAsyncSupported())
+        {
+            out.sendContent(supplier);
+            return true;
+        }
+
+        final AsyncContext context = request.startAsync();
+        context.setTimeout(0);
+
+        out.sendContent(supplier, new Callback()
+        {
+            @Override
+            public void succeeded()
+            {
+                context.complete();
+                content.release();
+            }
+
+            @Override
+            public void failed(Throwable x)
+            {
+                String msg = "Failed to send ranges";
+                if (x instanceof IOException)
+                    LOG.debug(msg, x);
+                else
+                    LOG.warn(msg, x);
+                context.complete();
+                content.release();
+            }
+
+            @Override
+            public InvocationType getInvocationType()
+            {
+                return InvocationType.NON_BLOCKING;
+            }
+
+            @Override
+            public String toString()
+            {
+                return String.format("ResourceService@%x$RangesCB", ResourceService.this.hashCode());
+            }
+        });
+        return false;
+    }
+
     private static void writeContent(HttpContent content, OutputStream out, long start, long contentLength) throws IOException
     {
         // Is the write for the whole content?
@@ -0,0 +1,186 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.server.handler;
+
+import java.io.IOException;
+import java.util.function.IntSupplier;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.util.NanoTime;
+import org.eclipse.jetty.util.thread.AdmissionControl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>The fair queuing of requests, shared by {@link QoSHandler} and {@code QoSFilter}.</p>
+ * <p>A request is either admitted immediately, or suspended and queued by priority in the
+ * {@link AdmissionControl}; when the handling of an admitted request completes, {@link #release()}
+ * transfers its permit to the next queued request, which is resumed by an async dispatch.
+ * Queued requests that time out are completed with a 503 response.</p>
+ */
+public class QoSAdmission
+{
+    private static final Logger LOG = LoggerFactory.getLogger(QoSAdmission.class);
+
+    private final String _resumed;
+    private final String _arrival;
+    private final AdmissionControl<AsyncContext> _admission;
+    private final AsyncListener[] _listeners;
+
+    /**
+     * @param name the prefix of the request attributes used to track the admission of requests
+     * @param admission the admission control
+     */
+    public QoSAdmission(String name, AdmissionControl<AsyncContext> admission)
+    {
+        _resumed = name + ".RESUMED";
+        _arrival = name + ".ARRIVAL";
+        _admission = admission;
+        _listeners = new AsyncListener[admission.getMaxPriority() + 1];
+        for (int p = 0; p < _listeners.length; ++p)
+        {
+            _listeners[p] = new QoSAsyncListener(p);
+        }
+    }
+
+    public AdmissionControl<AsyncContext> getAdmissionControl()
+    {
+        return _admission;
+    }
+
+    /**
+     * <p>Admits the given request, or suspends it until a permit is transferred to it.</p>
+     * <p>When this method returns true, the caller must handle the request and then call {@link #release()}.</p>
+     *
+     * @param request the request to admit
+     * @param priority the request priority, computed only if the request needs to be queued
+     * @param suspendMs the time the request is suspended for, or a non positive value for the default async timeout
+     * @return true if the request is admitted, false if it has been suspended
+     */
+    public boolean admit(ServletRequest request, IntSupplier priority, long suspendMs)
+    {
+        Long arrival = (Long)request.getAttribute(_arrival);
+        if (Boolean.TRUE.equals(request.getAttribute(_resumed)))
+        {
+            // The permit was transferred to this request when it was resumed.
+            request.removeAttribute(_resumed);
+            if (LOG.isDebugEnabled())
+                LOG.debug("Resumed {}", request);
+        }
+        else
+        {
+            if (arrival == null)
+            {
+                arrival = NanoTime.now();
+                request.setAttribute(_arrival, arrival);
+            }
+            if (!_admission.tryAcquire())
+            {
+                int p = Math.max(0, Math.min(priority.getAsInt(), _admission.getMaxPriority()));
+                AsyncContext asyncContext = request.startAsync();
+                if (suspendMs > 0)
+                    asyncContext.setTimeout(suspendMs);
+                asyncContext.addListener(_listeners[p]);
+                if (_admission.enqueue(asyncContext, p))
+                {
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("Suspended {}", request);
+                }
+                else
+                {
+                    // A permit was released in the meantime.
+                    request.setAttribute(_resumed, Boolean.TRUE);
+                    asyncContext.dispatch();
+                }
+                return false;
+            }
+            if (LOG.isDebugEnabled())
+                LOG.debug("Accepted {}", request);
+        }
+
+        if (arrival != null)
+        {
+            request.removeAttribute(_arrival);
+            _admission.admitted(arrival);
+        }
+        return true;
+    }
+
+    /**
+     * <p>Releases the permit of an admitted request, transferring it to the next queued request, if any.</p>
+     */
+    public void release()
+    {
+        while (true)
+        {
+            AsyncContext asyncContext = _admission.release();
+            if (asyncContext == null)
+                return;
+            try
+            {
+                asyncContext.getRequest().setAttribute(_resumed, Boolean.TRUE);
+                asyncContext.dispatch();
+                return;
+            }
+            catch (IllegalStateException x)
+            {
+                // The request has completed, release the permit transferred to it.
+                if (LOG.isDebugEnabled())
+                    LOG.debug("dispatch failed", x);
+            }
+        }
+    }
+
+    private class QoSAsyncListener implements AsyncListener
+    {
+        private final int _priority;
+
+        private QoSAsyncListener(int priority)
+        {
+            _priority = priority;
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event)
+        {
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event)
+        {
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) throws IOException
+        {
+            // If the request is no longer queued, it has been
+            // given a permit and is being dispatched.
+            AsyncContext asyncContext = event.getAsyncContext();
+            if (_admission.remove(asyncContext, _priority))
+            {
+                ((HttpServletResponse)event.getSuppliedResponse()).sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                asyncContext.complete();
+            }
+        }
+
+        @Override
+        public void onError(AsyncEvent event)
+        {
+            _admission.remove(event.getAsyncContext(), _priority);
+        }
+    }
+}
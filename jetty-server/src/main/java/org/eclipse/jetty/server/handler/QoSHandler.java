@@ -0,0 +1,193 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server.handler;
+
+import java.io.IOException;
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.thread.AdmissionControl;
+
+/**
+ * <p>Quality of Service Handler.</p>
+ * <p>This handler limits the number of requests handled concurrently to {@link #getMaxRequests()}, without ever
+ * blocking a thread. Requests in excess of the limit are suspended and queued by priority, as computed by
+ * {@link #getPriority(Request)}, and are resumed when the handling of another request completes, or fail with
+ * a 503 response after {@link #getSuspendMs()}.</p>
+ * <p>The priority queues are served with deficit round robin: each priority is given a share of the resumptions
+ * equal to its weight, so that high priorities are served first while low priorities are not starved.
+ * By default the weight of a priority is the priority plus one.</p>
+ * <p>The time spent by requests in the queues, and the time taken by requests to be admitted, are reported
+ * as histograms in microseconds.</p>
+ * <p>This handler offers to non servlet applications the fair queuing mode of {@code QoSFilter}.</p>
+ *
+ * @see QoSAdmission
+ * @see AdmissionControl
+ */
+@ManagedObject("Quality of Service Handler")
+public class QoSHandler extends HandlerWrapper
+{
+    private int _maxRequests = 10;
+    private int _maxPriority = 10;
+    private int[] _weights;
+    private long _suspendMs = -1;
+    private QoSAdmission _admission;
+
+    @ManagedAttribute("maximum number of requests to allow processing of at the same time")
+    public int getMaxRequests()
+    {
+        return _maxRequests;
+    }
+
+    /**
+     * @param maxRequests the max number of requests handled concurrently
+     */
+    public void setMaxRequests(int maxRequests)
+    {
+        if (isStarted())
+            throw new IllegalStateException(getState());
+        _maxRequests = maxRequests;
+    }
+
+    @ManagedAttribute("maximum priority of the requests")
+    public int getMaxPriority()
+    {
+        return _maxPriority;
+    }
+
+    /**
+     * @param maxPriority the max priority returned by {@link #getPriority(Request)}
+     */
+    public void setMaxPriority(int maxPriority)
+    {
+        if (isStarted())
+            throw new IllegalStateException(getState());
+        _maxPriority = maxPriority;
+    }
+
+    /**
+     * @param weights the weight of each priority, from priority 0 to the max priority, or null for the default weights
+     */
+    public void setWeights(int... weights)
+    {
+        if (isStarted())
+            throw new IllegalStateException(getState());
+        _weights = weights;
+    }
+
+    @ManagedAttribute("amount of time a request is suspended for while waiting to be admitted (in ms)")
+    public long getSuspendMs()
+    {
+        return _suspendMs;
+    }
+
+    /**
+     * @param suspendMs the time a request is suspended for while waiting to be admitted,
+     * or a non positive value for the default async timeout
+     */
+    public void setSuspendMs(long suspendMs)
+    {
+        _suspendMs = suspendMs;
+    }
+
+    @ManagedAttribute("number of requests waiting to be admitted")
+    public int getQueueSize()
+    {
+        QoSAdmission admission = _admission;
+        return admission == null ? 0 : admission.getAdmissionControl().getQueueSize();
+    }
+
+    @ManagedAttribute("histogram of the time spent by requests in the queues (in us)")
+    public String getQueueWaitTimes()
+    {
+        QoSAdmission admission = _admission;
+        return admission == null ? null : admission.getAdmissionControl().getQueueWaitTimes().toString();
+    }
+
+    @ManagedAttribute("histogram of the time taken by requests to be admitted (in us)")
+    public String getAdmissionTimes()
+    {
+        QoSAdmission admission = _admission;
+        return admission == null ? null : admission.getAdmissionControl().getAdmissionTimes().toString();
+    }
+
+    /**
+     * @return the admission control, or null if the handler is not started
+     */
+    public AdmissionControl<AsyncContext> getAdmissionControl()
+    {
+        QoSAdmission admission = _admission;
+        return admission == null ? null : admission.getAdmissionControl();
+    }
+
+    @ManagedOperation(value = "resets the statistics", impact = "ACTION")
+    public void resetStatistics()
+    {
+        QoSAdmission admission = _admission;
+        if (admission != null)
+            admission.getAdmissionControl().resetStatistics();
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        AdmissionControl<AsyncContext> admission = _weights == null
+            ? new AdmissionControl<>(_maxRequests, _maxPriority)
+            : new AdmissionControl<>(_maxRequests, _weights);
+        _admission = new QoSAdmission("QoSHandler@" + Integer.toHexString(hashCode()), admission);
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        super.doStop();
+        _admission = null;
+    }
+
+    @Override
+    public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException
+    {
+        QoSAdmission admission = _admission;
+        if (!admission.admit(baseRequest, () -> getPriority(baseRequest), getSuspendMs()))
+            return;
+
+        try
+        {
+            super.handle(target, baseRequest, request, response);
+        }
+        finally
+        {
+            admission.release();
+        }
+    }
+
+    /**
+     * <p>Computes the request priority, between 0 and {@link #getMaxPriority()}.</p>
+     * <p>The default implementation returns 1 for authenticated requests, and 0 otherwise.</p>
+     *
+     * @param baseRequest the request
+     * @return the request priority
+     */
+    protected int getPriority(Request baseRequest)
+    {
+        return baseRequest.getUserPrincipal() != null ? 1 : 0;
+    }
+}
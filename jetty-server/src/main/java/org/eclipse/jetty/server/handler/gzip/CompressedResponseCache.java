@@ -0,0 +1,202 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server.handler.gzip;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.http.CompressedContentFormat;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.thread.AutoLock;
+
+/**
+ * <p>A bounded cache of compressed response bodies, used by {@link GzipHandler}
+ * so that repeated identical dynamic responses are compressed only once.</p>
+ * <p>Only responses that carry a strong {@code ETag} are cached, since a strong
+ * entity tag guarantees that responses with the same tag are byte for byte
+ * identical. Entries are keyed by the request URI, the entity tag and the
+ * content-coding, and are evicted in least recently used order when the cache
+ * exceeds either its maximum number of entries or its maximum size in bytes.</p>
+ */
+@ManagedObject("Cache of compressed response bodies")
+public class CompressedResponseCache
+{
+    private final AutoLock _lock = new AutoLock();
+    private final Map<String, ByteBuffer> _entries = new LinkedHashMap<>(16, 0.75F, true);
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final int _maxEntries;
+    private final long _maxSize;
+    private final int _maxEntrySize;
+    private long _size;
+
+    /**
+     * @param maxEntries the maximum number of cached bodies
+     * @param maxSize the maximum total size in bytes of the cached bodies
+     * @param maxEntrySize the maximum size in bytes of a cached body
+     */
+    public CompressedResponseCache(int maxEntries, long maxSize, int maxEntrySize)
+    {
+        _maxEntries = maxEntries;
+        _maxSize = maxSize;
+        _maxEntrySize = maxEntrySize;
+    }
+
+    /**
+     * @param uri the request URI
+     * @param etag the response {@code ETag}, without the compression suffix
+     * @return the cache key for the gzip compressed response, or null if the response cannot be cached
+     */
+    public String getKey(String uri, String etag)
+    {
+        return getKey(uri, etag, CompressedContentFormat.GZIP.getEncoding());
+    }
+
+    /**
+     * @param uri the request URI
+     * @param etag the response {@code ETag}, without the compression suffix
+     * @param encoding the content-coding of the compressed response
+     * @return the cache key for the response, or null if the response cannot be cached
+     */
+    public String getKey(String uri, String etag, String encoding)
+    {
+        if (uri == null || etag == null || etag.startsWith("W/"))
+            return null;
+        return uri + " " + etag + " " + encoding;
+    }
+
+    /**
+     * @param key the cache key
+     * @return a read only buffer with the compressed body, or null if the body is not cached
+     */
+    public ByteBuffer get(String key)
+    {
+        ByteBuffer body;
+        try (AutoLock l = _lock.lock())
+        {
+            body = _entries.get(key);
+        }
+        if (body == null)
+        {
+            _misses.increment();
+            return null;
+        }
+        _hits.increment();
+        return body.slice();
+    }
+
+    /**
+     * @param key the cache key
+     * @param body the compressed body
+     */
+    public void put(String key, byte[] body)
+    {
+        if (body.length > _maxEntrySize || body.length > _maxSize)
+            return;
+
+        ByteBuffer buffer = ByteBuffer.wrap(body).asReadOnlyBuffer();
+        try (AutoLock l = _lock.lock())
+        {
+            ByteBuffer previous = _entries.put(key, buffer);
+            if (previous != null)
+                _size -= previous.remaining();
+            _size += buffer.remaining();
+
+            Iterator<ByteBuffer> iterator = _entries.values().iterator();
+            while ((_entries.size() > _maxEntries || _size > _maxSize) && iterator.hasNext())
+            {
+                _size -= iterator.next().remaining();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * @return the maximum size in bytes of a cached body
+     */
+    @ManagedAttribute("maximum size in bytes of a cached body")
+    public int getMaxEntrySize()
+    {
+        return _maxEntrySize;
+    }
+
+    @ManagedAttribute("maximum number of cached bodies")
+    public int getMaxEntries()
+    {
+        return _maxEntries;
+    }
+
+    @ManagedAttribute("maximum size in bytes of the cached bodies")
+    public long getMaxSize()
+    {
+        return _maxSize;
+    }
+
+    @ManagedAttribute("number of cached bodies")
+    public int getEntries()
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            return _entries.size();
+        }
+    }
+
+    @ManagedAttribute("size in bytes of the cached bodies")
+    public long getSize()
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            return _size;
+        }
+    }
+
+    @ManagedAttribute("number of cache hits")
+    public long getHits()
+    {
+        return _hits.sum();
+    }
+
+    @ManagedAttribute("number of cache misses")
+    public long getMisses()
+    {
+        return _misses.sum();
+    }
+
+    @ManagedOperation(value = "clears the cache", impact = "ACTION")
+    public void clear()
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            _entries.clear();
+            _size = 0;
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{entries=%d,size=%d,hits=%d,misses=%d}",
+            getClass().getSimpleName(),
+            hashCode(),
+            getEntries(),
+            getSize(),
+            getHits(),
+            getMisses());
+    }
+}
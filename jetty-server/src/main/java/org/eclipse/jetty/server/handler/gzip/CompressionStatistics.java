@@ -0,0 +1,250 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server.handler.gzip;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.component.Dumpable;
+
+/**
+ * <p>Statistics of the responses compressed by a {@link GzipHandler}, kept per compression level,
+ * so that the bytes saved by each level can be compared with the time spent deflating.</p>
+ */
+@ManagedObject("Compression statistics")
+public class CompressionStatistics implements Dumpable
+{
+    private static final int DEFAULT_LEVEL = 6;
+
+    private final Level[] _levels = new Level[Deflater.BEST_COMPRESSION + 1];
+    private final LongAdder _incompressible = new LongAdder();
+    private final LongAdder _cached = new LongAdder();
+
+    public CompressionStatistics()
+    {
+        for (int i = 0; i < _levels.length; i++)
+        {
+            _levels[i] = new Level(i);
+        }
+    }
+
+    /**
+     * Record a compressed response.
+     *
+     * @param level the compression level, or {@link Deflater#DEFAULT_COMPRESSION}
+     * @param bytesIn the number of bytes of the uncompressed content
+     * @param bytesOut the number of bytes of the compressed content
+     * @param nanos the time spent deflating the content
+     */
+    public void record(int level, long bytesIn, long bytesOut, long nanos)
+    {
+        Level l = level(level);
+        l._responses.increment();
+        l._bytesIn.add(bytesIn);
+        l._bytesOut.add(bytesOut);
+        l._nanos.add(nanos);
+    }
+
+    /**
+     * Record a response that was not compressed because its content was incompressible.
+     */
+    public void recordIncompressible()
+    {
+        _incompressible.increment();
+    }
+
+    /**
+     * Record a response whose compressed content was sent from a {@link CompressedResponseCache}.
+     */
+    public void recordCached()
+    {
+        _cached.increment();
+    }
+
+    /**
+     * @param level the compression level
+     * @return the number of responses compressed at the level
+     */
+    public long getResponses(int level)
+    {
+        return level(level)._responses.sum();
+    }
+
+    /**
+     * @param level the compression level
+     * @return the number of uncompressed bytes deflated at the level
+     */
+    public long getBytesIn(int level)
+    {
+        return level(level)._bytesIn.sum();
+    }
+
+    /**
+     * @param level the compression level
+     * @return the number of compressed bytes produced at the level
+     */
+    public long getBytesOut(int level)
+    {
+        return level(level)._bytesOut.sum();
+    }
+
+    /**
+     * @param level the compression level
+     * @return the number of bytes saved by compressing at the level
+     */
+    public long getBytesSaved(int level)
+    {
+        Level l = level(level);
+        return l._bytesIn.sum() - l._bytesOut.sum();
+    }
+
+    /**
+     * @param level the compression level
+     * @return the time spent deflating at the level, in nanoseconds
+     */
+    public long getCompressionNanos(int level)
+    {
+        return level(level)._nanos.sum();
+    }
+
+    @ManagedAttribute("number of compressed responses")
+    public long getResponses()
+    {
+        long responses = 0;
+        for (Level level : _levels)
+        {
+            responses += level._responses.sum();
+        }
+        return responses;
+    }
+
+    @ManagedAttribute("number of bytes saved by compression")
+    public long getBytesSaved()
+    {
+        long saved = 0;
+        for (Level level : _levels)
+        {
+            saved += level._bytesIn.sum() - level._bytesOut.sum();
+        }
+        return saved;
+    }
+
+    @ManagedAttribute("time spent compressing (in ms)")
+    public long getCompressionTime()
+    {
+        long nanos = 0;
+        for (Level level : _levels)
+        {
+            nanos += level._nanos.sum();
+        }
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    @ManagedAttribute("number of responses not compressed because incompressible")
+    public long getIncompressibleResponses()
+    {
+        return _incompressible.sum();
+    }
+
+    @ManagedAttribute("number of responses sent from the compressed response cache")
+    public long getCachedResponses()
+    {
+        return _cached.sum();
+    }
+
+    @ManagedOperation(value = "resets the statistics", impact = "ACTION")
+    public void reset()
+    {
+        for (Level level : _levels)
+        {
+            level._responses.reset();
+            level._bytesIn.reset();
+            level._bytesOut.reset();
+            level._nanos.reset();
+        }
+        _incompressible.reset();
+        _cached.reset();
+    }
+
+    private Level level(int level)
+    {
+        if (level == Deflater.DEFAULT_COMPRESSION)
+            level = DEFAULT_LEVEL;
+        if (level < 0 || level >= _levels.length)
+            throw new IllegalArgumentException("Invalid compression level " + level);
+        return _levels[level];
+    }
+
+    @Override
+    public void dump(Appendable out, String indent) throws IOException
+    {
+        List<Level> levels = new ArrayList<>();
+        for (Level level : _levels)
+        {
+            if (level._responses.sum() > 0)
+                levels.add(level);
+        }
+        Dumpable.dumpObjects(out, indent, this, levels);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{responses=%d,saved=%d,time=%dms,incompressible=%d,cached=%d}",
+            getClass().getSimpleName(),
+            hashCode(),
+            getResponses(),
+            getBytesSaved(),
+            getCompressionTime(),
+            getIncompressibleResponses(),
+            getCachedResponses());
+    }
+
+    private static class Level
+    {
+        private final int _level;
+        private final LongAdder _responses = new LongAdder();
+        private final LongAdder _bytesIn = new LongAdder();
+        private final LongAdder _bytesOut = new LongAdder();
+        private final LongAdder _nanos = new LongAdder();
+
+        private Level(int level)
+        {
+            _level = level;
+        }
+
+        @Override
+        public String toString()
+        {
+            long in = _bytesIn.sum();
+            long out = _bytesOut.sum();
+            long nanos = _nanos.sum();
+            return String.format("level=%d responses=%d in=%d out=%d saved=%d time=%dus savedPerMs=%d",
+                _level,
+                _responses.sum(),
+                in,
+                out,
+                in - out,
+                TimeUnit.NANOSECONDS.toMicros(nanos),
+                nanos == 0 ? 0 : (in - out) * 1_000_000 / nanos);
+        }
+    }
+}
@@ -13,6 +13,12 @@
 
 package org.eclipse.jetty.server.handler.gzip;
 
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.eclipse.jetty.http.CompressedContentFormat;
+import org.eclipse.jetty.http.encoding.ContentEncoding;
+import org.eclipse.jetty.http.encoding.GzipContentEncoding;
 import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.util.compression.DeflaterPool;
 
@@ -20,5 +26,68 @@ public interface GzipFactory
 {
     DeflaterPool.Entry getDeflaterEntry(Request request, long contentLength);
 
+    /**
+     * <p>Get the encoder of the response content.</p>
+     * <p>The default implementation encodes with gzip using the
+     * {@link #getDeflaterEntry(Request, long) deflater entry}.</p>
+     *
+     * @param request the request
+     * @param contentLength the length of the response content, or -1 if unknown
+     * @return the encoder, or null if the response should not be compressed
+     */
+    default ContentEncoding.Encoder getContentEncoder(Request request, long contentLength)
+    {
+        DeflaterPool.Entry entry = getDeflaterEntry(request, contentLength);
+        return entry == null ? null : new GzipContentEncoding.GzipEncoder(entry);
+    }
+
+    /**
+     * @return the formats of the content that may be produced by the {@link #getContentEncoder(Request, long) encoders}
+     */
+    default List<CompressedContentFormat> getContentFormats()
+    {
+        return List.of(CompressedContentFormat.GZIP);
+    }
+
     boolean isMimeTypeGzipable(String mimetype);
+
+    /**
+     * @param request the request
+     * @param content the first content of the response
+     * @return whether the content is worth compressing
+     */
+    default boolean isCompressible(Request request, ByteBuffer content)
+    {
+        return true;
+    }
+
+    /**
+     * @return the cache of compressed response bodies, or null for no caching
+     */
+    default CompressedResponseCache getCompressedResponseCache()
+    {
+        return null;
+    }
+
+    /**
+     * Called when the compression of a response is complete.
+     *
+     * @param request the request
+     * @param level the compression level of the {@link #getContentEncoder(Request, long) encoder}
+     * @param bytesIn the number of bytes of the uncompressed content
+     * @param bytesOut the number of bytes of the compressed content
+     * @param nanos the time spent deflating the content
+     */
+    default void onCompressed(Request request, int level, long bytesIn, long bytesOut, long nanos)
+    {
+    }
+
+    /**
+     * Called when a response is sent from the {@link #getCompressedResponseCache() cache}.
+     *
+     * @param request the request
+     */
+    default void onCached(Request request)
+    {
+    }
 }
@@ -14,10 +14,12 @@
 package org.eclipse.jetty.server.handler.gzip;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Set;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.zip.Deflater;
@@ -34,8 +36,13 @@ import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.MimeTypes;
 import org.eclipse.jetty.http.PreEncodedHttpField;
+import org.eclipse.jetty.http.encoding.ContentEncoding;
+import org.eclipse.jetty.http.encoding.ContentEncodings;
+import org.eclipse.jetty.http.encoding.DeflateContentEncoding;
+import org.eclipse.jetty.http.encoding.GzipContentEncoding;
 import org.eclipse.jetty.http.pathmap.PathSpecSet;
 import org.eclipse.jetty.server.HttpOutput;
+import org.eclipse.jetty.server.LowResourceMonitor;
 import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.handler.HandlerWrapper;
@@ -45,6 +52,8 @@ import org.eclipse.jetty.util.StringUtil;
 import org.eclipse.jetty.util.compression.CompressionPool;
 import org.eclipse.jetty.util.compression.DeflaterPool;
 import org.eclipse.jetty.util.compression.InflaterPool;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -67,6 +76,12 @@ import org.slf4j.LoggerFactory;
  * {@link HttpServletRequest#getInputStream()} or {@link HttpServletRequest#getReader()}.
  * </p>
  * <p>
+ * Besides {@code gzip}, the {@link #getContentEncodings() content encodings} include
+ * {@code deflate} and any {@link ContentEncoding} discovered by the {@link java.util.ServiceLoader},
+ * such as {@code br} or {@code zstd}, which are preferred when the client accepts them with
+ * the same quality. Requests compressed with any of these encodings are also uncompressed.
+ * </p>
+ * <p>
  * Response compression has a number of checks before GzipHandler will perform compression.
  * </p>
  * <ol>
@@ -141,6 +156,13 @@ import org.slf4j.LoggerFactory;
  * </li>
  * </ul>
  * <p>
+ * The compression level may adapt to the load of the server, see {@link #setAdaptiveCompressionLevel(boolean)},
+ * content that is shown to be incompressible may be sent uncompressed, see {@link #setIncompressibleSampleSize(int)},
+ * and the compressed bodies of responses with a strong ETag may be cached, see
+ * {@link #setCompressedResponseCache(CompressedResponseCache)}. The bytes saved and the time spent compressing
+ * at each level are available from {@link #getCompressionStatistics()}.
+ * </p>
+ * <p>
  * Historically the compression of responses were accomplished via
  * Servlet Filters (eg: {@code GzipFilter}) and usage of {@link javax.servlet.http.HttpServletResponseWrapper}.
  * Since the introduction of Async I/O in Servlet 3.1, this older form of Gzip support
@@ -155,12 +177,14 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
     public static final String DEFLATE = "deflate";
     public static final int DEFAULT_MIN_GZIP_SIZE = 32;
     public static final int BREAK_EVEN_GZIP_SIZE = 23;
+    public static final double DEFAULT_INCOMPRESSIBLE_ENTROPY = 7.5D;
     private static final Logger LOG = LoggerFactory.getLogger(GzipHandler.class);
     private static final HttpField X_CE_GZIP = new PreEncodedHttpField("X-Content-Encoding", "gzip");
-    private static final Pattern COMMA_GZIP = Pattern.compile(".*, *gzip");
 
     private InflaterPool _inflaterPool;
     private DeflaterPool _deflaterPool;
+    private ContentEncodings _contentEncodings;
+    private boolean _defaultContentEncodings;
     private int _minGzipSize = DEFAULT_MIN_GZIP_SIZE;
     private boolean _syncFlush = false;
     private int _inflateBufferSize = -1;
@@ -171,6 +195,15 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
     private final IncludeExclude<String> _inflatePaths = new IncludeExclude<>(PathSpecSet.class);
     private final IncludeExclude<String> _mimeTypes = new IncludeExclude<>(AsciiLowerCaseSet.class);
     private HttpField _vary = GzipHttpOutputInterceptor.VARY_ACCEPT_ENCODING;
+    private final CompressionStatistics _statistics = new CompressionStatistics();
+    private boolean _adaptiveCompressionLevel = false;
+    private int _minCompressionLevel = Deflater.BEST_SPEED;
+    private int _maxCompressionLevel = 6;
+    private int _incompressibleSampleSize = 0;
+    private double _incompressibleEntropy = DEFAULT_INCOMPRESSIBLE_ENTROPY;
+    private CompressedResponseCache _compressedResponseCache;
+    private ThreadPool _threadPool;
+    private LowResourceMonitor _lowResourceMonitor;
 
     /**
      * Instantiates a new GzipHandler.
@@ -199,6 +232,8 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
         // It is possible to use SSE with GzipHandler but you will need to set _synFlush to true which will impact performance.
         _mimeTypes.exclude("text/event-stream");
 
+        addBean(_statistics);
+
         if (LOG.isDebugEnabled())
             LOG.debug("{} mime types {}", this, _mimeTypes);
     }
@@ -217,6 +252,14 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
             _deflaterPool = DeflaterPool.ensurePool(server);
             addBean(_deflaterPool);
         }
+        if (_contentEncodings == null)
+        {
+            _contentEncodings = newContentEncodings();
+            _defaultContentEncodings = true;
+            addBean(_contentEncodings);
+        }
+        _threadPool = server.getThreadPool();
+        _lowResourceMonitor = server.getBean(LowResourceMonitor.class);
 
         super.doStart();
     }
@@ -231,6 +274,16 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
 
         removeBean(_deflaterPool);
         _deflaterPool = null;
+
+        if (_defaultContentEncodings)
+        {
+            removeBean(_contentEncodings);
+            _contentEncodings = null;
+            _defaultContentEncodings = false;
+        }
+
+        _threadPool = null;
+        _lowResourceMonitor = null;
     }
 
     /**
@@ -508,8 +561,79 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
         }
     }
 
+    /**
+     * <p>Creates the default content encodings, used if none are {@link #setContentEncodings(ContentEncodings) set}.</p>
+     * <p>The encodings discovered by the {@link java.util.ServiceLoader} are preferred,
+     * followed by {@code gzip} with the {@link #getDeflaterPool() deflater pool} and then {@code deflate}.</p>
+     *
+     * @return the default content encodings
+     */
+    protected ContentEncodings newContentEncodings()
+    {
+        ContentEncodings encodings = new ContentEncodings();
+        for (ContentEncoding encoding : ContentEncodings.discover())
+        {
+            if (!GZIP.equals(encoding.getName()) && !DEFLATE.equals(encoding.getName()))
+                encodings.add(encoding);
+        }
+        encodings.add(new GzipContentEncoding(_deflaterPool, _inflaterPool));
+        encodings.add(new DeflateContentEncoding());
+        return encodings;
+    }
+
+    /**
+     * <p>Get the encoder for the encoding {@link ContentEncodings#negotiate(HttpFields) negotiated}
+     * from the {@code Accept-Encoding} headers of the request.</p>
+     * <p>For a {@link GzipContentEncoding}, the encoder uses the
+     * {@link #getDeflaterEntry(Request, long) deflater entry}.</p>
+     */
+    @Override
+    public ContentEncoding.Encoder getContentEncoder(Request request, long contentLength)
+    {
+        ContentEncoding encoding = _contentEncodings.negotiate(request.getHttpFields());
+        if (encoding == null)
+        {
+            LOG.debug("{} excluded no accepted encoding {}", this, request);
+            return null;
+        }
+
+        if (encoding instanceof GzipContentEncoding)
+        {
+            int level = getCompressionLevel(request);
+            DeflaterPool.Entry entry = getDeflaterEntry(request, contentLength, level);
+            return entry == null ? null : new GzipContentEncoding.GzipEncoder(entry, level);
+        }
+
+        if (contentLength >= 0 && contentLength < _minGzipSize)
+        {
+            LOG.debug("{} excluded minGzipSize {}", this, request);
+            return null;
+        }
+
+        return encoding.newEncoder(_adaptiveCompressionLevel ? getCompressionLevel(request) : -1);
+    }
+
+    @Override
+    public List<CompressedContentFormat> getContentFormats()
+    {
+        ContentEncodings encodings = _contentEncodings;
+        if (encodings == null)
+            return GzipFactory.super.getContentFormats();
+        List<CompressedContentFormat> formats = new ArrayList<>();
+        for (ContentEncoding encoding : encodings)
+        {
+            formats.add(encoding.getContentFormat());
+        }
+        return formats;
+    }
+
     @Override
     public DeflaterPool.Entry getDeflaterEntry(Request request, long contentLength)
+    {
+        return getDeflaterEntry(request, contentLength, getCompressionLevel(request));
+    }
+
+    private DeflaterPool.Entry getDeflaterEntry(Request request, long contentLength, int level)
     {
         if (contentLength >= 0 && contentLength < _minGzipSize)
         {
@@ -524,7 +648,226 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
             return null;
         }
 
-        return _deflaterPool.acquire();
+        // The pool restores its level on release, so the level is only changed for this response.
+        DeflaterPool.Entry entry = _deflaterPool.acquire();
+        entry.get().setLevel(level);
+        return entry;
+    }
+
+    /**
+     * <p>Get the compression level to use for the response to the given request.</p>
+     * <p>If the compression level is adaptive, the level is chosen between the
+     * {@link #getMinCompressionLevel() minimum} and the {@link #getMaxCompressionLevel() maximum}
+     * levels from the {@link #getLoad() load} of the server, otherwise it is the level of the
+     * {@link DeflaterPool}.</p>
+     *
+     * @param request the request
+     * @return the compression level
+     */
+    protected int getCompressionLevel(Request request)
+    {
+        if (!_adaptiveCompressionLevel)
+            return _deflaterPool.getCompressionLevel();
+
+        double load = Math.max(0.0D, Math.min(1.0D, getLoad()));
+        return _maxCompressionLevel - (int)Math.round((_maxCompressionLevel - _minCompressionLevel) * load);
+    }
+
+    /**
+     * <p>Get the load of the server, used to choose an adaptive compression level.</p>
+     * <p>The load is {@code 1.0} when a {@link LowResourceMonitor} reports low resources,
+     * otherwise it is the utilization of the server {@link ThreadPool}.</p>
+     *
+     * @return the load of the server, between {@code 0.0} (idle) and {@code 1.0} (saturated)
+     */
+    protected double getLoad()
+    {
+        if (_lowResourceMonitor != null && _lowResourceMonitor.isLowOnResources())
+            return 1.0D;
+
+        ThreadPool threadPool = _threadPool;
+        if (threadPool instanceof QueuedThreadPool)
+            return ((QueuedThreadPool)threadPool).getUtilizationRate();
+        if (threadPool instanceof ThreadPool.SizedThreadPool)
+        {
+            int maxThreads = ((ThreadPool.SizedThreadPool)threadPool).getMaxThreads();
+            if (maxThreads > 0)
+                return (double)(threadPool.getThreads() - threadPool.getIdleThreads()) / maxThreads;
+        }
+        return 0.0D;
+    }
+
+    /**
+     * <p>Test whether the first content of a response is worth compressing.</p>
+     * <p>If the {@link #getIncompressibleSampleSize() sample size} is positive, the entropy
+     * of a sample of the content is estimated, and content whose entropy exceeds
+     * {@link #getIncompressibleEntropy()} is deemed incompressible, as is typical of
+     * content that is already compressed or encrypted.</p>
+     *
+     * @param request the request
+     * @param content the first content of the response, which is not consumed
+     * @return whether the content should be compressed
+     */
+    @Override
+    public boolean isCompressible(Request request, ByteBuffer content)
+    {
+        int sampleSize = Math.min(_incompressibleSampleSize, content.remaining());
+        if (sampleSize <= 0)
+            return true;
+
+        int[] counts = new int[256];
+        int position = content.position();
+        for (int i = 0; i < sampleSize; i++)
+        {
+            counts[content.get(position + i) & 0xFF]++;
+        }
+
+        double entropy = 0.0D;
+        for (int count : counts)
+        {
+            if (count > 0)
+            {
+                double p = (double)count / sampleSize;
+                entropy -= p * Math.log(p);
+            }
+        }
+        entropy /= Math.log(2);
+
+        if (entropy > _incompressibleEntropy)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("{} incompressible entropy {} {}", this, entropy, request);
+            _statistics.recordIncompressible();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void onCompressed(Request request, int level, long bytesIn, long bytesOut, long nanos)
+    {
+        _statistics.record(level, bytesIn, bytesOut, nanos);
+    }
+
+    @Override
+    public void onCached(Request request)
+    {
+        _statistics.recordCached();
+    }
+
+    /**
+     * @return the statistics of the compressed responses
+     */
+    public CompressionStatistics getCompressionStatistics()
+    {
+        return _statistics;
+    }
+
+    /**
+     * @return whether the compression level adapts to the load of the server
+     * @see #setAdaptiveCompressionLevel(boolean)
+     */
+    public boolean isAdaptiveCompressionLevel()
+    {
+        return _adaptiveCompressionLevel;
+    }
+
+    /**
+     * <p>Set whether the compression level adapts to the load of the server.</p>
+     * <p>When adaptive, each response is compressed at a level between the
+     * {@link #setMaxCompressionLevel(int) maximum level} when the server is idle,
+     * and the {@link #setMinCompressionLevel(int) minimum level} when the server is
+     * saturated, so that compression trades ratio for CPU as the load increases.</p>
+     *
+     * @param adaptive whether the compression level adapts to the load of the server
+     */
+    public void setAdaptiveCompressionLevel(boolean adaptive)
+    {
+        _adaptiveCompressionLevel = adaptive;
+    }
+
+    /**
+     * @return the compression level used when the server is saturated
+     */
+    public int getMinCompressionLevel()
+    {
+        return _minCompressionLevel;
+    }
+
+    /**
+     * @param level the compression level used when the server is saturated
+     */
+    public void setMinCompressionLevel(int level)
+    {
+        if (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)
+            throw new IllegalArgumentException("Invalid compression level " + level);
+        _minCompressionLevel = level;
+    }
+
+    /**
+     * @return the compression level used when the server is idle
+     */
+    public int getMaxCompressionLevel()
+    {
+        return _maxCompressionLevel;
+    }
+
+    /**
+     * @param level the compression level used when the server is idle
+     */
+    public void setMaxCompressionLevel(int level)
+    {
+        if (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)
+            throw new IllegalArgumentException("Invalid compression level " + level);
+        _maxCompressionLevel = level;
+    }
+
+    /**
+     * @return the number of bytes sampled to detect incompressible content, or 0 for no detection
+     */
+    public int getIncompressibleSampleSize()
+    {
+        return _incompressibleSampleSize;
+    }
+
+    /**
+     * @param size the number of bytes sampled to detect incompressible content, or 0 for no detection
+     * @see #isCompressible(Request, ByteBuffer)
+     */
+    public void setIncompressibleSampleSize(int size)
+    {
+        _incompressibleSampleSize = size;
+    }
+
+    /**
+     * @return the entropy, in bits per byte, above which content is deemed incompressible
+     */
+    public double getIncompressibleEntropy()
+    {
+        return _incompressibleEntropy;
+    }
+
+    /**
+     * @param entropy the entropy, in bits per byte, above which content is deemed incompressible
+     */
+    public void setIncompressibleEntropy(double entropy)
+    {
+        _incompressibleEntropy = entropy;
+    }
+
+    @Override
+    public CompressedResponseCache getCompressedResponseCache()
+    {
+        return _compressedResponseCache;
+    }
+
+    /**
+     * @param cache the cache of the compressed bodies of responses with a strong ETag, or null for no caching
+     */
+    public void setCompressedResponseCache(CompressedResponseCache cache)
+    {
+        updateBean(_compressedResponseCache, cache);
+        _compressedResponseCache = cache;
     }
 
     /**
@@ -683,14 +1026,15 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
 
         // Handle request inflation
         HttpFields httpFields = baseRequest.getHttpFields();
-        boolean inflated = _inflateBufferSize > 0 && httpFields.contains(HttpHeader.CONTENT_ENCODING, "gzip") && isPathInflatable(path);
+        ContentEncoding inflateEncoding = _inflateBufferSize > 0 ? getInflateEncoding(httpFields) : null;
+        boolean inflated = inflateEncoding != null && isPathInflatable(path);
         if (inflated)
         {
             if (LOG.isDebugEnabled())
-                LOG.debug("{} inflate {}", this, request);
+                LOG.debug("{} inflate {} {}", this, inflateEncoding, request);
             GzipHttpInputInterceptor gzipHttpInputInterceptor =
-                    new GzipHttpInputInterceptor(_inflaterPool, baseRequest.getHttpChannel().getByteBufferPool(),
-                            _inflateBufferSize, baseRequest.getHttpChannel().isUseInputDirectByteBuffers());
+                    new GzipHttpInputInterceptor(inflateEncoding.newDecoder(baseRequest.getHttpChannel().getByteBufferPool(),
+                            _inflateBufferSize, baseRequest.getHttpChannel().isUseInputDirectByteBuffers()));
             baseRequest.getHttpInput().addInterceptor(gzipHttpInputInterceptor);
         }
 
@@ -735,7 +1079,11 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
                     case IF_NONE_MATCH:
                     {
                         String etags = field.getValue();
-                        String etagsNoSuffix = CompressedContentFormat.GZIP.stripSuffixes(etags);
+                        String etagsNoSuffix = etags;
+                        for (CompressedContentFormat format : getContentFormats())
+                        {
+                            etagsNoSuffix = format.stripSuffixes(etagsNoSuffix);
+                        }
                         if (etagsNoSuffix.equals(etags))
                             newFields.add(field);
                         else
@@ -752,15 +1100,11 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
                     case CONTENT_ENCODING:
                         if (inflated)
                         {
-                            if (field.getValue().equalsIgnoreCase("gzip"))
-                                newFields.add(X_CE_GZIP);
-                            else if (COMMA_GZIP.matcher(field.getValue()).matches())
-                            {
-                                String v = field.getValue();
-                                v = v.substring(0, v.lastIndexOf(','));
-                                newFields.add(X_CE_GZIP);
-                                newFields.add(new HttpField(HttpHeader.CONTENT_ENCODING, v));
-                            }
+                            String v = field.getValue();
+                            int comma = v.lastIndexOf(',');
+                            newFields.add(GZIP.equals(inflateEncoding.getName()) ? X_CE_GZIP : new HttpField("X-Content-Encoding", inflateEncoding.getName()));
+                            if (comma > 0)
+                                newFields.add(new HttpField(HttpHeader.CONTENT_ENCODING, v.substring(0, comma)));
                         }
                         else
                         {
@@ -1068,6 +1412,42 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
         return String.join(",", getExcludedMethods());
     }
 
+    /**
+     * @param fields the request headers
+     * @return the encoding of the last content-coding of the request content, or null if it is not supported
+     */
+    private ContentEncoding getInflateEncoding(HttpFields fields)
+    {
+        String contentEncoding = fields.get(HttpHeader.CONTENT_ENCODING);
+        if (contentEncoding == null)
+            return null;
+        return _contentEncodings.get(contentEncoding.substring(contentEncoding.lastIndexOf(',') + 1).trim());
+    }
+
+    /**
+     * Get the content encodings being used. The default value of this is null before starting, but after starting if it
+     * is null it will be set to the {@link #newContentEncodings() default} content encodings.
+     * @return the content encodings being used.
+     */
+    public ContentEncodings getContentEncodings()
+    {
+        return _contentEncodings;
+    }
+
+    /**
+     * Set the content encodings to be used, in order of preference. This should be called before starting.
+     * @param contentEncodings the content encodings to use.
+     */
+    public void setContentEncodings(ContentEncodings contentEncodings)
+    {
+        if (isStarted())
+            throw new IllegalStateException(getState());
+
+        updateBean(_contentEncodings, contentEncodings);
+        _contentEncodings = contentEncodings;
+        _defaultContentEncodings = false;
+    }
+
     /**
      * Get the DeflaterPool being used. The default value of this is null before starting, but after starting if it is null
      * it will be set to the default DeflaterPool which is stored as a bean on the server.
@@ -15,20 +15,22 @@ package org.eclipse.jetty.server.handler.gzip;
 
 import java.nio.ByteBuffer;
 
-import org.eclipse.jetty.http.GZIPContentDecoder;
+import org.eclipse.jetty.http.encoding.ContentEncoding;
+import org.eclipse.jetty.http.encoding.GzipContentEncoding;
 import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.server.HttpInput;
 import org.eclipse.jetty.server.HttpInput.Content;
+import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.component.Destroyable;
 import org.eclipse.jetty.util.compression.InflaterPool;
 
 /**
- * An HttpInput Interceptor that inflates GZIP encoded request content.
+ * An HttpInput Interceptor that inflates GZIP encoded request content,
+ * or content encoded with any other {@link ContentEncoding}.
  */
 public class GzipHttpInputInterceptor implements HttpInput.Interceptor, Destroyable
 {
-    private final Decoder _decoder;
-    private ByteBuffer _chunk;
+    private final ContentEncoding.Decoder _decoder;
 
     public GzipHttpInputInterceptor(InflaterPool inflaterPool, ByteBufferPool pool, int bufferSize)
     {
@@ -37,7 +39,15 @@ public class GzipHttpInputInterceptor implements HttpInput.Interceptor, Destroya
 
     public GzipHttpInputInterceptor(InflaterPool inflaterPool, ByteBufferPool pool, int bufferSize, boolean useDirectBuffers)
     {
-        _decoder = new Decoder(inflaterPool, pool, bufferSize, useDirectBuffers);
+        this(new GzipContentEncoding.GzipDecoder(inflaterPool, pool, bufferSize, useDirectBuffers));
+    }
+
+    /**
+     * @param decoder the decoder of the request content, destroyed with this interceptor
+     */
+    public GzipHttpInputInterceptor(ContentEncoding.Decoder decoder)
+    {
+        _decoder = decoder;
     }
 
     @Override
@@ -46,11 +56,13 @@ public class GzipHttpInputInterceptor implements HttpInput.Interceptor, Destroya
         if (content.isSpecial())
             return content;
 
-        _decoder.decodeChunks(content.getByteBuffer());
-        final ByteBuffer chunk = _chunk;
+        final ByteBuffer chunk = _decoder.decode(content.getByteBuffer());
 
-        if (chunk == null)
+        if (BufferUtil.isEmpty(chunk))
+        {
+            _decoder.release(chunk);
             return null;
+        }
 
         return new Content(chunk)
         {
@@ -73,26 +85,4 @@ public class GzipHttpInputInterceptor implements HttpInput.Interceptor, Destroya
     {
         _decoder.destroy();
     }
-
-    private class Decoder extends GZIPContentDecoder
-    {
-        private Decoder(InflaterPool inflaterPool, ByteBufferPool bufferPool, int bufferSize, boolean useDirectBuffers)
-        {
-            super(inflaterPool, bufferPool, bufferSize, useDirectBuffers);
-        }
-
-        @Override
-        protected boolean decodedChunk(final ByteBuffer chunk)
-        {
-            _chunk = chunk;
-            return true;
-        }
-
-        @Override
-        public void decodeChunks(ByteBuffer compressed)
-        {
-            _chunk = null;
-            super.decodeChunks(compressed);
-        }
-    }
 }
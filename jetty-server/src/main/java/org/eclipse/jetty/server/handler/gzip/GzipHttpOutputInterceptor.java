@@ -16,40 +16,38 @@ package org.eclipse.jetty.server.handler.gzip;
 import java.nio.ByteBuffer;
 import java.nio.channels.WritePendingException;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.zip.CRC32;
-import java.util.zip.Deflater;
 
+import org.eclipse.jetty.http.CompressedContentFormat;
 import org.eclipse.jetty.http.HttpField;
 import org.eclipse.jetty.http.HttpFields;
 import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.HttpStatus;
 import org.eclipse.jetty.http.PreEncodedHttpField;
+import org.eclipse.jetty.http.encoding.ContentEncoding;
 import org.eclipse.jetty.server.HttpChannel;
 import org.eclipse.jetty.server.HttpOutput;
+import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.Response;
 import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.ByteArrayOutputStream2;
 import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.IteratingNestedCallback;
-import org.eclipse.jetty.util.compression.DeflaterPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import static org.eclipse.jetty.http.CompressedContentFormat.GZIP;
-
 public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
 {
     public static Logger LOG = LoggerFactory.getLogger(GzipHttpOutputInterceptor.class);
-    private static final byte[] GZIP_HEADER = new byte[]{(byte)0x1f, (byte)0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
 
     public static final HttpField VARY_ACCEPT_ENCODING = new PreEncodedHttpField(HttpHeader.VARY, HttpHeader.ACCEPT_ENCODING.asString());
 
     private enum GZState
     {
-        MIGHT_COMPRESS, NOT_COMPRESSING, COMMITTING, COMPRESSING, FINISHED
+        MIGHT_COMPRESS, NOT_COMPRESSING, COMMITTING, COMPRESSING, CACHED, FINISHED
     }
 
     private final AtomicReference<GZState> _state = new AtomicReference<>(GZState.MIGHT_COMPRESS);
-    private final CRC32 _crc = new CRC32();
 
     private final GzipFactory _factory;
     private final HttpOutput.Interceptor _interceptor;
@@ -58,8 +56,13 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
     private final int _bufferSize;
     private final boolean _syncFlush;
 
-    private DeflaterPool.Entry _deflaterEntry;
+    private ContentEncoding.Encoder _encoder;
+    private int _level;
     private ByteBuffer _buffer;
+    private long _nanos;
+    private CompressedResponseCache _cache;
+    private String _cacheKey;
+    private ByteArrayOutputStream2 _cacheBody;
 
     public GzipHttpOutputInterceptor(GzipFactory factory, HttpChannel channel, HttpOutput.Interceptor next, boolean syncFlush)
     {
@@ -108,18 +111,20 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
                 gzip(content, complete, callback);
                 break;
 
+            case CACHED:
+                // The cached compressed body has already been written, the content is identical.
+                if (complete)
+                    _interceptor.write(BufferUtil.EMPTY_BUFFER, true, callback);
+                else
+                    callback.succeeded();
+                break;
+
             default:
                 callback.failed(new IllegalStateException("state=" + _state.get()));
                 break;
         }
     }
 
-    private void addTrailer()
-    {
-        BufferUtil.putIntLittleEndian(_buffer, (int)_crc.getValue());
-        BufferUtil.putIntLittleEndian(_buffer, _deflaterEntry.get().getTotalIn());
-    }
-
     private void gzip(ByteBuffer content, boolean complete, final Callback callback)
     {
         if (content.hasRemaining() || complete)
@@ -144,9 +149,15 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
                 String responseEtag = response.getHttpFields().get(HttpHeader.ETAG);
                 if (requestEtags != null && responseEtag != null)
                 {
-                    String responseEtagGzip = etagGzip(responseEtag);
-                    if (requestEtags.contains(responseEtagGzip))
-                        response.getHttpFields().put(HttpHeader.ETAG, responseEtagGzip);
+                    for (CompressedContentFormat format : _factory.getContentFormats())
+                    {
+                        String responseEtagEncoded = format.etag(responseEtag);
+                        if (requestEtags.contains(responseEtagEncoded))
+                        {
+                            response.getHttpFields().put(HttpHeader.ETAG, responseEtagEncoded);
+                            break;
+                        }
+                    }
                     if (_vary != null)
                         response.getHttpFields().ensureField(_vary);
                 }
@@ -181,6 +192,15 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
             return;
         }
 
+        // Is the content incompressible?
+        if (BufferUtil.hasContent(content) && !_factory.isCompressible(_channel.getRequest(), content))
+        {
+            LOG.debug("{} exclude incompressible content", this);
+            noCompression();
+            _interceptor.write(content, complete, callback);
+            return;
+        }
+
         // Are we the thread that commits?
         if (_state.compareAndSet(GZState.MIGHT_COMPRESS, GZState.COMMITTING))
         {
@@ -192,25 +212,49 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
             if (contentLength < 0 && complete)
                 contentLength = content.remaining();
 
-            _deflaterEntry = _factory.getDeflaterEntry(_channel.getRequest(), contentLength);
-            if (_deflaterEntry == null)
+            _encoder = _factory.getContentEncoder(_channel.getRequest(), contentLength);
+            if (_encoder == null)
             {
-                LOG.debug("{} exclude no deflater", this);
+                LOG.debug("{} exclude no encoder", this);
                 _state.set(GZState.NOT_COMPRESSING);
                 _interceptor.write(content, complete, callback);
                 return;
             }
 
-            fields.put(GZIP.getContentEncoding());
-            _crc.reset();
+            _level = _encoder.getLevel();
+            CompressedContentFormat format = _encoder.getContentFormat();
+            fields.put(format.getContentEncoding());
 
             // Adjust headers
             response.setContentLength(-1);
             String etag = fields.get(HttpHeader.ETAG);
             if (etag != null)
-                fields.put(HttpHeader.ETAG, etagGzip(etag));
+                fields.put(HttpHeader.ETAG, format.etag(etag));
 
-            LOG.debug("{} compressing {}", this, _deflaterEntry);
+            // Is the compressed body cached?
+            Request request = _channel.getRequest();
+            _cache = _factory.getCompressedResponseCache();
+            if (_cache != null && sc == HttpStatus.OK_200 && HttpMethod.GET.is(request.getMethod()))
+            {
+                _cacheKey = _cache.getKey(request.getHttpURI().asString(), etag, format.getEncoding());
+                if (_cacheKey != null)
+                {
+                    ByteBuffer body = _cache.get(_cacheKey);
+                    if (body != null)
+                    {
+                        LOG.debug("{} cached {}", this, _cacheKey);
+                        _encoder.release();
+                        _encoder = null;
+                        _factory.onCached(request);
+                        _state.set(GZState.CACHED);
+                        _interceptor.write(body, complete, callback);
+                        return;
+                    }
+                    _cacheBody = new ByteArrayOutputStream2();
+                }
+            }
+
+            LOG.debug("{} compressing {}", this, _encoder);
             _state.set(GZState.COMPRESSING);
 
             if (BufferUtil.isEmpty(content))
@@ -227,11 +271,6 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
             callback.failed(new WritePendingException());
     }
 
-    private String etagGzip(String etag)
-    {
-        return GZIP.etag(etag);
-    }
-
     public void noCompression()
     {
         while (true)
@@ -269,21 +308,18 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
             _content = content;
             _last = complete;
 
-            _crc.update(_content.slice());
-
-            Deflater deflater = _deflaterEntry.get();
-            deflater.setInput(_content);
+            _encoder.setInput(_content);
             if (_last)
-                deflater.finish();
+                _encoder.finish();
         }
 
         @Override
         protected void onCompleteFailure(Throwable x)
         {
-            if (_deflaterEntry != null)
+            if (_encoder != null)
             {
-                _deflaterEntry.release();
-                _deflaterEntry = null;
+                _encoder.release();
+                _encoder = null;
             }
             super.onCompleteFailure(x);
         }
@@ -291,8 +327,8 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
         @Override
         protected Action process() throws Exception
         {
-            // If we have no deflator
-            if (_deflaterEntry == null)
+            // If we have no encoder
+            if (_encoder == null)
             {
                 // then the trailer has been generated and written below.
                 // we have finished compressing the entire content, so
@@ -308,9 +344,8 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
             // If we have no buffer
             if (_buffer == null)
             {
-                // allocate a buffer and add the gzip header
+                // allocate a buffer
                 _buffer = _channel.getByteBufferPool().acquire(_bufferSize, _channel.isUseOutputDirectByteBuffers());
-                BufferUtil.fill(_buffer, GZIP_HEADER, 0, GZIP_HEADER.length);
             }
             else
             {
@@ -318,43 +353,59 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
                 BufferUtil.clear(_buffer);
             }
 
-            // If the deflator is not finished, then compress more data
-            Deflater deflater = _deflaterEntry.get();
-            if (!deflater.finished())
+            // If the encoder is not finished, then compress more data
+            if (!_encoder.isFinished())
             {
-                if (deflater.needsInput() && !_last)
+                if (_encoder.needsInput() && !_last)
                     return Action.SUCCEEDED;
 
-                int pos = BufferUtil.flipToFill(_buffer);
-                deflater.deflate(_buffer, _syncFlush ? Deflater.SYNC_FLUSH : Deflater.NO_FLUSH);
-                BufferUtil.flipToFlush(_buffer, pos);
+                long start = System.nanoTime();
+                _encoder.encode(_buffer, _syncFlush);
+                _nanos += System.nanoTime() - start;
             }
 
-            // If we have finished deflation and there is room for the trailer.
-            if (deflater.finished() && BufferUtil.space(_buffer) >= 8)
+            // If we have finished encoding, recycle the encoder to flag that we
+            // will have had completeSuccess when the write below completes.
+            if (_encoder.isFinished())
             {
-                // add the trailer and recycle the deflator to flag that we will have had completeSuccess when
-                // the write below completes.
-                addTrailer();
-                _deflaterEntry.release();
-                _deflaterEntry = null;
+                _factory.onCompressed(_channel.getRequest(), _level, _encoder.getBytesRead(), _encoder.getBytesWritten(), _nanos);
+                _encoder.release();
+                _encoder = null;
+            }
+
+            // Keep a copy of the compressed body to cache.
+            if (_cacheBody != null)
+            {
+                if (_cacheBody.size() + _buffer.remaining() > _cache.getMaxEntrySize())
+                {
+                    _cacheBody = null;
+                }
+                else
+                {
+                    BufferUtil.writeTo(_buffer.slice(), _cacheBody);
+                    if (_encoder == null)
+                    {
+                        _cache.put(_cacheKey, _cacheBody.toByteArray());
+                        _cacheBody = null;
+                    }
+                }
             }
 
             // write the compressed buffer.
-            _interceptor.write(_buffer, _deflaterEntry == null, this);
+            _interceptor.write(_buffer, _encoder == null, this);
             return Action.SCHEDULED;
         }
 
         @Override
         public String toString()
         {
-            return String.format("%s[content=%s last=%b buffer=%s deflate=%s %s]",
+            return String.format("%s[content=%s last=%b buffer=%s encoder=%s %s]",
                 super.toString(),
                 BufferUtil.toDetailString(_content),
                 _last,
                 BufferUtil.toDetailString(_buffer),
-                _deflaterEntry,
-                _deflaterEntry != null && _deflaterEntry.get().finished() ? "(finished)" : "");
+                _encoder,
+                _encoder != null && _encoder.isFinished() ? "(finished)" : "");
         }
     }
 }
@@ -0,0 +1,279 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.server.resource;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.eclipse.jetty.http.HttpContent;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.ResourceHttpContent;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.server.HttpOutput;
+import org.eclipse.jetty.server.InclusiveByteRange;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.resource.Resource;
+
+/**
+ * <p>Supplies the content of a {@code 206 Partial Content} response for one or more
+ * byte ranges of a {@link HttpContent}, to be written without blocking with
+ * {@link HttpOutput#sendContent(HttpOutput.ContentSupplier, org.eclipse.jetty.util.Callback)}.</p>
+ * <p>A single range is supplied as is, while multiple ranges are supplied as a
+ * {@code multipart/byteranges} body whose part headers are generated into a pooled
+ * buffer, together with the first bytes of each range when they fit.</p>
+ * <p>Ranges are sliced from the content buffer when the content is already in memory
+ * (for example cached or memory mapped), otherwise they are read with positional reads
+ * from a {@link FileChannel} that is shared with concurrent range requests for the same file.</p>
+ */
+public class RangesContentSupplier implements HttpOutput.ContentSupplier
+{
+    /**
+     * <p>Creates a supplier for the given ranges of the given content.</p>
+     *
+     * @param content the content to send ranges of
+     * @param ranges the satisfiable ranges to send
+     * @param boundary the multipart boundary, or null to send a single range
+     * @param channels the shared file channels to read file contents from
+     * @param bufferPool the pool of the buffers to read file contents and part headers into
+     * @param bufferSize the size of the pooled buffers
+     * @param direct whether to use direct buffers
+     * @return a new supplier, or null if the content is neither available as a buffer nor as a file
+     * @throws IOException if the content file cannot be opened
+     */
+    public static RangesContentSupplier newRangesContentSupplier(HttpContent content, List<InclusiveByteRange> ranges, String boundary, SharedFileChannels channels, ByteBufferPool bufferPool, int bufferSize, boolean direct) throws IOException
+    {
+        // ResourceHttpContent reads the whole file to provide a buffer, so prefer its file.
+        boolean inMemory = !(content instanceof ResourceHttpContent);
+        if (inMemory)
+        {
+            ByteBuffer buffer = getBuffer(content, direct);
+            if (buffer != null)
+                return new RangesContentSupplier(content, ranges, boundary, buffer, null, bufferPool, bufferSize, direct);
+        }
+
+        Resource resource = content.getResource();
+        File file = resource == null ? null : resource.getFile();
+        if (file != null)
+        {
+            SharedFileChannels.Reference reference = channels.acquire(file.toPath(), content.getContentLengthValue());
+            return new RangesContentSupplier(content, ranges, boundary, null, reference, bufferPool, bufferSize, direct);
+        }
+
+        ByteBuffer buffer = inMemory ? null : getBuffer(content, direct);
+        if (buffer != null)
+            return new RangesContentSupplier(content, ranges, boundary, buffer, null, bufferPool, bufferSize, direct);
+        return null;
+    }
+
+    private static ByteBuffer getBuffer(HttpContent content, boolean direct)
+    {
+        ByteBuffer buffer = direct ? content.getDirectBuffer() : null;
+        return buffer == null ? content.getIndirectBuffer() : buffer;
+    }
+
+    private final List<InclusiveByteRange> ranges;
+    private final String boundary;
+    private final byte[][] partHeaders;
+    private final byte[] closeDelimiter;
+    private final ByteBuffer content;
+    private final SharedFileChannels.Reference file;
+    private final ByteBufferPool bufferPool;
+    private final int bufferSize;
+    private final boolean direct;
+    private final long length;
+    private ByteBuffer buffer;
+    private int index;
+    private long position;
+    private long remaining;
+    private boolean complete;
+    private boolean closed;
+
+    private RangesContentSupplier(HttpContent httpContent, List<InclusiveByteRange> ranges, String boundary, ByteBuffer content, SharedFileChannels.Reference file, ByteBufferPool bufferPool, int bufferSize, boolean direct)
+    {
+        this.ranges = ranges;
+        this.boundary = boundary;
+        this.content = content == null ? null : content.slice().asReadOnlyBuffer();
+        this.file = file;
+        this.bufferPool = bufferPool;
+        this.bufferSize = bufferSize;
+        this.direct = direct;
+
+        long length = 0;
+        for (InclusiveByteRange range : ranges)
+        {
+            length += range.getSize();
+        }
+
+        if (boundary == null)
+        {
+            if (ranges.size() != 1)
+                throw new IllegalArgumentException("Multiple ranges require a boundary");
+            partHeaders = null;
+            closeDelimiter = null;
+        }
+        else
+        {
+            long contentLength = httpContent.getContentLengthValue();
+            String contentType = httpContent.getContentTypeValue();
+            partHeaders = new byte[ranges.size()][];
+            for (int i = 0; i < partHeaders.length; i++)
+            {
+                StringBuilder header = new StringBuilder();
+                if (i > 0)
+                    header.append("\r\n");
+                header.append("--").append(boundary).append("\r\n");
+                if (contentType != null)
+                    header.append(HttpHeader.CONTENT_TYPE.asString()).append(": ").append(contentType).append("\r\n");
+                header.append(HttpHeader.CONTENT_RANGE.asString()).append(": ").append(ranges.get(i).toHeaderRangeString(contentLength)).append("\r\n");
+                header.append("\r\n");
+                partHeaders[i] = header.toString().getBytes(StandardCharsets.ISO_8859_1);
+                length += partHeaders[i].length;
+            }
+            closeDelimiter = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.ISO_8859_1);
+            length += closeDelimiter.length;
+        }
+        this.length = length;
+    }
+
+    /**
+     * @return the multipart boundary, or null if a single range is supplied
+     */
+    public String getBoundary()
+    {
+        return boundary;
+    }
+
+    /**
+     * @return the total number of bytes supplied, to be used as the response content length
+     */
+    public long getLength()
+    {
+        return length;
+    }
+
+    @Override
+    public ByteBuffer next() throws IOException
+    {
+        if (closed)
+            throw new IOException("Closed");
+        if (complete)
+            return null;
+
+        byte[] header = null;
+        if (remaining == 0)
+        {
+            if (index == ranges.size())
+            {
+                complete = true;
+                if (closeDelimiter == null)
+                    return null;
+                return fill(closeDelimiter);
+            }
+
+            InclusiveByteRange range = ranges.get(index);
+            if (partHeaders != null)
+                header = partHeaders[index];
+            index++;
+            position = range.getFirst();
+            remaining = range.getSize();
+        }
+
+        if (content != null)
+        {
+            // Copy small ranges after their part header, otherwise slice the content.
+            if (header != null)
+            {
+                if (header.length + remaining > bufferSize)
+                    return fill(header);
+                ByteBuffer buffer = fill(header);
+                int pos = BufferUtil.flipToFill(buffer);
+                buffer.put(slice(remaining));
+                BufferUtil.flipToFlush(buffer, pos);
+                return buffer;
+            }
+            return slice(remaining);
+        }
+
+        ByteBuffer buffer = header == null ? clearBuffer() : fill(header);
+        int pos = BufferUtil.flipToFill(buffer);
+        try
+        {
+            FileChannel channel = file.getChannel();
+            if (buffer.remaining() > remaining)
+                buffer.limit(buffer.position() + (int)remaining);
+            while (buffer.hasRemaining())
+            {
+                int read = channel.read(buffer, position);
+                if (read < 0)
+                    throw new EOFException("File truncated");
+                position += read;
+                remaining -= read;
+            }
+        }
+        finally
+        {
+            BufferUtil.flipToFlush(buffer, pos);
+        }
+        return buffer;
+    }
+
+    private ByteBuffer slice(long length)
+    {
+        ByteBuffer slice = content.duplicate();
+        slice.limit(Math.toIntExact(position + length));
+        slice.position(Math.toIntExact(position));
+        position += length;
+        remaining -= length;
+        return slice;
+    }
+
+    private ByteBuffer clearBuffer()
+    {
+        if (buffer == null)
+            buffer = bufferPool.acquire(bufferSize, direct);
+        BufferUtil.clear(buffer);
+        return buffer;
+    }
+
+    private ByteBuffer fill(byte[] bytes)
+    {
+        ByteBuffer buffer = clearBuffer();
+        BufferUtil.append(buffer, bytes, 0, bytes.length);
+        return buffer;
+    }
+
+    @Override
+    public void close()
+    {
+        if (closed)
+            return;
+        closed = true;
+        if (buffer != null)
+            bufferPool.release(buffer);
+        buffer = null;
+        if (file != null)
+            file.close();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[ranges=%d,index=%d,remaining=%d,length=%d,file=%s]",
+            getClass().getSimpleName(), hashCode(), ranges.size(), index, remaining, length, file);
+    }
+}
@@ -0,0 +1,153 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.server.resource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.thread.AutoLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Reference counted read-only {@link FileChannel}s, shared by concurrent users of the same file.</p>
+ * <p>Shared channels must only be read with positional reads such as
+ * {@link FileChannel#read(java.nio.ByteBuffer, long)}, which do not modify
+ * the channel position and may be performed concurrently.
+ * A channel is closed when its last reference is released.</p>
+ */
+public class SharedFileChannels
+{
+    private static final Logger LOG = LoggerFactory.getLogger(SharedFileChannels.class);
+
+    private final AutoLock lock = new AutoLock();
+    private final Map<Path, Reference> channels = new HashMap<>();
+
+    /**
+     * <p>Acquires a reference to a channel for the given file, opening the file if it is not
+     * already open or if the open channel has a size different from the expected one,
+     * for example because the file has been replaced.</p>
+     *
+     * @param path the file to read
+     * @param size the expected size of the file
+     * @return a reference to the channel, that must be closed to release it
+     * @throws IOException if the file cannot be opened
+     */
+    public Reference acquire(Path path, long size) throws IOException
+    {
+        try (AutoLock l = lock.lock())
+        {
+            Reference reference = channels.get(path);
+            if (reference != null && reference.retain(size))
+                return reference;
+        }
+
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        Reference reference = new Reference(path, channel);
+        try (AutoLock l = lock.lock())
+        {
+            Reference existing = channels.get(path);
+            if (existing == null || !existing.retain(size))
+            {
+                // A stale channel is replaced, but remains open until released by its users.
+                channels.put(path, reference);
+                return reference;
+            }
+            reference = existing;
+        }
+
+        // Another thread opened the file concurrently.
+        IO.close(channel);
+        return reference;
+    }
+
+    /**
+     * @return the number of files currently open
+     */
+    public int getOpenCount()
+    {
+        try (AutoLock l = lock.lock())
+        {
+            return channels.size();
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[open=%d]", getClass().getSimpleName(), hashCode(), getOpenCount());
+    }
+
+    /**
+     * <p>A reference to a shared {@link FileChannel}.</p>
+     * <p>Each reference returned by {@link #acquire(Path, long)} must be closed exactly once.</p>
+     */
+    public class Reference implements Closeable
+    {
+        private final Path path;
+        private final FileChannel channel;
+        private int references = 1;
+
+        private Reference(Path path, FileChannel channel)
+        {
+            this.path = path;
+            this.channel = channel;
+        }
+
+        public FileChannel getChannel()
+        {
+            return channel;
+        }
+
+        private boolean retain(long size)
+        {
+            try
+            {
+                if (references == 0 || !channel.isOpen() || channel.size() != size)
+                    return false;
+                references++;
+                return true;
+            }
+            catch (IOException x)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Unable to retain {}", this, x);
+                return false;
+            }
+        }
+
+        @Override
+        public void close()
+        {
+            try (AutoLock l = lock.lock())
+            {
+                if (--references > 0)
+                    return;
+                channels.remove(path, this);
+            }
+            IO.close(channel);
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x[%s,refs=%d]", getClass().getSimpleName(), hashCode(), path, references);
+        }
+    }
+}
@@ -13,15 +13,23 @@
 
 package org.eclipse.jetty.server.session;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jetty.util.FuturePromise;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.util.thread.AutoLock;
+import org.eclipse.jetty.util.thread.Scheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,12 +43,17 @@ public abstract class AbstractSessionDataStore extends ContainerLifeCycle implem
     
     public static final int DEFAULT_GRACE_PERIOD_SEC = 60 * 60; //default of 1hr
     public static final int DEFAULT_SAVE_PERIOD_SEC = 0;
+    public static final long DEFAULT_COALESCE_PERIOD_MS = 0;
 
     protected SessionContext _context; //context associated with this session data store
     protected int _gracePeriodSec = DEFAULT_GRACE_PERIOD_SEC;
     protected long _lastExpiryCheckTime = 0; //last time in ms that getExpired was called
     protected long _lastOrphanSweepTime = 0; //last time in ms that we deleted orphaned sessions
     protected int _savePeriodSec = DEFAULT_SAVE_PERIOD_SEC; //time in sec between saves
+    protected long _coalescePeriodMs = DEFAULT_COALESCE_PERIOD_MS; //time in ms during which saves are coalesced
+    protected SessionDataCodec _sessionDataCodec = new ObjectStreamSessionDataCodec();
+    private final AutoLock _lock = new AutoLock();
+    private final Map<String, PendingStore> _pendingStores = new HashMap<>();
     
     /**
      * Check if a session for the given id exists.
@@ -60,6 +73,15 @@ public abstract class AbstractSessionDataStore extends ContainerLifeCycle implem
      */
     public abstract void doStore(String id, SessionData data, long lastSaveTime) throws Exception;
 
+    /**
+     * Delete the session data from the persistent store.
+     *
+     * @param id identity of session to delete
+     * @return true if the session was deleted
+     * @throws Exception if unable to delete the session
+     */
+    public abstract boolean doDelete(String id) throws Exception;
+
     /**
      * Load the session from persistent store.
      *
@@ -138,6 +160,9 @@ public abstract class AbstractSessionDataStore extends ContainerLifeCycle implem
         if (!isStarted())
             throw new IllegalStateException("Not started");
 
+        //a coalesced save must be written before the session can be read back
+        flush(id);
+
         final FuturePromise<SessionData> result = new FuturePromise<>();
         
         Runnable r = () ->
@@ -179,6 +204,9 @@ public abstract class AbstractSessionDataStore extends ContainerLifeCycle implem
         if (data.isDirty() || (lastSave <= 0) ||
             (data.isMetaDataDirty() && ((System.currentTimeMillis() - lastSave) >= savePeriodMs)))
         {
+            if (coalesce(id, data))
+                return;
+
             //set the last saved time to now
             data.setLastSaved(System.currentTimeMillis());
             
@@ -204,9 +232,127 @@ public abstract class AbstractSessionDataStore extends ContainerLifeCycle implem
         }
     }
 
+    /**
+     * Defer the save of a session that was saved less than the coalesce
+     * period ago, so that frequent saves are coalesced in a single write
+     * at the end of the period.
+     *
+     * @param id the session id
+     * @param data the session data
+     * @return true if the save has been deferred
+     */
+    private boolean coalesce(String id, SessionData data)
+    {
+        long coalescePeriodMs = _coalescePeriodMs;
+        long lastSave = data.getLastSaved();
+        if (coalescePeriodMs <= 0 || lastSave <= 0)
+            return false;
+
+        try (AutoLock l = _lock.lock())
+        {
+            PendingStore pending = _pendingStores.get(id);
+            if (pending == null)
+            {
+                long delay = lastSave + coalescePeriodMs - System.currentTimeMillis();
+                if (delay <= 0)
+                    return false;
+                pending = new PendingStore();
+                //the write blocks, so only the hand-off to the thread pool runs on the scheduler
+                SessionHandler sessionHandler = _context.getSessionHandler();
+                Scheduler scheduler = sessionHandler.getScheduler();
+                Executor executor = sessionHandler.getServer().getThreadPool();
+                pending._task = scheduler.schedule(() -> executor.execute(() -> flush(id)), delay, TimeUnit.MILLISECONDS);
+                _pendingStores.put(id, pending);
+            }
+            //the dirty flags are cleared now, so that changes made
+            //while the deferred write is in progress are not lost
+            pending._data = data;
+            data.clean();
+        }
+        if (LOG.isDebugEnabled())
+            LOG.debug("Coalesced store of session {} saved at {}", id, lastSave);
+        return true;
+    }
+
+    /**
+     * Discard the deferred save of a session, if any,
+     * so that it does not write the session back after
+     * the session is deleted.
+     *
+     * @param id the session id
+     */
+    private void discardPendingStore(String id)
+    {
+        PendingStore pending;
+        try (AutoLock l = _lock.lock())
+        {
+            pending = _pendingStores.remove(id);
+        }
+        if (pending != null)
+        {
+            pending._task.cancel();
+            if (LOG.isDebugEnabled())
+                LOG.debug("Discarded coalesced store of deleted session {}", id);
+        }
+    }
+
+    /**
+     * Write the deferred save of a session, if any.
+     *
+     * @param id the session id
+     */
+    private void flush(String id)
+    {
+        PendingStore pending;
+        try (AutoLock l = _lock.lock())
+        {
+            pending = _pendingStores.remove(id);
+        }
+        if (pending == null)
+            return;
+        pending._task.cancel();
+
+        SessionData data = pending._data;
+        long lastSave = data.getLastSaved();
+        data.setLastSaved(System.currentTimeMillis());
+        Runnable r = () ->
+        {
+            try
+            {
+                doStore(id, data, lastSave);
+            }
+            catch (Exception e)
+            {
+                LOG.warn("Unable to store coalesced session {}", id, e);
+                //ensure the next save writes the session out
+                data.setLastSaved(lastSave);
+                data.setDirty(true);
+            }
+        };
+        _context.run(r);
+    }
+
+    private void flushAll()
+    {
+        List<String> ids;
+        try (AutoLock l = _lock.lock())
+        {
+            ids = new ArrayList<>(_pendingStores.keySet());
+        }
+        ids.forEach(this::flush);
+    }
+
+    @Override
+    public final boolean delete(String id) throws Exception
+    {
+        discardPendingStore(id);
+        return doDelete(id);
+    }
+
     @Override
     public boolean exists(String id) throws Exception
     {
+        flush(id);
         FuturePromise<Boolean> result = new FuturePromise<>();
         Runnable r = () ->
         {
@@ -326,6 +472,13 @@ public abstract class AbstractSessionDataStore extends ContainerLifeCycle implem
         super.doStart();
     }
 
+    @Override
+    protected void doStop() throws Exception
+    {
+        flushAll();
+        super.doStop();
+    }
+
     @ManagedAttribute(value = "interval in secs to prevent too eager session scavenging", readonly = true)
     public int getGracePeriodSec()
     {
@@ -367,9 +520,66 @@ public abstract class AbstractSessionDataStore extends ContainerLifeCycle implem
         _savePeriodSec = savePeriodSec;
     }
 
+    /**
+     * @return the coalescePeriodMs
+     */
+    @ManagedAttribute(value = "min msecs between writes of a session", readonly = true)
+    public long getCoalescePeriodMs()
+    {
+        return _coalescePeriodMs;
+    }
+
+    /**
+     * The minimum time in milliseconds between two writes of
+     * the same session.
+     * <p>
+     * By default the value is 0, which means that every save
+     * is written out immediately. A non zero value means that
+     * a save happening less than this value after the previous
+     * write of the session is deferred until the end of the
+     * period, so that all the saves happening in the meantime
+     * are coalesced in a single write. If the server crashes,
+     * the changes made during the last period are lost.
+     *
+     * @param coalescePeriodMs the coalescePeriodMs to set
+     */
+    public void setCoalescePeriodMs(long coalescePeriodMs)
+    {
+        _coalescePeriodMs = coalescePeriodMs;
+    }
+
+    /**
+     * @return the codec of the session attributes
+     */
+    @ManagedAttribute(value = "codec of the session attributes", readonly = true)
+    public SessionDataCodec getSessionDataCodec()
+    {
+        return _sessionDataCodec;
+    }
+
+    /**
+     * The codec used by the stores that write the session
+     * attributes as bytes.
+     * By default, the attributes are serialized with
+     * {@link ObjectStreamSessionDataCodec}.
+     *
+     * @param sessionDataCodec the codec of the session attributes
+     */
+    public void setSessionDataCodec(SessionDataCodec sessionDataCodec)
+    {
+        checkStarted();
+        _sessionDataCodec = Objects.requireNonNull(sessionDataCodec);
+    }
+
     @Override
     public String toString()
     {
         return String.format("%s@%x[passivating=%b,graceSec=%d]", this.getClass().getName(), this.hashCode(), isPassivating(), getGracePeriodSec());
     }
+
+    private static class PendingStore
+    {
+        private SessionData _data;
+        private Scheduler.Task _task;
+    }
 }
@@ -21,6 +21,8 @@ public abstract class AbstractSessionDataStoreFactory implements SessionDataStor
 
     int _gracePeriodSec = AbstractSessionDataStore.DEFAULT_GRACE_PERIOD_SEC;
     int _savePeriodSec = AbstractSessionDataStore.DEFAULT_SAVE_PERIOD_SEC;
+    long _coalescePeriodMs = AbstractSessionDataStore.DEFAULT_COALESCE_PERIOD_MS;
+    SessionDataCodec _sessionDataCodec;
 
     /**
      * @return the gracePeriodSec
@@ -53,4 +55,36 @@ public abstract class AbstractSessionDataStoreFactory implements SessionDataStor
     {
         _savePeriodSec = savePeriodSec;
     }
+
+    /**
+     * @return the coalescePeriodMs
+     */
+    public long getCoalescePeriodMs()
+    {
+        return _coalescePeriodMs;
+    }
+
+    /**
+     * @param coalescePeriodMs the coalescePeriodMs to set
+     */
+    public void setCoalescePeriodMs(long coalescePeriodMs)
+    {
+        _coalescePeriodMs = coalescePeriodMs;
+    }
+
+    /**
+     * @return the codec of the session attributes, or null for the store default
+     */
+    public SessionDataCodec getSessionDataCodec()
+    {
+        return _sessionDataCodec;
+    }
+
+    /**
+     * @param sessionDataCodec the codec of the session attributes
+     */
+    public void setSessionDataCodec(SessionDataCodec sessionDataCodec)
+    {
+        _sessionDataCodec = sessionDataCodec;
+    }
 }
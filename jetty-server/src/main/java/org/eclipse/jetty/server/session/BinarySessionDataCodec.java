@@ -0,0 +1,270 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.server.session;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.eclipse.jetty.util.ByteArrayOutputStream2;
+import org.eclipse.jetty.util.ClassLoadingObjectInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * BinarySessionDataCodec
+ *
+ * A compact {@link SessionDataCodec}.
+ * <p>
+ * Attribute values of type {@link String}, {@link Integer}, {@link Long},
+ * {@link Boolean}, {@link Double} and {@code byte[]} are written in a binary
+ * form; other values are written with Java serialization, each in its own
+ * stream, recording whether the value must be loaded with the container or
+ * the webapp classloader as {@link SessionData#serializeAttributes(SessionData, ObjectOutputStream)} does.
+ * <p>
+ * Attributes written by {@link ObjectStreamSessionDataCodec} can also be
+ * decoded, so that an existing store can switch to this codec; the opposite
+ * is not possible.
+ */
+public class BinarySessionDataCodec implements SessionDataCodec
+{
+    private static final Logger LOG = LoggerFactory.getLogger(BinarySessionDataCodec.class);
+
+    // The first byte of a Java serialization stream.
+    private static final int OBJECT_STREAM_MAGIC = 0xAC;
+    private static final int MAGIC = 0x4A;
+    private static final int VERSION = 1;
+
+    private static final int END = 0;
+    private static final int STRING = 1;
+    private static final int INTEGER = 2;
+    private static final int LONG = 3;
+    private static final int TRUE = 4;
+    private static final int FALSE = 5;
+    private static final int DOUBLE = 6;
+    private static final int BYTES = 7;
+    private static final int SERVER_OBJECT = 8;
+    private static final int CONTEXT_OBJECT = 9;
+
+    @Override
+    public void encodeAttributes(SessionData data, OutputStream out) throws IOException
+    {
+        DataOutputStream output = new DataOutputStream(out);
+        output.writeByte(MAGIC);
+        output.writeByte(VERSION);
+        for (Map.Entry<String, Object> entry : data._attributes.entrySet())
+        {
+            encodeAttribute(output, entry.getKey(), entry.getValue());
+        }
+        output.writeByte(END);
+        output.flush();
+    }
+
+    private void encodeAttribute(DataOutputStream output, String name, Object value) throws IOException
+    {
+        if (value instanceof String)
+        {
+            output.writeByte(STRING);
+            writeString(output, name);
+            writeString(output, (String)value);
+        }
+        else if (value instanceof Integer)
+        {
+            output.writeByte(INTEGER);
+            writeString(output, name);
+            writeVarLong(output, zigzag((Integer)value));
+        }
+        else if (value instanceof Long)
+        {
+            output.writeByte(LONG);
+            writeString(output, name);
+            writeVarLong(output, zigzag((Long)value));
+        }
+        else if (value instanceof Boolean)
+        {
+            output.writeByte((Boolean)value ? TRUE : FALSE);
+            writeString(output, name);
+        }
+        else if (value instanceof Double)
+        {
+            output.writeByte(DOUBLE);
+            writeString(output, name);
+            output.writeLong(Double.doubleToRawLongBits((Double)value));
+        }
+        else if (value instanceof byte[])
+        {
+            output.writeByte(BYTES);
+            writeString(output, name);
+            writeBytes(output, (byte[])value);
+        }
+        else
+        {
+            boolean isContextLoader = SessionData.isContextClassLoaderClass(value.getClass());
+            if (LOG.isDebugEnabled())
+                LOG.debug("Attribute {} class={} isServerLoader={}", name, value.getClass().getName(), !isContextLoader);
+            output.writeByte(isContextLoader ? CONTEXT_OBJECT : SERVER_OBJECT);
+            writeString(output, name);
+            ByteArrayOutputStream2 bytes = new ByteArrayOutputStream2();
+            try (ObjectOutputStream oos = new ObjectOutputStream(bytes))
+            {
+                oos.writeObject(value);
+            }
+            writeVarLong(output, bytes.getCount());
+            output.write(bytes.getBuf(), 0, bytes.getCount());
+        }
+    }
+
+    @Override
+    public void decodeAttributes(SessionData data, InputStream in) throws IOException, ClassNotFoundException
+    {
+        int magic = in.read();
+        if (magic < 0)
+            throw new EOFException();
+        if (magic == OBJECT_STREAM_MAGIC)
+        {
+            InputStream stream = new SequenceInputStream(new ByteArrayInputStream(new byte[]{(byte)magic}), in);
+            SessionData.deserializeAttributes(data, new ClassLoadingObjectInputStream(stream));
+            return;
+        }
+        if (magic != MAGIC)
+            throw new StreamCorruptedException("Invalid session attributes magic " + magic);
+
+        DataInputStream input = new DataInputStream(in);
+        int version = input.readUnsignedByte();
+        if (version != VERSION)
+            throw new StreamCorruptedException("Unsupported session attributes version " + version);
+        data.clearAllAttributes();
+
+        ClassLoader contextLoader = Thread.currentThread().getContextClassLoader();
+        ClassLoader serverLoader = SessionData.class.getClassLoader();
+        while (true)
+        {
+            int type = input.readUnsignedByte();
+            if (type == END)
+                return;
+            String name = readString(input);
+            Object value;
+            switch (type)
+            {
+                case STRING:
+                    value = readString(input);
+                    break;
+                case INTEGER:
+                    value = (int)unzigzag(readVarLong(input));
+                    break;
+                case LONG:
+                    value = unzigzag(readVarLong(input));
+                    break;
+                case TRUE:
+                    value = Boolean.TRUE;
+                    break;
+                case FALSE:
+                    value = Boolean.FALSE;
+                    break;
+                case DOUBLE:
+                    value = Double.longBitsToDouble(input.readLong());
+                    break;
+                case BYTES:
+                    value = readBytes(input);
+                    break;
+                case SERVER_OBJECT:
+                case CONTEXT_OBJECT:
+                    byte[] bytes = readBytes(input);
+                    try (ClassLoadingObjectInputStream ois = new ClassLoadingObjectInputStream(new ByteArrayInputStream(bytes)))
+                    {
+                        value = ois.readObject(type == SERVER_OBJECT ? serverLoader : contextLoader);
+                    }
+                    break;
+                default:
+                    throw new StreamCorruptedException("Invalid session attribute type " + type);
+            }
+            if (LOG.isDebugEnabled())
+                LOG.debug("Decoded attribute {} type={}", name, type);
+            data._attributes.put(name, value);
+        }
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException
+    {
+        writeBytes(output, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readString(DataInputStream input) throws IOException
+    {
+        return new String(readBytes(input), StandardCharsets.UTF_8);
+    }
+
+    private static void writeBytes(DataOutputStream output, byte[] bytes) throws IOException
+    {
+        writeVarLong(output, bytes.length);
+        output.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream input) throws IOException
+    {
+        long length = readVarLong(input);
+        if (length < 0 || length > Integer.MAX_VALUE - 8)
+            throw new StreamCorruptedException("Invalid session attribute length " + length);
+        byte[] bytes = new byte[(int)length];
+        input.readFully(bytes);
+        return bytes;
+    }
+
+    private static long zigzag(long value)
+    {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value)
+    {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(DataOutputStream output, long value) throws IOException
+    {
+        while ((value & ~0x7FL) != 0)
+        {
+            output.writeByte((int)((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        output.writeByte((int)value);
+    }
+
+    private static long readVarLong(DataInputStream input) throws IOException
+    {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7)
+        {
+            int b = input.readUnsignedByte();
+            value |= (long)(b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new StreamCorruptedException("Invalid session attribute varint");
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x", getClass().getSimpleName(), hashCode());
+    }
+}
@@ -13,6 +13,8 @@
 
 package org.eclipse.jetty.server.session;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.File;
@@ -20,7 +22,6 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.nio.file.FileVisitOption;
 import java.nio.file.Files;
@@ -32,7 +33,6 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
-import org.eclipse.jetty.util.ClassLoadingObjectInputStream;
 import org.eclipse.jetty.util.MultiException;
 import org.eclipse.jetty.util.StringUtil;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
@@ -72,9 +72,10 @@ public class FileSessionDataStore extends AbstractSessionDataStore
     @Override
     protected void doStop() throws Exception
     {
+        //write out any coalesced save before forgetting the files
+        super.doStop();
         _sessionFileMap.clear();
         _lastSweepTime = 0;
-        super.doStop();
     }
 
     @ManagedAttribute(value = "dir where sessions are stored", readonly = true)
@@ -106,7 +107,7 @@ public class FileSessionDataStore extends AbstractSessionDataStore
      * @param id session id
      */
     @Override
-    public boolean delete(String id) throws Exception
+    public boolean doDelete(String id) throws Exception
     {
         if (_storeDir != null)
         {
@@ -285,7 +286,7 @@ public class FileSessionDataStore extends AbstractSessionDataStore
 
         try (FileInputStream in = new FileInputStream(file))
         {
-            SessionData data = load(in, id);
+            SessionData data = load(new BufferedInputStream(in), id);
             data.setLastSaved(file.lastModified());
             return data;
         }
@@ -322,7 +323,7 @@ public class FileSessionDataStore extends AbstractSessionDataStore
 
             try (FileOutputStream fos = new FileOutputStream(file, false))
             {
-                save(fos, id, data);
+                save(new BufferedOutputStream(fos), id, data);
                 _sessionFileMap.put(idWithContext, filename);
             }
             catch (Exception e)
@@ -477,8 +478,8 @@ public class FileSessionDataStore extends AbstractSessionDataStore
         out.writeLong(data.getExpiry());
         out.writeLong(data.getMaxInactiveMs());
 
-        ObjectOutputStream oos = new ObjectOutputStream(out);
-        SessionData.serializeAttributes(data, oos);
+        getSessionDataCodec().encodeAttributes(data, out);
+        out.flush();
     }
 
     /**
@@ -622,8 +623,7 @@ public class FileSessionDataStore extends AbstractSessionDataStore
             data.setMaxInactiveMs(maxIdle);
 
             // Attributes
-            ClassLoadingObjectInputStream ois = new ClassLoadingObjectInputStream(is);
-            SessionData.deserializeAttributes(data, ois);
+            getSessionDataCodec().decodeAttributes(data, is);
             return data;
         }
         catch (Exception e)
@@ -63,6 +63,9 @@ public class FileSessionDataStoreFactory extends AbstractSessionDataStoreFactory
         fsds.setStoreDir(getStoreDir());
         fsds.setGracePeriodSec(getGracePeriodSec());
         fsds.setSavePeriodSec(getSavePeriodSec());
+        fsds.setCoalescePeriodMs(getCoalescePeriodMs());
+        if (getSessionDataCodec() != null)
+            fsds.setSessionDataCodec(getSessionDataCodec());
         return fsds;
     }
 }
@@ -16,9 +16,12 @@ package org.eclipse.jetty.server.session;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jetty.server.SessionIdManager;
+import org.eclipse.jetty.util.NanoTime;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.statistic.HistogramStatistic;
 import org.eclipse.jetty.util.thread.AutoLock;
 import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
 import org.eclipse.jetty.util.thread.Scheduler;
@@ -43,6 +46,7 @@ public class HouseKeeper extends AbstractLifeCycle
     protected Runner _runner;
     protected boolean _ownScheduler = false;
     private long _intervalMs = DEFAULT_PERIOD_MS;
+    private final HistogramStatistic _scavengeTimes = new HistogramStatistic();
 
     /**
      * Runner
@@ -239,6 +243,7 @@ public class HouseKeeper extends AbstractLifeCycle
         if (LOG.isDebugEnabled())
             LOG.debug("{} scavenging sessions", _sessionIdManager.getWorkerName());
 
+        long begin = NanoTime.now();
         //find the session managers
         for (SessionHandler manager : _sessionIdManager.getSessionHandlers())
         {
@@ -254,6 +259,33 @@ public class HouseKeeper extends AbstractLifeCycle
                 }
             }
         }
+        _scavengeTimes.record(NanoTime.millisSince(begin));
+    }
+
+    /**
+     * @return the durations in ms of the scavenge cycles
+     */
+    public HistogramStatistic getScavengeTimes()
+    {
+        return _scavengeTimes;
+    }
+
+    @ManagedAttribute(value = "mean duration in ms of the scavenge cycles", readonly = true)
+    public double getScavengeTimeMean()
+    {
+        return _scavengeTimes.getMean();
+    }
+
+    @ManagedAttribute(value = "max duration in ms of the scavenge cycles", readonly = true)
+    public long getScavengeTimeMax()
+    {
+        return _scavengeTimes.getMax();
+    }
+
+    @ManagedOperation(value = "reset statistics", impact = "ACTION")
+    public void resetStatistics()
+    {
+        _scavengeTimes.reset();
     }
 
     @Override
@@ -37,6 +37,9 @@ public class JDBCSessionDataStoreFactory extends AbstractSessionDataStoreFactory
         ds.setSessionTableSchema(_schema);
         ds.setGracePeriodSec(getGracePeriodSec());
         ds.setSavePeriodSec(getSavePeriodSec());
+        ds.setCoalescePeriodMs(getCoalescePeriodMs());
+        if (getSessionDataCodec() != null)
+            ds.setSessionDataCodec(getSessionDataCodec());
         return ds;
     }
 
@@ -0,0 +1,834 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.server.session;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.util.ByteArrayOutputStream2;
+import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.thread.AutoLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * LogFileSessionDataStore
+ *
+ * A file-based store of session data that appends the sessions of a context
+ * to a few large segment files, rather than writing a file per session.
+ * <p>
+ * Every save appends a record with the whole session to the active segment,
+ * and every delete appends a tombstone record. An in-memory index maps each
+ * session id to the location of its latest record, so that a load is a single
+ * positional read, and an expiry-ordered set of the index entries makes
+ * finding the expired sessions proportional to their number. When the active
+ * segment reaches {@link #getMaxSegmentSize()}, a new segment is started.
+ * <p>
+ * The index is rebuilt at startup by reading the segments sequentially. A record
+ * truncated by a crash at the end of the last segment is discarded.
+ * <p>
+ * The records superseded by a later save or by a delete are garbage that is
+ * reclaimed by compaction, which the periodic scavenging of expired sessions
+ * starts in the server thread pool: the live records of the segments with less
+ * than {@link #getCompactionThreshold()} live data are copied to the active
+ * segment, and the segments are then deleted. A tombstone is only copied while
+ * a segment that may contain a record of the deleted session remains.
+ * <p>
+ * The segments of a context are kept in a sub-directory of the store directory
+ * named after the context path and virtual host.
+ */
+@ManagedObject
+public class LogFileSessionDataStore extends AbstractSessionDataStore
+{
+    private static final Logger LOG = LoggerFactory.getLogger(LogFileSessionDataStore.class);
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int HEADER_LENGTH = 8;
+    private static final int STORE = 1;
+    private static final int DELETE = 2;
+    private static final Comparator<Entry> EXPIRY_ORDER = Comparator.<Entry>comparingLong(e -> e._expiry).thenComparing(e -> e._id);
+
+    private final AutoLock _lock = new AutoLock();
+    private final Map<String, Entry> _index = new ConcurrentHashMap<>();
+    private final NavigableSet<Entry> _expiries = new TreeSet<>(EXPIRY_ORDER);
+    private final TreeMap<Long, Segment> _segments = new TreeMap<>();
+    private final AtomicBoolean _compacting = new AtomicBoolean();
+    protected File _storeDir;
+    protected long _maxSegmentSize = 16 * 1024 * 1024;
+    protected double _compactionThreshold = 0.5D;
+    private Path _contextDir;
+    private Segment _active;
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        initializeStore();
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        //write out any coalesced save before closing the segments
+        super.doStop();
+        try (AutoLock l = _lock.lock())
+        {
+            for (Segment segment : _segments.values())
+            {
+                IO.close(segment._channel);
+            }
+            _segments.clear();
+            _index.clear();
+            _expiries.clear();
+            _active = null;
+        }
+    }
+
+    @ManagedAttribute(value = "dir where sessions are stored", readonly = true)
+    public File getStoreDir()
+    {
+        return _storeDir;
+    }
+
+    public void setStoreDir(File storeDir)
+    {
+        checkStarted();
+        _storeDir = storeDir;
+    }
+
+    @ManagedAttribute(value = "max size in bytes of a segment file", readonly = true)
+    public long getMaxSegmentSize()
+    {
+        return _maxSegmentSize;
+    }
+
+    /**
+     * @param maxSegmentSize the size in bytes above which a new segment file is started
+     */
+    public void setMaxSegmentSize(long maxSegmentSize)
+    {
+        checkStarted();
+        _maxSegmentSize = maxSegmentSize;
+    }
+
+    @ManagedAttribute(value = "live data ratio below which a segment is compacted", readonly = true)
+    public double getCompactionThreshold()
+    {
+        return _compactionThreshold;
+    }
+
+    /**
+     * @param compactionThreshold the ratio of live data to size, between 0 and 1,
+     * below which a segment file is compacted
+     */
+    public void setCompactionThreshold(double compactionThreshold)
+    {
+        checkStarted();
+        if (compactionThreshold < 0 || compactionThreshold > 1)
+            throw new IllegalArgumentException("Invalid compaction threshold " + compactionThreshold);
+        _compactionThreshold = compactionThreshold;
+    }
+
+    @ManagedAttribute(value = "number of sessions stored", readonly = true)
+    public int getSessionCount()
+    {
+        return _index.size();
+    }
+
+    @ManagedAttribute(value = "number of segment files", readonly = true)
+    public int getSegmentCount()
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            return _segments.size();
+        }
+    }
+
+    @Override
+    public boolean isPassivating()
+    {
+        return true;
+    }
+
+    @Override
+    public boolean doExists(String id) throws Exception
+    {
+        Entry entry = _index.get(id);
+        if (entry == null)
+            return false;
+
+        //check the expiry
+        if (entry._expiry <= 0)
+            return true; //never expires
+        else
+            return entry._expiry > System.currentTimeMillis(); //hasn't yet expired
+    }
+
+    @Override
+    public SessionData doLoad(String id) throws Exception
+    {
+        while (true)
+        {
+            Entry entry = _index.get(id);
+            if (entry == null)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Unknown session {}", id);
+                return null;
+            }
+
+            byte[] record;
+            try
+            {
+                record = read(entry);
+            }
+            catch (ClosedChannelException e)
+            {
+                //the segment has been compacted, try again from the new location
+                if (_index.get(id) != entry && isStarted())
+                    continue;
+                throw new UnreadableSessionDataException(id, _context, e);
+            }
+
+            try
+            {
+                return decode(id, record);
+            }
+            catch (Exception e)
+            {
+                throw new UnreadableSessionDataException(id, _context, e);
+            }
+        }
+    }
+
+    @Override
+    public void doStore(String id, SessionData data, long lastSaveTime) throws Exception
+    {
+        try
+        {
+            byte[] record = encode(id, data);
+            try (AutoLock l = _lock.lock())
+            {
+                checkOpen();
+                Entry entry = append(id, data.getExpiry(), record, 0, record.length);
+                index(entry);
+            }
+        }
+        catch (Exception e)
+        {
+            throw new UnwriteableSessionDataException(id, _context, e);
+        }
+    }
+
+    @Override
+    public boolean doDelete(String id) throws Exception
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            if (_active == null)
+                return false;
+            Entry entry = _index.remove(id);
+            if (entry == null)
+                return false;
+            _expiries.remove(entry);
+            entry._segment._live -= entry._length;
+            byte[] record = encodeDelete(id, entry._first, entry._segment._sequence);
+            append(id, 0, record, 0, record.length);
+            return true;
+        }
+    }
+
+    @Override
+    public Set<String> doCheckExpired(Set<String> candidates, long time)
+    {
+        Set<String> expired = new HashSet<>();
+        for (String id : candidates)
+        {
+            Entry entry = _index.get(id);
+            // no such record, therefore no longer any such session, it can be expired
+            if (entry == null || (entry._expiry > 0 && entry._expiry <= time))
+                expired.add(id);
+        }
+        return expired;
+    }
+
+    @Override
+    public Set<String> doGetExpired(long time)
+    {
+        Set<String> expired = new HashSet<>();
+        try (AutoLock l = _lock.lock())
+        {
+            for (Entry entry : _expiries)
+            {
+                if (entry._expiry > time)
+                    break;
+                expired.add(entry._id);
+            }
+        }
+
+        //piggyback on the periodic scavenging to reclaim space
+        compactLater();
+        return expired;
+    }
+
+    @Override
+    public void doCleanOrphans(long time)
+    {
+        //the sessions of other contexts are in other directories, so
+        //only delete our sessions that expired long ago
+        List<String> orphans = new ArrayList<>();
+        try (AutoLock l = _lock.lock())
+        {
+            for (Entry entry : _expiries)
+            {
+                if (entry._expiry > time)
+                    break;
+                orphans.add(entry._id);
+            }
+        }
+        for (String id : orphans)
+        {
+            try
+            {
+                delete(id);
+            }
+            catch (Exception e)
+            {
+                LOG.warn("Unable to delete orphan session {}", id, e);
+            }
+        }
+    }
+
+    /**
+     * Compact the segment files whose ratio of live data is below
+     * the {@link #getCompactionThreshold() compaction threshold}.
+     */
+    @ManagedOperation(value = "compact the segment files", impact = "ACTION")
+    public void compact()
+    {
+        if (!_compacting.compareAndSet(false, true))
+            return;
+        try
+        {
+            List<Segment> segments = new ArrayList<>();
+            try (AutoLock l = _lock.lock())
+            {
+                for (Segment segment : _segments.values())
+                {
+                    if (segment != _active && segment._live < segment._size * _compactionThreshold)
+                        segments.add(segment);
+                }
+            }
+
+            for (Segment segment : segments)
+            {
+                try
+                {
+                    compact(segment);
+                }
+                catch (Exception e)
+                {
+                    if (isRunning())
+                        LOG.warn("Unable to compact {}", segment._path, e);
+                    else if (LOG.isDebugEnabled())
+                        LOG.debug("Unable to compact {}", segment._path, e);
+                }
+            }
+        }
+        finally
+        {
+            _compacting.set(false);
+        }
+    }
+
+    /**
+     * Compact the segment files in the server thread pool,
+     * or in the calling thread if the store is not in a server.
+     */
+    private void compactLater()
+    {
+        if (_compacting.get())
+            return;
+        SessionHandler sessionHandler = _context.getSessionHandler();
+        Server server = sessionHandler == null ? null : sessionHandler.getServer();
+        if (server == null)
+        {
+            compact();
+            return;
+        }
+        try
+        {
+            server.getThreadPool().execute(this::compact);
+        }
+        catch (RejectedExecutionException e)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Unable to compact {}", this, e);
+        }
+    }
+
+    private void compact(Segment segment) throws IOException
+    {
+        if (LOG.isDebugEnabled())
+            LOG.debug("Compacting {} live={}/{}", segment._path, segment._live, segment._size);
+
+        //the segment is sealed, so it can be read without holding the lock
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(segment._path)))
+        {
+            RecordReader reader = new RecordReader(in, segment._size);
+            while (reader.next())
+            {
+                try (AutoLock l = _lock.lock())
+                {
+                    checkOpen();
+                    Entry entry = _index.get(reader._id);
+                    if (reader._type == STORE)
+                    {
+                        //copy the record if it is still the latest for the session
+                        if (entry != null && entry._segment == segment && entry._offset == reader._offset)
+                            index(append(reader._id, entry._expiry, reader._buffer, 0, reader._length));
+                    }
+                    else if (entry != null)
+                    {
+                        //the session was stored again, so its next tombstone must shadow the older records
+                        entry._first = Math.min(entry._first, reader._first);
+                    }
+                    else if (isShadowing(reader._first, reader._last, segment))
+                    {
+                        //keep the tombstone while another segment may contain the deleted session
+                        append(reader._id, 0, reader._buffer, 0, reader._length);
+                    }
+                }
+            }
+        }
+
+        try (AutoLock l = _lock.lock())
+        {
+            _segments.remove(segment._sequence);
+            IO.close(segment._channel);
+        }
+        Files.deleteIfExists(segment._path);
+    }
+
+    /**
+     * @param first the sequence of the oldest segment that may contain a record of a deleted session
+     * @param last the sequence of the segment that contained the latest record of the deleted session
+     * @param segment the segment of the tombstone being compacted
+     * @return whether another segment may contain a record of the deleted session
+     */
+    private boolean isShadowing(long first, long last, Segment segment)
+    {
+        assert _lock.isHeldByCurrentThread();
+        long to = Math.min(last, segment._sequence - 1);
+        return first <= to && !_segments.subMap(first, true, to, true).isEmpty();
+    }
+
+    private void initializeStore() throws Exception
+    {
+        if (_storeDir == null)
+            throw new IllegalStateException("No file store specified");
+
+        String contextString = _context.getCanonicalContextPath() + "_" + _context.getVhost();
+        _contextDir = _storeDir.toPath().resolve(contextString);
+        Files.createDirectories(_contextDir);
+
+        List<Path> paths = new ArrayList<>();
+        try (Stream<Path> stream = Files.list(_contextDir))
+        {
+            stream.filter(p -> isSegmentFilename(p.getFileName().toString())).forEach(paths::add);
+        }
+        paths.sort(Comparator.comparingLong(p -> getSequenceFromFilename(p.getFileName().toString())));
+
+        try (AutoLock l = _lock.lock())
+        {
+            for (int i = 0; i < paths.size(); ++i)
+            {
+                Segment segment = open(paths.get(i));
+                _segments.put(segment._sequence, segment);
+                scan(segment, i == paths.size() - 1);
+            }
+            if (_segments.isEmpty() || _segments.lastEntry().getValue()._size >= _maxSegmentSize)
+                roll();
+            else
+                _active = _segments.lastEntry().getValue();
+        }
+
+        if (LOG.isDebugEnabled())
+            LOG.debug("Indexed {} sessions in {} segments in {}", _index.size(), _segments.size(), _contextDir);
+    }
+
+    /**
+     * Read the records of a segment to rebuild the index.
+     */
+    private void scan(Segment segment, boolean last) throws IOException
+    {
+        long size = segment._channel.size();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(segment._path)))
+        {
+            RecordReader reader = new RecordReader(in, size);
+            while (true)
+            {
+                try
+                {
+                    if (!reader.next())
+                        break;
+                }
+                catch (IOException e)
+                {
+                    if (last)
+                    {
+                        LOG.warn("Discarding truncated or corrupted record at {} in {}", reader._offset, segment._path, e);
+                        segment._channel.truncate(reader._offset);
+                    }
+                    else
+                    {
+                        LOG.warn("Ignoring records after {} in {}", reader._offset, segment._path, e);
+                    }
+                    break;
+                }
+
+                segment._size = reader._offset + reader._length;
+                if (reader._type == STORE)
+                {
+                    index(new Entry(reader._id, segment, reader._offset, reader._length, reader._expiry));
+                }
+                else
+                {
+                    Entry entry = _index.remove(reader._id);
+                    if (entry != null)
+                    {
+                        _expiries.remove(entry);
+                        entry._segment._live -= entry._length;
+                    }
+                }
+            }
+        }
+    }
+
+    private Segment open(Path path) throws IOException
+    {
+        long sequence = getSequenceFromFilename(path.getFileName().toString());
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new Segment(sequence, path, channel);
+    }
+
+    private void roll() throws IOException
+    {
+        assert _lock.isHeldByCurrentThread();
+        long sequence = _segments.isEmpty() ? 1 : _segments.lastKey() + 1;
+        Segment segment = open(_contextDir.resolve(getSegmentFilename(sequence)));
+        _segments.put(sequence, segment);
+        _active = segment;
+        if (LOG.isDebugEnabled())
+            LOG.debug("Started segment {}", segment._path);
+    }
+
+    private void checkOpen() throws IOException
+    {
+        if (_active == null)
+            throw new ClosedChannelException();
+    }
+
+    private Entry append(String id, long expiry, byte[] record, int offset, int length) throws IOException
+    {
+        assert _lock.isHeldByCurrentThread();
+        if (_active._size > 0 && _active._size + length > _maxSegmentSize)
+            roll();
+
+        Segment segment = _active;
+        long position = segment._size;
+        ByteBuffer buffer = ByteBuffer.wrap(record, offset, length);
+        while (buffer.hasRemaining())
+        {
+            segment._channel.write(buffer, position + buffer.position() - offset);
+        }
+        segment._size += length;
+        return new Entry(id, segment, position, length, expiry);
+    }
+
+    private void index(Entry entry)
+    {
+        assert _lock.isHeldByCurrentThread();
+        Entry old = _index.put(entry._id, entry);
+        if (old != null)
+        {
+            _expiries.remove(old);
+            old._segment._live -= old._length;
+            //the records of the session may still be in the older segments
+            entry._first = Math.min(entry._first, old._first);
+        }
+        if (entry._expiry > 0)
+            _expiries.add(entry);
+        entry._segment._live += entry._length;
+    }
+
+    private byte[] read(Entry entry) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(entry._length);
+        while (buffer.hasRemaining())
+        {
+            if (entry._segment._channel.read(buffer, entry._offset + buffer.position()) < 0)
+                throw new EOFException();
+        }
+        return buffer.array();
+    }
+
+    private byte[] encode(String id, SessionData data) throws IOException
+    {
+        ByteArrayOutputStream2 out = new ByteArrayOutputStream2(512);
+        out.setCount(HEADER_LENGTH);
+        DataOutputStream output = new DataOutputStream(out);
+        output.writeByte(STORE);
+        output.writeUTF(id);
+        output.writeLong(data.getExpiry());
+        output.writeUTF(data.getLastNode());
+        output.writeLong(data.getCreated());
+        output.writeLong(data.getAccessed());
+        output.writeLong(data.getLastAccessed());
+        output.writeLong(data.getCookieSet());
+        output.writeLong(data.getMaxInactiveMs());
+        output.writeLong(data.getLastSaved());
+        getSessionDataCodec().encodeAttributes(data, output);
+        output.flush();
+        return seal(out);
+    }
+
+    private byte[] encodeDelete(String id, long first, long last) throws IOException
+    {
+        ByteArrayOutputStream2 out = new ByteArrayOutputStream2(64);
+        out.setCount(HEADER_LENGTH);
+        DataOutputStream output = new DataOutputStream(out);
+        output.writeByte(DELETE);
+        output.writeUTF(id);
+        output.writeLong(first);
+        output.writeLong(last);
+        output.flush();
+        return seal(out);
+    }
+
+    private static byte[] seal(ByteArrayOutputStream2 out)
+    {
+        byte[] record = out.toByteArray();
+        int length = record.length - HEADER_LENGTH;
+        CRC32 crc = new CRC32();
+        crc.update(record, HEADER_LENGTH, length);
+        ByteBuffer.wrap(record).putInt(length).putInt((int)crc.getValue());
+        return record;
+    }
+
+    private SessionData decode(String expectedId, byte[] record) throws Exception
+    {
+        ByteBuffer header = ByteBuffer.wrap(record);
+        int length = header.getInt();
+        int checksum = header.getInt();
+        CRC32 crc = new CRC32();
+        crc.update(record, HEADER_LENGTH, length);
+        if (length != record.length - HEADER_LENGTH || checksum != (int)crc.getValue())
+            throw new StreamCorruptedException("Invalid session record");
+
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(record, HEADER_LENGTH, length));
+        int type = input.readUnsignedByte();
+        String id = input.readUTF();
+        if (type != STORE || !expectedId.equals(id))
+            throw new StreamCorruptedException("Invalid session record for " + id);
+        long expiry = input.readLong();
+        String lastNode = input.readUTF();
+        long created = input.readLong();
+        long accessed = input.readLong();
+        long lastAccessed = input.readLong();
+        long cookieSet = input.readLong();
+        long maxInactiveMs = input.readLong();
+        long lastSaved = input.readLong();
+
+        SessionData data = newSessionData(id, created, accessed, lastAccessed, maxInactiveMs);
+        data.setContextPath(_context.getCanonicalContextPath());
+        data.setVhost(_context.getVhost());
+        data.setLastNode(lastNode);
+        data.setCookieSet(cookieSet);
+        data.setExpiry(expiry);
+        data.setLastSaved(lastSaved);
+        getSessionDataCodec().decodeAttributes(data, input);
+        return data;
+    }
+
+    protected String getSegmentFilename(long sequence)
+    {
+        return String.format("%016d%s", sequence, SEGMENT_SUFFIX);
+    }
+
+    protected boolean isSegmentFilename(String filename)
+    {
+        if (!filename.endsWith(SEGMENT_SUFFIX))
+            return false;
+        try
+        {
+            getSequenceFromFilename(filename);
+            return true;
+        }
+        catch (NumberFormatException e)
+        {
+            return false;
+        }
+    }
+
+    protected long getSequenceFromFilename(String filename)
+    {
+        return Long.parseLong(filename.substring(0, filename.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s[dir=%s,sessions=%d,segments=%d]", super.toString(), _storeDir, getSessionCount(), getSegmentCount());
+    }
+
+    /**
+     * A segment file, its size and the size of its live records.
+     */
+    private static class Segment
+    {
+        private final long _sequence;
+        private final Path _path;
+        private final FileChannel _channel;
+        private long _size;
+        private long _live;
+
+        private Segment(long sequence, Path path, FileChannel channel)
+        {
+            _sequence = sequence;
+            _path = path;
+            _channel = channel;
+        }
+    }
+
+    /**
+     * The location of the latest record of a session,
+     * and the oldest segment that may contain its records.
+     */
+    private static class Entry
+    {
+        private final String _id;
+        private final Segment _segment;
+        private final long _offset;
+        private final int _length;
+        private final long _expiry;
+        private long _first;
+
+        private Entry(String id, Segment segment, long offset, int length, long expiry)
+        {
+            _id = id;
+            _segment = segment;
+            _offset = offset;
+            _length = length;
+            _expiry = expiry;
+            _first = segment._sequence;
+        }
+    }
+
+    /**
+     * Reads the records of a segment sequentially, verifying their checksum.
+     */
+    private static class RecordReader
+    {
+        private final DataInputStream _input;
+        private final long _size;
+        private final CRC32 _crc = new CRC32();
+        private byte[] _buffer = new byte[1024];
+        private long _offset;
+        private int _length;
+        private int _type;
+        private String _id;
+        private long _expiry;
+        private long _first;
+        private long _last;
+
+        private RecordReader(InputStream in, long size)
+        {
+            _input = new DataInputStream(in);
+            _size = size;
+        }
+
+        /**
+         * @return true if a record has been read, false at the end of the segment
+         * @throws IOException if the record is truncated or corrupted
+         */
+        private boolean next() throws IOException
+        {
+            _offset += _length;
+            _length = 0;
+            if (_offset >= _size)
+                return false;
+
+            int length = _input.readInt();
+            int checksum = _input.readInt();
+            if (length <= 0 || _offset + HEADER_LENGTH + length > _size)
+                throw new EOFException("Truncated record");
+            int recordLength = HEADER_LENGTH + length;
+            if (_buffer.length < recordLength)
+                _buffer = new byte[Math.max(recordLength, _buffer.length * 2)];
+            ByteBuffer.wrap(_buffer).putInt(length).putInt(checksum);
+            _input.readFully(_buffer, HEADER_LENGTH, length);
+            _crc.reset();
+            _crc.update(_buffer, HEADER_LENGTH, length);
+            if (checksum != (int)_crc.getValue())
+                throw new StreamCorruptedException("Invalid checksum");
+
+            DataInputStream body = new DataInputStream(new ByteArrayInputStream(_buffer, HEADER_LENGTH, length));
+            _type = body.readUnsignedByte();
+            if (_type != STORE && _type != DELETE)
+                throw new StreamCorruptedException("Invalid record type " + _type);
+            _id = body.readUTF();
+            if (_type == STORE)
+            {
+                _expiry = body.readLong();
+            }
+            else
+            {
+                _first = body.readLong();
+                _last = body.readLong();
+            }
+            _length = recordLength;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.server.session;
+
+import java.io.File;
+
+/**
+ * LogFileSessionDataStoreFactory
+ */
+public class LogFileSessionDataStoreFactory extends AbstractSessionDataStoreFactory
+{
+    File _storeDir;
+    long _maxSegmentSize = 16 * 1024 * 1024;
+    double _compactionThreshold = 0.5D;
+
+    /**
+     * @return the storeDir
+     */
+    public File getStoreDir()
+    {
+        return _storeDir;
+    }
+
+    /**
+     * @param storeDir the storeDir to set
+     */
+    public void setStoreDir(File storeDir)
+    {
+        _storeDir = storeDir;
+    }
+
+    /**
+     * @return the maxSegmentSize
+     */
+    public long getMaxSegmentSize()
+    {
+        return _maxSegmentSize;
+    }
+
+    /**
+     * @param maxSegmentSize the maxSegmentSize to set
+     */
+    public void setMaxSegmentSize(long maxSegmentSize)
+    {
+        _maxSegmentSize = maxSegmentSize;
+    }
+
+    /**
+     * @return the compactionThreshold
+     */
+    public double getCompactionThreshold()
+    {
+        return _compactionThreshold;
+    }
+
+    /**
+     * @param compactionThreshold the compactionThreshold to set
+     */
+    public void setCompactionThreshold(double compactionThreshold)
+    {
+        _compactionThreshold = compactionThreshold;
+    }
+
+    @Override
+    public SessionDataStore getSessionDataStore(SessionHandler handler)
+    {
+        LogFileSessionDataStore lfsds = new LogFileSessionDataStore();
+        lfsds.setStoreDir(getStoreDir());
+        lfsds.setMaxSegmentSize(getMaxSegmentSize());
+        lfsds.setCompactionThreshold(getCompactionThreshold());
+        lfsds.setGracePeriodSec(getGracePeriodSec());
+        lfsds.setSavePeriodSec(getSavePeriodSec());
+        lfsds.setCoalescePeriodMs(getCoalescePeriodMs());
+        if (getSessionDataCodec() != null)
+            lfsds.setSessionDataCodec(getSessionDataCodec());
+        return lfsds;
+    }
+}
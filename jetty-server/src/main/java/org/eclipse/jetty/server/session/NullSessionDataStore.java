@@ -40,7 +40,7 @@ public class NullSessionDataStore extends AbstractSessionDataStore
     }
 
     @Override
-    public boolean delete(String id) throws Exception
+    public boolean doDelete(String id) throws Exception
     {
         return true;
     }
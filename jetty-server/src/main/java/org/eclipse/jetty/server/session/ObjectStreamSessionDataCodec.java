@@ -0,0 +1,50 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.server.session;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+
+import org.eclipse.jetty.util.ClassLoadingObjectInputStream;
+
+/**
+ * ObjectStreamSessionDataCodec
+ *
+ * The default {@link SessionDataCodec}, that writes the attributes with
+ * {@link SessionData#serializeAttributes(SessionData, ObjectOutputStream)},
+ * the Java serialization format that the session data stores have always used.
+ */
+public class ObjectStreamSessionDataCodec implements SessionDataCodec
+{
+    @Override
+    public void encodeAttributes(SessionData data, OutputStream out) throws IOException
+    {
+        ObjectOutputStream oos = new ObjectOutputStream(out);
+        SessionData.serializeAttributes(data, oos);
+        oos.flush();
+    }
+
+    @Override
+    public void decodeAttributes(SessionData data, InputStream in) throws IOException, ClassNotFoundException
+    {
+        SessionData.deserializeAttributes(data, new ClassLoadingObjectInputStream(in));
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x", getClass().getSimpleName(), hashCode());
+    }
+}
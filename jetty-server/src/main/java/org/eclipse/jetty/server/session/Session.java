@@ -99,38 +99,58 @@ public class Session implements SessionHandler.SessionIf
      * Each Session has a timer associated with it that fires whenever it has
      * been idle (ie not accessed by a request) for a configurable amount of
      * time, or the Session expires.
+     * <p>
+     * The timer is held by the {@link SessionExpiryWheel} shared by the
+     * SessionHandlers of the Server, or if there is none, is scheduled
+     * with the Scheduler of the SessionHandler.
      *
      * @see SessionCache
      */
     public class SessionInactivityTimer
     {
         protected final CyclicTimeout _timer;
+        private final SessionExpiryWheel.Timer _wheelTimer;
 
         public SessionInactivityTimer()
         {
-            _timer = new CyclicTimeout((getSessionHandler().getScheduler()))
+            SessionExpiryWheel wheel = getSessionHandler().getSessionExpiryWheel();
+            if (wheel != null)
             {
-                @Override
-                public void onTimeoutExpired()
+                _timer = null;
+                _wheelTimer = wheel.newTimer(this::onTimeoutExpired);
+            }
+            else
+            {
+                _wheelTimer = null;
+                _timer = new CyclicTimeout((getSessionHandler().getScheduler()))
                 {
-                    if (LOG.isDebugEnabled())
-                        LOG.debug("Timer expired for session {}", getId());
-                    long now = System.currentTimeMillis();
-                    //handle what to do with the session after the timer expired
-                    getSessionHandler().sessionInactivityTimerExpired(Session.this, now);
-                    try (AutoLock l = Session.this.lock())
+                    @Override
+                    public void onTimeoutExpired()
                     {
-                        //grab the lock and check what happened to the session: if it didn't get evicted and
-                        //it hasn't expired, we need to reset the timer
-                        if (Session.this.isResident() && Session.this.getRequests() <= 0 && Session.this.isValid() &&
-                            !Session.this.isExpiredAt(now))
-                        {
-                            //session wasn't expired or evicted, we need to reset the timer
-                            SessionInactivityTimer.this.schedule(Session.this.calculateInactivityTimeout(now));
-                        }
+                        SessionInactivityTimer.this.onTimeoutExpired();
                     }
+                };
+            }
+        }
+
+        private void onTimeoutExpired()
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Timer expired for session {}", getId());
+            long now = System.currentTimeMillis();
+            //handle what to do with the session after the timer expired
+            getSessionHandler().sessionInactivityTimerExpired(Session.this, now);
+            try (AutoLock l = Session.this.lock())
+            {
+                //grab the lock and check what happened to the session: if it didn't get evicted and
+                //it hasn't expired, we need to reset the timer
+                if (Session.this.isResident() && Session.this.getRequests() <= 0 && Session.this.isValid() &&
+                    !Session.this.isExpiredAt(now))
+                {
+                    //session wasn't expired or evicted, we need to reset the timer
+                    SessionInactivityTimer.this.schedule(Session.this.calculateInactivityTimeout(now));
                 }
-            };
+            }
         }
 
         /**
@@ -143,7 +163,10 @@ public class Session implements SessionHandler.SessionIf
             {
                 if (LOG.isDebugEnabled())
                     LOG.debug("(Re)starting timer for session {} at {}ms", getId(), time);
-                _timer.schedule(time, TimeUnit.MILLISECONDS);
+                if (_wheelTimer != null)
+                    _wheelTimer.schedule(time, TimeUnit.MILLISECONDS);
+                else
+                    _timer.schedule(time, TimeUnit.MILLISECONDS);
             }
             else
             {
@@ -154,14 +177,20 @@ public class Session implements SessionHandler.SessionIf
 
         public void cancel()
         {
-            _timer.cancel();
+            if (_wheelTimer != null)
+                _wheelTimer.cancel();
+            else
+                _timer.cancel();
             if (LOG.isDebugEnabled())
                 LOG.debug("Cancelled timer for session {}", getId());
         }
 
         public void destroy()
         {
-            _timer.destroy();
+            if (_wheelTimer != null)
+                _wheelTimer.cancel();
+            else
+                _timer.destroy();
             if (LOG.isDebugEnabled())
                 LOG.debug("Destroyed timer for session {}", getId());
         }
@@ -75,37 +75,8 @@ public class SessionData implements Serializable
             out.writeUTF(entry.getKey());
 
             Class<?> clazz = entry.getValue().getClass();
-            ClassLoader loader = clazz.getClassLoader();
-            ClassLoader contextLoader = Thread.currentThread().getContextClassLoader();
-            
-            boolean isContextLoader;
-
-            if (loader == contextLoader) //is it the context classloader?
-                isContextLoader = true;
-            else if (contextLoader == null) //not context classloader
-                isContextLoader = false;
-            else if (contextLoader instanceof ClassVisibilityChecker)
-            {
-                //Clazz not loaded by context classloader, but ask if loadable by context classloader,
-                //because preferable to use context classloader if possible (eg for deep structures).
-                ClassVisibilityChecker checker = (ClassVisibilityChecker)(contextLoader);
-                isContextLoader = (checker.isSystemClass(clazz) && !(checker.isServerClass(clazz)));
-            }
-            else
-            {
-                //Class wasn't loaded by context classloader, but try loading from context loader,
-                //because preferable to use context classloader if possible (eg for deep structures).
-                try
-                {
-                    Class<?> result = contextLoader.loadClass(clazz.getName());
-                    isContextLoader = (result == clazz); //only if TTCL loaded this instance of the class
-                }
-                catch (Throwable e)
-                {
-                    isContextLoader = false; //TCCL can't see the class
-                }
-            }
-            
+            boolean isContextLoader = isContextClassLoaderClass(clazz);
+
             if (LOG.isDebugEnabled())
                 LOG.debug("Attribute {} class={} isServerLoader={}", entry.getKey(), clazz.getName(), (!isContextLoader));
             out.writeBoolean(!isContextLoader);
@@ -113,6 +84,41 @@ public class SessionData implements Serializable
         }
     }
 
+    /**
+     * @param clazz the class of an attribute value
+     * @return whether the class should be loaded by the context classloader,
+     * rather than by the container classloader, when the attribute is deserialized
+     */
+    static boolean isContextClassLoaderClass(Class<?> clazz)
+    {
+        ClassLoader loader = clazz.getClassLoader();
+        ClassLoader contextLoader = Thread.currentThread().getContextClassLoader();
+
+        if (loader == contextLoader) //is it the context classloader?
+            return true;
+        if (contextLoader == null) //not context classloader
+            return false;
+        if (contextLoader instanceof ClassVisibilityChecker)
+        {
+            //Clazz not loaded by context classloader, but ask if loadable by context classloader,
+            //because preferable to use context classloader if possible (eg for deep structures).
+            ClassVisibilityChecker checker = (ClassVisibilityChecker)(contextLoader);
+            return (checker.isSystemClass(clazz) && !(checker.isServerClass(clazz)));
+        }
+
+        //Class wasn't loaded by context classloader, but try loading from context loader,
+        //because preferable to use context classloader if possible (eg for deep structures).
+        try
+        {
+            Class<?> result = contextLoader.loadClass(clazz.getName());
+            return (result == clazz); //only if TTCL loaded this instance of the class
+        }
+        catch (Throwable e)
+        {
+            return false; //TCCL can't see the class
+        }
+    }
+
     /**
      * De-serialize the attribute map of a session.
      *
@@ -0,0 +1,48 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.server.session;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * SessionDataCodec
+ *
+ * Encodes and decodes the attributes of a {@link SessionData} for the
+ * {@link SessionDataStore}s that persist sessions as bytes.
+ * <p>
+ * Codecs are invoked with the context classloader of the webapp set as the
+ * thread context classloader.
+ */
+public interface SessionDataCodec
+{
+    /**
+     * Encode all the attributes of the session.
+     *
+     * @param data the session data
+     * @param out the stream to write the attributes to
+     * @throws IOException if the attributes cannot be encoded
+     */
+    void encodeAttributes(SessionData data, OutputStream out) throws IOException;
+
+    /**
+     * Decode attributes and set them as the attributes of the session.
+     *
+     * @param data the session data
+     * @param in the stream to read the attributes from
+     * @throws IOException if the attributes cannot be decoded
+     * @throws ClassNotFoundException if the class of an attribute value cannot be loaded
+     */
+    void decodeAttributes(SessionData data, InputStream in) throws IOException, ClassNotFoundException;
+}
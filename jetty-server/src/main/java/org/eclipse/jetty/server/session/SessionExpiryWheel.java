@@ -0,0 +1,420 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.server.session;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.util.NanoTime;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.statistic.HistogramStatistic;
+import org.eclipse.jetty.util.thread.AutoLock;
+import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
+import org.eclipse.jetty.util.thread.Scheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * SessionExpiryWheel
+ *
+ * A hierarchical timing wheel holding the inactivity timers of the sessions
+ * of all the {@link SessionHandler}s of a Server.
+ * <p>
+ * Rather than scheduling a task per session, timers are hashed in constant
+ * time into the slots of {@value #LEVELS} wheels of {@value #SLOTS} slots each, the
+ * first wheel having a slot per tick, and each following wheel a slot per
+ * revolution of the previous one. A single task ticks the wheel: on each tick
+ * the timers of the current slot of the first wheel are expired, and whenever
+ * a wheel completes a revolution, the timers of the next slot of the following
+ * wheel are redistributed into the lower wheels. Only the timers that are due
+ * are ever touched, and timers are never expired early, but may be expired up
+ * to a tick late.
+ * <p>
+ * The delay between the expiry time of the timers and the time at which they
+ * are actually expired is recorded in milliseconds in {@link #getExpiryLags()}.
+ */
+@ManagedObject
+public class SessionExpiryWheel extends AbstractLifeCycle
+{
+    private static final Logger LOG = LoggerFactory.getLogger(SessionExpiryWheel.class);
+    public static final long DEFAULT_TICK_MS = 100L;
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_TICKS = 1L << (BITS * LEVELS);
+
+    private final AutoLock _lock = new AutoLock();
+    private final Timer[][] _wheels = new Timer[LEVELS][SLOTS];
+    private final HistogramStatistic _expiryLags = new HistogramStatistic();
+    private final Scheduler _sharedScheduler;
+    private Scheduler _scheduler;
+    private boolean _ownScheduler;
+    private Scheduler.Task _task;
+    private long _tickMs = DEFAULT_TICK_MS;
+    private long _originNanoTime;
+    private long _tick;
+    private int _size;
+
+    public SessionExpiryWheel()
+    {
+        this(null);
+    }
+
+    /**
+     * @param scheduler the scheduler used to tick the wheel, or null to use an own scheduler
+     */
+    public SessionExpiryWheel(Scheduler scheduler)
+    {
+        _sharedScheduler = scheduler;
+        for (Timer[] wheel : _wheels)
+        {
+            for (int i = 0; i < SLOTS; ++i)
+            {
+                Timer head = new Timer(null, null);
+                head._prev = head;
+                head._next = head;
+                wheel[i] = head;
+            }
+        }
+    }
+
+    @ManagedAttribute(value = "ms between ticks of the wheel", readonly = true)
+    public long getTickMs()
+    {
+        return _tickMs;
+    }
+
+    /**
+     * @param tickMs the time in ms between ticks of the wheel, which is the
+     * max delay after which a timer is expired
+     */
+    public void setTickMs(long tickMs)
+    {
+        if (isStarted())
+            throw new IllegalStateException("SessionExpiryWheel started");
+        if (tickMs <= 0)
+            throw new IllegalArgumentException("Invalid tick " + tickMs);
+        _tickMs = tickMs;
+    }
+
+    @ManagedAttribute(value = "number of scheduled timers", readonly = true)
+    public int getTimerCount()
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            return _size;
+        }
+    }
+
+    /**
+     * @return the delay in ms between the expiry time of the timers and the time they were expired
+     */
+    public HistogramStatistic getExpiryLags()
+    {
+        return _expiryLags;
+    }
+
+    @ManagedAttribute(value = "mean delay in ms between the expiry time of timers and their expiration", readonly = true)
+    public double getExpiryLagMean()
+    {
+        return _expiryLags.getMean();
+    }
+
+    @ManagedAttribute(value = "max delay in ms between the expiry time of timers and their expiration", readonly = true)
+    public long getExpiryLagMax()
+    {
+        return _expiryLags.getMax();
+    }
+
+    @ManagedOperation(value = "reset statistics", impact = "ACTION")
+    public void resetStatistics()
+    {
+        _expiryLags.reset();
+    }
+
+    /**
+     * @param task the task to run when the timer expires
+     * @return a new timer, not scheduled
+     */
+    public Timer newTimer(Runnable task)
+    {
+        return new Timer(this, task);
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        //use the shared scheduler if it is already running, fallback to own
+        if (_sharedScheduler != null && _sharedScheduler.isStarted())
+        {
+            _scheduler = _sharedScheduler;
+        }
+        else
+        {
+            _scheduler = new ScheduledExecutorScheduler(String.format("Session-ExpiryWheel-%x", hashCode()), false);
+            _ownScheduler = true;
+            _scheduler.start();
+        }
+
+        try (AutoLock l = _lock.lock())
+        {
+            _originNanoTime = NanoTime.now();
+            _tick = 0;
+            _task = _scheduler.schedule(this::tick, _tickMs, TimeUnit.MILLISECONDS);
+        }
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        super.doStop();
+        try (AutoLock l = _lock.lock())
+        {
+            if (_task != null)
+                _task.cancel();
+            _task = null;
+            for (Timer[] wheel : _wheels)
+            {
+                for (Timer head : wheel)
+                {
+                    while (head._next != head)
+                    {
+                        unlink(head._next);
+                    }
+                }
+            }
+            _size = 0;
+        }
+        if (_ownScheduler)
+        {
+            _ownScheduler = false;
+            _scheduler.stop();
+        }
+        _scheduler = null;
+    }
+
+    private long currentTick()
+    {
+        return NanoTime.since(_originNanoTime) / TimeUnit.MILLISECONDS.toNanos(_tickMs);
+    }
+
+    private void schedule(Timer timer, long delayMs)
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            if (timer._prev != null)
+                unlink(timer);
+            else
+                _size++;
+            long expiryNanoTime = NanoTime.now() + TimeUnit.MILLISECONDS.toNanos(delayMs);
+            long tickNanos = TimeUnit.MILLISECONDS.toNanos(_tickMs);
+            //round up, so that timers are never expired early
+            timer._expiryTick = (NanoTime.elapsed(_originNanoTime, expiryNanoTime) + tickNanos - 1) / tickNanos;
+            timer._expiryNanoTime = expiryNanoTime;
+            timer._generation++;
+            link(timer);
+        }
+    }
+
+    private boolean cancel(Timer timer)
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            timer._generation++;
+            if (timer._prev == null)
+                return false;
+            unlink(timer);
+            _size--;
+            return true;
+        }
+    }
+
+    private void link(Timer timer)
+    {
+        assert _lock.isHeldByCurrentThread();
+        long expiryTick = timer._expiryTick;
+        long ticks = expiryTick - _tick;
+        Timer head;
+        if (ticks < 0)
+        {
+            //already due, expire on the next tick
+            head = _wheels[0][(int)(_tick & MASK)];
+        }
+        else
+        {
+            if (ticks >= MAX_TICKS)
+            {
+                //beyond the range of the wheels, will be redistributed when its slot comes
+                expiryTick = _tick + MAX_TICKS - 1;
+                ticks = MAX_TICKS - 1;
+            }
+            int level = 0;
+            while (ticks >= 1L << (BITS * (level + 1)))
+            {
+                ++level;
+            }
+            head = _wheels[level][(int)((expiryTick >>> (BITS * level)) & MASK)];
+        }
+        timer._next = head;
+        timer._prev = head._prev;
+        head._prev._next = timer;
+        head._prev = timer;
+    }
+
+    private void unlink(Timer timer)
+    {
+        timer._prev._next = timer._next;
+        timer._next._prev = timer._prev;
+        timer._prev = null;
+        timer._next = null;
+    }
+
+    /**
+     * Redistribute the timers of the current slot of a wheel into the lower wheels.
+     *
+     * @return the index of the slot
+     */
+    private int cascade(int level)
+    {
+        int index = (int)((_tick >>> (BITS * level)) & MASK);
+        Timer head = _wheels[level][index];
+        Timer timer = head._next;
+        head._next = head;
+        head._prev = head;
+        while (timer != head)
+        {
+            Timer next = timer._next;
+            link(timer);
+            timer = next;
+        }
+        return index;
+    }
+
+    private void tick()
+    {
+        List<Timer> expired = new ArrayList<>();
+        List<Long> generations = new ArrayList<>();
+        try (AutoLock l = _lock.lock())
+        {
+            if (!isRunning())
+                return;
+
+            long now = currentTick();
+            while (_tick <= now)
+            {
+                int index = (int)(_tick & MASK);
+                if (index == 0)
+                {
+                    for (int level = 1; level < LEVELS; ++level)
+                    {
+                        if (cascade(level) != 0)
+                            break;
+                    }
+                }
+
+                Timer head = _wheels[0][index];
+                while (head._next != head)
+                {
+                    Timer timer = head._next;
+                    unlink(timer);
+                    _size--;
+                    expired.add(timer);
+                    generations.add(timer._generation);
+                }
+                ++_tick;
+            }
+
+            //tick again at the start of the next tick
+            long delay = _tick * TimeUnit.MILLISECONDS.toNanos(_tickMs) - NanoTime.since(_originNanoTime);
+            _task = _scheduler.schedule(this::tick, Math.max(0, delay), TimeUnit.NANOSECONDS);
+        }
+
+        if (LOG.isDebugEnabled())
+            LOG.debug("{} expiring {} timers", this, expired.size());
+
+        long now = NanoTime.now();
+        for (int i = 0; i < expired.size(); ++i)
+        {
+            Timer timer = expired.get(i);
+            //skip the timers that have been rescheduled or cancelled in the meantime
+            if (timer._generation != generations.get(i))
+                continue;
+            _expiryLags.record(TimeUnit.NANOSECONDS.toMillis(NanoTime.elapsed(timer._expiryNanoTime, now)));
+            try
+            {
+                timer._task.run();
+            }
+            catch (Throwable x)
+            {
+                LOG.warn("Failed to expire timer {}", timer, x);
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[tick=%dms,timers=%d]", getClass().getSimpleName(), hashCode(), _tickMs, getTimerCount());
+    }
+
+    /**
+     * A timer, that can be scheduled and cancelled repeatedly.
+     */
+    public static class Timer
+    {
+        private final SessionExpiryWheel _wheel;
+        private final Runnable _task;
+        private Timer _prev;
+        private Timer _next;
+        private long _expiryTick;
+        private long _expiryNanoTime;
+        private volatile long _generation;
+
+        private Timer(SessionExpiryWheel wheel, Runnable task)
+        {
+            _wheel = wheel;
+            _task = task;
+        }
+
+        /**
+         * Schedule the timer, replacing any previous schedule.
+         *
+         * @param delay the delay after which the task is run
+         * @param unit the unit of the delay
+         */
+        public void schedule(long delay, TimeUnit unit)
+        {
+            _wheel.schedule(this, unit.toMillis(delay));
+        }
+
+        /**
+         * @return true if the timer was scheduled and has been cancelled
+         */
+        public boolean cancel()
+        {
+            return _wheel.cancel(this);
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x[%s]", getClass().getSimpleName(), hashCode(), _task);
+        }
+    }
+}
@@ -188,6 +188,7 @@ public class SessionHandler extends ScopedHandler
     protected Set<String> _candidateSessionIdsForExpiry = ConcurrentHashMap.newKeySet();
 
     protected Scheduler _scheduler;
+    protected SessionExpiryWheel _sessionExpiryWheel;
     protected boolean _ownScheduler = false;
 
     /**
@@ -446,6 +447,28 @@ public class SessionHandler extends ScopedHandler
                 _ownScheduler = true;
                 _scheduler.start();
             }
+
+            if (_sessionExpiryWheel == null)
+            {
+                _sessionExpiryWheel = server.getBean(SessionExpiryWheel.class);
+                if (_sessionExpiryWheel == null)
+                {
+                    //create the SessionExpiryWheel shared by all the SessionHandlers
+                    //of the Server, without the webapp context's classloader
+                    ClassLoader serverLoader = server.getClass().getClassLoader();
+                    try
+                    {
+                        Thread.currentThread().setContextClassLoader(serverLoader);
+                        _sessionExpiryWheel = new SessionExpiryWheel(server.getBean(Scheduler.class));
+                        server.addBean(_sessionExpiryWheel, true);
+                        _sessionExpiryWheel.start();
+                    }
+                    finally
+                    {
+                        Thread.currentThread().setContextClassLoader(_loader);
+                    }
+                }
+            }
         }
 
         // Look for a session cookie name
@@ -1329,6 +1352,16 @@ public class SessionHandler extends ScopedHandler
         return _scheduler;
     }
 
+    /**
+     * @return the SessionExpiryWheel holding the inactivity timers of the
+     * sessions, shared by all the SessionHandlers of the Server, or null
+     * if this SessionHandler is not started
+     */
+    public SessionExpiryWheel getSessionExpiryWheel()
+    {
+        return _sessionExpiryWheel;
+    }
+
     /**
      * SessionIf
      *
@@ -0,0 +1,146 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.jetty.toolchain.test.jupiter.WorkDir;
+import org.eclipse.jetty.toolchain.test.jupiter.WorkDirExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(WorkDirExtension.class)
+public class ByteBufferRequestLogWriterTest
+{
+    public WorkDir workDir;
+
+    @Test
+    public void testWriteCharSequence() throws Exception
+    {
+        Path log = workDir.getEmptyPathDir().resolve("request.log");
+        ByteBufferRequestLogWriter writer = new ByteBufferRequestLogWriter(log.toString());
+        writer.start();
+        try
+        {
+            StringBuilder entry = new StringBuilder();
+            entry.append("GET /one 200");
+            writer.write(entry);
+            // The entry buffer is reused, as CustomRequestLog does.
+            entry.setLength(0);
+            entry.append("GET /café 404");
+            writer.write(entry);
+            writer.write("GET /three 500");
+        }
+        finally
+        {
+            writer.stop();
+        }
+
+        List<String> lines = Files.readAllLines(log, StandardCharsets.UTF_8);
+        assertThat(lines, is(List.of("GET /one 200", "GET /café 404", "GET /three 500")));
+    }
+
+    @Test
+    public void testConcurrentWriters() throws Exception
+    {
+        Path log = workDir.getEmptyPathDir().resolve("request.log");
+        int threads = 8;
+        int entries = 5000;
+        ByteBufferRequestLogWriter writer = new ByteBufferRequestLogWriter(log.toString(), null, threads * entries);
+        writer.setMaxBatchSize(16);
+        writer.start();
+        try
+        {
+            assertThrows(IllegalStateException.class, () -> writer.setMaxBatchSize(8));
+
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            CountDownLatch latch = new CountDownLatch(threads);
+            for (int t = 0; t < threads; ++t)
+            {
+                int thread = t;
+                new Thread(() ->
+                {
+                    try
+                    {
+                        StringBuilder entry = new StringBuilder();
+                        for (int i = 0; i < entries; ++i)
+                        {
+                            entry.setLength(0);
+                            entry.append("thread-").append(thread).append(" entry-").append(i);
+                            writer.write(entry);
+                        }
+                    }
+                    catch (Throwable x)
+                    {
+                        failure.compareAndSet(null, x);
+                    }
+                    finally
+                    {
+                        latch.countDown();
+                    }
+                }).start();
+            }
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertNull(failure.get());
+        }
+        finally
+        {
+            writer.stop();
+        }
+
+        List<String> lines = Files.readAllLines(log, StandardCharsets.UTF_8);
+        assertThat(writer.getDroppedCount(), is(0L));
+        assertThat(lines.size(), is(threads * entries));
+        lines.forEach(line -> assertThat(line, startsWith("thread-")));
+    }
+
+    @Test
+    public void testWriteWhenNotRunning() throws Exception
+    {
+        Path log = workDir.getEmptyPathDir().resolve("request.log");
+        ByteBufferRequestLogWriter writer = new ByteBufferRequestLogWriter(log.toString());
+        writer.write("GET /before 200");
+        assertThat(writer.getDroppedCount(), is(1L));
+
+        writer.start();
+        try
+        {
+            writer.write("GET /running 200");
+        }
+        finally
+        {
+            writer.stop();
+        }
+
+        writer.write("GET /after 200");
+        assertThat(writer.getDroppedCount(), is(2L));
+        assertThat(writer.getQueueSize(), is(0));
+
+        List<String> lines = Files.readAllLines(log, StandardCharsets.UTF_8);
+        assertThat(lines, is(List.of("GET /running 200")));
+    }
+}
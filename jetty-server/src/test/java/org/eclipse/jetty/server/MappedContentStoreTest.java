@@ -0,0 +1,179 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.eclipse.jetty.http.CompressedContentFormat;
+import org.eclipse.jetty.http.HttpContent;
+import org.eclipse.jetty.http.MimeTypes;
+import org.eclipse.jetty.toolchain.test.jupiter.WorkDir;
+import org.eclipse.jetty.toolchain.test.jupiter.WorkDirExtension;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.resource.PathResource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+@ExtendWith(WorkDirExtension.class)
+public class MappedContentStoreTest
+{
+    public WorkDir workDir;
+    private Path _docroot;
+    private MappedContentStore _store;
+
+    @BeforeEach
+    public void prepare() throws Exception
+    {
+        Path dir = workDir.getEmptyPathDir();
+        _docroot = Files.createDirectories(dir.resolve("docroot"));
+        _store = new MappedContentStore();
+        _store.setDirectory(Files.createDirectories(dir.resolve("arenas")));
+        _store.setArenaSize(1024);
+        _store.setMaxArenas(2);
+        _store.start();
+    }
+
+    @AfterEach
+    public void dispose() throws Exception
+    {
+        _store.stop();
+    }
+
+    private CachedContentFactory newCache()
+    {
+        CachedContentFactory cache = new CachedContentFactory(null, new PathResource(_docroot), new MimeTypes(), false, false, CompressedContentFormat.NONE);
+        cache.setContentStore(_store);
+        return cache;
+    }
+
+    @Test
+    public void testContentSharedByCaches() throws Exception
+    {
+        Files.writeString(_docroot.resolve("a.txt"), "content of a");
+        Files.writeString(_docroot.resolve("b.txt"), "content of b");
+
+        CachedContentFactory cache1 = newCache();
+        CachedContentFactory cache2 = newCache();
+
+        HttpContent a1 = cache1.getContent("a.txt", 4096);
+        HttpContent a2 = cache2.getContent("a.txt", 4096);
+        HttpContent b1 = cache1.getContent("b.txt", 4096);
+        assertThat(BufferUtil.toString(a1.getDirectBuffer()), is("content of a"));
+        assertThat(BufferUtil.toString(a2.getDirectBuffer()), is("content of a"));
+        assertThat(BufferUtil.toString(b1.getDirectBuffer()), is("content of b"));
+
+        // Both caches share the same stored bytes, which are not accounted as cached buffers.
+        assertThat(_store.getStoredCount(), is(2));
+        assertThat(_store.getStoredBytes(), is(24L));
+        assertThat(_store.getArenaCount(), is(1));
+        assertThat(cache1.getCachedSize(), is(0));
+
+        cache1.flushCache();
+        assertThat(_store.getStoredCount(), is(1));
+        cache2.flushCache();
+        assertThat(_store.getStoredCount(), is(0));
+        assertThat(_store.getStoredBytes(), is(0L));
+    }
+
+    @Test
+    public void testArenasBounded() throws Exception
+    {
+        for (int i = 0; i < 3; i++)
+        {
+            Files.write(_docroot.resolve(i + ".bin"), new byte[600]);
+        }
+        Files.write(_docroot.resolve("big.bin"), new byte[2048]);
+
+        CachedContentFactory cache = newCache();
+
+        ByteBuffer buffer0 = cache.getContent("0.bin", 4096).getDirectBuffer();
+        ByteBuffer buffer1 = cache.getContent("1.bin", 4096).getDirectBuffer();
+        assertThat(buffer0, notNullValue());
+        assertThat(buffer1, notNullValue());
+        assertThat(_store.getArenaCount(), is(2));
+
+        // No more arena available, the content factory falls back to its own buffers.
+        HttpContent content2 = cache.getContent("2.bin", 4096);
+        assertThat(content2.getDirectBuffer().remaining(), is(600));
+        assertThat(_store.getStoredCount(), is(2));
+        assertThat(cache.getCachedSize(), is(600));
+
+        // Too big for an arena.
+        assertThat(_store.acquire(new PathResource(_docroot.resolve("big.bin"))), nullValue());
+
+        // Releasing all the slices of a full arena retires it.
+        cache.flushCache();
+        assertThat(_store.getStoredCount(), is(0));
+        assertThat(_store.getArenaCount(), is(0));
+        assertThat(_store.getRetiredArenaCount(), is(2));
+    }
+
+    @Test
+    public void testUnusedArenaRetiredEagerly() throws Exception
+    {
+        Files.writeString(_docroot.resolve("a.txt"), "content of a");
+
+        CachedContentFactory cache = newCache();
+        ByteBuffer buffer = cache.getContent("a.txt", 4096).getDirectBuffer();
+        assertThat(BufferUtil.toString(buffer), is("content of a"));
+        assertThat(_store.getArenaCount(), is(1));
+        assertThat(_store.getMappedBytes(), is(1024L));
+
+        // The current arena is not full, but it is retired as soon as it is unused.
+        cache.flushCache();
+        assertThat(_store.getArenaCount(), is(0));
+        assertThat(_store.getRetiredArenaCount(), is(1));
+        assertThat(_store.getMappedBytes(), is(0L));
+
+        // The retired arena stays mapped while its buffers are referenced.
+        assertThat(_store.getRetiredMappedBytes(), is(1024L));
+        assertThat(BufferUtil.toString(buffer), is("content of a"));
+    }
+
+    @Test
+    public void testFailedStoreRetriedOnceSpaceFreed() throws Exception
+    {
+        for (int i = 0; i < 3; i++)
+        {
+            Files.write(_docroot.resolve(i + ".bin"), new byte[600]);
+        }
+
+        CachedContentFactory cache0 = newCache();
+        CachedContentFactory cache1 = newCache();
+        assertThat(cache0.getContent("0.bin", 4096).getDirectBuffer(), notNullValue());
+        assertThat(cache1.getContent("1.bin", 4096).getDirectBuffer(), notNullValue());
+
+        // The store is full, the content falls back to its own buffer.
+        HttpContent content2 = cache1.getContent("2.bin", 4096);
+        assertThat(content2.getDirectBuffer().remaining(), is(600));
+        assertThat(content2.getDirectBuffer().remaining(), is(600));
+        assertThat(_store.getStoredCount(), is(2));
+
+        // Retiring an arena allows the content to be stored.
+        cache0.flushCache();
+        assertThat(_store.getRetiredArenaCount(), is(1));
+        assertThat(content2.getDirectBuffer().remaining(), is(600));
+        assertThat(_store.getStoredCount(), is(2));
+        assertThat(_store.getArenaCount(), is(2));
+    }
+}
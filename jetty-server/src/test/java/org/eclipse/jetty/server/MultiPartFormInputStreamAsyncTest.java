@@ -0,0 +1,214 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.AsyncContext;
+import javax.servlet.MultipartConfigElement;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.Part;
+
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.eclipse.jetty.util.IO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MultiPartFormInputStreamAsyncTest
+{
+    private static final String BOUNDARY = "AaB03x";
+
+    private Server server;
+    private ServerConnector connector;
+    private File tmpDir;
+    private final CountDownLatch firstPart = new CountDownLatch(1);
+    private final byte[] fileContent = new byte[256 * 1024];
+
+    @BeforeEach
+    public void startServer() throws Exception
+    {
+        new Random(1).nextBytes(fileContent);
+        tmpDir = MavenTestingUtils.getTargetTestingDir(MultiPartFormInputStreamAsyncTest.class.getSimpleName());
+        server = new Server();
+        connector = new ServerConnector(server);
+        connector.setIdleTimeout(10000);
+        server.addConnector(connector);
+        server.setHandler(new AsyncMultiPartHandler());
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() throws Exception
+    {
+        server.stop();
+        server.join();
+    }
+
+    @Test
+    public void testPartsNotifiedAsContentArrives() throws Exception
+    {
+        String field =
+            "--" + BOUNDARY + "\r\n" +
+            "Content-Disposition: form-data; name=\"field1\"\r\n" +
+            "\r\n" +
+            "Joe Blow\r\n";
+        String fileHeader =
+            "--" + BOUNDARY + "\r\n" +
+            "Content-Disposition: form-data; name=\"file\"; filename=\"file.bin\"\r\n" +
+            "Content-Type: application/octet-stream\r\n" +
+            "\r\n";
+        String end = "\r\n--" + BOUNDARY + "--\r\n";
+
+        ByteArrayOutputStream rest = new ByteArrayOutputStream();
+        rest.write(fileHeader.getBytes(StandardCharsets.ISO_8859_1));
+        rest.write(fileContent);
+        rest.write(end.getBytes(StandardCharsets.ISO_8859_1));
+
+        byte[] first = field.getBytes(StandardCharsets.ISO_8859_1);
+        int contentLength = first.length + rest.size();
+
+        try (Socket socket = new Socket("localhost", connector.getLocalPort()))
+        {
+            socket.setSoTimeout(10000);
+            OutputStream out = socket.getOutputStream();
+            out.write(("POST / HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Content-Type: multipart/form-data; boundary=" + BOUNDARY + "\r\n" +
+                "Content-Length: " + contentLength + "\r\n" +
+                "Connection: close\r\n" +
+                "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+            out.write(first);
+            out.flush();
+
+            // The first part is delivered once its closing delimiter has been parsed, before the rest of the content is sent.
+            byte[] delimiter = ("--" + BOUNDARY).getBytes(StandardCharsets.ISO_8859_1);
+            out.write(delimiter);
+            out.flush();
+            assertTrue(firstPart.await(5, TimeUnit.SECONDS));
+
+            byte[] bytes = rest.toByteArray();
+            for (int i = delimiter.length; i < bytes.length; i += 8192)
+            {
+                out.write(bytes, i, Math.min(8192, bytes.length - i));
+                out.flush();
+            }
+
+            InputStream in = socket.getInputStream();
+            String response = IO.toString(in);
+            assertThat(response, containsString("200 OK"));
+            assertThat(response, containsString("field1=8"));
+            assertThat(response, containsString("file=" + fileContent.length + " spilled match"));
+        }
+    }
+
+    @Test
+    public void testIncompleteContent() throws Exception
+    {
+        String content =
+            "--" + BOUNDARY + "\r\n" +
+            "Content-Disposition: form-data; name=\"field1\"\r\n" +
+            "\r\n" +
+            "Joe Blow\r\n" +
+            "--" + BOUNDARY + "\r\n";
+
+        try (Socket socket = new Socket("localhost", connector.getLocalPort()))
+        {
+            socket.setSoTimeout(10000);
+            OutputStream out = socket.getOutputStream();
+            out.write(("POST / HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Content-Type: multipart/form-data; boundary=" + BOUNDARY + "\r\n" +
+                "Content-Length: " + content.length() + "\r\n" +
+                "Connection: close\r\n" +
+                "\r\n" +
+                content).getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+
+            String response = IO.toString(socket.getInputStream());
+            assertThat(response, containsString("200 OK"));
+            assertThat(response, containsString("failure=java.io.IOException: Incomplete Multipart"));
+        }
+    }
+
+    private class AsyncMultiPartHandler extends AbstractHandler
+    {
+        @Override
+        public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException
+        {
+            baseRequest.setHandled(true);
+            AsyncContext asyncContext = request.startAsync();
+            MultipartConfigElement config = new MultipartConfigElement(tmpDir.getAbsolutePath(), -1, -1, 1024);
+            MultiPartFormInputStream multiPart = new MultiPartFormInputStream(request.getInputStream(), request.getContentType(), config, tmpDir);
+            multiPart.parseAsync(part ->
+            {
+                if ("field1".equals(part.getName()))
+                    firstPart.countDown();
+            }).whenComplete((parts, failure) ->
+            {
+                try
+                {
+                    response.setStatus(200);
+                    response.getWriter().print(failure == null ? describe(parts) : "failure=" + failure);
+                }
+                catch (IOException x)
+                {
+                    response.setStatus(500);
+                }
+                finally
+                {
+                    multiPart.deleteParts();
+                    asyncContext.complete();
+                }
+            });
+        }
+
+        private String describe(Collection<Part> parts) throws IOException
+        {
+            StringBuilder builder = new StringBuilder();
+            for (Part part : parts)
+            {
+                builder.append(part.getName()).append('=').append(part.getSize());
+                if (((MultiPartFormInputStream.MultiPart)part).getFile() != null)
+                    builder.append(" spilled");
+                if ("file".equals(part.getName()))
+                {
+                    try (InputStream input = part.getInputStream())
+                    {
+                        if (Arrays.equals(fileContent, IO.readBytes(input)))
+                            builder.append(" match");
+                    }
+                }
+                builder.append('\n');
+            }
+            return builder.toString();
+        }
+    }
+}
@@ -21,7 +21,14 @@ import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.jetty.http.CompressedContentFormat;
 import org.eclipse.jetty.http.HttpContent;
@@ -42,6 +49,8 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -342,6 +351,141 @@ public class ResourceCacheTest
         cache.flushCache();
     }
 
+    @Test
+    public void testTinyLfuKeepsFrequentContent() throws Exception
+    {
+        Path basePath = workDir.getEmptyPathDir();
+        for (int i = 0; i < 20; i++)
+        {
+            makeFile(basePath.resolve("R-" + i + ".txt"), "content " + i);
+        }
+
+        CachedContentFactory cache = new CachedContentFactory(null, new PathResource(basePath), new MimeTypes(), false, false, CompressedContentFormat.NONE);
+        cache.setEvictionPolicy(CachedContentFactory.EvictionPolicy.TINY_LFU);
+        cache.setMaxCachedFiles(4);
+
+        // Make the first 4 resources popular.
+        for (int round = 0; round < 5; round++)
+        {
+            for (int i = 0; i < 4; i++)
+            {
+                assertThat(getContent(cache, "R-" + i + ".txt"), is("content " + i));
+            }
+        }
+        assertEquals(4, cache.getCachedFiles());
+
+        // A scan over rarely used resources does not evict the popular ones.
+        for (int i = 4; i < 20; i++)
+        {
+            assertThat(getContent(cache, "R-" + i + ".txt"), is("content " + i));
+        }
+        assertEquals(4, cache.getCachedFiles());
+        assertThat(cache.getRejectionCount(), is(16L));
+
+        long hits = cache.getHitCount();
+        for (int i = 0; i < 4; i++)
+        {
+            assertThat(getContent(cache, "R-" + i + ".txt"), is("content " + i));
+        }
+        assertThat(cache.getHitCount(), is(hits + 4));
+
+        // A resource requested often enough is eventually admitted.
+        for (int round = 0; round < 10 && cache.getEvictionCount() == 0; round++)
+        {
+            assertThat(getContent(cache, "R-10.txt"), is("content 10"));
+        }
+        assertThat(cache.getEvictionCount(), is(1L));
+        assertEquals(4, cache.getCachedFiles());
+
+        cache.flushCache();
+        assertEquals(0, cache.getCachedFiles());
+    }
+
+    @Test
+    public void testTinyLfuPrecompressedAdmission() throws Exception
+    {
+        Path basePath = workDir.getEmptyPathDir();
+        for (int i = 0; i < 2; i++)
+        {
+            makeFile(basePath.resolve("R-" + i + ".txt"), "uncompressed content " + i);
+            makeFile(basePath.resolve("R-" + i + ".txt.gz"), "gzip " + i);
+        }
+
+        CachedContentFactory cache = new CachedContentFactory(null, new PathResource(basePath), new MimeTypes(), false, false,
+            new CompressedContentFormat[]{CompressedContentFormat.GZIP});
+        cache.setEvictionPolicy(CachedContentFactory.EvictionPolicy.TINY_LFU);
+        cache.setMaxCachedFiles(3);
+
+        // The popular resource and its precompressed variant are cached.
+        for (int round = 0; round < 5; round++)
+        {
+            HttpContent content = cache.getContent("R-0.txt", 4096);
+            assertThat(content.getPrecompressedContents().keySet(), contains(CompressedContentFormat.GZIP));
+        }
+        assertEquals(2, cache.getCachedFiles());
+
+        // The new resource fits, but its precompressed variant would displace popular entries.
+        HttpContent content = cache.getContent("R-1.txt", 4096);
+        assertThat(content.getPrecompressedContents(), nullValue());
+        assertEquals(3, cache.getCachedFiles());
+        assertThat(cache.getRejectionCount(), is(1L));
+        assertThat(cache.getEvictionCount(), is(0L));
+        assertThat(cache.getContent("R-0.txt", 4096).getPrecompressedContents().keySet(), contains(CompressedContentFormat.GZIP));
+
+        cache.flushCache();
+        assertEquals(0, cache.getCachedFiles());
+    }
+
+    @Test
+    public void testTinyLfuConcurrentAdmissionsWithinLimits() throws Exception
+    {
+        Path basePath = workDir.getEmptyPathDir();
+        int threads = 8;
+        for (int i = 0; i < threads * 8; i++)
+        {
+            makeFile(basePath.resolve("R-" + i + ".txt"), "content " + i);
+        }
+
+        CachedContentFactory cache = new CachedContentFactory(null, new PathResource(basePath), new MimeTypes(), false, false, CompressedContentFormat.NONE);
+        cache.setEvictionPolicy(CachedContentFactory.EvictionPolicy.TINY_LFU);
+        cache.setMaxCachedFiles(threads);
+
+        // Each thread loads its own resources, so that every admission adds a distinct entry.
+        AtomicInteger maxCachedFiles = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try
+        {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++)
+            {
+                int thread = t;
+                futures.add(executor.submit(() ->
+                {
+                    Random random = new Random(thread);
+                    for (int i = 0; i < 5000; i++)
+                    {
+                        int n = random.nextInt(8) * threads + thread;
+                        assertThat(getContent(cache, "R-" + n + ".txt"), is("content " + n));
+                        maxCachedFiles.accumulateAndGet(cache.getCachedFiles(), Math::max);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures)
+            {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        assertThat(maxCachedFiles.get(), lessThanOrEqualTo(threads));
+        cache.flushCache();
+        assertEquals(0, cache.getCachedFiles());
+    }
+
     @Test
     public void testNoextension() throws Exception
     {
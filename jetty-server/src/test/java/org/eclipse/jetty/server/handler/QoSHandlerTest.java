@@ -0,0 +1,176 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server.handler;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.server.LocalConnector;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.util.NanoTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class QoSHandlerTest
+{
+    private Server _server;
+    private LocalConnector _local;
+
+    @BeforeEach
+    public void before()
+    {
+        _server = new Server();
+        _local = new LocalConnector(_server);
+        _server.addConnector(_local);
+    }
+
+    @AfterEach
+    public void after() throws Exception
+    {
+        _server.stop();
+    }
+
+    @Test
+    public void testRequestsQueuedWithoutBlocking() throws Exception
+    {
+        int maxRequests = 2;
+        int requests = 10;
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        QoSHandler qos = new QoSHandler()
+        {
+            @Override
+            protected int getPriority(Request baseRequest)
+            {
+                return Integer.parseInt(baseRequest.getParameter("p"));
+            }
+        };
+        qos.setMaxRequests(maxRequests);
+        qos.setMaxPriority(1);
+        qos.setHandler(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException
+            {
+                baseRequest.setHandled(true);
+                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                try
+                {
+                    latch.await(5, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException x)
+                {
+                    throw new ServletException(x);
+                }
+                finally
+                {
+                    active.decrementAndGet();
+                }
+                response.setStatus(HttpStatus.OK_200);
+            }
+        });
+        _server.setHandler(qos);
+        _server.start();
+
+        List<LocalConnector.LocalEndPoint> endPoints = new ArrayList<>();
+        for (int i = 0; i < requests; ++i)
+        {
+            endPoints.add(_local.executeRequest("GET /?p=" + (i % 2) + " HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n"));
+        }
+
+        // The requests in excess are queued, not blocking threads.
+        assertTrue(awaitUntil(() -> qos.getQueueSize() == requests - maxRequests));
+        assertThat(active.get(), is(maxRequests));
+
+        latch.countDown();
+        for (LocalConnector.LocalEndPoint endPoint : endPoints)
+        {
+            assertThat(endPoint.getResponse(), containsString(" 200 "));
+        }
+
+        assertThat(maxActive.get(), is(maxRequests));
+        assertThat(qos.getQueueSize(), is(0));
+        assertThat(qos.getAdmissionControl().getAvailablePermits(), is(maxRequests));
+        assertThat(qos.getQueueWaitTimes(), containsString("count=" + (requests - maxRequests)));
+        assertThat(qos.getAdmissionTimes(), containsString("count=" + requests));
+    }
+
+    @Test
+    public void testSuspendTimeout() throws Exception
+    {
+        CountDownLatch latch = new CountDownLatch(1);
+        QoSHandler qos = new QoSHandler();
+        qos.setMaxRequests(1);
+        qos.setSuspendMs(500);
+        qos.setHandler(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException
+            {
+                baseRequest.setHandled(true);
+                try
+                {
+                    latch.await(5, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException x)
+                {
+                    throw new ServletException(x);
+                }
+                response.setStatus(HttpStatus.OK_200);
+            }
+        });
+        _server.setHandler(qos);
+        _server.start();
+
+        LocalConnector.LocalEndPoint first = _local.executeRequest("GET / HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n");
+        assertTrue(awaitUntil(() -> qos.getAdmissionControl().getAvailablePermits() == 0));
+
+        String response = _local.getResponse("GET / HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n");
+        assertThat(response, containsString(" 503 "));
+        assertThat(qos.getQueueSize(), is(0));
+
+        latch.countDown();
+        assertThat(first.getResponse(), containsString(" 200 "));
+        assertTrue(awaitUntil(() -> qos.getAdmissionControl().getAvailablePermits() == 1));
+    }
+
+    private static boolean awaitUntil(BooleanSupplier condition) throws InterruptedException
+    {
+        long end = NanoTime.now() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean())
+        {
+            if (NanoTime.isBefore(end, NanoTime.now()))
+                return false;
+            Thread.sleep(10);
+        }
+        return true;
+    }
+}
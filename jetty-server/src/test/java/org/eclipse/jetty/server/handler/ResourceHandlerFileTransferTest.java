@@ -0,0 +1,158 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.server.handler;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http.HttpTester;
+import org.eclipse.jetty.server.HttpChannel;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.eclipse.jetty.util.resource.PathResource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ResourceHandlerFileTransferTest
+{
+    private static final int LARGE = 4 * 1024 * 1024;
+    private static final int SMALL = 1024;
+
+    private final AtomicLong contentEvents = new AtomicLong();
+    private Server server;
+    private ServerConnector connector;
+    private byte[] large;
+    private byte[] small;
+
+    @BeforeEach
+    public void startServer() throws Exception
+    {
+        Path dir = MavenTestingUtils.getTargetTestingPath(ResourceHandlerFileTransferTest.class.getSimpleName());
+        FS.ensureEmpty(dir);
+        Random random = new Random();
+        large = new byte[LARGE];
+        random.nextBytes(large);
+        Files.write(dir.resolve("large.bin"), large);
+        small = new byte[SMALL];
+        random.nextBytes(small);
+        Files.write(dir.resolve("small.bin"), small);
+
+        server = new Server();
+        HttpConfiguration config = new HttpConfiguration();
+        config.setUseFileTransfer(true);
+        connector = new ServerConnector(server, new HttpConnectionFactory(config));
+        // Content written through buffers is notified to the listeners, file transfers are not.
+        connector.addBean(new HttpChannel.Listener()
+        {
+            @Override
+            public void onResponseContent(Request request, ByteBuffer content)
+            {
+                contentEvents.incrementAndGet();
+            }
+        });
+        server.addConnector(connector);
+
+        ResourceHandler handler = new ResourceHandler();
+        handler.setBaseResource(new PathResource(dir));
+        server.setHandler(handler);
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() throws Exception
+    {
+        server.stop();
+    }
+
+    @Test
+    public void testLargeFileTransferred() throws Exception
+    {
+        try (Socket socket = new Socket("localhost", connector.getLocalPort()))
+        {
+            InputStream input = new BufferedInputStream(socket.getInputStream());
+            // Twice on the same connection, to verify it remains usable.
+            for (int i = 0; i < 2; ++i)
+            {
+                send(socket, "GET /large.bin HTTP/1.1\r\nHost: localhost\r\n\r\n");
+                HttpTester.Response response = HttpTester.parseResponse(input);
+                assertThat(response.getStatus(), is(HttpStatus.OK_200));
+                assertThat(response.getLongField(HttpHeader.CONTENT_LENGTH), is((long)LARGE));
+                assertArrayEquals(large, response.getContentBytes());
+            }
+        }
+        assertEquals(0, contentEvents.get());
+    }
+
+    @Test
+    public void testHeadNotTransferred() throws Exception
+    {
+        try (Socket socket = new Socket("localhost", connector.getLocalPort()))
+        {
+            InputStream input = new BufferedInputStream(socket.getInputStream());
+            send(socket, "HEAD /large.bin HTTP/1.1\r\nHost: localhost\r\n\r\n");
+            String head = readHead(input);
+            assertThat(head.startsWith("HTTP/1.1 200 "), is(true));
+            assertThat(head.contains("Content-Length: " + LARGE), is(true));
+
+            // The HEAD response has no body, so the next response follows immediately.
+            send(socket, "GET /small.bin HTTP/1.1\r\nHost: localhost\r\n\r\n");
+            HttpTester.Response response = HttpTester.parseResponse(input);
+            assertThat(response.getStatus(), is(HttpStatus.OK_200));
+            assertArrayEquals(small, response.getContentBytes());
+        }
+        // Content smaller than the output buffer is written normally.
+        assertThat(contentEvents.get() > 0, is(true));
+    }
+
+    private static void send(Socket socket, String request) throws IOException
+    {
+        OutputStream output = socket.getOutputStream();
+        output.write(request.getBytes(StandardCharsets.UTF_8));
+        output.flush();
+    }
+
+    private static String readHead(InputStream input) throws IOException
+    {
+        StringBuilder head = new StringBuilder();
+        while (!head.toString().endsWith("\r\n\r\n"))
+        {
+            int b = input.read();
+            if (b < 0)
+                throw new IOException("Unexpected EOF");
+            head.append((char)b);
+        }
+        return head.toString();
+    }
+}
@@ -0,0 +1,147 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.server.session;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.StreamCorruptedException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * SessionDataCodecTest
+ */
+public class SessionDataCodecTest
+{
+    private static SessionData newSessionData()
+    {
+        SessionData data = new SessionData("1234", "/test", "0.0.0.0", 100, 101, 102, 200);
+        data.setAttribute("string", "value");
+        data.setAttribute("utf8", "été ☃");
+        data.setAttribute("int", -17);
+        data.setAttribute("long", Long.MIN_VALUE);
+        data.setAttribute("true", Boolean.TRUE);
+        data.setAttribute("false", Boolean.FALSE);
+        data.setAttribute("double", 3.14D);
+        data.setAttribute("bytes", new byte[]{1, 2, 3});
+        Map<String, Integer> map = new TreeMap<>();
+        map.put("a", 1);
+        data.setAttribute("object", map);
+        return data;
+    }
+
+    private static byte[] encode(SessionDataCodec codec, SessionData data) throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.encodeAttributes(data, out);
+        return out.toByteArray();
+    }
+
+    private static void decode(SessionDataCodec codec, SessionData data, byte[] bytes) throws Exception
+    {
+        codec.decodeAttributes(data, new ByteArrayInputStream(bytes));
+    }
+
+    private static void assertAttributes(SessionData expected, SessionData actual)
+    {
+        assertEquals(expected.getKeys(), actual.getKeys());
+        for (String name : expected.getKeys())
+        {
+            Object value = expected.getAttribute(name);
+            if (value instanceof byte[])
+                assertArrayEquals((byte[])value, (byte[])actual.getAttribute(name));
+            else
+                assertEquals(value, actual.getAttribute(name));
+        }
+    }
+
+    @Test
+    public void testObjectStreamRoundTrip() throws Exception
+    {
+        SessionDataCodec codec = new ObjectStreamSessionDataCodec();
+        SessionData data = newSessionData();
+        SessionData decoded = new SessionData("1234", "/test", "0.0.0.0", 100, 101, 102, 200);
+        decode(codec, decoded, encode(codec, data));
+        assertAttributes(data, decoded);
+    }
+
+    @Test
+    public void testBinaryRoundTrip() throws Exception
+    {
+        SessionDataCodec codec = new BinarySessionDataCodec();
+        SessionData data = newSessionData();
+        SessionData decoded = new SessionData("1234", "/test", "0.0.0.0", 100, 101, 102, 200);
+        decoded.setAttribute("stale", "stale");
+        decode(codec, decoded, encode(codec, data));
+        assertAttributes(data, decoded);
+    }
+
+    @Test
+    public void testBinaryIsSmaller() throws Exception
+    {
+        SessionData data = new SessionData("1234", "/test", "0.0.0.0", 100, 101, 102, 200);
+        data.setAttribute("user", "jetty");
+        data.setAttribute("visits", 42);
+        data.setAttribute("lastVisit", 1700000000000L);
+        byte[] objectStream = encode(new ObjectStreamSessionDataCodec(), data);
+        byte[] binary = encode(new BinarySessionDataCodec(), data);
+        assertThat(binary.length, lessThan(objectStream.length / 2));
+    }
+
+    @Test
+    public void testBinaryDecodesObjectStream() throws Exception
+    {
+        SessionData data = newSessionData();
+        SessionData decoded = new SessionData("1234", "/test", "0.0.0.0", 100, 101, 102, 200);
+        decode(new BinarySessionDataCodec(), decoded, encode(new ObjectStreamSessionDataCodec(), data));
+        assertAttributes(data, decoded);
+    }
+
+    @Test
+    public void testBinaryReplacesAttributes() throws Exception
+    {
+        SessionDataCodec codec = new BinarySessionDataCodec();
+        SessionData data = newSessionData();
+        SessionData decoded = new SessionData("1234", "/test", "0.0.0.0", 100, 101, 102, 200);
+        decode(codec, decoded, encode(codec, data));
+
+        data.setAttribute("string", "changed");
+        data.setAttribute("int", null);
+        decode(codec, decoded, encode(codec, data));
+        assertAttributes(data, decoded);
+        assertNull(decoded.getAttribute("int"));
+        assertEquals("changed", decoded.getAttribute("string"));
+    }
+
+    @Test
+    public void testBinaryCorrupted() throws Exception
+    {
+        SessionDataCodec codec = new BinarySessionDataCodec();
+        SessionData data = new SessionData("1234", "/test", "0.0.0.0", 100, 101, 102, 200);
+        byte[] bytes = encode(codec, newSessionData());
+
+        assertThrows(EOFException.class, () -> decode(codec, data, Arrays.copyOf(bytes, bytes.length - 1)));
+        assertThrows(StreamCorruptedException.class, () -> decode(codec, data, new byte[]{0x4A, 99, 0}));
+    }
+}
@@ -0,0 +1,114 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.server.session;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.util.NanoTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SessionExpiryWheelTest
+ */
+public class SessionExpiryWheelTest
+{
+    private SessionExpiryWheel _wheel;
+
+    @BeforeEach
+    public void before() throws Exception
+    {
+        _wheel = new SessionExpiryWheel();
+        _wheel.setTickMs(10);
+        _wheel.start();
+    }
+
+    @AfterEach
+    public void after() throws Exception
+    {
+        _wheel.stop();
+    }
+
+    @Test
+    public void testTimersExpireInOrderAndNotEarly() throws Exception
+    {
+        int count = 1000;
+        CountDownLatch latch = new CountDownLatch(count);
+        AtomicInteger early = new AtomicInteger();
+        for (int i = 0; i < count; ++i)
+        {
+            // Spread the timers over several revolutions of the first wheels.
+            long delay = (i * 7L) % 1500;
+            long expiry = NanoTime.now() + TimeUnit.MILLISECONDS.toNanos(delay);
+            _wheel.newTimer(() ->
+            {
+                if (NanoTime.isBefore(NanoTime.now(), expiry))
+                    early.incrementAndGet();
+                latch.countDown();
+            }).schedule(delay, TimeUnit.MILLISECONDS);
+        }
+        assertEquals(count, _wheel.getTimerCount());
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(0, early.get());
+        assertEquals(0, _wheel.getTimerCount());
+        assertEquals(count, _wheel.getExpiryLags().getCount());
+        assertThat(_wheel.getExpiryLags().getValueAtPercentile(50), lessThan(500L));
+    }
+
+    @Test
+    public void testCancelAndReschedule() throws Exception
+    {
+        AtomicInteger cancelled = new AtomicInteger();
+        SessionExpiryWheel.Timer cancel = _wheel.newTimer(cancelled::incrementAndGet);
+        cancel.schedule(50, TimeUnit.MILLISECONDS);
+        assertTrue(cancel.cancel());
+        assertFalse(cancel.cancel());
+
+        CountDownLatch latch = new CountDownLatch(1);
+        long begin = NanoTime.now();
+        SessionExpiryWheel.Timer reschedule = _wheel.newTimer(latch::countDown);
+        reschedule.schedule(50, TimeUnit.MILLISECONDS);
+        reschedule.schedule(300, TimeUnit.MILLISECONDS);
+        assertEquals(1, _wheel.getTimerCount());
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertThat(NanoTime.millisSince(begin), greaterThanOrEqualTo(300L));
+        assertEquals(0, cancelled.get());
+    }
+
+    @Test
+    public void testTimerCanBeRescheduledFromTask() throws Exception
+    {
+        CountDownLatch latch = new CountDownLatch(3);
+        SessionExpiryWheel.Timer[] timer = new SessionExpiryWheel.Timer[1];
+        timer[0] = _wheel.newTimer(() ->
+        {
+            latch.countDown();
+            if (latch.getCount() > 0)
+                timer[0].schedule(20, TimeUnit.MILLISECONDS);
+        });
+        timer[0].schedule(20, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+}
@@ -16,6 +16,7 @@ package org.eclipse.jetty.servlet;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.StringTokenizer;
 import javax.servlet.ServletContext;
@@ -31,9 +32,11 @@ import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.MimeTypes;
 import org.eclipse.jetty.http.PreEncodedHttpField;
 import org.eclipse.jetty.server.CachedContentFactory;
+import org.eclipse.jetty.server.MappedContentStore;
 import org.eclipse.jetty.server.ResourceContentFactory;
 import org.eclipse.jetty.server.ResourceService;
 import org.eclipse.jetty.server.ResourceService.WelcomeFactory;
+import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.handler.ContextHandler;
 import org.eclipse.jetty.server.handler.ResourceHandler;
 import org.eclipse.jetty.util.URIUtil;
@@ -102,6 +105,10 @@ import org.slf4j.LoggerFactory;
  *  maxCacheSize      The maximum total size of the cache or 0 for no cache.
  *  maxCachedFileSize The maximum size of a file to cache
  *  maxCachedFiles    The maximum number of files to cache
+ *  evictionPolicy    The cache eviction policy, either LRU (the default) or TINY_LFU
+ *
+ *                    If a MappedContentStore is a bean of the Server, the cache
+ *                    serves its direct buffers from that shared off-heap store.
  *
  *  useFileMappedBuffer
  *                    If set to true, it will use mapped file buffer to serve static content
@@ -260,6 +267,12 @@ public class DefaultServlet extends HttpServlet implements ResourceFactory, Welc
                     _cache.setMaxCachedFileSize(maxCachedFileSize);
                 if (maxCachedFiles >= -1)
                     _cache.setMaxCachedFiles(maxCachedFiles);
+                String evictionPolicy = getInitParameter("evictionPolicy");
+                if (evictionPolicy != null)
+                    _cache.setEvictionPolicy(CachedContentFactory.EvictionPolicy.valueOf(evictionPolicy.trim().toUpperCase(Locale.ENGLISH)));
+                Server server = _contextHandler.getServer();
+                if (server != null)
+                    _cache.setContentStore(server.getBean(MappedContentStore.class));
                 _servletContext.setAttribute(resourceCache == null ? "resourceCache" : resourceCache, _cache);
             }
         }
@@ -19,6 +19,9 @@ import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http.HttpTester;
 import org.eclipse.jetty.server.HttpConfiguration;
 import org.eclipse.jetty.server.LocalConnector;
 import org.eclipse.jetty.server.Server;
@@ -39,11 +42,13 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 public class DefaultServletRangesTest
 {
     public static final String DATA = "01234567890abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWZYZ!@#$%^&*()_+/.,[]";
+    public static final int LARGE_SIZE = 256 * 1024;
     public WorkDir testdir;
 
     private Server server;
     private LocalConnector connector;
     private ServletContextHandler context;
+    private String largeData;
 
     @BeforeEach
     public void init() throws Exception
@@ -65,6 +70,13 @@ public class DefaultServletRangesTest
         FS.ensureDirExists(resBase);
         File data = new File(resBase, "data.txt");
         createFile(data, DATA);
+        StringBuilder large = new StringBuilder();
+        while (large.length() < LARGE_SIZE)
+        {
+            large.append(large.length()).append(DATA);
+        }
+        largeData = large.substring(0, LARGE_SIZE);
+        createFile(new File(resBase, "large.txt"), largeData);
         String resBasePath = resBase.getAbsolutePath();
 
         ServletHolder defholder = context.addServlet(DefaultServlet.class, "/");
@@ -252,6 +264,49 @@ public class DefaultServletRangesTest
         assertResponseContains(DATA.substring(60), response);
     }
 
+    @Test
+    public void testMultipleRangeRequestsLargeFile() throws Exception
+    {
+        String rawResponse = connector.getResponse(
+            "GET /context/large.txt HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Connection: close\r\n" +
+                "Range: bytes=10-19,100000-199999,250000-\r\n" +
+                "\r\n");
+        HttpTester.Response response = HttpTester.parseResponse(rawResponse);
+        assertEquals(HttpStatus.PARTIAL_CONTENT_206, response.getStatus());
+
+        String contentType = response.get(HttpHeader.CONTENT_TYPE);
+        assertThat(contentType, Matchers.startsWith("multipart/byteranges; boundary="));
+        String boundary = contentType.substring(contentType.indexOf('=') + 1);
+
+        // The whole body has been received and matches the Content-Length.
+        String body = response.getContent();
+        assertEquals(response.getLongField(HttpHeader.CONTENT_LENGTH), body.length());
+        assertResponseContains("Content-Range: bytes 10-19/" + LARGE_SIZE, body);
+        assertResponseContains("Content-Range: bytes 100000-199999/" + LARGE_SIZE, body);
+        assertResponseContains("Content-Range: bytes 250000-" + (LARGE_SIZE - 1) + "/" + LARGE_SIZE, body);
+        assertResponseContains(largeData.substring(10, 20), body);
+        assertResponseContains(largeData.substring(100000, 200000), body);
+        assertResponseContains(largeData.substring(250000), body);
+        assertTrue(body.endsWith("\r\n--" + boundary + "--\r\n"));
+    }
+
+    @Test
+    public void testSingleRangeRequestLargeFile() throws Exception
+    {
+        String rawResponse = connector.getResponse(
+            "GET /context/large.txt HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Connection: close\r\n" +
+                "Range: bytes=1000-200999\r\n" +
+                "\r\n");
+        HttpTester.Response response = HttpTester.parseResponse(rawResponse);
+        assertEquals(HttpStatus.PARTIAL_CONTENT_206, response.getStatus());
+        assertEquals("bytes 1000-200999/" + LARGE_SIZE, response.get(HttpHeader.CONTENT_RANGE));
+        assertEquals(largeData.substring(1000, 201000), response.getContent());
+    }
+
     @Test
     public void testUnsatisfiableRanges() throws Exception
     {
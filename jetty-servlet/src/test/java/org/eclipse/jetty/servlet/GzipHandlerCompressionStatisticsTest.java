@@ -0,0 +1,176 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.servlet;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Random;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpHeaderValue;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.gzip.CompressedResponseCache;
+import org.eclipse.jetty.server.handler.gzip.CompressionStatistics;
+import org.eclipse.jetty.server.handler.gzip.GzipHandler;
+import org.eclipse.jetty.util.component.LifeCycle;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+public class GzipHandlerCompressionStatisticsTest
+{
+    private static final byte[] TEXT = "Lorem ipsum dolor sit amet, consectetur adipiscing elit. ".repeat(256).getBytes();
+    private static final byte[] RANDOM = new byte[16 * 1024];
+
+    private Server server;
+    private HttpClient client;
+    private GzipHandler gzipHandler;
+
+    @BeforeEach
+    public void startServerAndClient() throws Exception
+    {
+        new Random(0).nextBytes(RANDOM);
+
+        server = new Server();
+        ServerConnector connector = new ServerConnector(server);
+        server.addConnector(connector);
+
+        gzipHandler = new GzipHandler();
+        gzipHandler.setAdaptiveCompressionLevel(true);
+        gzipHandler.setMinCompressionLevel(1);
+        gzipHandler.setMaxCompressionLevel(9);
+        gzipHandler.setIncompressibleSampleSize(4096);
+        gzipHandler.setCompressedResponseCache(new CompressedResponseCache(16, 1024 * 1024, 64 * 1024));
+
+        ServletContextHandler context = new ServletContextHandler(gzipHandler, "/");
+        context.addServlet(TextServlet.class, "/text");
+        context.addServlet(RandomServlet.class, "/random");
+        gzipHandler.setHandler(context);
+        server.setHandler(gzipHandler);
+        server.start();
+
+        client = new HttpClient();
+        client.start();
+    }
+
+    @AfterEach
+    public void stopServerAndClient()
+    {
+        LifeCycle.stop(client);
+        LifeCycle.stop(server);
+    }
+
+    private ContentResponse get(String path) throws Exception
+    {
+        URI uri = server.getURI().resolve(path);
+        return client.newRequest(uri)
+            .headers(headers -> headers.put(HttpHeader.ACCEPT_ENCODING, HttpHeaderValue.GZIP))
+            .send();
+    }
+
+    @Test
+    public void testIdleServerCompressesAtMaxLevel() throws Exception
+    {
+        ContentResponse response = get("/text");
+
+        assertThat(response.getStatus(), is(200));
+        assertThat(response.getHeaders().get(HttpHeader.CONTENT_ENCODING), is("gzip"));
+        assertArrayEquals(TEXT, response.getContent());
+
+        CompressionStatistics statistics = gzipHandler.getCompressionStatistics();
+        assertThat(statistics.getResponses(9), is(1L));
+        assertThat(statistics.getBytesIn(9), is((long)TEXT.length));
+        assertThat(statistics.getBytesSaved(9), greaterThan(0L));
+    }
+
+    @Test
+    public void testIncompressibleContentNotCompressed() throws Exception
+    {
+        ContentResponse response = get("/random");
+
+        assertThat(response.getStatus(), is(200));
+        assertThat(response.getHeaders().get(HttpHeader.CONTENT_ENCODING), nullValue());
+        assertArrayEquals(RANDOM, response.getContent());
+        assertThat(gzipHandler.getCompressionStatistics().getIncompressibleResponses(), is(1L));
+    }
+
+    @Test
+    public void testStrongETagResponseCompressedOnce() throws Exception
+    {
+        ContentResponse response1 = get("/text?etag=strong");
+        ContentResponse response2 = get("/text?etag=strong");
+
+        for (ContentResponse response : new ContentResponse[]{response1, response2})
+        {
+            assertThat(response.getStatus(), is(200));
+            assertThat(response.getHeaders().get(HttpHeader.CONTENT_ENCODING), is("gzip"));
+            assertThat(response.getHeaders().get(HttpHeader.ETAG), is("\"text--gzip\""));
+            assertArrayEquals(TEXT, response.getContent());
+        }
+
+        CompressionStatistics statistics = gzipHandler.getCompressionStatistics();
+        assertThat(statistics.getResponses(), is(1L));
+        assertThat(statistics.getCachedResponses(), is(1L));
+        assertThat(gzipHandler.getCompressedResponseCache().getHits(), is(1L));
+    }
+
+    @Test
+    public void testWeakETagResponseNotCached() throws Exception
+    {
+        get("/text?etag=weak");
+        get("/text?etag=weak");
+
+        CompressionStatistics statistics = gzipHandler.getCompressionStatistics();
+        assertThat(statistics.getResponses(), is(2L));
+        assertThat(statistics.getCachedResponses(), is(0L));
+        assertThat(gzipHandler.getCompressedResponseCache().getEntries(), is(0));
+    }
+
+    public static class TextServlet extends HttpServlet
+    {
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException
+        {
+            response.setContentType("text/plain");
+            String etag = request.getParameter("etag");
+            if ("strong".equals(etag))
+                response.setHeader("ETag", "\"text\"");
+            else if ("weak".equals(etag))
+                response.setHeader("ETag", "W/\"text\"");
+            response.getOutputStream().write(TEXT);
+        }
+    }
+
+    public static class RandomServlet extends HttpServlet
+    {
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException
+        {
+            response.setContentType("text/plain");
+            response.getOutputStream().write(RANDOM);
+        }
+    }
+}
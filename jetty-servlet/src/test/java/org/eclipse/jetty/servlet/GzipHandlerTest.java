@@ -23,8 +23,10 @@ import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.Enumeration;
+import java.util.zip.DeflaterOutputStream;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
 import javax.servlet.AsyncContext;
 import javax.servlet.DispatcherType;
 import javax.servlet.Filter;
@@ -545,6 +547,33 @@ public class GzipHandlerTest
         assertEquals(__content, testOut.toString(StandardCharsets.UTF_8));
     }
 
+    @Test
+    public void testDeflateNegotiatedByQuality() throws Exception
+    {
+        // generated and parsed test
+        HttpTester.Request request = HttpTester.newRequest();
+        HttpTester.Response response;
+
+        request.setMethod("GET");
+        request.setURI("/ctx/content");
+        request.setVersion("HTTP/1.0");
+        request.setHeader("Host", "tester");
+        request.setHeader("accept-encoding", "gzip;q=0.5, deflate");
+
+        response = HttpTester.parseResponse(_connector.getResponse(request.generate()));
+
+        assertThat(response.getStatus(), is(200));
+        assertThat(response.get("Content-Encoding"), equalToIgnoringCase("deflate"));
+        assertThat(response.get("ETag"), is(new CompressedContentFormat("deflate", ".deflate").etag(__contentETag)));
+        assertThat(response.getCSV("Vary", false), contains("Accept-Encoding"));
+
+        InputStream testIn = new InflaterInputStream(new ByteArrayInputStream(response.getContentBytes()));
+        ByteArrayOutputStream testOut = new ByteArrayOutputStream();
+        IO.copy(testIn, testOut);
+
+        assertEquals(__content, testOut.toString(StandardCharsets.UTF_8));
+    }
+
     @Test
     public void testGzipNotMicro() throws Exception
     {
@@ -816,6 +845,38 @@ public class GzipHandlerTest
         assertThat(response.getContent(), is(data));
     }
 
+    @Test
+    public void testDeflateRequest() throws Exception
+    {
+        String data = "Hello Nice World! ";
+        for (int i = 0; i < 10; ++i)
+        {
+            data += data;
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DeflaterOutputStream output = new DeflaterOutputStream(baos);
+        output.write(data.getBytes(StandardCharsets.UTF_8));
+        output.close();
+        byte[] bytes = baos.toByteArray();
+
+        // generated and parsed test
+        HttpTester.Request request = HttpTester.newRequest();
+        HttpTester.Response response;
+
+        request.setMethod("POST");
+        request.setURI("/ctx/echo");
+        request.setVersion("HTTP/1.0");
+        request.setHeader("Host", "tester");
+        request.setHeader("Content-Type", "text/plain");
+        request.setHeader("Content-Encoding", "deflate");
+        request.setContent(bytes);
+
+        response = HttpTester.parseResponse(_connector.getResponse(request.generate()));
+
+        assertThat(response.getStatus(), is(200));
+        assertThat(response.getContent(), is(data));
+    }
+
     @Test
     public void testGzipRequestChunked() throws Exception
     {
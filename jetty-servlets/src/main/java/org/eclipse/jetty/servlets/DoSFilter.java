@@ -95,6 +95,9 @@ import org.slf4j.LoggerFactory;
  * <dt>maxIdleTrackerMs</dt>
  * <dd>how long to keep track of request rates for a connection,
  * before deciding that the user has gone away, and discarding it</dd>
+ * <dt>maxTrackers</dt>
+ * <dd>if greater than 0, request rates are tracked in a fixed size {@link RateTrackerTable}
+ * of this many trackers, rather than by one object per connection. Defaults to 0.</dd>
  * <dt>insertHeaders</dt>
  * <dd>if true , insert the DoSFilter headers into the response. Defaults to true.</dd>
  * <dt>remotePort</dt>
@@ -144,6 +147,7 @@ public class DoSFilter implements Filter
     static final String THROTTLE_MS_INIT_PARAM = "throttleMs";
     static final String MAX_REQUEST_MS_INIT_PARAM = "maxRequestMs";
     static final String MAX_IDLE_TRACKER_MS_INIT_PARAM = "maxIdleTrackerMs";
+    static final String MAX_TRACKERS_INIT_PARAM = "maxTrackers";
     static final String INSERT_HEADERS_INIT_PARAM = "insertHeaders";
     @Deprecated
     static final String TRACK_SESSIONS_INIT_PARAM = "trackSessions";
@@ -171,6 +175,7 @@ public class DoSFilter implements Filter
     private volatile long _maxWaitMs;
     private volatile long _maxRequestMs;
     private volatile long _maxIdleTrackerMs;
+    private volatile RateTrackerTable _rateTrackerTable;
     private volatile boolean _insertHeaders;
     private volatile boolean _remotePort;
     private volatile boolean _enabled;
@@ -231,6 +236,12 @@ public class DoSFilter implements Filter
             maxIdleTrackerMs = Long.parseLong(parameter);
         setMaxIdleTrackerMs(maxIdleTrackerMs);
 
+        int maxTrackers = 0;
+        parameter = filterConfig.getInitParameter(MAX_TRACKERS_INIT_PARAM);
+        if (parameter != null)
+            maxTrackers = Integer.parseInt(parameter);
+        setMaxTrackers(maxTrackers);
+
         String whiteList = "";
         parameter = filterConfig.getInitParameter(IP_WHITELIST_INIT_PARAM);
         if (parameter != null)
@@ -291,7 +302,7 @@ public class DoSFilter implements Filter
         }
 
         // Look for the rate tracker for this request.
-        RateTracker tracker = (RateTracker)request.getAttribute(__TRACKER);
+        Object tracker = request.getAttribute(__TRACKER);
         if (tracker != null)
         {
             // Redispatched, RateTracker present in request attributes.
@@ -303,11 +314,24 @@ public class DoSFilter implements Filter
         if (LOG.isDebugEnabled())
             LOG.debug("Filtering {}", request);
 
-        // Get a rate tracker associated with this request, and record one hit.
-        tracker = getRateTracker(request);
+        final OverLimit overLimit;
+        RateTrackerTable table = _rateTrackerTable;
+        if (table != null)
+        {
+            // Record one hit in the table, and check if it is over the allowed limit.
+            String loadId = getLoadId(request);
+            tracker = loadId;
+            overLimit = isRateExceeded(table, loadId, request);
+        }
+        else
+        {
+            // Get a rate tracker associated with this request, and record one hit.
+            RateTracker rateTracker = getRateTracker(request);
+            tracker = rateTracker;
 
-        // Calculate the rate and check if it is over the allowed limit
-        final OverLimit overLimit = tracker.isRateExceeded(NanoTime.now());
+            // Calculate the rate and check if it is over the allowed limit
+            overLimit = rateTracker.isRateExceeded(NanoTime.now());
+        }
 
         // Pass it through if we are not currently over the rate limit.
         if (overLimit == null)
@@ -360,7 +384,7 @@ public class DoSFilter implements Filter
         }
     }
 
-    private void throttleRequest(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain, RateTracker tracker) throws IOException, ServletException
+    private void throttleRequest(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain, Object tracker) throws IOException, ServletException
     {
         if (LOG.isDebugEnabled())
             LOG.debug("Throttling {}", request);
@@ -542,7 +566,7 @@ public class DoSFilter implements Filter
      */
     RateTracker getRateTracker(ServletRequest request)
     {
-        String loadId = isRemotePort() ? createRemotePortId(request) : request.getRemoteAddr();
+        String loadId = getLoadId(request);
         RateTracker tracker = _rateTrackers.get(loadId);
 
         if (tracker == null)
@@ -562,6 +586,29 @@ public class DoSFilter implements Filter
         return tracker;
     }
 
+    private String getLoadId(ServletRequest request)
+    {
+        return isRemotePort() ? createRemotePortId(request) : request.getRemoteAddr();
+    }
+
+    /**
+     * <p>Records a hit in the rate tracker table, and checks whether the rate is over the limit.</p>
+     * <p>The whitelist is only checked for requests over the limit, so that the common case
+     * does not pay for the whitelist matching.</p>
+     *
+     * @param table the rate tracker table
+     * @param loadId the id of the connection
+     * @param request the current request
+     * @return the rate if exceeded, else null
+     */
+    private OverLimit isRateExceeded(RateTrackerTable table, String loadId, ServletRequest request)
+    {
+        long rate = table.hit(loadId, NanoTime.now());
+        if (rate <= getMaxRequestsPerSec() || checkWhitelist(request.getRemoteAddr()))
+            return null;
+        return new TableOverage(loadId, rate);
+    }
+
     private void addToRateTracker(RateTracker tracker)
     {
         _rateTrackers.put(tracker.getId(), tracker);
@@ -692,6 +739,9 @@ public class DoSFilter implements Filter
         LOG.debug("Destroy {}", this);
         stopScheduler();
         _rateTrackers.clear();
+        RateTrackerTable table = _rateTrackerTable;
+        if (table != null)
+            table.clear();
         _whitelist.clear();
     }
 
@@ -881,6 +931,45 @@ public class DoSFilter implements Filter
     public void setMaxIdleTrackerMs(long value)
     {
         _maxIdleTrackerMs = value;
+        RateTrackerTable table = _rateTrackerTable;
+        if (table != null)
+            table.setMaxIdleMs(value);
+    }
+
+    /**
+     * Get the max number of rate trackers of the fixed size rate tracker table.
+     *
+     * @return the max number of rate trackers, or 0 if rates are tracked by one object per connection
+     */
+    @ManagedAttribute("max number of rate trackers, or 0 if rates are tracked by one object per connection")
+    public int getMaxTrackers()
+    {
+        RateTrackerTable table = _rateTrackerTable;
+        return table == null ? 0 : table.getCapacity();
+    }
+
+    /**
+     * Set the max number of rate trackers.
+     * <p>
+     * If greater than 0, request rates are tracked in a {@link RateTrackerTable}
+     * of fixed size, rather than by one object per connection, each expired by its
+     * own scheduled task. The table uses 8 bytes per tracker, rounded up to a power of 2.
+     *
+     * @param maxTrackers the max number of rate trackers, or 0 to track rates by one object per connection
+     */
+    public void setMaxTrackers(int maxTrackers)
+    {
+        _rateTrackerTable = maxTrackers > 0 ? new RateTrackerTable(maxTrackers, getMaxIdleTrackerMs()) : null;
+    }
+
+    /**
+     * @return the number of active rate trackers replaced by another connection, because the table was full
+     */
+    @ManagedAttribute("number of active rate trackers evicted from the rate tracker table")
+    public long getEvictedTrackerCount()
+    {
+        RateTrackerTable table = _rateTrackerTable;
+        return table == null ? 0 : table.getEvictionCount();
     }
 
     /**
@@ -1270,6 +1359,46 @@ public class DoSFilter implements Filter
         }
     }
 
+    private static class TableOverage implements OverLimit
+    {
+        private final String _id;
+        private final long _count;
+
+        private TableOverage(String id, long count)
+        {
+            _id = id;
+            _count = count;
+        }
+
+        @Override
+        public String getRateId()
+        {
+            return _id;
+        }
+
+        @Override
+        public Duration getDuration()
+        {
+            return Duration.ofSeconds(1);
+        }
+
+        @Override
+        public long getCount()
+        {
+            return _count;
+        }
+
+        @Override
+        public String toString()
+        {
+            return OverLimit.class.getSimpleName() + '@' + Integer.toHexString(hashCode()) +
+                "[id=" + getRateId() +
+                ", duration=" + getDuration() +
+                ", count=" + _count +
+                ']';
+        }
+    }
+
     private static class DoSTimeoutAsyncListener implements AsyncListener
     {
         @Override
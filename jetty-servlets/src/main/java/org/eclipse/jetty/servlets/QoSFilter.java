@@ -33,8 +33,12 @@ import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 
 import org.eclipse.jetty.server.handler.ContextHandler;
+import org.eclipse.jetty.server.handler.QoSAdmission;
+import org.eclipse.jetty.util.StringUtil;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.thread.AdmissionControl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -66,6 +70,15 @@ import org.slf4j.LoggerFactory;
  * avoided if the semaphore is shortly available.  If the semaphore cannot be obtained, the request will be suspended
  * for the default suspend period of the container or the valued set as the "suspendMs" init parameter.
  * <p>
+ * If the "fairQueuing" init parameter is set to true, the filter never blocks a thread: the maxRequest limit is policed
+ * by a non blocking {@link AdmissionControl}, requests that cannot be admitted are suspended immediately, and the
+ * permit of a completed request is transferred directly to the resumed request. The priority queues are then served
+ * with deficit round robin rather than strictly by priority, so that low priorities are not starved: each priority
+ * is given a share of the resumptions equal to its weight, set by the "weights" init parameter as a comma separated
+ * list of weights from priority 0 to maxPriority (by default the priority plus one). The time spent by requests in the
+ * queues and the time to be admitted are recorded as histograms. The same mode is offered to non servlet applications
+ * by the {@link org.eclipse.jetty.server.handler.QoSHandler}.
+ * <p>
  * If the "managedAttr" init parameter is set to true, then this servlet is set as a {@link ServletContext} attribute with the
  * filter name as the attribute name.  This allows context external mechanism (eg JMX via {@link ContextHandler#MANAGED_ATTRIBUTES}) to
  * manage the configuration of the filter.
@@ -85,6 +98,8 @@ public class QoSFilter implements Filter
     static final String MAX_PRIORITY_INIT_PARAM = "maxPriority";
     static final String MAX_WAIT_INIT_PARAM = "waitMs";
     static final String SUSPEND_INIT_PARAM = "suspendMs";
+    static final String FAIR_QUEUING_INIT_PARAM = "fairQueuing";
+    static final String WEIGHTS_INIT_PARAM = "weights";
 
     private final String _suspended = "QoSFilter@" + Integer.toHexString(hashCode()) + ".SUSPENDED";
     private final String _resumed = "QoSFilter@" + Integer.toHexString(hashCode()) + ".RESUMED";
@@ -94,6 +109,7 @@ public class QoSFilter implements Filter
     private Semaphore _passes;
     private Queue<AsyncContext>[] _queues;
     private AsyncListener[] _listeners;
+    private QoSAdmission _admission;
 
     @Override
     public void init(FilterConfig filterConfig)
@@ -125,14 +141,42 @@ public class QoSFilter implements Filter
             suspend = Integer.parseInt(filterConfig.getInitParameter(SUSPEND_INIT_PARAM));
         _suspendMs = suspend;
 
+        if (Boolean.parseBoolean(filterConfig.getInitParameter(FAIR_QUEUING_INIT_PARAM)))
+        {
+            String weights = filterConfig.getInitParameter(WEIGHTS_INIT_PARAM);
+            AdmissionControl<AsyncContext> admission = weights == null
+                ? new AdmissionControl<>(maxRequests, maxPriority)
+                : new AdmissionControl<>(maxRequests, parseWeights(weights, maxPriority));
+            _admission = new QoSAdmission("QoSFilter@" + Integer.toHexString(hashCode()), admission);
+        }
+
         ServletContext context = filterConfig.getServletContext();
         if (context != null && Boolean.parseBoolean(filterConfig.getInitParameter(MANAGED_ATTR_INIT_PARAM)))
             context.setAttribute(filterConfig.getFilterName(), this);
     }
 
+    private static int[] parseWeights(String weights, int maxPriority)
+    {
+        String[] values = StringUtil.csvSplit(weights);
+        if (values.length != maxPriority + 1)
+            throw new IllegalArgumentException("Expected " + (maxPriority + 1) + " weights: " + weights);
+        int[] result = new int[values.length];
+        for (int p = 0; p < values.length; ++p)
+        {
+            result[p] = Integer.parseInt(values[p].trim());
+        }
+        return result;
+    }
+
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException
     {
+        if (_admission != null)
+        {
+            doFilterFair(request, response, chain);
+            return;
+        }
+
         boolean accepted = false;
         try
         {
@@ -240,6 +284,22 @@ public class QoSFilter implements Filter
         }
     }
 
+    private void doFilterFair(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException
+    {
+        QoSAdmission admission = _admission;
+        if (!admission.admit(request, () -> getPriority(request), getSuspendMs()))
+            return;
+
+        try
+        {
+            chain.doFilter(request, response);
+        }
+        finally
+        {
+            admission.release();
+        }
+    }
+
     /**
      * Computes the request priority.
      * <p>
@@ -351,6 +411,44 @@ public class QoSFilter implements Filter
         LOG.warn("Setter ignored: use maxRequests init-param for QoSFilter instead");
     }
 
+    /**
+     * @return the number of requests waiting to be admitted, in fair queuing mode
+     */
+    @ManagedAttribute("number of requests waiting to be admitted, in fair queuing mode")
+    public int getQueueSize()
+    {
+        QoSAdmission admission = _admission;
+        return admission == null ? 0 : admission.getAdmissionControl().getQueueSize();
+    }
+
+    /**
+     * @return the histogram of the time (in microseconds) spent by requests in the queues, in fair queuing mode
+     */
+    @ManagedAttribute("histogram of the time spent by requests in the queues (in us), in fair queuing mode")
+    public String getQueueWaitTimes()
+    {
+        QoSAdmission admission = _admission;
+        return admission == null ? null : admission.getAdmissionControl().getQueueWaitTimes().toString();
+    }
+
+    /**
+     * @return the histogram of the time (in microseconds) taken by requests to be admitted, in fair queuing mode
+     */
+    @ManagedAttribute("histogram of the time taken by requests to be admitted (in us), in fair queuing mode")
+    public String getAdmissionTimes()
+    {
+        QoSAdmission admission = _admission;
+        return admission == null ? null : admission.getAdmissionControl().getAdmissionTimes().toString();
+    }
+
+    @ManagedOperation(value = "resets the statistics", impact = "ACTION")
+    public void resetStatistics()
+    {
+        QoSAdmission admission = _admission;
+        if (admission != null)
+            admission.getAdmissionControl().resetStatistics();
+    }
+
     private class QoSAsyncListener implements AsyncListener
     {
         private final int priority;
@@ -0,0 +1,222 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.servlets;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.NanoTime;
+
+/**
+ * <p>A fixed size table of request rates, used by {@link DoSFilter} in place of
+ * one {@code RateTracker} object per client when {@link DoSFilter#setMaxTrackers(int)} is set.</p>
+ * <p>Each tracker is a single {@code long} packing a 16 bits fingerprint of the client id,
+ * the current one second window and the request counts of the current and previous windows.
+ * The request rate is estimated with a sliding window: the count of the previous window
+ * weighted by the fraction of it still within the last second, plus the count of the
+ * current window.</p>
+ * <p>The table is 8-way set associative: a client id hashes to a set of 8 adjacent
+ * trackers (one cache line), updated with a compare-and-set without locking.
+ * When a client is not found in its set, it replaces the tracker idle for the longest time,
+ * so trackers expire without scheduled tasks and the memory used is fixed at
+ * 8 bytes per tracker, whatever the number of clients.
+ * Replacing a tracker that is not yet idle is counted as an eviction; a high eviction
+ * count means the table is too small for the number of active clients.</p>
+ * <p>Distinct clients with the same set and fingerprint share a tracker, which is
+ * unlikely for tables sized for the expected number of active clients.</p>
+ */
+public class RateTrackerTable
+{
+    private static final int WAYS = 8;
+    private static final long COUNT_MASK = 0xFFFF;
+    private static final int WINDOW_MASK = 0xFFFF;
+
+    private final AtomicLongArray _trackers;
+    private final int _sets;
+    private final long _origin = NanoTime.now();
+    private final LongAdder _evictions = new LongAdder();
+    private volatile int _idleWindows;
+
+    /**
+     * @param capacity the max number of trackers, rounded up to a power of 2
+     * @param maxIdleMs the time after which an idle tracker may be reused for another client
+     */
+    public RateTrackerTable(int capacity, long maxIdleMs)
+    {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Invalid capacity " + capacity);
+        int size = Math.max(WAYS, Integer.highestOneBit(capacity - 1) << 1);
+        _trackers = new AtomicLongArray(size);
+        _sets = size / WAYS;
+        setMaxIdleMs(maxIdleMs);
+    }
+
+    /**
+     * @return the number of trackers
+     */
+    public int getCapacity()
+    {
+        return _trackers.length();
+    }
+
+    public void setMaxIdleMs(long maxIdleMs)
+    {
+        // At least two windows, so that the previous window count is kept.
+        long windows = TimeUnit.MILLISECONDS.toSeconds(maxIdleMs + 999);
+        _idleWindows = (int)Math.max(2, Math.min(WINDOW_MASK / 2, windows));
+    }
+
+    /**
+     * @return the number of trackers replaced while not yet idle
+     */
+    public long getEvictionCount()
+    {
+        return _evictions.sum();
+    }
+
+    /**
+     * @param now the time now in nanoseconds
+     * @return the number of trackers that are not idle
+     */
+    public int getActiveCount(long now)
+    {
+        int window = window(NanoTime.millisElapsed(_origin, now));
+        int active = 0;
+        for (int i = 0; i < _trackers.length(); ++i)
+        {
+            long tracker = _trackers.get(i);
+            if (tracker != 0 && age(window, tracker) <= _idleWindows)
+                ++active;
+        }
+        return active;
+    }
+
+    /**
+     * <p>Records a request from the given client.</p>
+     *
+     * @param id the client id
+     * @param now the time now in nanoseconds
+     * @return the estimated number of requests from the client over the last second, including this one
+     */
+    public long hit(String id, long now)
+    {
+        long hash = hash(id);
+        int base = (int)(hash & (_sets - 1)) * WAYS;
+        long fingerprint = (hash >>> 48) | 1;
+
+        long elapsed = NanoTime.millisElapsed(_origin, now);
+        int window = window(elapsed);
+        long remaining = 1000 - elapsed % 1000;
+
+        while (true)
+        {
+            int victim = -1;
+            long victimTracker = 0;
+            int victimAge = -1;
+            boolean retry = false;
+            for (int i = 0; i < WAYS; ++i)
+            {
+                int index = base + i;
+                long tracker = _trackers.get(index);
+                if (tracker != 0 && (tracker >>> 48) == fingerprint)
+                {
+                    long previous;
+                    long current;
+                    int age = age(window, tracker);
+                    if (age == 0)
+                    {
+                        previous = (tracker >>> 16) & COUNT_MASK;
+                        current = Math.min(COUNT_MASK, (tracker & COUNT_MASK) + 1);
+                    }
+                    else
+                    {
+                        previous = age == 1 ? tracker & COUNT_MASK : 0;
+                        current = 1;
+                    }
+                    if (_trackers.compareAndSet(index, tracker, pack(fingerprint, window, previous, current)))
+                        return current + previous * remaining / 1000;
+                    retry = true;
+                    break;
+                }
+
+                int age = tracker == 0 ? Integer.MAX_VALUE : age(window, tracker);
+                if (age > victimAge)
+                {
+                    victim = index;
+                    victimTracker = tracker;
+                    victimAge = age;
+                }
+            }
+
+            if (retry)
+                continue;
+
+            if (_trackers.compareAndSet(victim, victimTracker, pack(fingerprint, window, 0, 1)))
+            {
+                if (victimAge <= _idleWindows)
+                    _evictions.increment();
+                return 1;
+            }
+        }
+    }
+
+    /**
+     * Removes all the trackers.
+     */
+    public void clear()
+    {
+        for (int i = 0; i < _trackers.length(); ++i)
+        {
+            _trackers.set(i, 0);
+        }
+    }
+
+    private static int window(long elapsedMs)
+    {
+        return (int)(elapsedMs / 1000) & WINDOW_MASK;
+    }
+
+    private static int age(int window, long tracker)
+    {
+        return (window - ((int)(tracker >>> 32) & WINDOW_MASK)) & WINDOW_MASK;
+    }
+
+    private static long pack(long fingerprint, int window, long previous, long current)
+    {
+        return fingerprint << 48 | (long)window << 32 | previous << 16 | current;
+    }
+
+    private static long hash(String id)
+    {
+        long hash = 0;
+        for (int i = 0; i < id.length(); ++i)
+        {
+            hash = 31 * hash + id.charAt(i);
+        }
+        // Murmur3 finalizer, so that both the set index and the fingerprint depend on all the characters.
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{capacity=%d,evictions=%d}", getClass().getSimpleName(), hashCode(), getCapacity(), getEvictionCount());
+    }
+}
@@ -124,6 +124,32 @@ public class QoSFilterTest
         assertEquals(TestServlet.__maxSleepers, maxQos);
     }
 
+    @Test
+    public void testFairQueuingQosFilter() throws Exception
+    {
+        FilterHolder holder = new FilterHolder(QoSFilter2.class);
+        holder.setAsyncSupported(true);
+        holder.setInitParameter(QoSFilter.MAX_REQUESTS_INIT_PARAM, String.valueOf(maxQos));
+        holder.setInitParameter(QoSFilter.FAIR_QUEUING_INIT_PARAM, "true");
+        context.getServletHandler().addFilterWithMapping(holder, "/*", EnumSet.of(DispatcherType.REQUEST, DispatcherType.ASYNC));
+
+        List<Worker> workers = new ArrayList<>();
+        for (int i = 0; i < numConnections; ++i)
+        {
+            workers.add(new Worker(i));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(numConnections);
+        List<Future<Void>> futures = executor.invokeAll(workers, 10, TimeUnit.SECONDS);
+
+        rethrowExceptions(futures);
+
+        assertEquals(TestServlet.__maxSleepers, maxQos);
+        QoSFilter filter = (QoSFilter)holder.getFilter();
+        assertEquals(0, filter.getQueueSize());
+        assertThat(filter.getAdmissionTimes(), containsString("count=" + numConnections * numLoops));
+    }
+
     @Test
     public void testQosFilter() throws Exception
     {
@@ -0,0 +1,89 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.servlets;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.util.NanoTime;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class RateTrackerTableTest
+{
+    @Test
+    public void testSlidingWindow()
+    {
+        RateTrackerTable table = new RateTrackerTable(1024, 30000);
+        long now = NanoTime.now();
+
+        for (int i = 1; i <= 10; ++i)
+        {
+            assertThat(table.hit("10.0.0.1", now), is((long)i));
+        }
+        // Other clients are tracked separately.
+        assertThat(table.hit("10.0.0.2", now), is(1L));
+
+        // Half a second after the end of the window, half of the previous window is counted.
+        long later = now + TimeUnit.MILLISECONDS.toNanos(1500);
+        long rate = table.hit("10.0.0.1", later);
+        assertThat(rate, greaterThan(1L));
+        assertThat(rate, lessThanOrEqualTo(11L));
+
+        // Two seconds later, the previous requests are no longer counted.
+        assertThat(table.hit("10.0.0.1", now + TimeUnit.SECONDS.toNanos(3)), is(1L));
+    }
+
+    @Test
+    public void testFixedCapacity()
+    {
+        RateTrackerTable table = new RateTrackerTable(1000, 30000);
+        assertThat(table.getCapacity(), is(1024));
+
+        long now = NanoTime.now();
+        for (int i = 0; i < 100_000; ++i)
+        {
+            table.hit("10.0." + (i >> 8) + "." + (i & 0xFF), now);
+        }
+
+        // The table is full of active trackers, the others have been evicted.
+        assertThat(table.getActiveCount(now), is(1024));
+        assertThat(table.getEvictionCount(), greaterThan(90_000L));
+    }
+
+    @Test
+    public void testIdleTrackersReused()
+    {
+        RateTrackerTable table = new RateTrackerTable(64, 2000);
+        long now = NanoTime.now();
+        for (int i = 0; i < 64; ++i)
+        {
+            table.hit("client-" + i, now);
+        }
+
+        long evictions = table.getEvictionCount();
+
+        // After the idle time, trackers are reused without evictions.
+        long later = now + TimeUnit.SECONDS.toNanos(5);
+        assertThat(table.getActiveCount(later), is(0));
+        for (int i = 0; i < 8; ++i)
+        {
+            assertThat(table.hit("other-" + i, later), is(1L));
+        }
+        assertThat(table.getEvictionCount(), is(evictions));
+    }
+}
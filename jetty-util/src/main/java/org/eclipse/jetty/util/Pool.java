@@ -417,7 +417,16 @@ public class Pool<T> implements AutoCloseable, Dumpable
         return null;
     }
 
-    private int startIndex(int size)
+    /**
+     * <p>Returns the index of the entry from which {@link #acquire()} starts looking for an available entry,
+     * by default as specified by the {@link StrategyType}.</p>
+     * <p>Subclasses may override this method to prefer entries based on the state of their pooled objects,
+     * using {@link #getEntry(int)} to inspect them.</p>
+     *
+     * @param size the number of entries of the pool
+     * @return the index of the first entry to try to acquire
+     */
+    protected int startIndex(int size)
     {
         switch (strategyType)
         {
@@ -558,6 +567,23 @@ public class Pool<T> implements AutoCloseable, Dumpable
         return entries.size();
     }
 
+    /**
+     * @param index the index of the entry
+     * @return the entry at the given index, or null if there is no such entry
+     */
+    protected Entry getEntry(int index)
+    {
+        try
+        {
+            return entries.get(index);
+        }
+        catch (IndexOutOfBoundsException x)
+        {
+            LOGGER.trace("IGNORED", x);
+            return null;
+        }
+    }
+
     public Collection<Entry> values()
     {
         return Collections.unmodifiableCollection(entries);
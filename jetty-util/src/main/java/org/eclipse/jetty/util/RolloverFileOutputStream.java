@@ -17,6 +17,8 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.text.SimpleDateFormat;
 import java.time.ZonedDateTime;
@@ -377,6 +379,44 @@ public class RolloverFileOutputStream extends OutputStream
         }
     }
 
+    /**
+     * <p>Writes the remaining bytes of the given buffers to the current file.</p>
+     * <p>When the current file is a {@link FileOutputStream} the buffers are written
+     * with gathering {@link FileChannel} writes, otherwise each buffer is copied to the
+     * underlying stream in turn. The write is atomic with respect to rollover.</p>
+     *
+     * @param buffers the buffers to write
+     * @param offset the index of the first buffer to write
+     * @param length the number of buffers to write
+     * @throws IOException if the write fails
+     */
+    public void write(ByteBuffer[] buffers, int offset, int length) throws IOException
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            if (_out instanceof FileOutputStream)
+            {
+                long remaining = 0;
+                for (int i = offset; i < offset + length; i++)
+                {
+                    remaining += buffers[i].remaining();
+                }
+                FileChannel channel = ((FileOutputStream)_out).getChannel();
+                while (remaining > 0)
+                {
+                    remaining -= channel.write(buffers, offset, length);
+                }
+            }
+            else
+            {
+                for (int i = offset; i < offset + length; i++)
+                {
+                    BufferUtil.writeTo(buffers[i], _out);
+                }
+            }
+        }
+    }
+
     @Override
     public void flush() throws IOException
     {
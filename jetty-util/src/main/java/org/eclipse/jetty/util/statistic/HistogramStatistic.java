@@ -0,0 +1,144 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.statistic;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Statistics on the distribution of a sampled value.</p>
+ * <p>Samples are counted in a fixed number of buckets: values below 16 have their own bucket,
+ * then each power of 2 is divided in 16 linear buckets, so that percentiles are reported
+ * with a relative error below 6.25%, using a fixed amount of memory and no locking.</p>
+ */
+public class HistogramStatistic
+{
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray _buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder _count = new LongAdder();
+    private final LongAdder _total = new LongAdder();
+    private final LongAccumulator _max = new LongAccumulator(Math::max, 0L);
+
+    /**
+     * Resets the statistics.
+     */
+    public void reset()
+    {
+        for (int i = 0; i < BUCKETS; ++i)
+        {
+            _buckets.set(i, 0);
+        }
+        _count.reset();
+        _total.reset();
+        _max.reset();
+    }
+
+    /**
+     * Records a sample value.
+     *
+     * @param sample the value to record, negative values are recorded as zero.
+     */
+    public void record(long sample)
+    {
+        sample = Math.max(0, sample);
+        _buckets.incrementAndGet(bucket(sample));
+        _count.increment();
+        _total.add(sample);
+        _max.accumulate(sample);
+    }
+
+    /**
+     * @return the number of samples recorded
+     */
+    public long getCount()
+    {
+        return _count.sum();
+    }
+
+    /**
+     * @return the max value of the recorded samples
+     */
+    public long getMax()
+    {
+        return _max.get();
+    }
+
+    /**
+     * @return the average value of the samples recorded, or zero if there are no samples
+     */
+    public double getMean()
+    {
+        long count = getCount();
+        return count > 0 ? (double)_total.sum() / count : 0.0D;
+    }
+
+    /**
+     * @param percentile the percentile, between 0 and 100
+     * @return the value below which the given percentile of samples fall, or zero if there are no samples
+     */
+    public long getValueAtPercentile(double percentile)
+    {
+        if (percentile < 0 || percentile > 100)
+            throw new IllegalArgumentException("Invalid percentile " + percentile);
+
+        long count = 0;
+        long[] buckets = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; ++i)
+        {
+            buckets[i] = _buckets.get(i);
+            count += buckets[i];
+        }
+        if (count == 0)
+            return 0;
+
+        long target = Math.max(1, (long)Math.ceil(percentile * count / 100));
+        long cumulated = 0;
+        for (int i = 0; i < BUCKETS; ++i)
+        {
+            cumulated += buckets[i];
+            if (cumulated >= target)
+                return Math.min(getMax(), upperBound(i));
+        }
+        return getMax();
+    }
+
+    private static int bucket(long value)
+    {
+        if (value < SUB_BUCKETS)
+            return (int)value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int)(value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBound(int bucket)
+    {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = SUB_BUCKETS + bucket % SUB_BUCKETS;
+        return ((sub + 1) << (exponent - SUB_BITS)) - 1;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{count=%d,mean=%f,p50=%d,p90=%d,p99=%d,max=%d}", getClass().getSimpleName(), hashCode(),
+            getCount(), getMean(), getValueAtPercentile(50), getValueAtPercentile(90), getValueAtPercentile(99), getMax());
+    }
+}
@@ -0,0 +1,311 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.thread;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.util.NanoTime;
+import org.eclipse.jetty.util.statistic.HistogramStatistic;
+
+/**
+ * <p>Limits the number of concurrent tasks, queuing the tasks in excess by priority
+ * without ever blocking the calling thread.</p>
+ * <p>Permits are taken from a counter with a compare-and-set; a task that cannot get a
+ * permit is queued with {@link #enqueue(Object, int)}, and when a permit is released with
+ * {@link #release()} it is transferred to the next queued task, which the caller must resume.</p>
+ * <p>The priority queues are served with deficit round robin: each priority is given a number
+ * of tasks per round equal to its weight, so that high priorities get a larger share of the
+ * permits, but low priorities are never starved. By default the weight of a priority is the
+ * priority plus one.</p>
+ * <p>The time spent by tasks in the queues and the time to get a permit, in microseconds,
+ * are recorded in {@link HistogramStatistic}s.</p>
+ *
+ * @param <T> the type of the queued tasks
+ */
+public class AdmissionControl<T>
+{
+    private final AutoLock _lock = new AutoLock();
+    private final AtomicInteger _permits;
+    private final int _maxPermits;
+    private final List<ArrayDeque<Entry<T>>> _queues;
+    private final int[] _weights;
+    private final int[] _deficits;
+    private final HistogramStatistic _queueWaitTimes = new HistogramStatistic();
+    private final HistogramStatistic _admissionTimes = new HistogramStatistic();
+    private volatile int _queued;
+    private int _cursor;
+    private boolean _credited;
+
+    /**
+     * @param maxPermits the max number of concurrent tasks
+     * @param maxPriority the max priority of the tasks
+     */
+    public AdmissionControl(int maxPermits, int maxPriority)
+    {
+        this(maxPermits, defaultWeights(maxPriority));
+    }
+
+    /**
+     * @param maxPermits the max number of concurrent tasks
+     * @param weights the weight of each priority, from priority 0 to the max priority
+     */
+    public AdmissionControl(int maxPermits, int[] weights)
+    {
+        if (maxPermits <= 0)
+            throw new IllegalArgumentException("Invalid max permits " + maxPermits);
+        if (weights.length == 0)
+            throw new IllegalArgumentException("No weights");
+        for (int weight : weights)
+        {
+            if (weight <= 0)
+                throw new IllegalArgumentException("Invalid weights " + Arrays.toString(weights));
+        }
+        _maxPermits = maxPermits;
+        _permits = new AtomicInteger(maxPermits);
+        _weights = weights.clone();
+        _deficits = new int[weights.length];
+        _queues = new ArrayList<>(weights.length);
+        for (int p = 0; p < weights.length; ++p)
+        {
+            _queues.add(new ArrayDeque<>());
+        }
+        _cursor = _queues.size() - 1;
+    }
+
+    private static int[] defaultWeights(int maxPriority)
+    {
+        int[] weights = new int[maxPriority + 1];
+        for (int p = 0; p < weights.length; ++p)
+        {
+            weights[p] = p + 1;
+        }
+        return weights;
+    }
+
+    public int getMaxPermits()
+    {
+        return _maxPermits;
+    }
+
+    /**
+     * @return the number of available permits
+     */
+    public int getAvailablePermits()
+    {
+        return _permits.get();
+    }
+
+    /**
+     * @return the max priority
+     */
+    public int getMaxPriority()
+    {
+        return _weights.length - 1;
+    }
+
+    /**
+     * @return the number of queued tasks
+     */
+    public int getQueueSize()
+    {
+        return _queued;
+    }
+
+    /**
+     * @return the time spent by tasks in the queues, in microseconds
+     */
+    public HistogramStatistic getQueueWaitTimes()
+    {
+        return _queueWaitTimes;
+    }
+
+    /**
+     * @return the time taken by tasks to get a permit, in microseconds
+     * @see #admitted(long)
+     */
+    public HistogramStatistic getAdmissionTimes()
+    {
+        return _admissionTimes;
+    }
+
+    /**
+     * <p>Takes a permit without waiting, unless tasks are queued.</p>
+     *
+     * @return whether a permit was taken
+     */
+    public boolean tryAcquire()
+    {
+        // Do not overtake the queued tasks.
+        if (_queued > 0)
+            return false;
+        return acquire();
+    }
+
+    private boolean acquire()
+    {
+        while (true)
+        {
+            int permits = _permits.get();
+            if (permits <= 0)
+                return false;
+            if (_permits.compareAndSet(permits, permits - 1))
+                return true;
+        }
+    }
+
+    /**
+     * <p>Queues a task, unless a permit has been released since a previous call to
+     * {@link #tryAcquire()}, in which case the permit is taken and the task is not queued.</p>
+     *
+     * @param task the task to queue
+     * @param priority the priority of the task, between 0 and the max priority
+     * @return true if the task was queued, false if a permit was taken
+     */
+    public boolean enqueue(T task, int priority)
+    {
+        Entry<T> entry = new Entry<>(task, NanoTime.now());
+        try (AutoLock l = _lock.lock())
+        {
+            if (acquire())
+                return false;
+            _queues.get(Math.max(0, Math.min(priority, _queues.size() - 1))).add(entry);
+            _queued++;
+            return true;
+        }
+    }
+
+    /**
+     * <p>Removes a queued task, typically when it has expired.</p>
+     *
+     * @param task the task to remove
+     * @param priority the priority the task was queued with
+     * @return true if the task was removed, false if it was not queued,
+     * for example because it has been given a permit by {@link #release()}
+     */
+    public boolean remove(T task, int priority)
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            Iterator<Entry<T>> iterator = _queues.get(Math.max(0, Math.min(priority, _queues.size() - 1))).iterator();
+            while (iterator.hasNext())
+            {
+                if (iterator.next()._task == task)
+                {
+                    iterator.remove();
+                    _queued--;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * <p>Releases a permit.</p>
+     * <p>If tasks are queued, the permit is transferred to the next task, that the
+     * caller must then resume; otherwise the permit is made available.</p>
+     *
+     * @return the task that now owns the released permit, or null if no task was queued
+     */
+    public T release()
+    {
+        Entry<T> entry;
+        try (AutoLock l = _lock.lock())
+        {
+            entry = _queued > 0 ? next() : null;
+            if (entry == null)
+                _permits.incrementAndGet();
+            else
+                _queued--;
+        }
+        if (entry == null)
+            return null;
+        _queueWaitTimes.record(TimeUnit.NANOSECONDS.toMicros(NanoTime.since(entry._queuedNanoTime)));
+        return entry._task;
+    }
+
+    /**
+     * <p>Records the time taken by a task to get a permit.</p>
+     *
+     * @param arrivalNanoTime the {@link NanoTime#now()} at which the task arrived
+     */
+    public void admitted(long arrivalNanoTime)
+    {
+        _admissionTimes.record(TimeUnit.NANOSECONDS.toMicros(NanoTime.since(arrivalNanoTime)));
+    }
+
+    /**
+     * Resets the statistics.
+     */
+    public void resetStatistics()
+    {
+        _queueWaitTimes.reset();
+        _admissionTimes.reset();
+    }
+
+    private Entry<T> next()
+    {
+        // Deficit round robin, with a cost of 1 per task, visiting the highest priorities first.
+        while (true)
+        {
+            ArrayDeque<Entry<T>> queue = _queues.get(_cursor);
+            if (queue.isEmpty())
+            {
+                _deficits[_cursor] = 0;
+            }
+            else
+            {
+                if (!_credited)
+                {
+                    _deficits[_cursor] += _weights[_cursor];
+                    _credited = true;
+                }
+                if (_deficits[_cursor] > 0)
+                {
+                    _deficits[_cursor]--;
+                    Entry<T> entry = queue.poll();
+                    if (queue.isEmpty())
+                        _deficits[_cursor] = 0;
+                    return entry;
+                }
+            }
+            _cursor = _cursor == 0 ? _queues.size() - 1 : _cursor - 1;
+            _credited = false;
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{permits=%d/%d,queued=%d,weights=%s}", getClass().getSimpleName(), hashCode(), getAvailablePermits(), getMaxPermits(), getQueueSize(), Arrays.toString(_weights));
+    }
+
+    private static class Entry<T>
+    {
+        private final T _task;
+        private final long _queuedNanoTime;
+
+        private Entry(T task, long queuedNanoTime)
+        {
+            _task = task;
+            _queuedNanoTime = queuedNanoTime;
+        }
+    }
+}
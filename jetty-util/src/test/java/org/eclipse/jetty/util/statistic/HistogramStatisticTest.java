@@ -0,0 +1,67 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.statistic;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class HistogramStatisticTest
+{
+    @Test
+    public void testPercentiles()
+    {
+        HistogramStatistic histogram = new HistogramStatistic();
+        assertThat(histogram.getValueAtPercentile(99), is(0L));
+
+        for (long i = 1; i <= 10_000; ++i)
+        {
+            histogram.record(i);
+        }
+
+        assertThat(histogram.getCount(), is(10_000L));
+        assertThat(histogram.getMax(), is(10_000L));
+        assertThat(histogram.getMean(), is(5000.5D));
+        // Percentiles are within the relative error of the buckets.
+        assertThat(histogram.getValueAtPercentile(50), allOf(greaterThanOrEqualTo(5000L), lessThanOrEqualTo(5000L * 17 / 16)));
+        assertThat(histogram.getValueAtPercentile(99), allOf(greaterThanOrEqualTo(9900L), lessThanOrEqualTo(10_000L)));
+        assertThat(histogram.getValueAtPercentile(100), is(10_000L));
+    }
+
+    @Test
+    public void testSmallAndLargeValues()
+    {
+        HistogramStatistic histogram = new HistogramStatistic();
+        for (int i = 0; i < 90; ++i)
+        {
+            histogram.record(3);
+        }
+        for (int i = 0; i < 10; ++i)
+        {
+            histogram.record(Long.MAX_VALUE / 2);
+        }
+        histogram.record(-1);
+
+        assertThat(histogram.getValueAtPercentile(50), is(3L));
+        assertThat(histogram.getValueAtPercentile(99), is(Long.MAX_VALUE / 2));
+
+        histogram.reset();
+        assertThat(histogram.getCount(), is(0L));
+        assertThat(histogram.getValueAtPercentile(50), is(0L));
+    }
+}
@@ -0,0 +1,82 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.thread;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class AdmissionControlTest
+{
+    @Test
+    public void testPermitTransferredToQueuedTask()
+    {
+        AdmissionControl<String> admission = new AdmissionControl<>(1, 2);
+        assertThat(admission.tryAcquire(), is(true));
+        assertThat(admission.tryAcquire(), is(false));
+        assertThat(admission.enqueue("a", 0), is(true));
+        assertThat(admission.getQueueSize(), is(1));
+
+        // The permit goes to the queued task, not back to the counter.
+        assertThat(admission.release(), is("a"));
+        assertThat(admission.getAvailablePermits(), is(0));
+        assertThat(admission.getQueueWaitTimes().getCount(), is(1L));
+
+        assertThat(admission.release(), nullValue());
+        assertThat(admission.getAvailablePermits(), is(1));
+
+        // A permit released before queuing is taken instead.
+        assertThat(admission.enqueue("b", 0), is(false));
+        assertThat(admission.getAvailablePermits(), is(0));
+        assertThat(admission.getQueueSize(), is(0));
+    }
+
+    @Test
+    public void testRemove()
+    {
+        AdmissionControl<String> admission = new AdmissionControl<>(1, 2);
+        assertThat(admission.tryAcquire(), is(true));
+        assertThat(admission.enqueue("a", 1), is(true));
+        assertThat(admission.remove("a", 1), is(true));
+        assertThat(admission.remove("a", 1), is(false));
+        assertThat(admission.release(), nullValue());
+        assertThat(admission.getAvailablePermits(), is(1));
+    }
+
+    @Test
+    public void testDeficitRoundRobin()
+    {
+        AdmissionControl<String> admission = new AdmissionControl<>(1, new int[]{1, 3});
+        assertThat(admission.tryAcquire(), is(true));
+        for (int i = 0; i < 8; ++i)
+        {
+            admission.enqueue("low" + i, 0);
+            admission.enqueue("high" + i, 1);
+        }
+
+        List<String> order = new ArrayList<>();
+        for (int i = 0; i < 8; ++i)
+        {
+            order.add(admission.release());
+        }
+
+        // Three high priority tasks for each low priority task, the low priority is not starved.
+        assertThat(order, is(List.of("high0", "high1", "high2", "low0", "high3", "high4", "high5", "low1")));
+    }
+}
@@ -0,0 +1,288 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.websocket.core;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.compression.DeflaterPool;
+import org.eclipse.jetty.websocket.core.internal.EncodedFrame;
+import org.eclipse.jetty.websocket.core.internal.PerMessageDeflateExtension;
+import org.eclipse.jetty.websocket.core.internal.WebSocketCoreSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Sends the same frame to many sessions, encoding it only once.</p>
+ * <p>Server sessions with no extensions, or with only {@code permessage-deflate} negotiated
+ * with {@code server_no_context_takeover}, are all sent the same {@link EncodedFrame}:
+ * the frame header is generated once, and whole text and binary messages are compressed once
+ * into a pooled buffer, which is released when the frame has been written to all the sessions.</p>
+ * <p>Other sessions, for example client sessions that must mask their frames, or sessions whose
+ * extensions keep a state across messages, are sent their own frame sharing the original payload,
+ * which is then transformed by their own extensions.</p>
+ */
+public class Broadcaster
+{
+    private static final Logger LOG = LoggerFactory.getLogger(Broadcaster.class);
+
+    private final LongAdder sharedSends = new LongAdder();
+    private final LongAdder copiedSends = new LongAdder();
+    private final LongAdder compressions = new LongAdder();
+    private final ByteBufferPool bufferPool;
+    private final DeflaterPool deflaterPool;
+
+    public Broadcaster(WebSocketComponents components)
+    {
+        this.bufferPool = components.getBufferPool();
+        this.deflaterPool = components.getDeflaterPool();
+    }
+
+    /**
+     * @return the number of frames sent to a session sharing an encoded frame
+     */
+    public long getSharedSends()
+    {
+        return sharedSends.sum();
+    }
+
+    /**
+     * @return the number of frames sent to a session that could not share an encoded frame
+     */
+    public long getCopiedSends()
+    {
+        return copiedSends.sum();
+    }
+
+    /**
+     * @return the number of messages compressed for {@code permessage-deflate} sessions
+     */
+    public long getCompressions()
+    {
+        return compressions.sum();
+    }
+
+    /**
+     * @param sessions the sessions to send the frame to
+     * @param frame the unmasked frame to send, without RSV bits set
+     * @param callback the callback completed when the frame has been sent to all the sessions
+     * @see #broadcast(Collection, Frame, Callback, boolean)
+     */
+    public void broadcast(Collection<? extends CoreSession> sessions, Frame frame, Callback callback)
+    {
+        broadcast(sessions, frame, callback, false);
+    }
+
+    /**
+     * <p>Sends a frame to many sessions.</p>
+     * <p>The callback is completed once the sends to all the sessions are completed: it is
+     * succeeded if the frame was sent to all the sessions, or failed with the first failure.
+     * The payload of the frame must not be modified until then.</p>
+     *
+     * @param sessions the sessions to send the frame to
+     * @param frame the unmasked frame to send, without RSV bits set
+     * @param callback the callback completed when the frame has been sent to all the sessions
+     * @param batch whether the frame can be batched
+     */
+    public void broadcast(Collection<? extends CoreSession> sessions, Frame frame, Callback callback, boolean batch)
+    {
+        if (frame.isMasked() || frame.hasRsv())
+        {
+            callback.failed(new IllegalArgumentException("Cannot broadcast " + frame));
+            return;
+        }
+
+        Broadcast broadcast = new Broadcast(frame, callback);
+        try
+        {
+            for (CoreSession session : sessions)
+            {
+                broadcast.send(session, batch);
+            }
+        }
+        catch (Throwable x)
+        {
+            broadcast.failed(x);
+            return;
+        }
+        broadcast.succeeded();
+    }
+
+    private class Broadcast implements Callback
+    {
+        private final AtomicInteger references = new AtomicInteger(1);
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final Frame frame;
+        private final Callback callback;
+        private EncodedFrame plain;
+        private EncodedFrame deflated;
+        private ByteBuffer deflatedBuffer;
+
+        private Broadcast(Frame frame, Callback callback)
+        {
+            this.frame = frame;
+            this.callback = callback;
+        }
+
+        private void send(CoreSession session, boolean batch)
+        {
+            Frame encoded = encode(session);
+            if (encoded == null)
+            {
+                copiedSends.increment();
+                ByteBuffer payload = frame.getPayload();
+                encoded = new Frame(frame.getOpCode(), frame.isFin(), payload == null ? null : payload.slice());
+            }
+            else
+            {
+                sharedSends.increment();
+            }
+            references.incrementAndGet();
+            session.sendFrame(encoded, this, batch);
+        }
+
+        private Frame encode(CoreSession session)
+        {
+            if (!(session instanceof WebSocketCoreSession) || session.getBehavior() == Behavior.CLIENT)
+                return null;
+
+            List<Extension> extensions = ((WebSocketCoreSession)session).getExtensionStack().getExtensions();
+            if (extensions.isEmpty())
+                return plain();
+            if (extensions.size() != 1 || !(extensions.get(0) instanceof PerMessageDeflateExtension))
+                return null;
+
+            // Control frames are not compressed.
+            if (frame.isControlFrame())
+                return plain();
+
+            // Only whole messages can be compressed independently of the session compression context.
+            PerMessageDeflateExtension extension = (PerMessageDeflateExtension)extensions.get(0);
+            if (extension.isOutgoingContextTakeover() || !frame.isFin() || frame.getOpCode() == OpCode.CONTINUATION)
+                return null;
+
+            EncodedFrame deflated = deflated();
+            long maxFrameSize = session.getMaxFrameSize();
+            if (maxFrameSize > 0 && deflated.getPayloadLength() > maxFrameSize)
+                return null;
+            return deflated;
+        }
+
+        private EncodedFrame plain()
+        {
+            if (plain == null)
+                plain = new EncodedFrame(frame);
+            return plain;
+        }
+
+        private EncodedFrame deflated()
+        {
+            if (deflated == null)
+            {
+                compressions.increment();
+                deflatedBuffer = deflate(frame.getPayload());
+                deflated = new EncodedFrame(new Frame(frame.getOpCode(), true, deflatedBuffer).setRsv1(true));
+            }
+            return deflated;
+        }
+
+        private ByteBuffer deflate(ByteBuffer payload)
+        {
+            int length = BufferUtil.length(payload);
+            ByteBuffer buffer = bufferPool.acquire(length + 64, false);
+            BufferUtil.clear(buffer);
+            try (DeflaterPool.Entry entry = deflaterPool.acquire())
+            {
+                Deflater deflater = entry.get();
+                if (length > 0)
+                    deflater.setInput(payload.slice());
+                while (true)
+                {
+                    int space = buffer.capacity() - buffer.limit();
+                    int compressed = deflater.deflate(buffer.array(), buffer.arrayOffset() + buffer.limit(), space, Deflater.SYNC_FLUSH);
+                    buffer.limit(buffer.limit() + compressed);
+                    if (compressed < space)
+                        break;
+
+                    ByteBuffer larger = bufferPool.acquire(2 * buffer.capacity(), false);
+                    BufferUtil.clear(larger);
+                    BufferUtil.append(larger, buffer);
+                    bufferPool.release(buffer);
+                    buffer = larger;
+                }
+            }
+            catch (Throwable x)
+            {
+                bufferPool.release(buffer);
+                throw x;
+            }
+
+            // Drop the tail bytes generated by SYNC_FLUSH, see RFC 7692 section 7.2.1.
+            if (PerMessageDeflateExtension.endsWithTail(buffer))
+                buffer.limit(buffer.limit() - 4);
+            if (!buffer.hasRemaining())
+            {
+                // Generate an empty deflate block, see RFC 7692 section 7.2.3.6.
+                buffer.limit(1);
+                buffer.put(0, (byte)0x00);
+            }
+
+            if (LOG.isDebugEnabled())
+                LOG.debug("Compressed {} bytes into {} bytes for broadcast", length, buffer.remaining());
+            return buffer;
+        }
+
+        @Override
+        public void succeeded()
+        {
+            release();
+        }
+
+        @Override
+        public void failed(Throwable x)
+        {
+            if (!failure.compareAndSet(null, x) && LOG.isDebugEnabled())
+                LOG.debug("Failed broadcast of {}", frame, x);
+            release();
+        }
+
+        private void release()
+        {
+            if (references.decrementAndGet() > 0)
+                return;
+
+            if (deflatedBuffer != null)
+                bufferPool.release(deflatedBuffer);
+
+            Throwable x = failure.get();
+            if (x == null)
+                callback.succeeded();
+            else
+                callback.failed(x);
+        }
+
+        @Override
+        public InvocationType getInvocationType()
+        {
+            return callback.getInvocationType();
+        }
+    }
+}
@@ -0,0 +1,422 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.websocket.core;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.NanoTime;
+import org.eclipse.jetty.util.Pool;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.util.component.LifeCycle;
+import org.eclipse.jetty.util.compression.CompressionPool;
+import org.eclipse.jetty.util.compression.DeflaterPool;
+import org.eclipse.jetty.util.compression.InflaterPool;
+import org.eclipse.jetty.util.thread.AutoLock;
+import org.eclipse.jetty.util.thread.Scheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Accounts for the native memory of the compression contexts that {@code permessage-deflate}
+ * sessions keep between messages when context takeover is negotiated.</p>
+ * <p>A session pins a Deflater only if the pinned and pooled contexts fit in the {@link #getMaxMemory() max memory};
+ * otherwise it returns its Deflater to the {@link DeflaterPool} after each message, as if
+ * {@code server_no_context_takeover} had been negotiated, which the remote inflater handles transparently.
+ * Pinned Deflaters that have not been used for the {@link #getIdleTimeout() idle timeout} are returned to the pool,
+ * and the idle pooled contexts in excess of the max memory are discarded.</p>
+ * <p>The checks run on the {@link #getScheduler() scheduler} only while there are registered contexts
+ * or memory in excess of the max memory; without a max memory nor idle timeouts they never run.</p>
+ * <p>Inflaters are pinned while incoming context takeover is in use, since the remote deflater may reference
+ * the previous messages, so they are accounted for but never released early.</p>
+ * <p>Memory is estimated from the zlib defaults used by the JDK, a window of 15 bits and a memLevel of 8,
+ * which cannot be changed through {@link java.util.zip.Deflater}.</p>
+ */
+@ManagedObject("Memory of the permessage-deflate compression contexts")
+public class CompressionMemoryManager extends ContainerLifeCycle
+{
+    /**
+     * The estimated native memory of a Deflater: {@code (1 << (windowBits + 2)) + (1 << (memLevel + 9))} plus its state.
+     */
+    public static final long DEFLATER_MEMORY = (1 << 17) + (1 << 17) + 6 * 1024;
+    /**
+     * The estimated native memory of an Inflater: {@code 1 << windowBits} plus its state.
+     */
+    public static final long INFLATER_MEMORY = (1 << 15) + 7 * 1024;
+
+    private static final Logger LOG = LoggerFactory.getLogger(CompressionMemoryManager.class);
+
+    private final AutoLock lock = new AutoLock();
+    private final Set<Context> contexts = ConcurrentHashMap.newKeySet();
+    private final AtomicLong pinnedMemory = new AtomicLong();
+    private final AtomicInteger pinnedDeflaters = new AtomicInteger();
+    private final AtomicInteger pinnedInflaters = new AtomicInteger();
+    private final LongAdder idleReleases = new LongAdder();
+    private final LongAdder deniedPins = new LongAdder();
+    private final LongAdder discardedContexts = new LongAdder();
+    private final DeflaterPool deflaterPool;
+    private final InflaterPool inflaterPool;
+    private long maxMemory = -1;
+    private long idleTimeout = -1;
+    private long sweepPeriod = 1000;
+    private Scheduler scheduler;
+    private Scheduler.Task sweeper;
+
+    public CompressionMemoryManager(DeflaterPool deflaterPool, InflaterPool inflaterPool)
+    {
+        this.deflaterPool = deflaterPool;
+        this.inflaterPool = inflaterPool;
+    }
+
+    /**
+     * @return the max native memory in bytes of the pinned and pooled compression contexts, or a negative value for no limit
+     */
+    @ManagedAttribute("The max native memory in bytes of the pinned and pooled compression contexts")
+    public long getMaxMemory()
+    {
+        return maxMemory;
+    }
+
+    public void setMaxMemory(long maxMemory)
+    {
+        this.maxMemory = maxMemory;
+    }
+
+    /**
+     * @return the time in ms after which an unused pinned Deflater is returned to the pool, or a negative value to never return it
+     */
+    @ManagedAttribute("The time in ms after which an unused pinned Deflater is returned to the pool")
+    public long getIdleTimeout()
+    {
+        return idleTimeout;
+    }
+
+    /**
+     * <p>Sets the default idle timeout of pinned Deflaters.</p>
+     * <p>It can be set per endpoint with the {@code @deflater_idle_timeout} parameter
+     * of the {@code permessage-deflate} extension.</p>
+     *
+     * @param idleTimeout the time in ms after which an unused pinned Deflater is returned to the pool
+     */
+    public void setIdleTimeout(long idleTimeout)
+    {
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * @return the period in ms of the checks for idle Deflaters and for the pooled memory
+     */
+    @ManagedAttribute("The period in ms of the checks for idle Deflaters and for the pooled memory")
+    public long getSweepPeriod()
+    {
+        return sweepPeriod;
+    }
+
+    public void setSweepPeriod(long sweepPeriod)
+    {
+        if (isStarted())
+            throw new IllegalStateException("Already Started");
+        this.sweepPeriod = sweepPeriod;
+    }
+
+    /**
+     * @return the scheduler of the checks, or null if none is known yet
+     */
+    public Scheduler getScheduler()
+    {
+        try (AutoLock l = lock.lock())
+        {
+            return scheduler;
+        }
+    }
+
+    /**
+     * <p>Sets the scheduler of the checks, which is otherwise the scheduler of the first registered context.</p>
+     *
+     * @param scheduler the scheduler of the checks
+     */
+    public void setScheduler(Scheduler scheduler)
+    {
+        if (isStarted())
+            throw new IllegalStateException("Already Started");
+        this.scheduler = scheduler;
+    }
+
+    @ManagedAttribute("The estimated native memory in bytes of the pinned compression contexts")
+    public long getPinnedMemory()
+    {
+        return pinnedMemory.get();
+    }
+
+    @ManagedAttribute("The estimated native memory in bytes of the pooled compression contexts")
+    public long getPooledMemory()
+    {
+        return getPooledDeflaters() * DEFLATER_MEMORY + getPooledInflaters() * INFLATER_MEMORY;
+    }
+
+    @ManagedAttribute("The number of Deflaters kept by sessions between messages")
+    public int getPinnedDeflaters()
+    {
+        return pinnedDeflaters.get();
+    }
+
+    @ManagedAttribute("The number of Inflaters kept by sessions between messages")
+    public int getPinnedInflaters()
+    {
+        return pinnedInflaters.get();
+    }
+
+    @ManagedAttribute("The number of idle Deflaters in the pool")
+    public int getPooledDeflaters()
+    {
+        return idleCount(deflaterPool);
+    }
+
+    @ManagedAttribute("The number of idle Inflaters in the pool")
+    public int getPooledInflaters()
+    {
+        return idleCount(inflaterPool);
+    }
+
+    private static int idleCount(CompressionPool<?> compressionPool)
+    {
+        Pool<?> pool = compressionPool.getPool();
+        return pool == null ? 0 : pool.getIdleCount();
+    }
+
+    @ManagedAttribute("The number of pinned Deflaters returned to the pool after the idle timeout")
+    public long getIdleReleases()
+    {
+        return idleReleases.sum();
+    }
+
+    @ManagedAttribute("The number of Deflaters not pinned because of the max memory")
+    public long getDeniedPins()
+    {
+        return deniedPins.sum();
+    }
+
+    @ManagedAttribute("The number of pooled contexts discarded because of the max memory")
+    public long getDiscardedContexts()
+    {
+        return discardedContexts.sum();
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void resetStatistics()
+    {
+        idleReleases.reset();
+        deniedPins.reset();
+        discardedContexts.reset();
+    }
+
+    /**
+     * <p>Pins a Deflater, if the max memory allows it.</p>
+     *
+     * @return whether the Deflater can be kept after the current message
+     */
+    public boolean pinDeflater()
+    {
+        long max = getMaxMemory();
+        while (true)
+        {
+            long pinned = pinnedMemory.get();
+            if (max >= 0 && pinned + getPooledMemory() + DEFLATER_MEMORY > max)
+            {
+                deniedPins.increment();
+                return false;
+            }
+            if (pinnedMemory.compareAndSet(pinned, pinned + DEFLATER_MEMORY))
+            {
+                pinnedDeflaters.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    public void unpinDeflater()
+    {
+        pinnedMemory.addAndGet(-DEFLATER_MEMORY);
+        pinnedDeflaters.decrementAndGet();
+        schedule();
+    }
+
+    /**
+     * <p>Pins an Inflater, which is always allowed since the incoming context cannot be dropped.</p>
+     */
+    public void pinInflater()
+    {
+        pinnedMemory.addAndGet(INFLATER_MEMORY);
+        pinnedInflaters.incrementAndGet();
+    }
+
+    public void unpinInflater()
+    {
+        pinnedMemory.addAndGet(-INFLATER_MEMORY);
+        pinnedInflaters.decrementAndGet();
+        schedule();
+    }
+
+    /**
+     * @param context a context to check periodically for idleness
+     * @param scheduler the scheduler of the context, used for the checks if none has been set
+     */
+    public void register(Context context, Scheduler scheduler)
+    {
+        contexts.add(context);
+        try (AutoLock l = lock.lock())
+        {
+            // Adopt the scheduler of the context if the current one has been stopped with its connector or client.
+            if (this.scheduler == null || this.scheduler instanceof LifeCycle && ((LifeCycle)this.scheduler).isStopped())
+            {
+                this.scheduler = scheduler;
+                sweeper = null;
+            }
+        }
+        schedule();
+    }
+
+    public void unregister(Context context)
+    {
+        contexts.remove(context);
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        super.doStart();
+        schedule();
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        try (AutoLock l = lock.lock())
+        {
+            if (sweeper != null)
+                sweeper.cancel();
+            sweeper = null;
+        }
+        super.doStop();
+    }
+
+    private boolean isSweepNeeded()
+    {
+        if (!contexts.isEmpty())
+            return true;
+        long max = getMaxMemory();
+        // Only the pooled contexts can be discarded.
+        long pooled = getPooledMemory();
+        return max >= 0 && pooled > 0 && getPinnedMemory() + pooled > max;
+    }
+
+    private void schedule()
+    {
+        try (AutoLock l = lock.lock())
+        {
+            if (sweeper == null && scheduler != null && sweepPeriod > 0 && isRunning() && isSweepNeeded())
+                sweeper = scheduler.schedule(this::onSweep, sweepPeriod, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void onSweep()
+    {
+        try (AutoLock l = lock.lock())
+        {
+            sweeper = null;
+        }
+        try
+        {
+            sweep();
+        }
+        finally
+        {
+            schedule();
+        }
+    }
+
+    /**
+     * <p>Returns the idle pinned Deflaters to the pool, then discards the
+     * pooled contexts in excess of the max memory.</p>
+     */
+    @ManagedOperation(value = "Releases the idle compression contexts", impact = "ACTION")
+    public void sweep()
+    {
+        try
+        {
+            long now = NanoTime.now();
+            for (Context context : contexts)
+            {
+                if (context.releaseIfIdle(now))
+                    idleReleases.increment();
+            }
+
+            long max = getMaxMemory();
+            if (max >= 0)
+            {
+                while (getPinnedMemory() + getPooledMemory() > max && discard(deflaterPool))
+                {
+                    discardedContexts.increment();
+                }
+                while (getPinnedMemory() + getPooledMemory() > max && discard(inflaterPool))
+                {
+                    discardedContexts.increment();
+                }
+            }
+        }
+        catch (Throwable x)
+        {
+            LOG.warn("Failed to sweep compression contexts", x);
+        }
+    }
+
+    private static <T> boolean discard(CompressionPool<T> compressionPool)
+    {
+        Pool<CompressionPool<T>.Entry> pool = compressionPool.getPool();
+        if (pool == null)
+            return false;
+        Pool<CompressionPool<T>.Entry>.Entry entry = pool.acquire();
+        if (entry == null)
+            return false;
+        if (pool.remove(entry))
+            entry.getPooled().close();
+        return true;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{pinned=%d/%d,pooled=%d/%d,memory=%d/%d}", getClass().getSimpleName(), hashCode(),
+            getPinnedDeflaters(), getPinnedInflaters(), getPooledDeflaters(), getPooledInflaters(),
+            getPinnedMemory() + getPooledMemory(), getMaxMemory());
+    }
+
+    /**
+     * A compression context that can be released when idle.
+     */
+    public interface Context
+    {
+        /**
+         * @param now the current {@link NanoTime#now()}
+         * @return whether the context was idle and has been released
+         */
+        boolean releaseIfIdle(long now);
+    }
+}
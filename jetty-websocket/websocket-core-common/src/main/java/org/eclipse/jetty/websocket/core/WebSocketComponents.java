@@ -37,6 +37,7 @@ public class WebSocketComponents extends ContainerLifeCycle
     private final ByteBufferPool _bufferPool;
     private final InflaterPool _inflaterPool;
     private final DeflaterPool _deflaterPool;
+    private final CompressionMemoryManager _compressionMemoryManager;
 
     public WebSocketComponents()
     {
@@ -69,8 +70,11 @@ public class WebSocketComponents extends ContainerLifeCycle
             _executor = executor;
         }
 
+        _compressionMemoryManager = new CompressionMemoryManager(_deflaterPool, _inflaterPool);
+
         addBean(_inflaterPool);
         addBean(_deflaterPool);
+        addBean(_compressionMemoryManager);
         addBean(_bufferPool);
         addBean(_extensionRegistry);
         addBean(_objectFactory);
@@ -106,4 +110,9 @@ public class WebSocketComponents extends ContainerLifeCycle
     {
         return _deflaterPool;
     }
+
+    public CompressionMemoryManager getCompressionMemoryManager()
+    {
+        return _compressionMemoryManager;
+    }
 }
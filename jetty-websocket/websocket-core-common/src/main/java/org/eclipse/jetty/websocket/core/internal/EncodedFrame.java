@@ -0,0 +1,134 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.websocket.core.internal;
+
+import java.nio.ByteBuffer;
+
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.websocket.core.Frame;
+
+/**
+ * <p>An immutable, unmasked, Frame with its header already generated.</p>
+ * <p>The same instance, and so the same header and payload buffers, can be sent to many sessions:
+ * the {@link FrameFlusher} writes slices of these buffers instead of generating the header again,
+ * and extensions must pass it through without transforming it.</p>
+ */
+public class EncodedFrame extends Frame
+{
+    private static final Generator GENERATOR = new Generator();
+
+    private final ByteBuffer header;
+
+    public EncodedFrame(Frame frame)
+    {
+        super(finRsvOp(frame), null, frame.getPayload());
+        header = BufferUtil.allocate(Generator.MAX_HEADER_LENGTH);
+        GENERATOR.generateHeader(this, header);
+    }
+
+    private static byte finRsvOp(Frame frame)
+    {
+        if (frame.isMasked())
+            throw new IllegalArgumentException("Cannot encode a masked frame");
+        byte b = frame.getOpCode();
+        if (frame.isFin())
+            b |= 0x80;
+        if (frame.isRsv1())
+            b |= 0x40;
+        if (frame.isRsv2())
+            b |= 0x20;
+        if (frame.isRsv3())
+            b |= 0x10;
+        return b;
+    }
+
+    /**
+     * @return a new slice of the generated header bytes
+     */
+    public ByteBuffer getHeader()
+    {
+        return header.slice();
+    }
+
+    @Override
+    protected void copyHeaders(Frame frame)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void reset()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Frame setFin(boolean fin)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Frame setMask(byte[] maskingKey)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected Frame setOpCode(byte op)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Frame setPayload(ByteBuffer buf)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Frame setPayload(String str)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Frame setPayload(byte[] buf)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Frame setRsv1(boolean rsv1)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Frame setRsv2(boolean rsv2)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Frame setRsv3(boolean rsv3)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Frame asReadOnly()
+    {
+        return this;
+    }
+}
@@ -252,7 +252,12 @@ public class FrameFlusher extends IteratingCallback
                 }
                 else
                 {
-                    if (batchBuffer != null && batchSpace >= Generator.MAX_HEADER_LENGTH)
+                    if (entry.frame instanceof EncodedFrame)
+                    {
+                        // The header has been generated once for all the sessions sending this frame.
+                        buffers.add(((EncodedFrame)entry.frame).getHeader());
+                    }
+                    else if (batchBuffer != null && batchSpace >= Generator.MAX_HEADER_LENGTH)
                     {
                         // Use the batch space for our header.
                         generator.generateHeader(entry.frame, batchBuffer);
@@ -24,9 +24,14 @@ import java.util.zip.Inflater;
 
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.NanoTime;
 import org.eclipse.jetty.util.compression.DeflaterPool;
 import org.eclipse.jetty.util.compression.InflaterPool;
+import org.eclipse.jetty.util.thread.AutoLock;
+import org.eclipse.jetty.util.thread.Scheduler;
 import org.eclipse.jetty.websocket.core.AbstractExtension;
+import org.eclipse.jetty.websocket.core.CompressionMemoryManager;
+import org.eclipse.jetty.websocket.core.CoreSession;
 import org.eclipse.jetty.websocket.core.ExtensionConfig;
 import org.eclipse.jetty.websocket.core.Frame;
 import org.eclipse.jetty.websocket.core.OpCode;
@@ -41,8 +46,13 @@ import org.slf4j.LoggerFactory;
  * Per Message Deflate Compression extension for WebSocket.
  * <p>
  * Attempts to follow <a href="https://tools.ietf.org/html/rfc7692">Compression Extensions for WebSocket</a>
+ * <p>
+ * With outgoing context takeover, the Deflater is kept between messages only if the {@link CompressionMemoryManager}
+ * allows it to be pinned, and is returned to the pool once idle for the {@code @deflater_idle_timeout} parameter,
+ * in ms, which defaults to {@link CompressionMemoryManager#getIdleTimeout()}. A new Deflater does not reference the
+ * previous messages, so the remote endpoint can still inflate the following messages with its existing context.
  */
-public class PerMessageDeflateExtension extends AbstractExtension implements DemandChain
+public class PerMessageDeflateExtension extends AbstractExtension implements DemandChain, CompressionMemoryManager.Context
 {
     private static final byte[] TAIL_BYTES = new byte[]{0x00, 0x00, (byte)0xFF, (byte)0xFF};
     private static final ByteBuffer TAIL_BYTES_BUF = ByteBuffer.wrap(TAIL_BYTES);
@@ -51,8 +61,15 @@ public class PerMessageDeflateExtension extends AbstractExtension implements Dem
 
     private final OutgoingFlusher outgoingFlusher;
     private final IncomingFlusher incomingFlusher;
+    private final AutoLock deflaterLock = new AutoLock();
     private DeflaterPool.Entry deflaterHolder;
     private InflaterPool.Entry inflaterHolder;
+    private CompressionMemoryManager memoryManager;
+    private boolean deflaterPinned;
+    private boolean inflaterPinned;
+    private boolean deflating;
+    private long lastDeflateNanoTime;
+    private long deflaterIdleTimeout = -1;
     private boolean incomingCompressed;
 
     private ExtensionConfig configRequested;
@@ -98,6 +115,9 @@ public class PerMessageDeflateExtension extends AbstractExtension implements Dem
     {
         configRequested = new ExtensionConfig(config);
         Map<String, String> paramsNegotiated = new HashMap<>();
+        memoryManager = components.getCompressionMemoryManager();
+        if (memoryManager != null)
+            deflaterIdleTimeout = memoryManager.getIdleTimeout();
 
         for (String key : config.getParameterKeys())
         {
@@ -133,6 +153,11 @@ public class PerMessageDeflateExtension extends AbstractExtension implements Dem
                     inflateBufferSize = config.getParameter(key, DEFAULT_BUF_SIZE);
                     break;
                 }
+                case "@deflater_idle_timeout":
+                {
+                    deflaterIdleTimeout = config.getParameter(key, -1);
+                    break;
+                }
                 default:
                 {
                     throw new IllegalArgumentException();
@@ -167,6 +192,14 @@ public class PerMessageDeflateExtension extends AbstractExtension implements Dem
             deflater.getTotalIn(), deflater.getTotalOut());
     }
 
+    /**
+     * @return whether the compression context of outgoing messages is kept from one message to the next
+     */
+    public boolean isOutgoingContextTakeover()
+    {
+        return outgoingContextTakeover;
+    }
+
     public static boolean endsWithTail(ByteBuffer buf)
     {
         if ((buf == null) || (buf.remaining() < TAIL_BYTES.length))
@@ -186,15 +219,25 @@ public class PerMessageDeflateExtension extends AbstractExtension implements Dem
 
     public Deflater getDeflater()
     {
-        if (deflaterHolder == null)
-            deflaterHolder = getDeflaterPool().acquire();
-        return deflaterHolder.get();
+        try (AutoLock l = deflaterLock.lock())
+        {
+            if (deflaterHolder == null)
+                deflaterHolder = getDeflaterPool().acquire();
+            return deflaterHolder.get();
+        }
     }
 
     public Inflater getInflater()
     {
         if (inflaterHolder == null)
+        {
             inflaterHolder = getInflaterPool().acquire();
+            if (incomingContextTakeover && memoryManager != null)
+            {
+                memoryManager.pinInflater();
+                inflaterPinned = true;
+            }
+        }
         return inflaterHolder.get();
     }
 
@@ -205,14 +248,97 @@ public class PerMessageDeflateExtension extends AbstractExtension implements Dem
             inflaterHolder.release();
             inflaterHolder = null;
         }
+        if (inflaterPinned)
+        {
+            memoryManager.unpinInflater();
+            inflaterPinned = false;
+        }
     }
 
     public void releaseDeflater()
     {
-        if (deflaterHolder != null)
+        try (AutoLock l = deflaterLock.lock())
+        {
+            if (deflaterHolder != null)
+            {
+                deflaterHolder.release();
+                deflaterHolder = null;
+            }
+            if (deflaterPinned)
+            {
+                memoryManager.unregister(this);
+                memoryManager.unpinDeflater();
+                deflaterPinned = false;
+            }
+        }
+    }
+
+    /**
+     * @return whether the Deflater is kept between messages
+     */
+    public boolean isDeflaterPinned()
+    {
+        try (AutoLock l = deflaterLock.lock())
+        {
+            return deflaterPinned;
+        }
+    }
+
+    @Override
+    public boolean releaseIfIdle(long now)
+    {
+        try (AutoLock l = deflaterLock.lock())
+        {
+            if (deflating || deflaterHolder == null || deflaterIdleTimeout < 0)
+                return false;
+            if (NanoTime.millisElapsed(lastDeflateNanoTime, now) < deflaterIdleTimeout)
+                return false;
+            if (LOG.isDebugEnabled())
+                LOG.debug("Outgoing Context Idle {}", this);
+            releaseDeflater();
+            return true;
+        }
+    }
+
+    private Scheduler getScheduler()
+    {
+        CoreSession coreSession = getCoreSession();
+        if (coreSession instanceof WebSocketCoreSession)
         {
-            deflaterHolder.release();
-            deflaterHolder = null;
+            WebSocketConnection connection = ((WebSocketCoreSession)coreSession).getConnection();
+            if (connection != null)
+                return connection.getScheduler();
+        }
+        return null;
+    }
+
+    private void startDeflate(ByteBuffer payload)
+    {
+        try (AutoLock l = deflaterLock.lock())
+        {
+            deflating = true;
+            getDeflater().setInput(payload);
+        }
+    }
+
+    private void endDeflate()
+    {
+        try (AutoLock l = deflaterLock.lock())
+        {
+            deflating = false;
+            lastDeflateNanoTime = NanoTime.now();
+            if (deflaterHolder == null || deflaterPinned)
+                return;
+            if (memoryManager == null || memoryManager.pinDeflater())
+            {
+                // Only the Deflaters with an idle timeout need to be checked.
+                if (memoryManager != null && deflaterIdleTimeout >= 0)
+                    memoryManager.register(this, getScheduler());
+                deflaterPinned = memoryManager != null;
+                return;
+            }
+            LOG.debug("Outgoing Context Reset, max memory reached");
+            releaseDeflater();
         }
     }
 
@@ -244,6 +370,10 @@ public class PerMessageDeflateExtension extends AbstractExtension implements Dem
             LOG.debug("Outgoing Context Reset");
             releaseDeflater();
         }
+        else if (frame.isFin() && frame.isDataFrame())
+        {
+            endDeflate();
+        }
         super.nextOutgoingFrame(frame, callback, batch);
     }
 
@@ -268,7 +398,8 @@ public class PerMessageDeflateExtension extends AbstractExtension implements Dem
         @Override
         protected boolean onFrame(Frame frame, Callback callback, boolean batch)
         {
-            if (frame.isControlFrame())
+            // Frames encoded by a broadcast have already been compressed if needed.
+            if (frame.isControlFrame() || frame instanceof EncodedFrame)
             {
                 nextOutgoingFrame(frame, callback, batch);
                 return true;
@@ -279,7 +410,7 @@ public class PerMessageDeflateExtension extends AbstractExtension implements Dem
             _batch = batch;
 
             // Provide the frames payload as input to the Deflater.
-            getDeflater().setInput(frame.getPayload().slice());
+            startDeflate(frame.getPayload().slice());
             callback.succeeded();
             return false;
         }
@@ -59,6 +59,7 @@ public class WebSocketConnection extends AbstractConnection implements Connectio
     private final Parser parser;
     private final WebSocketCoreSession coreSession;
     private final Flusher flusher;
+    private final Scheduler scheduler;
     private final Random random;
     private long demand;
     private boolean fillingAndParsing;
@@ -121,6 +122,7 @@ public class WebSocketConnection extends AbstractConnection implements Connectio
         this.coreSession = coreSession;
         this.generator = new Generator();
         this.parser = new Parser(bufferPool, coreSession);
+        this.scheduler = scheduler;
         this.flusher = new Flusher(scheduler, coreSession.getOutputBufferSize(), generator, endp);
         this.setInputBufferSize(coreSession.getInputBufferSize());
 
@@ -135,6 +137,11 @@ public class WebSocketConnection extends AbstractConnection implements Connectio
         return super.getExecutor();
     }
 
+    public Scheduler getScheduler()
+    {
+        return scheduler;
+    }
+
     public ByteBufferPool getBufferPool()
     {
         return bufferPool;
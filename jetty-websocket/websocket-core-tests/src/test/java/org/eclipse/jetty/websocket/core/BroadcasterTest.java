@@ -0,0 +1,173 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.websocket.core;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.websocket.core.client.CoreClientUpgradeRequest;
+import org.eclipse.jetty.websocket.core.client.WebSocketCoreClient;
+import org.eclipse.jetty.websocket.core.server.WebSocketNegotiation;
+import org.eclipse.jetty.websocket.core.server.WebSocketNegotiator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BroadcasterTest
+{
+    private final WebSocketComponents components = new WebSocketComponents();
+    private final BlockingQueue<TestFrameHandler> serverHandlers = new LinkedBlockingQueue<>();
+    private final List<TestFrameHandler> clientHandlers = new ArrayList<>();
+    private final List<CoreSession> serverSessions = new ArrayList<>();
+    private WebSocketServer server;
+    private WebSocketCoreClient client;
+    private Broadcaster broadcaster;
+
+    @BeforeEach
+    public void startup() throws Exception
+    {
+        WebSocketNegotiator negotiator = new WebSocketNegotiator.AbstractNegotiator()
+        {
+            @Override
+            public FrameHandler negotiate(WebSocketNegotiation negotiation)
+            {
+                TestFrameHandler handler = new TestFrameHandler();
+                serverHandlers.offer(handler);
+                return handler;
+            }
+        };
+        server = new WebSocketServer(components, negotiator, false);
+        server.start();
+        client = new WebSocketCoreClient();
+        client.start();
+        broadcaster = new Broadcaster(components);
+    }
+
+    @AfterEach
+    public void shutdown() throws Exception
+    {
+        client.stop();
+        server.stop();
+    }
+
+    private void connect(String extensions) throws Exception
+    {
+        TestFrameHandler clientHandler = new TestFrameHandler();
+        CoreClientUpgradeRequest upgradeRequest = CoreClientUpgradeRequest.from(client, server.getUri(), clientHandler);
+        if (extensions != null)
+            upgradeRequest.addExtensions(extensions);
+        client.connect(upgradeRequest).get(5, TimeUnit.SECONDS);
+        clientHandlers.add(clientHandler);
+
+        TestFrameHandler serverHandler = Objects.requireNonNull(serverHandlers.poll(5, TimeUnit.SECONDS));
+        assertTrue(serverHandler.open.await(5, TimeUnit.SECONDS));
+        serverSessions.add(serverHandler.getCoreSession());
+    }
+
+    @Test
+    public void testBroadcastSharesEncodedFrames() throws Exception
+    {
+        connect(null);
+        connect(null);
+        connect("permessage-deflate; server_no_context_takeover");
+        connect("permessage-deflate; server_no_context_takeover");
+        connect("permessage-deflate");
+
+        String text = "Hello Broadcast ".repeat(100);
+        for (int i = 0; i < 2; ++i)
+        {
+            Callback.Completable callback = new Callback.Completable();
+            broadcaster.broadcast(serverSessions, new Frame(OpCode.TEXT, text), callback);
+            callback.get(5, TimeUnit.SECONDS);
+        }
+
+        for (TestFrameHandler clientHandler : clientHandlers)
+        {
+            for (int i = 0; i < 2; ++i)
+            {
+                Frame frame = Objects.requireNonNull(clientHandler.getFrames().poll(5, TimeUnit.SECONDS));
+                assertThat(frame.getOpCode(), is(OpCode.TEXT));
+                assertThat(frame.getPayloadAsUTF8(), is(text));
+            }
+        }
+
+        // The session with a compression context kept across messages cannot share the encoded frame.
+        assertThat(broadcaster.getSharedSends(), is(8L));
+        assertThat(broadcaster.getCopiedSends(), is(2L));
+        assertThat(broadcaster.getCompressions(), is(2L));
+    }
+
+    @Test
+    public void testBroadcastControlAndBinaryFrames() throws Exception
+    {
+        connect(null);
+        connect("permessage-deflate; server_no_context_takeover");
+
+        byte[] bytes = "binary".getBytes(StandardCharsets.UTF_8);
+        Callback.Completable callback = new Callback.Completable();
+        broadcaster.broadcast(serverSessions, new Frame(OpCode.BINARY, ByteBuffer.wrap(bytes)), callback);
+        callback.get(5, TimeUnit.SECONDS);
+
+        callback = new Callback.Completable();
+        broadcaster.broadcast(serverSessions, new Frame(OpCode.PING, "ping"), callback);
+        callback.get(5, TimeUnit.SECONDS);
+
+        for (TestFrameHandler clientHandler : clientHandlers)
+        {
+            Frame frame = Objects.requireNonNull(clientHandler.getFrames().poll(5, TimeUnit.SECONDS));
+            assertThat(frame.getOpCode(), is(OpCode.BINARY));
+            assertThat(BufferUtil.toArray(frame.getPayload()), is(bytes));
+            frame = Objects.requireNonNull(clientHandler.getFrames().poll(5, TimeUnit.SECONDS));
+            assertThat(frame.getOpCode(), is(OpCode.PING));
+            assertThat(frame.getPayloadAsUTF8(), is("ping"));
+        }
+
+        assertThat(broadcaster.getSharedSends(), is(4L));
+        assertThat(broadcaster.getCompressions(), is(1L));
+    }
+
+    @Test
+    public void testBroadcastToClosedSession() throws Exception
+    {
+        connect(null);
+        connect(null);
+
+        TestFrameHandler closedHandler = clientHandlers.get(0);
+        closedHandler.sendClose();
+        assertTrue(closedHandler.closed.await(5, TimeUnit.SECONDS));
+
+        Callback.Completable callback = new Callback.Completable();
+        broadcaster.broadcast(serverSessions, new Frame(OpCode.TEXT, "text"), callback);
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> callback.get(5, TimeUnit.SECONDS));
+        assertNotNull(failure.getCause());
+
+        // The other sessions are still sent the frame.
+        Frame frame = Objects.requireNonNull(clientHandlers.get(1).getFrames().poll(5, TimeUnit.SECONDS));
+        assertThat(frame.getPayloadAsUTF8(), is("text"));
+    }
+}
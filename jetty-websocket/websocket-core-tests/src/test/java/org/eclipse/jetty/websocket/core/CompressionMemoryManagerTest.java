@@ -0,0 +1,180 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.websocket.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.websocket.core.client.CoreClientUpgradeRequest;
+import org.eclipse.jetty.websocket.core.client.WebSocketCoreClient;
+import org.eclipse.jetty.websocket.core.server.WebSocketNegotiation;
+import org.eclipse.jetty.websocket.core.server.WebSocketNegotiator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompressionMemoryManagerTest
+{
+    private final WebSocketComponents components = new WebSocketComponents();
+    private final BlockingQueue<TestFrameHandler> serverHandlers = new LinkedBlockingQueue<>();
+    private final List<TestFrameHandler> clientHandlers = new ArrayList<>();
+    private final List<TestFrameHandler> serverFrameHandlers = new ArrayList<>();
+    private final List<CoreSession> serverSessions = new ArrayList<>();
+    private CompressionMemoryManager memoryManager;
+    private WebSocketServer server;
+    private WebSocketCoreClient client;
+
+    @BeforeEach
+    public void startup() throws Exception
+    {
+        memoryManager = components.getCompressionMemoryManager();
+        // Sweep explicitly from the tests.
+        memoryManager.setSweepPeriod(0);
+
+        WebSocketNegotiator negotiator = new WebSocketNegotiator.AbstractNegotiator()
+        {
+            @Override
+            public FrameHandler negotiate(WebSocketNegotiation negotiation)
+            {
+                TestFrameHandler handler = new TestFrameHandler();
+                serverHandlers.offer(handler);
+                return handler;
+            }
+        };
+        server = new WebSocketServer(components, negotiator, false);
+        server.start();
+        client = new WebSocketCoreClient();
+        client.start();
+    }
+
+    @AfterEach
+    public void shutdown() throws Exception
+    {
+        client.stop();
+        server.stop();
+    }
+
+    private void connect() throws Exception
+    {
+        TestFrameHandler clientHandler = new TestFrameHandler();
+        CoreClientUpgradeRequest upgradeRequest = CoreClientUpgradeRequest.from(client, server.getUri(), clientHandler);
+        upgradeRequest.addExtensions("permessage-deflate");
+        client.connect(upgradeRequest).get(5, TimeUnit.SECONDS);
+        clientHandlers.add(clientHandler);
+
+        TestFrameHandler serverHandler = Objects.requireNonNull(serverHandlers.poll(5, TimeUnit.SECONDS));
+        assertTrue(serverHandler.open.await(5, TimeUnit.SECONDS));
+        serverFrameHandlers.add(serverHandler);
+        serverSessions.add(serverHandler.getCoreSession());
+    }
+
+    private void sendAndReceive(String text) throws Exception
+    {
+        for (CoreSession session : serverSessions)
+        {
+            Callback.Completable callback = new Callback.Completable();
+            session.sendFrame(new Frame(OpCode.TEXT, text), callback, false);
+            callback.get(5, TimeUnit.SECONDS);
+        }
+
+        for (TestFrameHandler clientHandler : clientHandlers)
+        {
+            Frame frame = Objects.requireNonNull(clientHandler.getFrames().poll(5, TimeUnit.SECONDS));
+            assertThat(frame.getPayloadAsUTF8(), is(text));
+        }
+    }
+
+    @Test
+    public void testMaxMemoryLimitsPinnedDeflaters() throws Exception
+    {
+        // Room for a single Deflater, the others must be reset after each message.
+        memoryManager.setMaxMemory(CompressionMemoryManager.DEFLATER_MEMORY);
+        for (int i = 0; i < 3; ++i)
+        {
+            connect();
+        }
+
+        String text = "Hello Memory ".repeat(100);
+        for (int i = 0; i < 3; ++i)
+        {
+            sendAndReceive(text);
+            assertThat(memoryManager.getPinnedDeflaters(), is(1));
+        }
+        assertThat(memoryManager.getDeniedPins(), greaterThan(0L));
+
+        memoryManager.sweep();
+        assertThat(memoryManager.getPinnedMemory() + memoryManager.getPooledMemory(), lessThanOrEqualTo(memoryManager.getMaxMemory()));
+    }
+
+    @Test
+    public void testNoSweepWithoutLimits() throws Exception
+    {
+        connect();
+        sendAndReceive("Hello Defaults");
+        assertThat(memoryManager.getPinnedDeflaters(), is(1));
+
+        // Without a max memory nor an idle timeout no context is registered, so nothing is scheduled.
+        assertThat(memoryManager.getScheduler(), nullValue());
+    }
+
+    @Test
+    public void testIdleDeflaterReleased() throws Exception
+    {
+        memoryManager.setIdleTimeout(0);
+        connect();
+        connect();
+
+        String text = "Hello Idle ".repeat(100);
+        sendAndReceive(text);
+        assertThat(memoryManager.getPinnedDeflaters(), is(2));
+
+        memoryManager.sweep();
+        assertThat(memoryManager.getPinnedDeflaters(), is(0));
+        assertThat(memoryManager.getIdleReleases(), is(2L));
+
+        // The remote inflaters keep their context and can still inflate the following messages.
+        sendAndReceive(text);
+        sendAndReceive(text);
+        assertThat(memoryManager.getPinnedDeflaters(), is(2));
+    }
+
+    @Test
+    public void testInflaterPinnedUntilClosed() throws Exception
+    {
+        connect();
+
+        TestFrameHandler clientHandler = clientHandlers.get(0);
+        TestFrameHandler serverHandler = serverFrameHandlers.get(0);
+        clientHandler.sendText("Hello Inflater");
+        Frame frame = Objects.requireNonNull(serverHandler.getFrames().poll(5, TimeUnit.SECONDS));
+        assertThat(frame.getPayloadAsUTF8(), is("Hello Inflater"));
+        assertThat(memoryManager.getPinnedInflaters(), is(1));
+
+        clientHandler.sendClose();
+        assertTrue(serverHandler.closed.await(5, TimeUnit.SECONDS));
+        assertThat(memoryManager.getPinnedInflaters(), is(0));
+        assertThat(memoryManager.getPinnedMemory(), is(0L));
+    }
+}
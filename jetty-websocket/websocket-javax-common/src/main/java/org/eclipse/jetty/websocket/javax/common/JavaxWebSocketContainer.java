@@ -14,21 +14,29 @@
 package org.eclipse.jetty.websocket.javax.common;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import javax.websocket.Extension;
+import javax.websocket.SendHandler;
 import javax.websocket.WebSocketContainer;
 
 import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.DecoratedObjectFactory;
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
 import org.eclipse.jetty.util.component.Dumpable;
+import org.eclipse.jetty.websocket.core.Broadcaster;
 import org.eclipse.jetty.websocket.core.Configuration;
+import org.eclipse.jetty.websocket.core.CoreSession;
+import org.eclipse.jetty.websocket.core.Frame;
+import org.eclipse.jetty.websocket.core.OpCode;
 import org.eclipse.jetty.websocket.core.WebSocketComponents;
 import org.eclipse.jetty.websocket.core.WebSocketExtensionRegistry;
 import org.slf4j.Logger;
@@ -41,10 +49,12 @@ public abstract class JavaxWebSocketContainer extends ContainerLifeCycle impleme
     protected final SessionTracker sessionTracker = new SessionTracker();
     protected final Configuration.ConfigurationCustomizer defaultCustomizer = new Configuration.ConfigurationCustomizer();
     protected final WebSocketComponents components;
+    private final Broadcaster broadcaster;
 
     public JavaxWebSocketContainer(WebSocketComponents components)
     {
         this.components = components;
+        this.broadcaster = new Broadcaster(components);
         addSessionListener(sessionTracker);
         addBean(sessionTracker);
     }
@@ -155,6 +165,50 @@ public abstract class JavaxWebSocketContainer extends ContainerLifeCycle impleme
         return sessionTracker.getSessions();
     }
 
+    /**
+     * <p>Sends a text message to many sessions, encoding and compressing it only once
+     * for all the sessions that can share the encoded message.</p>
+     *
+     * @param sessions the sessions to send the message to, for example {@link #getOpenSessions()}
+     * @param text the text message to send
+     * @param handler the handler notified when the message has been sent to all the sessions, or null
+     * @see Broadcaster
+     */
+    public void broadcast(Collection<? extends javax.websocket.Session> sessions, String text, SendHandler handler)
+    {
+        broadcast(sessions, new Frame(OpCode.TEXT).setPayload(text), handler);
+    }
+
+    /**
+     * <p>Sends a binary message to many sessions, encoding and compressing it only once
+     * for all the sessions that can share the encoded message.</p>
+     * <p>The data must not be modified until the handler is notified.</p>
+     *
+     * @param sessions the sessions to send the message to, for example {@link #getOpenSessions()}
+     * @param data the binary message to send
+     * @param handler the handler notified when the message has been sent to all the sessions, or null
+     * @see Broadcaster
+     */
+    public void broadcast(Collection<? extends javax.websocket.Session> sessions, ByteBuffer data, SendHandler handler)
+    {
+        broadcast(sessions, new Frame(OpCode.BINARY).setPayload(data), handler);
+    }
+
+    private void broadcast(Collection<? extends javax.websocket.Session> sessions, Frame frame, SendHandler handler)
+    {
+        List<CoreSession> coreSessions = new ArrayList<>(sessions.size());
+        for (javax.websocket.Session session : sessions)
+        {
+            coreSessions.add(((JavaxWebSocketSession)session).getCoreSession());
+        }
+        broadcaster.broadcast(coreSessions, frame, handler == null ? Callback.NOOP : new SendHandlerCallback(handler));
+    }
+
+    public Broadcaster getBroadcaster()
+    {
+        return broadcaster;
+    }
+
     public JavaxWebSocketFrameHandler newFrameHandler(Object websocketPojo, UpgradeRequest upgradeRequest)
     {
         return getFrameHandlerFactory().newJavaxWebSocketFrameHandler(websocketPojo, upgradeRequest);
@@ -14,6 +14,7 @@
 package org.eclipse.jetty.websocket.server;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -26,6 +27,7 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.eclipse.jetty.http.pathmap.PathSpec;
 import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
 import org.eclipse.jetty.util.component.Dumpable;
 import org.eclipse.jetty.util.component.LifeCycle;
@@ -34,8 +36,14 @@ import org.eclipse.jetty.websocket.api.WebSocketBehavior;
 import org.eclipse.jetty.websocket.api.WebSocketContainer;
 import org.eclipse.jetty.websocket.api.WebSocketPolicy;
 import org.eclipse.jetty.websocket.api.WebSocketSessionListener;
+import org.eclipse.jetty.websocket.api.WriteCallback;
 import org.eclipse.jetty.websocket.common.SessionTracker;
+import org.eclipse.jetty.websocket.common.WebSocketSession;
+import org.eclipse.jetty.websocket.core.Broadcaster;
 import org.eclipse.jetty.websocket.core.Configuration;
+import org.eclipse.jetty.websocket.core.CoreSession;
+import org.eclipse.jetty.websocket.core.Frame;
+import org.eclipse.jetty.websocket.core.OpCode;
 import org.eclipse.jetty.websocket.core.WebSocketComponents;
 import org.eclipse.jetty.websocket.core.exception.WebSocketException;
 import org.eclipse.jetty.websocket.core.internal.util.ReflectUtils;
@@ -118,6 +126,7 @@ public class JettyWebSocketServerContainer extends ContainerLifeCycle implements
 
     private final List<WebSocketSessionListener> sessionListeners = new ArrayList<>();
     private final SessionTracker sessionTracker = new SessionTracker();
+    private final Broadcaster broadcaster;
 
     /**
      * Main entry point for {@link JettyWebSocketServletContainerInitializer}.
@@ -132,6 +141,7 @@ public class JettyWebSocketServerContainer extends ContainerLifeCycle implements
         this.components = components;
         this.executor = executor;
         this.frameHandlerFactory = new JettyServerFrameHandlerFactory(this, components);
+        this.broadcaster = new Broadcaster(components);
         addBean(frameHandlerFactory);
 
         addSessionListener(sessionTracker);
@@ -224,6 +234,51 @@ public class JettyWebSocketServerContainer extends ContainerLifeCycle implements
         return sessionTracker.getSessions();
     }
 
+    /**
+     * <p>Sends a text message to many sessions, encoding and compressing it only once
+     * for all the sessions that can share the encoded message.</p>
+     *
+     * @param sessions the sessions to send the message to, for example {@link #getOpenSessions()}
+     * @param text the text message to send
+     * @param callback the callback notified when the message has been sent to all the sessions, or null
+     * @see Broadcaster
+     */
+    public void broadcast(Collection<Session> sessions, String text, WriteCallback callback)
+    {
+        broadcast(sessions, new Frame(OpCode.TEXT).setPayload(text), callback);
+    }
+
+    /**
+     * <p>Sends a binary message to many sessions, encoding and compressing it only once
+     * for all the sessions that can share the encoded message.</p>
+     * <p>The data must not be modified until the callback is notified.</p>
+     *
+     * @param sessions the sessions to send the message to, for example {@link #getOpenSessions()}
+     * @param data the binary message to send
+     * @param callback the callback notified when the message has been sent to all the sessions, or null
+     * @see Broadcaster
+     */
+    public void broadcast(Collection<Session> sessions, ByteBuffer data, WriteCallback callback)
+    {
+        broadcast(sessions, new Frame(OpCode.BINARY).setPayload(data), callback);
+    }
+
+    private void broadcast(Collection<Session> sessions, Frame frame, WriteCallback callback)
+    {
+        List<CoreSession> coreSessions = new ArrayList<>(sessions.size());
+        for (Session session : sessions)
+        {
+            coreSessions.add(((WebSocketSession)session).getCoreSession());
+        }
+        Callback cb = callback == null ? Callback.NOOP : Callback.from(callback::writeSuccess, callback::writeFailed);
+        broadcaster.broadcast(coreSessions, frame, cb);
+    }
+
+    public Broadcaster getBroadcaster()
+    {
+        return broadcaster;
+    }
+
     @Override
     public WebSocketBehavior getBehavior()
     {
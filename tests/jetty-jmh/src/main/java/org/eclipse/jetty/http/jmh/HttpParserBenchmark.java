@@ -0,0 +1,168 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.http.jmh;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.BadMessageException;
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpParser;
+import org.eclipse.jetty.http.HttpVersion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the {@link HttpParser} parsing of a buffer of pipelined requests, either small
+ * requests with few headers or browser requests with many long headers, with and without
+ * the bulk scanning of plain characters.
+ */
+@State(Scope.Thread)
+@Threads(4)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+public class HttpParserBenchmark
+{
+    private static final int PIPELINED = 16;
+    private static final String SMALL_REQUEST =
+        "GET /api/v1/items/42 HTTP/1.1\r\n" +
+            "Host: api.example.com\r\n" +
+            "Accept: */*\r\n" +
+            "\r\n";
+    private static final String BROWSER_REQUEST =
+        "GET /static/js/main.5f3c1a7e.chunk.js?v=20231115&locale=en-US HTTP/1.1\r\n" +
+            "Host: www.example.com\r\n" +
+            "Connection: keep-alive\r\n" +
+            "sec-ch-ua: \"Google Chrome\";v=\"119\", \"Chromium\";v=\"119\", \"Not?A_Brand\";v=\"24\"\r\n" +
+            "sec-ch-ua-mobile: ?0\r\n" +
+            "User-Agent: Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/119.0.0.0 Safari/537.36\r\n" +
+            "sec-ch-ua-platform: \"Windows\"\r\n" +
+            "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,image/avif,image/webp,image/apng,*/*;q=0.8\r\n" +
+            "Sec-Fetch-Site: same-origin\r\n" +
+            "Sec-Fetch-Mode: no-cors\r\n" +
+            "Sec-Fetch-Dest: script\r\n" +
+            "Referer: https://www.example.com/products/index.html?category=books&sort=price\r\n" +
+            "Accept-Encoding: gzip, deflate, br\r\n" +
+            "Accept-Language: en-US,en;q=0.9,fr;q=0.8\r\n" +
+            "Cookie: session=8f14e45fceea167a5a36dedd4bea2543; theme=dark; _ga=GA1.2.1234567890.1700000000; _gid=GA1.2.987654321.1700000000\r\n" +
+            "X-Request-Id: 5f1c2a7e-8b3d-4e9a-a1b2-c3d4e5f60718\r\n" +
+            "\r\n";
+
+    @Param({"small", "browser"})
+    public String requests;
+
+    @Param({"true", "false"})
+    public boolean fastScan;
+
+    private ByteBuffer _buffer;
+    private HttpParser _parser;
+    private Blackhole _blackhole;
+
+    @Setup
+    public void setup(Blackhole blackhole)
+    {
+        String request = "small".equals(requests) ? SMALL_REQUEST : BROWSER_REQUEST;
+        _buffer = ByteBuffer.wrap(request.repeat(PIPELINED).getBytes(StandardCharsets.ISO_8859_1));
+        _blackhole = blackhole;
+        _parser = new HttpParser(new HttpParser.RequestHandler()
+        {
+            @Override
+            public void startRequest(String method, String uri, HttpVersion version)
+            {
+                _blackhole.consume(uri);
+            }
+
+            @Override
+            public void parsedHeader(HttpField field)
+            {
+                _blackhole.consume(field);
+            }
+
+            @Override
+            public boolean headerComplete()
+            {
+                return false;
+            }
+
+            @Override
+            public boolean content(ByteBuffer item)
+            {
+                return false;
+            }
+
+            @Override
+            public boolean contentComplete()
+            {
+                return false;
+            }
+
+            @Override
+            public boolean messageComplete()
+            {
+                return true;
+            }
+
+            @Override
+            public void earlyEOF()
+            {
+            }
+
+            @Override
+            public void badMessage(BadMessageException failure)
+            {
+                throw failure;
+            }
+        });
+        _parser.setFastScan(fastScan);
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void testParse()
+    {
+        ByteBuffer buffer = _buffer.duplicate();
+        while (buffer.hasRemaining())
+        {
+            if (_parser.parseNext(buffer))
+                _parser.reset();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(HttpParserBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,108 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.http.jmh;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.pathmap.MatchedResource;
+import org.eclipse.jetty.http.pathmap.PathMappings;
+import org.eclipse.jetty.http.pathmap.RegexPathSpec;
+import org.eclipse.jetty.http.pathmap.ServletPathSpec;
+import org.eclipse.jetty.http.pathmap.UriTemplatePathSpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the cost of {@link PathMappings#getMatched(String)} for a REST gateway
+ * with a number of URI template or regex routes, 4 per service, plus a default servlet.
+ */
+@State(Scope.Benchmark)
+@Threads(4)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+public class PathMappingsBenchmark
+{
+    @Param({"uri-template", "regex"})
+    public String type;
+
+    @Param({"40", "400"})
+    public int routes;
+
+    private PathMappings<String> _mappings;
+    private String[] _paths;
+
+    @Setup
+    public void setup()
+    {
+        _mappings = new PathMappings<>();
+        int services = routes / 4;
+        _paths = new String[services * 4];
+        for (int i = 0; i < services; ++i)
+        {
+            String service = "/api/v1/service" + i;
+            if ("regex".equals(type))
+            {
+                _mappings.put(new RegexPathSpec("^" + service + "$"), "list");
+                _mappings.put(new RegexPathSpec("^" + service + "/([^/]+)$"), "get");
+                _mappings.put(new RegexPathSpec("^" + service + "/([^/]+)/items$"), "items");
+                _mappings.put(new RegexPathSpec("^" + service + "/([^/]+)/items/([^/]+)$"), "item");
+            }
+            else
+            {
+                _mappings.put(new UriTemplatePathSpec(service), "list");
+                _mappings.put(new UriTemplatePathSpec(service + "/{id}"), "get");
+                _mappings.put(new UriTemplatePathSpec(service + "/{id}/items"), "items");
+                _mappings.put(new UriTemplatePathSpec(service + "/{id}/items/{item}"), "item");
+            }
+            _paths[4 * i] = service;
+            _paths[4 * i + 1] = service + "/42";
+            _paths[4 * i + 2] = service + "/42/items?page=2";
+            _paths[4 * i + 3] = service + "/42/items/7";
+        }
+        _mappings.put(new ServletPathSpec("/"), "default");
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public MatchedResource<String> testGetMatched()
+    {
+        return _mappings.getMatched(_paths[ThreadLocalRandom.current().nextInt(_paths.length)]);
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(PathMappingsBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
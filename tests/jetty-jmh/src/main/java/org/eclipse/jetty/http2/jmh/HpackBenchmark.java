@@ -0,0 +1,177 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HostPortHttpField;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpScheme;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http2.hpack.HpackDecoder;
+import org.eclipse.jetty.http2.hpack.HpackEncoder;
+import org.eclipse.jetty.util.NanoTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the HPACK encoding and decoding of the request and response headers
+ * of a browser loading the resources of a page over a single connection.
+ */
+@State(Scope.Thread)
+@Threads(4)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+public class HpackBenchmark
+{
+    private static final int RESOURCES = 64;
+    private static final String[] TYPES = {"text/css", "application/javascript", "image/png", "image/webp", "font/woff2"};
+
+    private MetaData.Request[] _requests;
+    private MetaData.Response[] _responses;
+    private ByteBuffer[] _encodedRequests;
+    private HpackEncoder _encoder;
+    private HpackDecoder _decoder;
+    private ByteBuffer _buffer;
+    private int _next;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws Exception
+    {
+        _requests = new MetaData.Request[RESOURCES];
+        _responses = new MetaData.Response[RESOURCES];
+        for (int i = 0; i < RESOURCES; ++i)
+        {
+            String type = TYPES[i % TYPES.length];
+            HttpFields.Mutable requestFields = HttpFields.build()
+                .put(HttpHeader.USER_AGENT, "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/119.0.0.0 Safari/537.36")
+                .put(HttpHeader.ACCEPT, type.startsWith("image/") ? "image/avif,image/webp,image/apng,image/svg+xml,image/*,*/*;q=0.8" : "*/*")
+                .put(HttpHeader.ACCEPT_ENCODING, "gzip, deflate, br")
+                .put(HttpHeader.ACCEPT_LANGUAGE, "en-US,en;q=0.9")
+                .put(HttpHeader.REFERER, "https://www.example.com/index.html")
+                .put(HttpHeader.COOKIE, "session=8f14e45fceea167a5a36dedd4bea2543; theme=dark; _ga=GA1.2.1234567890.1700000000")
+                .put("sec-ch-ua", "\"Google Chrome\";v=\"119\", \"Chromium\";v=\"119\", \"Not?A_Brand\";v=\"24\"")
+                .put("sec-ch-ua-mobile", "?0")
+                .put("sec-ch-ua-platform", "\"Linux\"")
+                .put("sec-fetch-dest", type.startsWith("image/") ? "image" : "script")
+                .put("sec-fetch-mode", "no-cors")
+                .put("sec-fetch-site", "same-origin");
+            _requests[i] = new MetaData.Request("GET", HttpScheme.HTTPS.asString(), new HostPortHttpField("www.example.com"),
+                "/static/resource-" + i + "." + type.substring(type.indexOf('/') + 1), HttpVersion.HTTP_2, requestFields, -1);
+
+            HttpFields.Mutable responseFields = HttpFields.build()
+                .put(HttpHeader.SERVER, "Jetty")
+                .put(HttpHeader.DATE, "Wed, 15 Nov 2023 10:00:00 GMT")
+                .put(HttpHeader.CONTENT_TYPE, type)
+                .put(HttpHeader.CONTENT_LENGTH, String.valueOf(1024 + i * 37))
+                .put(HttpHeader.CACHE_CONTROL, "public, max-age=31536000, immutable")
+                .put(HttpHeader.ETAG, "W/\"" + Integer.toHexString(i * 7919) + "\"")
+                .put(HttpHeader.LAST_MODIFIED, "Mon, 13 Nov 2023 08:00:00 GMT")
+                .put(HttpHeader.VARY, "Accept-Encoding")
+                .put("strict-transport-security", "max-age=63072000; includeSubDomains");
+            _responses[i] = new MetaData.Response(HttpVersion.HTTP_2, 200, responseFields);
+        }
+
+        // Pre-encode the requests of a connection, to measure the decoding alone.
+        HpackEncoder encoder = new HpackEncoder();
+        _encodedRequests = new ByteBuffer[RESOURCES];
+        for (int i = 0; i < RESOURCES; ++i)
+        {
+            ByteBuffer buffer = ByteBuffer.allocate(4096);
+            encoder.encode(buffer, _requests[i]);
+            buffer.flip();
+            _encodedRequests[i] = buffer;
+        }
+        _buffer = ByteBuffer.allocate(4096);
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration()
+    {
+        _encoder = new HpackEncoder();
+        _decoder = new HpackDecoder(8192, NanoTime::now);
+        _next = 0;
+    }
+
+    private int next()
+    {
+        int next = _next++;
+        if (_next == RESOURCES)
+        {
+            // A new connection, with empty dynamic tables.
+            _next = 0;
+            _encoder = new HpackEncoder();
+            _decoder = new HpackDecoder(8192, NanoTime::now);
+        }
+        return next;
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public ByteBuffer testEncodeRequest() throws Exception
+    {
+        _buffer.clear();
+        _encoder.encode(_buffer, _requests[next()]);
+        return _buffer;
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public ByteBuffer testEncodeResponse() throws Exception
+    {
+        _buffer.clear();
+        _encoder.encode(_buffer, _responses[next()]);
+        return _buffer;
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public MetaData testDecodeRequest() throws Exception
+    {
+        HpackDecoder decoder = _decoder;
+        int next = next();
+        return decoder.decode(_encodedRequests[next].slice());
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(HpackBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,200 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.http2.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpURI;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http2.HTTP2Session;
+import org.eclipse.jetty.http2.IStream;
+import org.eclipse.jetty.http2.SimpleFlowControlStrategy;
+import org.eclipse.jetty.http2.StreamScheduler;
+import org.eclipse.jetty.http2.api.Session;
+import org.eclipse.jetty.http2.frames.DataFrame;
+import org.eclipse.jetty.http2.frames.HeadersFrame;
+import org.eclipse.jetty.http2.frames.PushPromiseFrame;
+import org.eclipse.jetty.http2.generator.Generator;
+import org.eclipse.jetty.http2.parser.Parser;
+import org.eclipse.jetty.io.ByteArrayEndPoint;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.io.MappedByteBufferPool;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Measures the time to first byte of an urgent response ({@code u=0}) queued on
+ * an HTTP/2 connection behind large responses of default priority, such as images,
+ * while the connection is write congested.</p>
+ * <p>The average number of bytes written before the first DATA frame of the urgent
+ * response is printed at the end of each trial.</p>
+ */
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+public class StreamSchedulerBenchmark
+{
+    private static final int WINDOW = 64 * 1024 * 1024;
+    private static final int CONTENT_LENGTH = 256 * 1024;
+    private static final int OUTPUT_SIZE = 16 * 1024;
+
+    @Param({"FIFO", "EXTENSIBLE_PRIORITY"})
+    public String scheduler;
+
+    @Param({"4", "16"})
+    public int contention;
+
+    private final ByteBufferPool _byteBufferPool = new MappedByteBufferPool();
+    private ScheduledExecutorScheduler _timer;
+    private ByteArrayEndPoint _endPoint;
+    private BenchmarkSession _session;
+    private Parser _parser;
+    private IStream _urgent;
+    private boolean _firstByte;
+    private long _totalBytes;
+    private long _invocations;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws Exception
+    {
+        _timer = new ScheduledExecutorScheduler();
+        _timer.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopTrial() throws Exception
+    {
+        System.err.printf("%nscheduler=%s contention=%d bytes_before_first_byte=%d%n", scheduler, contention, _invocations == 0 ? 0 : _totalBytes / _invocations);
+        _timer.stop();
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() throws Exception
+    {
+        _endPoint = new ByteArrayEndPoint(new byte[0], OUTPUT_SIZE);
+        _endPoint.setGrowOutput(false);
+        _session = new BenchmarkSession(_timer, _endPoint, _byteBufferPool);
+        _session.setStreamScheduler("FIFO".equals(scheduler) ? StreamScheduler.FIFO : StreamScheduler.EXTENSIBLE_PRIORITY);
+        _session.start();
+        _session.updateSendWindow(WINDOW);
+
+        // The first response fills the output, so that the others are queued.
+        for (int i = 0; i < contention; ++i)
+        {
+            IStream stream = _session.newStream(2 * i + 1, null);
+            _session.data(stream, Callback.NOOP, new DataFrame(stream.getId(), ByteBuffer.allocate(CONTENT_LENGTH), true));
+        }
+        _urgent = _session.newStream(2 * contention + 1, "u=0");
+        _firstByte = false;
+
+        // The parsing stops in the middle of the output, so a new parser is needed.
+        _parser = new Parser(_byteBufferPool, 8192);
+        _parser.init(new Parser.Listener.Adapter()
+        {
+            @Override
+            public void onData(DataFrame frame)
+            {
+                if (frame.getStreamId() == _urgent.getId())
+                    _firstByte = true;
+            }
+        });
+    }
+
+    @TearDown(Level.Invocation)
+    public void stopInvocation() throws Exception
+    {
+        _session.stop();
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.AverageTime})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long testTimeToFirstByte()
+    {
+        _session.data(_urgent, Callback.NOOP, new DataFrame(_urgent.getId(), ByteBuffer.allocate(1024), true));
+        long bytes = 0;
+        while (!_firstByte)
+        {
+            ByteBuffer output = _endPoint.takeOutput();
+            if (!output.hasRemaining())
+                throw new IllegalStateException("No output");
+            bytes += output.remaining();
+            while (output.hasRemaining() && !_firstByte)
+            {
+                _parser.parse(output);
+            }
+        }
+        _totalBytes += bytes;
+        ++_invocations;
+        return bytes;
+    }
+
+    private static class BenchmarkSession extends HTTP2Session
+    {
+        private BenchmarkSession(ScheduledExecutorScheduler scheduler, ByteArrayEndPoint endPoint, ByteBufferPool byteBufferPool)
+        {
+            super(scheduler, endPoint, new Parser(byteBufferPool, 8192), new Generator(byteBufferPool), new Session.Listener.Adapter(), new SimpleFlowControlStrategy(), 2);
+        }
+
+        private IStream newStream(int streamId, String priority)
+        {
+            HttpFields.Mutable fields = HttpFields.build();
+            if (priority != null)
+                fields.put(HttpHeader.PRIORITY, priority);
+            MetaData.Request request = new MetaData.Request("GET", HttpURI.from("https://localhost/" + streamId), HttpVersion.HTTP_2, fields);
+            IStream stream = createRemoteStream(streamId, request);
+            stream.updateSendWindow(WINDOW);
+            return stream;
+        }
+
+        @Override
+        public void onHeaders(HeadersFrame frame)
+        {
+        }
+
+        @Override
+        public void onPushPromise(PushPromiseFrame frame)
+        {
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(StreamSchedulerBenchmark.class.getSimpleName())
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,117 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.requestlog.jmh;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.server.AsyncRequestLogWriter;
+import org.eclipse.jetty.server.ByteBufferRequestLogWriter;
+import org.eclipse.jetty.server.RequestLogWriter;
+import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.TypeUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the String based {@link AsyncRequestLogWriter} with the pooled buffer
+ * based {@link ByteBufferRequestLogWriter}, both fed from a reused StringBuilder
+ * as {@link org.eclipse.jetty.server.CustomRequestLog} does.
+ */
+@State(Scope.Benchmark)
+@Threads(4)
+@Warmup(iterations = 7, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 7, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+public class RequestLogWriterBenchmark
+{
+    private static final ThreadLocal<StringBuilder> BUFFERS = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    @Param({"ASYNC", "BYTEBUFFER"})
+    public static String writerType;
+
+    private Path _dir;
+    private RequestLogWriter _writer;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws Exception
+    {
+        _dir = Files.createTempDirectory("requestlog");
+        String filename = _dir.resolve("yyyy_mm_dd.request.log").toString();
+        switch (writerType)
+        {
+            case "ASYNC":
+                _writer = new AsyncRequestLogWriter(filename);
+                break;
+            case "BYTEBUFFER":
+                _writer = new ByteBufferRequestLogWriter(filename);
+                break;
+            default:
+                throw new IllegalStateException("Unknown writerType Parameter");
+        }
+        _writer.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopTrial() throws Exception
+    {
+        _writer.stop();
+        IO.delete(_dir.toFile());
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public void testWrite() throws Exception
+    {
+        long random = ThreadLocalRandom.current().nextLong();
+        StringBuilder b = BUFFERS.get();
+        b.setLength(0);
+        b.append("127.0.0.1 - - [17/Oct/2026:15:46:11 +0000] \"GET /path/");
+        TypeUtil.toHex(random, b);
+        b.append(" HTTP/1.1\" 200 ");
+        b.append(random & 0xFFFF);
+        b.append(" \"-\" \"Mozilla/5.0 (X11; Linux x86_64)\"");
+        _writer.write(b);
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(RequestLogWriterBenchmark.class.getSimpleName())
+            .warmupIterations(20)
+            .measurementIterations(10)
+            .addProfiler(GCProfiler.class)
+            .forks(1)
+            .threads(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,144 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server.jmh;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.CompressedContentFormat;
+import org.eclipse.jetty.http.HttpContent;
+import org.eclipse.jetty.http.MimeTypes;
+import org.eclipse.jetty.server.CachedContentFactory;
+import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.resource.PathResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Replays a Zipfian access trace, mixed with a uniform scan over rarely used
+ * resources, against a {@link CachedContentFactory} as {@code ResourceService}
+ * uses it, and prints the resulting hit ratio of each eviction policy.
+ */
+@State(Scope.Benchmark)
+@Threads(4)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+public class CachedContentFactoryBenchmark
+{
+    private static final int FILES = 5000;
+    private static final int TRACE = 1 << 20;
+
+    @Param({"LRU", "TINY_LFU"})
+    public String policy;
+
+    @Param({"20"})
+    public int scanPercent;
+
+    private Path _dir;
+    private String[] _paths;
+    private int[] _trace;
+    private CachedContentFactory _cache;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws Exception
+    {
+        _dir = Files.createTempDirectory("cachedcontent");
+        _paths = new String[FILES];
+        for (int i = 0; i < FILES; i++)
+        {
+            _paths[i] = "asset-" + i + ".js";
+            // Sizes between 1 KiB and 64 KiB.
+            Files.write(_dir.resolve(_paths[i]), new byte[1024 << (i % 7)]);
+        }
+
+        // Zipf distribution with exponent 0.9, interleaved with uniform scans.
+        double[] cdf = new double[FILES];
+        double sum = 0;
+        for (int i = 0; i < FILES; i++)
+        {
+            sum += 1.0 / Math.pow(i + 1, 0.9);
+            cdf[i] = sum;
+        }
+        Random random = new Random(0xCAFE);
+        _trace = new int[TRACE];
+        for (int i = 0; i < TRACE; i++)
+        {
+            if (random.nextInt(100) < scanPercent)
+            {
+                _trace[i] = random.nextInt(FILES);
+            }
+            else
+            {
+                int index = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+                _trace[i] = index < 0 ? -index - 1 : index;
+            }
+        }
+
+        _cache = new CachedContentFactory(null, new PathResource(_dir), new MimeTypes(), false, true, CompressedContentFormat.NONE);
+        _cache.setEvictionPolicy(CachedContentFactory.EvictionPolicy.valueOf(policy));
+        _cache.setMaxCachedFiles(FILES / 10);
+        _cache.setMaxCacheSize(FILES / 10 * 16 * 1024);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopTrial() throws Exception
+    {
+        long hits = _cache.getHitCount();
+        long total = hits + _cache.getMissCount();
+        System.err.printf("%n%s hit ratio %.2f%% (evictions=%d, rejections=%d)%n",
+            policy, total == 0 ? 0D : hits * 100D / total, _cache.getEvictionCount(), _cache.getRejectionCount());
+        _cache.flushCache();
+        IO.delete(_dir.toFile());
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public ByteBuffer testGetContent() throws Exception
+    {
+        String path = _paths[_trace[ThreadLocalRandom.current().nextInt(TRACE)]];
+        HttpContent content = _cache.getContent(path, 16 * 1024);
+        ByteBuffer buffer = content.getDirectBuffer();
+        content.release();
+        return buffer;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(CachedContentFactoryBenchmark.class.getSimpleName())
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
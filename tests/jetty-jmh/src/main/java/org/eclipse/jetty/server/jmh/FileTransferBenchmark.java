@@ -0,0 +1,199 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.server.jmh;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.ResourceHandler;
+import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.resource.PathResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Downloads a large static file over cleartext HTTP/1.1 connections, with and
+ * without {@link HttpConfiguration#setUseFileTransfer(boolean) file transfers},
+ * and prints the process CPU time spent per download after each iteration.
+ */
+@State(Scope.Benchmark)
+@Threads(4)
+@Warmup(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+public class FileTransferBenchmark
+{
+    @Param({"false", "true"})
+    public boolean useFileTransfer;
+
+    @Param({"1048576", "16777216"})
+    public int fileSize;
+
+    private final LongAdder _downloads = new LongAdder();
+    private Path _dir;
+    private Server _server;
+    private ServerConnector _connector;
+    private long _cpuTime;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws Exception
+    {
+        _dir = Files.createTempDirectory("filetransfer");
+        Files.write(_dir.resolve("file.bin"), new byte[fileSize]);
+
+        _server = new Server();
+        HttpConfiguration config = new HttpConfiguration();
+        config.setUseFileTransfer(useFileTransfer);
+        _connector = new ServerConnector(_server, new HttpConnectionFactory(config));
+        _server.addConnector(_connector);
+        ResourceHandler handler = new ResourceHandler();
+        handler.setBaseResource(new PathResource(_dir));
+        _server.setHandler(handler);
+        _server.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws Exception
+    {
+        _server.stop();
+        IO.delete(_dir.toFile());
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration()
+    {
+        _downloads.reset();
+        _cpuTime = processCpuTime();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownIteration()
+    {
+        long downloads = _downloads.sum();
+        if (downloads > 0)
+            System.err.printf("%n%d downloads, %d us CPU per download%n", downloads, TimeUnit.NANOSECONDS.toMicros(processCpuTime() - _cpuTime) / downloads);
+    }
+
+    private static long processCpuTime()
+    {
+        return ((com.sun.management.OperatingSystemMXBean)ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+    }
+
+    @State(Scope.Thread)
+    public static class Client
+    {
+        private static final byte[] REQUEST = "GET /file.bin HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+        private final byte[] _buffer = new byte[64 * 1024];
+        private Socket _socket;
+        private InputStream _input;
+
+        @Setup(Level.Trial)
+        public void setup(FileTransferBenchmark benchmark) throws IOException
+        {
+            _socket = new Socket("localhost", benchmark._connector.getLocalPort());
+            _input = new BufferedInputStream(_socket.getInputStream(), _buffer.length);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown()
+        {
+            IO.close(_socket);
+        }
+
+        private long download() throws IOException
+        {
+            OutputStream output = _socket.getOutputStream();
+            output.write(REQUEST);
+            output.flush();
+
+            // Read the response headers, looking for the Content-Length.
+            InputStream input = _input;
+            StringBuilder line = new StringBuilder();
+            long contentLength = -1;
+            while (true)
+            {
+                int b = input.read();
+                if (b < 0)
+                    throw new IOException("Unexpected EOF");
+                if (b != '\n')
+                {
+                    if (b != '\r')
+                        line.append((char)b);
+                    continue;
+                }
+                if (line.length() == 0)
+                    break;
+                String header = line.toString();
+                if (header.regionMatches(true, 0, "Content-Length:", 0, 15))
+                    contentLength = Long.parseLong(header.substring(15).trim());
+                line.setLength(0);
+            }
+
+            long remaining = contentLength;
+            while (remaining > 0)
+            {
+                int read = input.read(_buffer, 0, (int)Math.min(_buffer.length, remaining));
+                if (read < 0)
+                    throw new IOException("Unexpected EOF");
+                remaining -= read;
+            }
+            return contentLength;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public long testDownload(Client client) throws IOException
+    {
+        long length = client.download();
+        _downloads.increment();
+        return length;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(FileTransferBenchmark.class.getSimpleName())
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
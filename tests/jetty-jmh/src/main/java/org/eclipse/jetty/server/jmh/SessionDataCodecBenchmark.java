@@ -0,0 +1,127 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.server.jmh;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.server.session.BinarySessionDataCodec;
+import org.eclipse.jetty.server.session.ObjectStreamSessionDataCodec;
+import org.eclipse.jetty.server.session.SessionData;
+import org.eclipse.jetty.server.session.SessionDataCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the cost of encoding and decoding the attributes of a typical session,
+ * made of strings, numbers and a small map, with the default object stream codec
+ * and with the binary codec, and the cost of encoding only the changed attributes.
+ */
+@State(Scope.Thread)
+@Threads(4)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+public class SessionDataCodecBenchmark
+{
+    @Param({"objectstream", "binary"})
+    public String codec;
+
+    @Param({"4", "32"})
+    public int attributes;
+
+    private SessionDataCodec _codec;
+    private SessionData _data;
+    private byte[] _encoded;
+    private ByteArrayOutputStream _out;
+
+    @Setup
+    public void setup() throws Exception
+    {
+        _codec = "binary".equals(codec) ? new BinarySessionDataCodec() : new ObjectStreamSessionDataCodec();
+        _data = new SessionData("node0abcdefghijklmnop", "/context", "0.0.0.0", 0, 0, 0, 1800000);
+        for (int i = 0; i < attributes; ++i)
+        {
+            String name = "attribute" + i;
+            switch (i % 4)
+            {
+                case 0:
+                    _data.setAttribute(name, "user-" + i + "@example.com");
+                    break;
+                case 1:
+                    _data.setAttribute(name, i * 1000);
+                    break;
+                case 2:
+                    _data.setAttribute(name, System.currentTimeMillis() + i);
+                    break;
+                default:
+                    Map<String, String> map = new HashMap<>();
+                    map.put("locale", "en_US");
+                    map.put("theme", "dark");
+                    _data.setAttribute(name, map);
+                    break;
+            }
+        }
+        _out = new ByteArrayOutputStream(4096);
+        _codec.encodeAttributes(_data, _out);
+        _encoded = _out.toByteArray();
+        System.err.printf("%n%s %d attributes: %d bytes%n", codec, attributes, _encoded.length);
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int testEncode() throws Exception
+    {
+        _out.reset();
+        _codec.encodeAttributes(_data, _out);
+        return _out.size();
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public SessionData testDecode() throws Exception
+    {
+        SessionData data = new SessionData("node0abcdefghijklmnop", "/context", "0.0.0.0", 0, 0, 0, 1800000);
+        _codec.decodeAttributes(data, new ByteArrayInputStream(_encoded));
+        return data;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(SessionDataCodecBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
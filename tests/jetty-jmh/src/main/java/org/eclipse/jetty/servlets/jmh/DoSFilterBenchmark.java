@@ -0,0 +1,139 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.servlets.jmh;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.servlets.DoSFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the {@link DoSFilter} throughput for requests from 1M distinct client
+ * addresses, with one rate tracker object per client ({@code maxTrackers=0})
+ * or with a fixed size rate tracker table.
+ */
+@State(Scope.Benchmark)
+@Threads(4)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+public class DoSFilterBenchmark
+{
+    private static final int CLIENTS = 1 << 20;
+    private static final FilterChain CHAIN = (request, response) ->
+    {
+    };
+
+    @Param({"0", "1048576"})
+    public int maxTrackers;
+
+    private InetSocketAddress[] _clients;
+    private DoSFilter _filter;
+
+    @State(Scope.Thread)
+    public static class ThreadState
+    {
+        private final Request _request = new Request(null, null);
+    }
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws Exception
+    {
+        _clients = new InetSocketAddress[CLIENTS];
+        for (int i = 0; i < CLIENTS; ++i)
+        {
+            byte[] address = {10, (byte)(i >> 16), (byte)(i >> 8), (byte)i};
+            _clients[i] = new InetSocketAddress(InetAddress.getByAddress(address), 8080);
+        }
+
+        _filter = new DoSFilter();
+        _filter.init(new FilterConfig()
+        {
+            @Override
+            public String getFilterName()
+            {
+                return "dos";
+            }
+
+            @Override
+            public ServletContext getServletContext()
+            {
+                return null;
+            }
+
+            @Override
+            public String getInitParameter(String name)
+            {
+                return "maxTrackers".equals(name) ? String.valueOf(maxTrackers) : null;
+            }
+
+            @Override
+            public Enumeration<String> getInitParameterNames()
+            {
+                return Collections.emptyEnumeration();
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void stopTrial()
+    {
+        System.err.printf("%nmaxTrackers=%d evicted=%d%n", _filter.getMaxTrackers(), _filter.getEvictedTrackerCount());
+        _filter.destroy();
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public void testDoFilter(ThreadState state) throws Exception
+    {
+        Request request = state._request;
+        request.setRemoteAddr(_clients[ThreadLocalRandom.current().nextInt(CLIENTS)]);
+        _filter.doFilter(request, null, CHAIN);
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(DoSFilterBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -16,12 +16,16 @@ package org.eclipse.jetty.util;
 import java.nio.ByteBuffer;
 
 import org.eclipse.jetty.io.ArrayByteBufferPool;
+import org.eclipse.jetty.io.ArrayRetainableByteBufferPool;
 import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.io.RetainableByteBuffer;
 import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
 import org.openjdk.jmh.runner.options.Options;
@@ -30,18 +34,24 @@ import org.openjdk.jmh.runner.options.OptionsBuilder;
 @State(Scope.Benchmark)
 public class ArrayByteBufferPoolBenchmark
 {
+    @Param({"1", "-1"})
+    public int shards;
+
     private ByteBufferPool pool;
+    private ArrayRetainableByteBufferPool retainablePool;
 
     @Setup
     public void setUp() throws Exception
     {
         pool = new ArrayByteBufferPool();
+        retainablePool = new ArrayRetainableByteBufferPool(0, -1, -1, Integer.MAX_VALUE, 0, 0, shards);
     }
 
     @TearDown
     public void tearDown()
     {
         pool = null;
+        retainablePool = null;
     }
 
     @Benchmark
@@ -51,6 +61,23 @@ public class ArrayByteBufferPoolBenchmark
         pool.release(buffer);
     }
 
+    @Benchmark
+    public void testRetainableAcquireRelease()
+    {
+        RetainableByteBuffer buffer = retainablePool.acquire(2048, true);
+        buffer.release();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void testRetainableAcquireReleaseContended()
+    {
+        RetainableByteBuffer buffer1 = retainablePool.acquire(2048, true);
+        RetainableByteBuffer buffer2 = retainablePool.acquire(4096, true);
+        buffer2.release();
+        buffer1.release();
+    }
+
     public static void main(String[] args) throws RunnerException
     {
         Options opt = new OptionsBuilder()
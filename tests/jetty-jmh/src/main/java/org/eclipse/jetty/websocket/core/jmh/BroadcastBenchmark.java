@@ -0,0 +1,205 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.websocket.core.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.io.ByteArrayEndPoint;
+import org.eclipse.jetty.io.RetainableByteBufferPool;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
+import org.eclipse.jetty.util.thread.Scheduler;
+import org.eclipse.jetty.websocket.core.Behavior;
+import org.eclipse.jetty.websocket.core.Broadcaster;
+import org.eclipse.jetty.websocket.core.CloseStatus;
+import org.eclipse.jetty.websocket.core.CoreSession;
+import org.eclipse.jetty.websocket.core.ExtensionConfig;
+import org.eclipse.jetty.websocket.core.Frame;
+import org.eclipse.jetty.websocket.core.FrameHandler;
+import org.eclipse.jetty.websocket.core.OpCode;
+import org.eclipse.jetty.websocket.core.WebSocketComponents;
+import org.eclipse.jetty.websocket.core.internal.ExtensionStack;
+import org.eclipse.jetty.websocket.core.internal.Negotiated;
+import org.eclipse.jetty.websocket.core.internal.WebSocketConnection;
+import org.eclipse.jetty.websocket.core.internal.WebSocketCoreSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the messages per second sent to many server sessions, either with a
+ * {@link Broadcaster} or by sending a frame to each session in turn.
+ * The sessions write to endpoints that discard the bytes; run with the GC profiler
+ * to compare the allocation rate per message.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+public class BroadcastBenchmark
+{
+    @Param({"100", "10000"})
+    public int sessions;
+
+    @Param({"none", "permessage-deflate; server_no_context_takeover"})
+    public String extension;
+
+    @Param({"1024"})
+    public int size;
+
+    private WebSocketComponents _components;
+    private Scheduler _scheduler;
+    private List<CoreSession> _sessions;
+    private Broadcaster _broadcaster;
+    private String _text;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws Exception
+    {
+        _components = new WebSocketComponents();
+        _components.start();
+        _scheduler = new ScheduledExecutorScheduler();
+        _scheduler.start();
+        _broadcaster = new Broadcaster(_components);
+
+        StringBuilder text = new StringBuilder(size);
+        while (text.length() < size)
+        {
+            text.append("{\"symbol\":\"JTY\",\"price\":").append(text.length()).append("},");
+        }
+        _text = text.substring(0, size);
+
+        _sessions = new ArrayList<>(sessions);
+        for (int i = 0; i < sessions; ++i)
+        {
+            _sessions.add(newSession());
+        }
+    }
+
+    private CoreSession newSession()
+    {
+        List<ExtensionConfig> configs = "none".equals(extension) ? List.of() : List.of(ExtensionConfig.parse(extension));
+        ExtensionStack extensionStack = new ExtensionStack(_components, Behavior.SERVER);
+        extensionStack.negotiate(configs, configs);
+        WebSocketCoreSession session = new WebSocketCoreSession(new DiscardFrameHandler(), Behavior.SERVER, Negotiated.from(extensionStack), _components);
+        WebSocketConnection connection = new WebSocketConnection(new DiscardEndPoint(), _components.getExecutor(), _scheduler,
+            _components.getBufferPool(), RetainableByteBufferPool.from(_components.getBufferPool()), session);
+        session.setWebSocketConnection(connection);
+        connection.getEndPoint().setIdleTimeout(-1);
+        session.onOpen();
+        return session;
+    }
+
+    @TearDown(Level.Trial)
+    public void stopTrial() throws Exception
+    {
+        System.err.printf("%nshared=%d copied=%d compressions=%d%n", _broadcaster.getSharedSends(), _broadcaster.getCopiedSends(), _broadcaster.getCompressions());
+        _scheduler.stop();
+        _components.stop();
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public void testBroadcast() throws Exception
+    {
+        Callback.Completable callback = new Callback.Completable();
+        _broadcaster.broadcast(_sessions, new Frame(OpCode.TEXT, _text), callback);
+        callback.get();
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public void testSendEach() throws Exception
+    {
+        Callback.Completable callback = null;
+        for (CoreSession session : _sessions)
+        {
+            callback = new Callback.Completable();
+            session.sendFrame(new Frame(OpCode.TEXT, _text), callback, false);
+        }
+        if (callback != null)
+            callback.get();
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(BroadcastBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+
+    private static class DiscardEndPoint extends ByteArrayEndPoint
+    {
+        @Override
+        public boolean flush(ByteBuffer... buffers)
+        {
+            for (ByteBuffer buffer : buffers)
+            {
+                buffer.position(buffer.limit());
+            }
+            return true;
+        }
+    }
+
+    private static class DiscardFrameHandler implements FrameHandler
+    {
+        @Override
+        public void onOpen(CoreSession coreSession, Callback callback)
+        {
+            callback.succeeded();
+        }
+
+        @Override
+        public void onFrame(Frame frame, Callback callback)
+        {
+            callback.succeeded();
+        }
+
+        @Override
+        public void onError(Throwable cause, Callback callback)
+        {
+            callback.succeeded();
+        }
+
+        @Override
+        public void onClosed(CloseStatus closeStatus, Callback callback)
+        {
+            callback.succeeded();
+        }
+
+        @Override
+        public boolean isDemanding()
+        {
+            return true;
+        }
+    }
+}
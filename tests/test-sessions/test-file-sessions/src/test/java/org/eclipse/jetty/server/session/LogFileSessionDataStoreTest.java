@@ -0,0 +1,407 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.server.session;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.toolchain.test.jupiter.WorkDir;
+import org.eclipse.jetty.toolchain.test.jupiter.WorkDirExtension;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * LogFileSessionDataStoreTest
+ */
+@ExtendWith(WorkDirExtension.class)
+public class LogFileSessionDataStoreTest extends AbstractSessionDataStoreTest
+{
+    public LogFileSessionDataStoreTest() throws Exception
+    {
+        super();
+    }
+
+    public WorkDir workDir;
+    private File _storeDir;
+    private LogFileSessionDataStore _store;
+
+    @BeforeEach
+    public void before() throws Exception
+    {
+        _storeDir = workDir.getEmptyPathDir().toFile();
+        _store = null;
+    }
+
+    @AfterEach
+    public void after() throws Exception
+    {
+        if (_store != null)
+            _store.stop();
+    }
+
+    @Override
+    public SessionDataStoreFactory createSessionDataStoreFactory()
+    {
+        LogFileSessionDataStoreFactory factory = new LogFileSessionDataStoreFactory()
+        {
+            @Override
+            public SessionDataStore getSessionDataStore(SessionHandler handler)
+            {
+                //remember the store, as the sessions it has indexed are only visible through it
+                _store = (LogFileSessionDataStore)super.getSessionDataStore(handler);
+                return _store;
+            }
+        };
+        factory.setStoreDir(_storeDir);
+        factory.setMaxSegmentSize(4096);
+        return factory;
+    }
+
+    @Override
+    public void persistSession(SessionData data) throws Exception
+    {
+        persist(data, null);
+    }
+
+    @Override
+    public void persistUnreadableSession(SessionData data) throws Exception
+    {
+        persist(data, new SessionDataCodec()
+        {
+            @Override
+            public void encodeAttributes(SessionData data, OutputStream out) throws IOException
+            {
+                out.write(new byte[]{-1, -1, -1, -1});
+            }
+
+            @Override
+            public void decodeAttributes(SessionData data, InputStream in)
+            {
+            }
+        });
+    }
+
+    @Override
+    public boolean checkSessionExists(SessionData data) throws Exception
+    {
+        return load(data) != null;
+    }
+
+    @Override
+    public boolean checkSessionPersisted(SessionData data) throws Exception
+    {
+        SessionData persisted = load(data);
+        assertNotNull(persisted);
+        assertEquals(data.getId(), persisted.getId());
+        assertEquals(data.getContextPath(), persisted.getContextPath());
+        assertEquals(data.getVhost(), persisted.getVhost());
+        assertEquals(data.getLastNode(), persisted.getLastNode());
+        assertEquals(data.getCreated(), persisted.getCreated());
+        assertEquals(data.getAccessed(), persisted.getAccessed());
+        assertEquals(data.getLastAccessed(), persisted.getLastAccessed());
+        assertEquals(data.getCookieSet(), persisted.getCookieSet());
+        assertEquals(data.getExpiry(), persisted.getExpiry());
+        assertEquals(data.getMaxInactiveMs(), persisted.getMaxInactiveMs());
+        assertEquals(data.getKeys(), persisted.getKeys());
+        for (String name : data.getKeys())
+        {
+            assertEquals(data.getAttribute(name), persisted.getAttribute(name));
+        }
+        return true;
+    }
+
+    /**
+     * Write a session to the segment files, through the store of the test if it
+     * is started for the context of the session, otherwise through another store.
+     */
+    private void persist(SessionData data, SessionDataCodec codec) throws Exception
+    {
+        if (codec == null && isIndexed(data))
+        {
+            _store.doStore(data.getId(), data, 0);
+            return;
+        }
+
+        LogFileSessionDataStore store = newStore(data, codec);
+        try
+        {
+            store.doStore(data.getId(), data, 0);
+        }
+        finally
+        {
+            store.stop();
+        }
+    }
+
+    /**
+     * Read a session from the segment files, including when it has expired.
+     */
+    private SessionData load(SessionData data) throws Exception
+    {
+        ClassLoader old = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(_contextClassLoader);
+        try
+        {
+            if (isIndexed(data))
+                return _store.doLoad(data.getId());
+
+            LogFileSessionDataStore store = newStore(data, null);
+            try
+            {
+                return store.doLoad(data.getId());
+            }
+            finally
+            {
+                store.stop();
+            }
+        }
+        finally
+        {
+            Thread.currentThread().setContextClassLoader(old);
+        }
+    }
+
+    private boolean isIndexed(SessionData data)
+    {
+        return _store != null && _store.isStarted() &&
+            _store._context.getCanonicalContextPath().equals(data.getContextPath()) &&
+            _store._context.getVhost().equals(data.getVhost());
+    }
+
+    private LogFileSessionDataStore newStore(SessionData data, SessionDataCodec codec) throws Exception
+    {
+        ServletContextHandler context = new ServletContextHandler(ServletContextHandler.SESSIONS);
+        context.setContextPath(data.getContextPath().replace('_', '/'));
+        if (!SessionContext.NULL_VHOST.equals(data.getVhost()))
+            context.setVirtualHosts(new String[]{data.getVhost()});
+        LogFileSessionDataStore store = new LogFileSessionDataStore();
+        store.setStoreDir(_storeDir);
+        if (codec != null)
+            store.setSessionDataCodec(codec);
+        store.initialize(new SessionContext("foo", context.getServletContext()));
+        store.start();
+        return store;
+    }
+
+    private LogFileSessionDataStore newStore() throws Exception
+    {
+        ServletContextHandler context = new ServletContextHandler(ServletContextHandler.SESSIONS);
+        context.setContextPath("/test");
+        LogFileSessionDataStore store = (LogFileSessionDataStore)createSessionDataStoreFactory().getSessionDataStore(context.getSessionHandler());
+        store.initialize(new SessionContext("foo", context.getServletContext()));
+        store.start();
+        return store;
+    }
+
+    private LogFileSessionDataStore restart() throws Exception
+    {
+        _store.stop();
+        return newStore();
+    }
+
+    private SessionData storeSession(String id, long expiry, Object value) throws Exception
+    {
+        long now = System.currentTimeMillis();
+        SessionData data = _store.newSessionData(id, now, now, now, TimeUnit.MINUTES.toMillis(10));
+        data.setLastNode("node0");
+        data.setExpiry(expiry);
+        data.setAttribute("value", value);
+        _store.store(id, data);
+        return data;
+    }
+
+    @Test
+    public void testStoreLoadRestart() throws Exception
+    {
+        newStore();
+        long expiry = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(10);
+        SessionData data = storeSession("aaa", expiry, "one");
+        data.setAttribute("value", "two");
+        _store.store("aaa", data);
+
+        SessionData loaded = _store.load("aaa");
+        assertNotNull(loaded);
+        assertEquals("two", loaded.getAttribute("value"));
+        assertEquals(expiry, loaded.getExpiry());
+        assertEquals("node0", loaded.getLastNode());
+
+        restart();
+        assertTrue(_store.exists("aaa"));
+        loaded = _store.load("aaa");
+        assertNotNull(loaded);
+        assertEquals("two", loaded.getAttribute("value"));
+        assertEquals(data.getCreated(), loaded.getCreated());
+    }
+
+    @Test
+    public void testDeleteSurvivesRestart() throws Exception
+    {
+        newStore();
+        storeSession("aaa", 0, "one");
+        storeSession("bbb", 0, "two");
+        assertTrue(_store.delete("aaa"));
+        assertFalse(_store.delete("aaa"));
+        assertNull(_store.load("aaa"));
+
+        restart();
+        assertNull(_store.load("aaa"));
+        assertFalse(_store.exists("aaa"));
+        assertEquals("two", _store.load("bbb").getAttribute("value"));
+    }
+
+    @Test
+    public void testGetExpired() throws Exception
+    {
+        newStore();
+        long now = System.currentTimeMillis();
+        storeSession("old", 200, "old");
+        storeSession("recent", now - 1000, "recent");
+        storeSession("live", now + TimeUnit.MINUTES.toMillis(10), "live");
+        storeSession("immortal", 0, "immortal");
+
+        assertThat(_store.doGetExpired(now), containsInAnyOrder("old", "recent"));
+        assertThat(_store.doGetExpired(1000), containsInAnyOrder("old"));
+        Set<String> expired = _store.doCheckExpired(Set.of("live", "recent", "unknown"), now);
+        assertThat(expired, containsInAnyOrder("recent", "unknown"));
+        assertFalse(_store.exists("recent"));
+        assertTrue(_store.exists("immortal"));
+
+        _store.doCleanOrphans(1000);
+        assertNull(_store.load("old"));
+        assertNotNull(_store.load("recent"));
+    }
+
+    @Test
+    public void testCompaction() throws Exception
+    {
+        newStore();
+        String value = String.join("", Collections.nCopies(200, "x"));
+        for (int i = 0; i < 100; ++i)
+        {
+            storeSession("s" + i, 0, value);
+        }
+        int segments = _store.getSegmentCount();
+        for (int i = 0; i < 100; ++i)
+        {
+            if (i % 10 != 0)
+                assertTrue(_store.delete("s" + i));
+        }
+
+        _store.compact();
+        assertThat(_store.getSegmentCount(), lessThan(segments));
+        assertEquals(10, _store.getSessionCount());
+
+        restart();
+        assertEquals(10, _store.getSessionCount());
+        for (int i = 0; i < 100; ++i)
+        {
+            SessionData loaded = _store.load("s" + i);
+            if (i % 10 == 0)
+                assertEquals(value, loaded.getAttribute("value"));
+            else
+                assertNull(loaded);
+        }
+    }
+
+    @Test
+    public void testCompactionDropsTombstones() throws Exception
+    {
+        newStore();
+        //a segment that is never compacted
+        storeSession("keep", 0, String.join("", Collections.nCopies(4000, "k")));
+        String value = String.join("", Collections.nCopies(200, "x"));
+        for (int i = 0; i < 50; ++i)
+        {
+            storeSession("s" + i, 0, value);
+        }
+        for (int i = 0; i < 50; ++i)
+        {
+            assertTrue(_store.delete("s" + i));
+        }
+        //start a new segment after the tombstones
+        storeSession("live", 0, String.join("", Collections.nCopies(4000, "l")));
+
+        Path contextDir = _storeDir.toPath().resolve("_test_0.0.0.0");
+        long activeSize = Files.size(getLastSegment(contextDir));
+        _store.compact();
+
+        //the deleted sessions are no longer in any segment, so the tombstones are dropped
+        assertEquals(2, _store.getSegmentCount());
+        assertEquals(activeSize, Files.size(getLastSegment(contextDir)));
+
+        restart();
+        assertEquals(2, _store.getSessionCount());
+        assertNotNull(_store.load("keep"));
+        assertNotNull(_store.load("live"));
+        for (int i = 0; i < 50; ++i)
+        {
+            assertNull(_store.load("s" + i));
+        }
+    }
+
+    private static Path getLastSegment(Path contextDir) throws IOException
+    {
+        try (Stream<Path> stream = Files.list(contextDir))
+        {
+            return stream.max(Comparator.comparing(Path::toString)).orElseThrow();
+        }
+    }
+
+    @Test
+    public void testTruncatedRecordDiscarded() throws Exception
+    {
+        newStore();
+        storeSession("aaa", 0, "one");
+        storeSession("bbb", 0, "two");
+        _store.stop();
+
+        Path contextDir = _storeDir.toPath().resolve("_test_0.0.0.0");
+        File[] segments = contextDir.toFile().listFiles();
+        assertNotNull(segments);
+        assertEquals(1, segments.length);
+        try (RandomAccessFile file = new RandomAccessFile(segments[0], "rw"))
+        {
+            file.setLength(file.length() - 3);
+        }
+
+        _store = newStore();
+        assertEquals("one", _store.load("aaa").getAttribute("value"));
+        assertNull(_store.load("bbb"));
+
+        storeSession("ccc", 0, "three");
+        restart();
+        assertEquals("three", _store.load("ccc").getAttribute("value"));
+    }
+}
@@ -76,7 +76,7 @@ public class MemcachedTestHelper
         }
 
         @Override
-        public boolean delete(String id) throws Exception
+        public boolean doDelete(String id) throws Exception
         {
             return (_store.remove(id) != null);
         }
@@ -66,7 +66,7 @@ public class TestSessionDataStore extends AbstractSessionDataStore
     }
 
     @Override
-    public boolean delete(String id) throws Exception
+    public boolean doDelete(String id) throws Exception
     {
         return (_map.remove(id) != null);
     }
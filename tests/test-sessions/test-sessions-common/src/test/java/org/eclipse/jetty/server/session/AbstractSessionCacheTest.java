@@ -65,7 +65,7 @@ public abstract class AbstractSessionCacheTest
         }
 
         @Override
-        public boolean delete(String id) throws Exception
+        public boolean doDelete(String id) throws Exception
         {
             _data = null;
             return true;
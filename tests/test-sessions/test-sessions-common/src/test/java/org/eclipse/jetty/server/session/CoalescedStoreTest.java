@@ -0,0 +1,110 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+package org.eclipse.jetty.server.session;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * CoalescedStoreTest
+ *
+ * Test that saves happening within the coalesce period are written once.
+ */
+public class CoalescedStoreTest
+{
+    private static final long COALESCE_PERIOD_MS = 500;
+
+    private Server _server;
+    private TestSessionDataStore _store;
+
+    @BeforeEach
+    public void before() throws Exception
+    {
+        _server = new Server();
+        ServletContextHandler context = new ServletContextHandler(ServletContextHandler.SESSIONS);
+        context.setContextPath("/test");
+        _server.setHandler(context);
+        _server.start();
+
+        _store = new TestSessionDataStore();
+        _store.setCoalescePeriodMs(COALESCE_PERIOD_MS);
+        _store.initialize(new SessionContext("foo", context.getServletContext()));
+        _store.start();
+    }
+
+    @AfterEach
+    public void after() throws Exception
+    {
+        _store.stop();
+        _server.stop();
+    }
+
+    @Test
+    public void testSavesCoalesced() throws Exception
+    {
+        long now = System.currentTimeMillis();
+        SessionData data = _store.newSessionData("aaa1", now, now, now, TimeUnit.MINUTES.toMillis(60));
+        data.setAttribute("count", 0);
+        _store.store("aaa1", data);
+        assertEquals(1, _store._numSaves.get());
+
+        //the saves happening within the period are deferred
+        for (int i = 1; i <= 10; i++)
+        {
+            data.setAttribute("count", i);
+            _store.store("aaa1", data);
+        }
+        assertEquals(1, _store._numSaves.get());
+
+        //and written once at the end of the period
+        awaitSaves(2);
+        Thread.sleep(COALESCE_PERIOD_MS);
+        assertEquals(2, _store._numSaves.get());
+    }
+
+    @Test
+    public void testDeleteDiscardsCoalescedSave() throws Exception
+    {
+        long now = System.currentTimeMillis();
+        SessionData data = _store.newSessionData("aaa2", now, now, now, TimeUnit.MINUTES.toMillis(60));
+        _store.store("aaa2", data);
+        assertEquals(1, _store._numSaves.get());
+
+        data.setAttribute("wibble", "wobble");
+        _store.store("aaa2", data);
+        assertTrue(_store.delete("aaa2"));
+
+        //the deferred save must not write the deleted session back
+        Thread.sleep(2 * COALESCE_PERIOD_MS);
+        assertEquals(1, _store._numSaves.get());
+        assertFalse(_store._map.containsKey("aaa2"));
+    }
+
+    private void awaitSaves(int saves) throws Exception
+    {
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10 * COALESCE_PERIOD_MS);
+        while (_store._numSaves.get() < saves && System.nanoTime() < end)
+        {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -71,7 +71,7 @@ public class DeleteUnloadableSessionTest
         }
 
         @Override
-        public boolean delete(String id)
+        public boolean doDelete(String id)
         {
             if (id.equals(unloadableId))
             {
@@ -54,7 +54,7 @@ public class RequestScopedSessionSaveTest
         }
 
         @Override
-        public boolean delete(String id) throws Exception
+        public boolean doDelete(String id) throws Exception
         {
             return (_map.remove(id) != null);
         }
@@ -73,7 +73,7 @@ public class SessionEvictionFailureTest
         }
 
         @Override
-        public boolean delete(String id) throws Exception
+        public boolean doDelete(String id) throws Exception
         {
             return false;
         }